@@ -0,0 +1,447 @@
+package org.annotationsmox.graphlearner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.function.ToIntFunction;
+
+import org.annotationsmox.graphlearner.node.EpsilonLeafNode;
+import org.annotationsmox.graphlearner.node.LeafNode;
+import org.annotationsmox.graphlearner.node.NestableNode;
+import org.annotationsmox.graphlearner.node.Node;
+import org.annotationsmox.graphlearner.node.ParallelNode;
+import org.annotationsmox.graphlearner.node.RootNode;
+import org.annotationsmox.graphlearner.node.SeriesNode;
+
+/**
+ * Finds the path of an {@link SPGraph} closest to a sequence of leaf nodes without enumerating all
+ * paths of the graph. Returns the same path as comparing the sequence with each path of
+ * {@link SPGraph#allPaths()}, i.e. the first path in that order with the lowest cost.
+ * <p>
+ * The cost of a path is computed from the deltas of a Myers diff, which does not decompose over
+ * the series-parallel structure. The edit distance of the sequence to a path (replacing,
+ * inserting and deleting a node costs 1 each) is a lower bound of that cost, though, and the
+ * minimum edit distance to all paths through a subgraph can be computed by dynamic programming
+ * over the series-parallel structure in time linear in the size of the subgraph and the length of
+ * the sequence. The search builds paths from right to left, choosing a child at each parallel
+ * node, and bounds each partial path by the distance of the sequence to the chosen suffix and the
+ * subgraphs still to choose from. Partial paths whose bound exceeds the cost of a path found so far
+ * are not expanded; the cost itself is only computed for complete paths.
+ * <p>
+ * A best-first search determines the lowest cost; a depth-first search in the order of
+ * {@link SPGraph#allPaths()} then returns the first path with that cost.
+ * <p>
+ * This is a branch-and-bound search, so its worst case is still exponential in the number of
+ * parallel nodes: if the cost exceeds the edit distance on every path, no partial path is pruned.
+ * For example, for a leaf {@code a} followed by {@code k} parallel nodes {@code {p_i|q_i}} and the
+ * sequence {@code x y a}, the edit distance of every path is {@code k+1} but its cost is {@code k+2},
+ * and all 2<sup>k</sup> paths would be expanded, taking about twice as long as enumerating them.
+ * The search therefore gives up once it has expanded an eighth as many states as the graph has
+ * paths (but at least {@value #MIN_EXPANSIONS}), and {@link #find()} returns {@code null}; the
+ * caller then enumerates all paths. In the worst case, finding the closest path takes about an
+ * eighth longer than the enumeration alone.
+ */
+class ClosestPathSearch {
+
+    private static final long MIN_EXPANSIONS = 1024;
+
+    private final SPGraph graph;
+
+    private final Object[] sequence;
+
+    private final ToIntFunction<Path> cost;
+
+    private final Map<PathKey, Integer> costs = new HashMap<>();
+
+    private long stateCount;
+
+    private long remainingExpansions;
+
+    /**
+     * @param graph
+     *            the graph to search
+     * @param nodes
+     *            the leaf nodes of the sequence
+     * @param cost
+     *            the cost of the sequence relative to a path, at least the edit distance between
+     *            the path's non-epsilon leaves and the sequence
+     */
+    public ClosestPathSearch(SPGraph graph, List<Node> nodes, ToIntFunction<Path> cost) {
+        this.graph = graph;
+        this.cost = cost;
+        this.sequence = new Object[nodes.size()];
+        int i = 0;
+        for (Node n : nodes) {
+            sequence[i++] = ((LeafNode) n).getContent();
+        }
+    }
+
+    /**
+     * @return the first closest path in the order of {@link SPGraph#allPaths()}, or {@code null} if
+     *         the search gave up because bounding the partial paths did not prune enough of them
+     */
+    public Path find() {
+        remainingExpansions = Math.max(MIN_EXPANSIONS, pathCount(graph.getRoot()) / 8);
+        State initial = new State(push(null, graph.getRoot().getChild()), initialSuffix(), null);
+        int minCost = findMinimumCost(initial);
+        if (minCost < 0) {
+            return null;
+        }
+        return findFirst(initial, minCost);
+    }
+
+    /**
+     * Best-first search for the lowest cost of all complete paths. Ties are broken in favour of the
+     * state created last, so states of equal bound are expanded depth first and a complete path is
+     * reached after one state per node even if all paths have the same bound.
+     * 
+     * @return the lowest cost, or -1 if the search ran out of expansions
+     */
+    private int findMinimumCost(State initial) {
+        PriorityQueue<State> queue = new PriorityQueue<>((s1, s2) -> s1.bound != s2.bound
+                ? Integer.compare(s1.bound, s2.bound) : Long.compare(s2.order, s1.order));
+        queue.add(initial);
+        int minCost = Integer.MAX_VALUE;
+        while (!queue.isEmpty()) {
+            State state = queue.poll();
+            if (state.bound >= minCost) {
+                break;
+            }
+            if (state.isComplete()) {
+                minCost = Math.min(minCost, costOf(state));
+                continue;
+            }
+            if (remainingExpansions-- <= 0) {
+                return -1;
+            }
+            for (State successor : expand(state)) {
+                if (successor.bound < minCost) {
+                    queue.add(successor);
+                }
+            }
+        }
+        return minCost;
+    }
+
+    /**
+     * Depth-first search for the first complete path with the given cost, in the order of
+     * {@link SPGraph#allPaths()}.
+     * 
+     * @return the path, or {@code null} if the search ran out of expansions
+     */
+    private Path findFirst(State initial, int minCost) {
+        Deque<State> stack = new ArrayDeque<>();
+        stack.push(initial);
+        while (!stack.isEmpty()) {
+            State state = stack.pop();
+            if (state.bound > minCost) {
+                continue;
+            }
+            if (state.isComplete()) {
+                if (costOf(state) == minCost) {
+                    return toPath(state);
+                }
+                continue;
+            }
+            if (remainingExpansions-- <= 0) {
+                return null;
+            }
+            List<State> successors = expand(state);
+            for (int i = successors.size() - 1; i >= 0; i--) {
+                stack.push(successors.get(i));
+            }
+        }
+        throw new IllegalStateException("Could not find a path with cost " + minCost);
+    }
+
+    /**
+     * Removes the rightmost node still to choose from. A leaf is prepended to the suffix; a
+     * parallel node is replaced by each of its children, in order.
+     */
+    private List<State> expand(State state) {
+        Node node = state.prefix.node;
+        Prefix rest = state.prefix.previous;
+        List<State> successors = new ArrayList<>();
+        if (node instanceof LeafNode) {
+            successors.add(new State(rest, prepend((LeafNode) node, state.suffix), state.choice));
+        } else {
+            List<Node> children = ((ParallelNode) node).getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                successors.add(new State(push(rest, children.get(i)), state.suffix,
+                        new Choice((ParallelNode) node, i, state.choice)));
+            }
+        }
+        return successors;
+    }
+
+    /**
+     * Appends the {@code node} to the nodes still to choose from. Series nodes are replaced by
+     * their children, as they do not contain a choice themselves.
+     */
+    private Prefix push(Prefix prefix, Node node) {
+        if (node instanceof SeriesNode) {
+            Prefix result = prefix;
+            for (Node child : ((SeriesNode) node).getChildren()) {
+                result = push(result, child);
+            }
+            return result;
+        }
+        return new Prefix(node, distances(node, prefix == null ? initialPrefix() : prefix.distances), prefix);
+    }
+
+    /**
+     * @param distances
+     *            {@code distances[j]} is the minimum edit distance between the first {@code j}
+     *            elements of the sequence and some path through the nodes to the left of
+     *            {@code node}
+     * @return the same distances, for paths also passing through {@code node}
+     */
+    private int[] distances(Node node, int[] distances) {
+        if (node instanceof EpsilonLeafNode) {
+            return distances;
+        } else if (node instanceof LeafNode) {
+            Object content = ((LeafNode) node).getContent();
+            int[] result = new int[distances.length];
+            result[0] = distances[0] + 1;
+            for (int j = 1; j < distances.length; j++) {
+                int replace = distances[j - 1] + (Objects.equals(content, sequence[j - 1]) ? 0 : 1);
+                result[j] = Math.min(replace, Math.min(distances[j], result[j - 1]) + 1);
+            }
+            return result;
+        } else if (node instanceof SeriesNode || node instanceof RootNode) {
+            int[] result = distances;
+            for (Node child : ((NestableNode) node).getChildren()) {
+                result = distances(child, result);
+            }
+            return result;
+        } else if (node instanceof ParallelNode) {
+            int[] result = null;
+            for (Node child : ((ParallelNode) node).getChildren()) {
+                int[] childDistances = distances(child, distances);
+                if (result == null) {
+                    result = childDistances.clone();
+                } else {
+                    for (int j = 0; j < result.length; j++) {
+                        result[j] = Math.min(result[j], childDistances[j]);
+                    }
+                }
+            }
+            return result;
+        }
+        throw new RuntimeException("Unexpected node type: " + node.getClass());
+    }
+
+    /**
+     * @param suffix
+     *            {@code suffix[j]} is the edit distance between the sequence starting at element
+     *            {@code j} and the chosen suffix
+     * @return the same distances for the suffix starting with {@code leaf}
+     */
+    private int[] prepend(LeafNode leaf, int[] suffix) {
+        if (leaf instanceof EpsilonLeafNode) {
+            return suffix;
+        }
+        Object content = leaf.getContent();
+        int n = sequence.length;
+        int[] result = new int[suffix.length];
+        result[n] = suffix[n] + 1;
+        for (int j = n - 1; j >= 0; j--) {
+            int replace = suffix[j + 1] + (Objects.equals(content, sequence[j]) ? 0 : 1);
+            result[j] = Math.min(replace, Math.min(suffix[j], result[j + 1]) + 1);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of paths through {@code node}, at most {@link Long#MAX_VALUE}
+     */
+    private static long pathCount(Node node) {
+        if (node instanceof ParallelNode) {
+            long count = 0;
+            for (Node child : ((ParallelNode) node).getChildren()) {
+                count += pathCount(child);
+                if (count < 0) {
+                    return Long.MAX_VALUE;
+                }
+            }
+            return count;
+        } else if (node instanceof NestableNode) {
+            long count = 1;
+            for (Node child : ((NestableNode) node).getChildren()) {
+                long childCount = pathCount(child);
+                if (childCount != 0 && count > Long.MAX_VALUE / childCount) {
+                    return Long.MAX_VALUE;
+                }
+                count *= childCount;
+            }
+            return count;
+        }
+        return 1;
+    }
+
+    private int[] initialPrefix() {
+        int[] distances = new int[sequence.length + 1];
+        for (int j = 0; j < distances.length; j++) {
+            distances[j] = j;
+        }
+        return distances;
+    }
+
+    private int[] initialSuffix() {
+        int[] distances = new int[sequence.length + 1];
+        for (int j = 0; j < distances.length; j++) {
+            distances[j] = sequence.length - j;
+        }
+        return distances;
+    }
+
+    private int costOf(State state) {
+        return costs.computeIfAbsent(new PathKey(state.choice), k -> cost.applyAsInt(toPath(k)));
+    }
+
+    private Path toPath(State state) {
+        return toPath(new PathKey(state.choice));
+    }
+
+    /**
+     * @return the complete path, with all nodes in the order of {@link SPGraph#allPaths()}
+     */
+    private Path toPath(PathKey key) {
+        List<Node> nodes = new ArrayList<>();
+        collect(graph.getRoot(), key, nodes);
+        return Path.fromNodes(nodes);
+    }
+
+    private static void collect(Node node, PathKey key, List<Node> nodes) {
+        nodes.add(node);
+        if (node instanceof ParallelNode) {
+            ParallelNode parallel = (ParallelNode) node;
+            for (int i = 0; i < parallel.getChildren().size(); i++) {
+                if (key.contains(parallel.getChildId(i))) {
+                    collect(parallel.getChildren().get(i), key, nodes);
+                    return;
+                }
+            }
+            throw new IllegalStateException("No child chosen at " + node);
+        } else if (node instanceof NestableNode) {
+            for (Node child : ((NestableNode) node).getChildren()) {
+                collect(child, key, nodes);
+            }
+        }
+    }
+
+    /**
+     * The nodes still to choose from, from right to left. Each entry holds the minimum edit
+     * distances of the sequence prefixes to the paths through its node and the nodes to its left.
+     */
+    private static final class Prefix {
+
+        private final Node node;
+
+        private final int[] distances;
+
+        private final Prefix previous;
+
+        private Prefix(Node node, int[] distances, Prefix previous) {
+            this.node = node;
+            this.distances = distances;
+            this.previous = previous;
+        }
+    }
+
+    /**
+     * The child chosen at a parallel node, and the choices made before.
+     */
+    private static final class Choice {
+
+        private final ParallelNode node;
+
+        private final int child;
+
+        private final Choice previous;
+
+        private Choice(ParallelNode node, int child, Choice previous) {
+            this.node = node;
+            this.child = child;
+            this.previous = previous;
+        }
+    }
+
+    /**
+     * A complete path, encoded as the sorted {@link Node#getId() IDs} of the children chosen at
+     * its parallel nodes.
+     */
+    private static final class PathKey {
+
+        private final int[] chosenIds;
+
+        private PathKey(Choice choice) {
+            int count = 0;
+            for (Choice c = choice; c != null; c = c.previous) {
+                count++;
+            }
+            chosenIds = new int[count];
+            for (Choice c = choice; c != null; c = c.previous) {
+                chosenIds[--count] = c.node.getChildId(c.child);
+            }
+            Arrays.sort(chosenIds);
+        }
+
+        private boolean contains(int id) {
+            return Arrays.binarySearch(chosenIds, id) >= 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(chosenIds);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof PathKey && Arrays.equals(chosenIds, ((PathKey) obj).chosenIds);
+        }
+    }
+
+    /**
+     * A partial path: the nodes still to choose from, followed by a chosen suffix.
+     */
+    private final class State {
+
+        private final Prefix prefix;
+
+        private final int[] suffix;
+
+        private final Choice choice;
+
+        /**
+         * The minimum edit distance between the sequence and all completions of this path.
+         */
+        private final int bound;
+
+        private final long order;
+
+        private State(Prefix prefix, int[] suffix, Choice choice) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.choice = choice;
+            this.order = stateCount++;
+            int[] distances = prefix == null ? initialPrefix() : prefix.distances;
+            int bound = Integer.MAX_VALUE;
+            for (int j = 0; j < suffix.length; j++) {
+                bound = Math.min(bound, distances[j] + suffix[j]);
+            }
+            this.bound = bound;
+        }
+
+        private boolean isComplete() {
+            return prefix == null;
+        }
+    }
+
+}
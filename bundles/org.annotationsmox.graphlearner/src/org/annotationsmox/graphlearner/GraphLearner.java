@@ -1,8 +1,12 @@
 package org.annotationsmox.graphlearner;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.annotationsmox.graphlearner.node.EpsilonLeafNode;
 import org.annotationsmox.graphlearner.node.LeafNode;
@@ -37,6 +41,24 @@ public class GraphLearner<T> {
 
     private List<ReorganizationListener> reorganizationListeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * Whether {@link #cost(Patch)} is not overridden, so that the closest path can be searched
+     * instead of enumerating all paths.
+     */
+    private final boolean defaultCost = !overrides(getClass(), "cost", Patch.class);
+
+    /**
+     * Whether {@link #integrate(Path, Sequence)} is not overridden, so that it modifies the graph
+     * only if the sequence differs from the closest path.
+     */
+    private final boolean defaultIntegrate = !overrides(getClass(), "integrate", Path.class, Sequence.class);
+
+    /**
+     * Incremented whenever the graph may have been modified, so that closest paths searched before
+     * can be recognized as outdated.
+     */
+    private int modificationCount;
+
     public void integrateSequence(T... elements) {
         integrateSequence(Sequence.from(elements));
     }
@@ -44,13 +66,113 @@ public class GraphLearner<T> {
     public void integrateSequence(Sequence<T> sequence) {
         if (graph == null) {
             graph = SPGraph.fromSequence(sequence);
-            Path integratedPath = findPathClosestTo(sequence);
-            notifyIntegrationListeners(null, sequence, integratedPath);
+            modificationCount++;
+            if (!integrationListeners.isEmpty()) {
+                Path integratedPath = findPathClosestTo(sequence);
+                notifyIntegrationListeners(null, sequence, integratedPath);
+            }
         } else {
-            Path closestPath = findPathClosestTo(sequence);
-            integrationListeners.forEach(l -> l.notifyClosestPath(closestPath));
-            integrate(closestPath, sequence);
-            notifyIntegrationListeners(closestPath, sequence, findPathClosestTo(sequence));
+            integrateSequence(sequence, findPathClosestTo(sequence));
+        }
+    }
+
+    /**
+     * Integrates the sequences in the given order, resulting in the same graph and notifications as
+     * integrating them one by one by {@link #integrateSequence(Sequence)}, with one thread per
+     * available processor.
+     * 
+     * @see #integrateSequences(List, int)
+     */
+    public void integrateSequences(List<Sequence<T>> sequences) {
+        integrateSequences(sequences, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Integrates the sequences in the given order, resulting in the same graph and notifications as
+     * integrating them one by one by {@link #integrateSequence(Sequence)}.
+     * <p>
+     * The paths closest to the next {@code parallelism} sequences are searched concurrently, while
+     * the graph is not modified. The sequences are then integrated one after the other into their
+     * closest paths, until a sequence modifies the graph. The closest paths of the following
+     * sequences may have changed by then, so they are searched again on the modified graph. Most of
+     * a large number of monitored traces are contained in the graph already and do not modify it, so
+     * their closest paths are searched in parallel.
+     * <p>
+     * The searches call {@link #cost(Patch)} concurrently, so an overriding implementation has to
+     * be thread-safe. If {@link #integrate(Path, Sequence)} is overridden, each integration may
+     * modify the graph, so the sequences are integrated sequentially.
+     * 
+     * @param sequences
+     *            the sequences to integrate
+     * @param parallelism
+     *            the number of threads searching closest paths concurrently; with one thread, the
+     *            sequences are integrated sequentially
+     */
+    public void integrateSequences(List<Sequence<T>> sequences, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism has to be positive");
+        }
+        int next = 0;
+        if (graph == null && !sequences.isEmpty()) {
+            integrateSequence(sequences.get(next++));
+        }
+        if (parallelism == 1 || !defaultIntegrate || sequences.size() - next < 2) {
+            for (Sequence<T> sequence : sequences.subList(next, sequences.size())) {
+                integrateSequence(sequence);
+            }
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, sequences.size() - next));
+        try {
+            while (next < sequences.size()) {
+                List<Sequence<T>> batch = sequences.subList(next, Math.min(sequences.size(), next + parallelism));
+                List<Future<Path>> futures = new ArrayList<>(batch.size());
+                for (Sequence<T> sequence : batch) {
+                    futures.add(pool.submit(() -> findPathClosestTo(sequence)));
+                }
+                List<Path> closestPaths = new ArrayList<>(batch.size());
+                for (Future<Path> future : futures) {
+                    closestPaths.add(future.get());
+                }
+
+                // the first closest path is searched on the current graph, the others as long as
+                // the graph is not modified
+                int searchedModificationCount = modificationCount;
+                for (int i = 0; i < batch.size() && modificationCount == searchedModificationCount; i++) {
+                    integrateSequence(batch.get(i), closestPaths.get(i));
+                    next++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while searching closest paths", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Could not search closest path", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Integrates {@code sequence} into {@code closestPath}, which has to be the path closest to
+     * the sequence in the current graph.
+     */
+    private void integrateSequence(Sequence<T> sequence, Path closestPath) {
+        integrationListeners.forEach(l -> l.notifyClosestPath(closestPath));
+        int integratedModificationCount = modificationCount;
+        integrate(closestPath, sequence);
+        if (!defaultIntegrate) {
+            modificationCount++;
+        }
+        if (!integrationListeners.isEmpty()) {
+            // an unmodified graph still has the same closest path
+            Path combinedPath = modificationCount == integratedModificationCount ? closestPath
+                    : findPathClosestTo(sequence);
+            notifyIntegrationListeners(closestPath, sequence, combinedPath);
         }
     }
 
@@ -97,12 +219,34 @@ public class GraphLearner<T> {
     }
 
     /**
-     * Finds and returns the path closest to the specified path.
+     * Finds and returns the path closest to the specified path. If several paths are equally
+     * close, the first of them in the order of {@link SPGraph#allPaths()} is returned.
      * 
      * @param path
      * @return
      */
     public Path findPathClosestTo(List<Node> nodes) {
+        if (!defaultCost) {
+            // the search relies on the edit distance being a lower bound of the cost
+            return findPathClosestToByEnumeration(nodes);
+        }
+        Path closestPath = new ClosestPathSearch(graph, nodes, p -> cost(diff(p, nodes))).find();
+        if (closestPath == null) {
+            // the search did not prune enough paths to be faster than the enumeration
+            return findPathClosestToByEnumeration(nodes);
+        }
+        return closestPath;
+    }
+
+    /**
+     * Finds and returns the path closest to the specified path by comparing the path with each
+     * path of the graph. Takes time exponential in the number of parallel nodes.
+     * 
+     * @param nodes
+     *            the leaf nodes of the sequence
+     * @return the first closest path in the order of {@link SPGraph#allPaths()}
+     */
+    public Path findPathClosestToByEnumeration(List<Node> nodes) {
         List<Path> paths = graph.allPaths();
         if (LOG.isDebugEnabled()) {
             LOG.debug("Collected paths: " + paths);
@@ -110,9 +254,7 @@ public class GraphLearner<T> {
         int minCost = Integer.MAX_VALUE;
         Path minPath = null;
         for (Path p : paths) {
-            Patch<Node> patch = DiffUtils.diff(p.excludeNonLeaves().excludeEpsilon().getNodes(), nodes,
-                    new NodeEqualiser());
-            int cost = cost(patch);
+            int cost = cost(diff(p, nodes));
             if (cost < minCost) {
                 minCost = cost;
                 minPath = p;
@@ -121,11 +263,18 @@ public class GraphLearner<T> {
         return minPath;
     }
 
+    private Patch<Node> diff(Path path, List<Node> nodes) {
+        return DiffUtils.diff(path.excludeNonLeaves().excludeEpsilon().getNodes(), nodes, new NodeEqualiser());
+    }
+
     public Path findPathClosestTo(Sequence<T> sequence) {
         return findPathClosestTo(Node.from(sequence));
     }
 
     // TODO cost calculation could be improved
+    // the edit distance between both sides of the patch must not exceed the cost (see
+    // ClosestPathSearch), so subclasses overriding this method fall back to enumerating all paths;
+    // it is called concurrently by integrateSequences, so overrides have to be thread-safe
     protected int cost(Patch<Node> patch) {
         int cost = 0;
         for (Delta<Node> d : patch.getDeltas()) {
@@ -134,6 +283,18 @@ public class GraphLearner<T> {
         return cost;
     }
 
+    private static boolean overrides(Class<?> learnerClass, String methodName, Class<?>... parameterTypes) {
+        for (Class<?> c = learnerClass; c != GraphLearner.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod(methodName, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // not overridden here
+            }
+        }
+        return false;
+    }
+
     public boolean contains(Path path) {
         Path closestPath = findPathClosestTo(path.getNodes());
         Patch<Node> patch = differences(closestPath, path);
@@ -146,6 +307,9 @@ public class GraphLearner<T> {
         }
 
         Patch<Node> patch = differences(closestPath, sequence);
+        if (!patch.getDeltas().isEmpty()) {
+            modificationCount++;
+        }
         for (Delta<Node> delta : patch.getDeltas()) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Delta: " + delta);
@@ -284,16 +448,13 @@ public class GraphLearner<T> {
      *         respect to the predecessor-successor relationship.
      */
     private List<Path> groupBySiblings(List<Node> node) {
-        List<Path> siblingGroups = new LinkedList<>();
+        List<Path> siblingGroups = new ArrayList<>();
         Node lastNode = null;
-        List<Node> currentGroup = null;
+        Path currentGroup = null;
         for (Node currentNode : node) {
-            if (lastNode == null) {
-                currentGroup = new LinkedList<>();
-                siblingGroups.add(Path.fromNodes(currentGroup));
-            } else if (!areSiblings(lastNode, currentNode)) {
-                currentGroup = new LinkedList<>();
-                siblingGroups.add(Path.fromNodes(currentGroup));
+            if (lastNode == null || !areSiblings(lastNode, currentNode)) {
+                currentGroup = Path.emptyPath();
+                siblingGroups.add(currentGroup);
             }
             currentGroup.add(currentNode);
             lastNode = currentNode;
@@ -309,9 +470,7 @@ public class GraphLearner<T> {
         if (!nodeOne.getParent().equals(nodeTwo.getParent())) {
             return false;
         }
-        int idxOne = nodeOne.getParent().getChildren().indexOf(nodeOne);
-        int idxTwo = nodeTwo.getParent().getChildren().indexOf(nodeTwo);
-        int distance = Math.abs(idxOne - idxTwo);
+        int distance = Math.abs(nodeOne.childIndex() - nodeTwo.childIndex());
         return distance == 1;
     }
 
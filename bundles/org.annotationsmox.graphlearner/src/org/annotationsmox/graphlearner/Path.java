@@ -2,20 +2,46 @@ package org.annotationsmox.graphlearner;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Predicate;
 
 import org.annotationsmox.graphlearner.node.EpsilonLeafNode;
 import org.annotationsmox.graphlearner.node.LeafNode;
 import org.annotationsmox.graphlearner.node.NestableNode;
 import org.annotationsmox.graphlearner.node.Node;
 
+/**
+ * A sequence of nodes. Paths are extended by {@link #add(Node)} and are otherwise immutable.
+ * <p>
+ * A path is stored as an array of nodes, followed by the nodes added since, linked from the last to
+ * the first. Clones share both, so that cloning a path and extending each clone, as done for each
+ * branch when enumerating paths, does not copy the nodes the clones have in common.
+ */
 public class Path implements Cloneable {
 
-    private List<Node> nodes = new ArrayList<>();
+    private static final Node[] NO_NODES = new Node[0];
+
+    /**
+     * The first nodes of the path. Never modified, as it may be shared with other paths.
+     */
+    private Node[] nodes;
+
+    /**
+     * The nodes following {@link #nodes}, from the last to the first; {@code null}, if there are
+     * none.
+     */
+    private Cell added;
+
+    private int size;
 
     public Path() {
-        nodes = new ArrayList<>();
+        nodes = NO_NODES;
+    }
+
+    private Path(Node[] nodes) {
+        this.nodes = nodes;
+        this.size = nodes.length;
     }
 
     public static Path emptyPath() {
@@ -23,7 +49,8 @@ public class Path implements Cloneable {
     }
 
     public void add(Node node) {
-        nodes.add(node);
+        added = new Cell(node, added);
+        size++;
     }
 
     public static Path commonPrefix(List<Path> pathList) {
@@ -73,22 +100,25 @@ public class Path implements Cloneable {
         return commonPrefix(pathList);
     }
 
+    /**
+     * @param nodes
+     *            the nodes of the path, which must not be modified afterwards
+     */
     public static Path fromNodes(Node... nodes) {
-        return fromNodes(Arrays.asList(nodes));
+        return new Path(nodes);
     }
 
     public static <T> Path fromSequence(Sequence<T> sequence) {
-        List<Node> nodes = new LinkedList<>();
+        Node[] nodes = new Node[sequence.size()];
+        int i = 0;
         for (T e : sequence) {
-            nodes.add(new LeafNode(e));
+            nodes[i++] = new LeafNode(e);
         }
-        return fromNodes(nodes);
+        return new Path(nodes);
     }
 
     public static Path fromNodes(List<Node> nodes) {
-        Path path = new Path();
-        path.nodes = nodes;
-        return path;
+        return new Path(nodes.toArray(NO_NODES));
     }
 
     @Override
@@ -97,20 +127,40 @@ public class Path implements Cloneable {
         return this.getNodes().toString();
     }
 
+    /**
+     * @return the nodes of this path, as an unmodifiable list
+     */
     public List<Node> getNodes() {
-        return nodes;
+        return Collections.unmodifiableList(Arrays.asList(toArray()));
     }
 
     public int size() {
-        return nodes.size();
+        return size;
     }
 
     public boolean isEmpty() {
-        return nodes.isEmpty();
+        return size == 0;
     }
 
     public Node first() {
-        return nodes.get(0);
+        return toArray()[0];
+    }
+
+    /**
+     * Copies the added nodes into a single array, which then replaces the nodes and added nodes of
+     * this path.
+     */
+    private Node[] toArray() {
+        if (added != null) {
+            Node[] result = Arrays.copyOf(nodes, size);
+            int i = size;
+            for (Cell c = added; c != null; c = c.previous) {
+                result[--i] = c.node;
+            }
+            nodes = result;
+            added = null;
+        }
+        return nodes;
     }
 
     /**
@@ -123,7 +173,11 @@ public class Path implements Cloneable {
      * @return
      */
     public Path subPath(int fromIndex, int toIndex) {
-        return fromNodes(nodes.subList(fromIndex, toIndex));
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                    "Cannot get sub path from " + fromIndex + " to " + toIndex + " of path of size " + size);
+        }
+        return new Path(Arrays.copyOfRange(toArray(), fromIndex, toIndex));
     }
 
     /**
@@ -133,43 +187,53 @@ public class Path implements Cloneable {
      * @return
      */
     public Path subPathStartingAt(int fromIndex) {
-        return subPath(fromIndex, nodes.size());
+        return subPath(fromIndex, size);
     }
 
     // TODO better use visitor to avoid instanceof?
     public Path excludeEpsilon() {
-        List<Node> result = new ArrayList<>();
-        for (Node n : getNodes()) {
-            if (!(n instanceof EpsilonLeafNode)) {
-                result.add(n);
-            }
-        }
-        return fromNodes(result);
+        return filter(n -> !(n instanceof EpsilonLeafNode));
     }
 
     // TODO better use visitor to avoid instanceof?
     public Path excludeNonLeaves() {
-        List<Node> result = new ArrayList<>();
-        for (Node n : getNodes()) {
-            if (!(n instanceof NestableNode)) {
-                result.add(n);
+        return filter(n -> !(n instanceof NestableNode));
+    }
+
+    /**
+     * @return a path of the nodes accepted by {@code include}, collected from the last to the first
+     *         node so that the added nodes need not be copied into an array first
+     */
+    private Path filter(Predicate<Node> include) {
+        Node[] result = new Node[size];
+        int i = size;
+        for (Cell c = added; c != null; c = c.previous) {
+            if (include.test(c.node)) {
+                result[--i] = c.node;
             }
         }
-        return fromNodes(result);
+        for (int j = nodes.length - 1; j >= 0; j--) {
+            if (include.test(nodes[j])) {
+                result[--i] = nodes[j];
+            }
+        }
+        return new Path(i == 0 ? result : Arrays.copyOfRange(result, i, size));
     }
 
+    /**
+     * @return a path sharing the nodes with this path, which can be extended independently of this
+     *         path; takes constant time
+     */
     @Override
     public Path clone() throws CloneNotSupportedException {
-        Path cloned = new Path();
-        cloned.nodes = new ArrayList<>(nodes);
-        return cloned;
+        return (Path) super.clone();
     }
 
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + ((nodes == null) ? 0 : nodes.hashCode());
+        result = prime * result + getNodes().hashCode();
         return result;
     }
 
@@ -182,12 +246,26 @@ public class Path implements Cloneable {
         if (getClass() != obj.getClass())
             return false;
         Path other = (Path) obj;
-        if (nodes == null) {
-            if (other.nodes != null)
-                return false;
-        } else if (!nodes.equals(other.nodes))
+        if (size != other.size)
+            return false;
+        if (!Arrays.equals(toArray(), other.toArray()))
             return false;
         return true;
     }
 
+    /**
+     * A node added to a path, linked to the node added before.
+     */
+    private static final class Cell {
+
+        private final Node node;
+
+        private final Cell previous;
+
+        private Cell(Node node, Cell previous) {
+            this.node = node;
+            this.previous = previous;
+        }
+    }
+
 }
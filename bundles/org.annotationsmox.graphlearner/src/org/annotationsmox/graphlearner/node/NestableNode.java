@@ -1,13 +1,22 @@
 package org.annotationsmox.graphlearner.node;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 public abstract class NestableNode extends Node {
 
+    private static final int[] NO_IDS = new int[0];
+
     protected List<Node> children;
 
+    /**
+     * The {@link Node#getId() IDs} of the children, in the same order; maintained together with
+     * the children's positions. May be longer than {@link #children}.
+     */
+    private int[] childIds = NO_IDS;
+
     public NestableNode() {
         children = new ArrayList<>();
     }
@@ -17,17 +26,19 @@ public abstract class NestableNode extends Node {
     }
 
     public void addChild(int index, Node node) {
-        if (children.contains(node)) {
+        if (contains(node)) {
             throw new IllegalStateException("Cannot add node because it is already a child: " + node);
         }
         adjustParent(node, this);
         children.add(index, node);
+        updateIndices(index);
     }
 
     private static void adjustParent(Node node, NestableNode newParent) {
         // remove node from current parent's children
         if (node.parent != null && node.parent != newParent) {
-            node.parent.children.remove(node);
+            node.parent.children.remove(node.index);
+            node.parent.updateIndices(node.index);
         }
 
         // set node's new parent
@@ -35,18 +46,63 @@ public abstract class NestableNode extends Node {
     }
 
     public void removeChild(Node node) {
-        if (!children.contains(node)) {
+        if (!contains(node)) {
             throw new IllegalStateException("Cannot remove node because it is no child: " + node);
         }
 
-        children.remove(node);
+        int index = node.index;
+        children.remove(index);
+        updateIndices(index);
         node.parent = null;
+        node.index = -1;
     }
 
     protected void replaceChild(Node child, Node substitute) {
-        children.set(children.indexOf(child), substitute);
+        int index = child.index;
+        children.set(index, substitute);
         child.parent = null;
+        child.index = -1;
         substitute.parent = this;
+        substitute.index = index;
+        childIds[index] = substitute.getId();
+    }
+
+    /**
+     * @return true, if one of the children equals {@code node}, i.e. the child at the position of
+     *         {@code node} in its own parent
+     */
+    private boolean contains(Node node) {
+        int index = node.index;
+        if (index < 0 || index >= children.size()) {
+            return false;
+        }
+        Node child = children.get(index);
+        return child == node || child.equals(node);
+    }
+
+    /**
+     * Updates the positions and IDs of the children starting at {@code fromIndex}.
+     */
+    private void updateIndices(int fromIndex) {
+        if (childIds.length < children.size()) {
+            childIds = Arrays.copyOf(childIds, Math.max(4, 2 * children.size()));
+        }
+        for (int i = fromIndex; i < children.size(); i++) {
+            Node child = children.get(i);
+            child.index = i;
+            childIds[i] = child.getId();
+        }
+    }
+
+    /**
+     * @return the {@link Node#getId() ID} of the child at position {@code index}, without
+     *         accessing the child itself
+     */
+    public int getChildId(int index) {
+        if (index < 0 || index >= children.size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + children.size() + " children");
+        }
+        return childIds[index];
     }
 
     public List<Node> getChildren() {
@@ -1,13 +1,13 @@
 package org.annotationsmox.graphlearner.node;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.annotationsmox.graphlearner.Path;
 import org.annotationsmox.graphlearner.ReturnOrientedVisitor;
@@ -20,9 +20,31 @@ public abstract class Node {
     private static final int INSERT_BEFORE = 0;
     private static final int INSERT_AFTER = 1;
 
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final int id = NEXT_ID.getAndIncrement();
+
     protected NestableNode parent;
 
-    private Map<Object, Object> attributes = new HashMap<>();
+    /**
+     * The position of this node among its parent's children, maintained by the parent; -1, if this
+     * node has no parent.
+     */
+    int index = -1;
+
+    /**
+     * Created on demand, as most nodes do not have attributes.
+     */
+    private Map<Object, Object> attributes;
+
+    /**
+     * @return an identifier unique among all nodes, which does not change when the node is moved.
+     *         Unlike {@link #equals(Object)}, which compares the positions of nodes in their
+     *         graphs, it identifies the node itself.
+     */
+    public int getId() {
+        return id;
+    }
 
     public NestableNode getParent() {
         return parent;
@@ -68,23 +90,15 @@ public abstract class Node {
             throw new IllegalStateException("Cannot insert before/after " + node + " because that node has no parent");
         }
         NestableNode newParent = node.getParent();
-        newParent.addChild(newParent.getChildren().indexOf(node) + position, this);
+        newParent.addChild(node.childIndex() + position, this);
     }
 
-    private int childIndex() {
-        if (parent == null) {
-            return -1;
-        } else {
-            int i = 0;
-            for (Node sibling : parent.children) {
-                // dont't use equals to avoid stack overflow error!
-                if (sibling == this) {
-                    return i;
-                }
-                i++;
-            }
-            throw new RuntimeException("Could not find this node in parent's collection of children");
-        }
+    /**
+     * @return the position of this node among its parent's children; -1, if this node has no
+     *         parent
+     */
+    public int childIndex() {
+        return index;
     }
 
     public void insertSeriesSuccessor(Node successor) {
@@ -103,13 +117,14 @@ public abstract class Node {
     }
 
     public Path pathToRoot() {
-        List<Node> nodes = new LinkedList<>();
-        Node currentNode = this;
-        while (currentNode != null) {
-            nodes.add(currentNode);
-            currentNode = currentNode.getParent();
+        int depth = 0;
+        for (Node currentNode = this; currentNode != null; currentNode = currentNode.getParent()) {
+            depth++;
+        }
+        Node[] nodes = new Node[depth];
+        for (Node currentNode = this; currentNode != null; currentNode = currentNode.getParent()) {
+            nodes[--depth] = currentNode;
         }
-        Collections.reverse(nodes);
         return Path.fromNodes(nodes);
     }
 
@@ -179,12 +194,10 @@ public abstract class Node {
                     continue;
                 }
                 NestableNode parent = sr.getParent();
-                List<Node> siblings = new ArrayList<>(parent.getChildren());
-                siblings.remove(sr); // remove self
                 if (sr.getParent() instanceof ParallelNode) {
                     subtreeRootsNext.add(parent);
                 } else if (sr.getParent() instanceof SeriesNode) {
-                    if (subtreeRoots.containsAll(siblings)) {
+                    if (containsSiblings(subtreeRoots, sr)) {
                         if (!subtreeRootsNext.contains(parent)) {
                             subtreeRootsNext.add(parent);
                         }
@@ -219,6 +232,19 @@ public abstract class Node {
         return new LinkedList<>(subtreeRoots);
     }
 
+    /**
+     * @return true, if {@code nodes} contains all siblings of {@code node}, except {@code node}
+     *         itself
+     */
+    private static boolean containsSiblings(LinkedHashSet<Node> nodes, Node node) {
+        for (Node sibling : node.getParent().children) {
+            if (sibling != node && !nodes.contains(sibling)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     // public static List<Node> findCompletelyCoveredSubtrees(Node node, Node... nodes) {
     // List<Node> nodeList = new LinkedList<>();
     // nodeList.add(node);
@@ -229,11 +255,11 @@ public abstract class Node {
     // }
 
     public Object getAttribute(Object key) {
-        return attributes.get(key);
+        return attributes == null ? null : attributes.get(key);
     }
 
     public void copyAttributesFrom(Node node) {
-        attributes = new HashMap<>(node.attributes);
+        attributes = node.attributes == null ? null : new HashMap<>(node.attributes);
     }
 
     /**
@@ -243,6 +269,9 @@ public abstract class Node {
      * @param value
      */
     public void setAttribute(Object key, Object value) {
+        if (attributes == null) {
+            attributes = new HashMap<>();
+        }
         attributes.put(key, value);
     }
 
@@ -275,13 +304,13 @@ public abstract class Node {
     }
 
     public static List<Node> asList(Node node) {
-        List<Node> list = new LinkedList<>();
+        List<Node> list = new ArrayList<>(1);
         list.add(node);
         return list;
     }
 
     public static <T> List<Node> from(Sequence<T> sequence) {
-        List<Node> nodes = new LinkedList<>();
+        List<Node> nodes = new ArrayList<>(sequence.size());
         for (T e : sequence) {
             nodes.add(new LeafNode(e));
         }
@@ -0,0 +1,205 @@
+package org.annotationsmox.graphlearner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.annotationsmox.graphlearner.node.Node;
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import difflib.Patch;
+
+/**
+ * Compares the graphs learned by {@link GraphLearner#integrateSequences(List, int)} with the graphs
+ * learned by integrating the same sequences one by one, for random sequences.
+ */
+public class TestBatchIntegration {
+
+    private static final String[] ALPHABET = { "A", "B", "C", "D", "E" };
+
+    @BeforeClass
+    public static void setup() {
+        // log4j basic setup
+        BasicConfigurator.configure();
+        Logger.getRootLogger().setLevel(Level.INFO);
+    }
+
+    @Test
+    public void testSameGraphAsSequentialIntegration() {
+        Random random = new Random(11);
+        for (int graph = 0; graph < 100; graph++) {
+            List<Sequence<String>> sequences = randomSequences(random, 1 + random.nextInt(30));
+            for (int parallelism : new int[] { 1, 2, 4 }) {
+                assertSameAsSequential(new GraphLearner<>(), new GraphLearner<>(), sequences, parallelism);
+            }
+        }
+    }
+
+    @Test
+    public void testSameGraphAsSequentialIntegrationByEnumeration() {
+        Random random = new Random(5);
+        for (int graph = 0; graph < 50; graph++) {
+            List<Sequence<String>> sequences = randomSequences(random, 1 + random.nextInt(20));
+            assertSameAsSequential(new EnumeratingGraphLearner<>(), new EnumeratingGraphLearner<>(), sequences, 3);
+        }
+    }
+
+    @Test
+    public void testIntegrateIntoExistingGraph() {
+        GraphLearner<String> sequentialLearner = new GraphLearner<>();
+        GraphLearner<String> batchLearner = new GraphLearner<>();
+        sequentialLearner.integrateSequence("A", "B", "C");
+        batchLearner.integrateSequence("A", "B", "C");
+        List<Sequence<String>> sequences = Arrays.asList(Sequence.from("A", "B", "C"), Sequence.from("A", "C"),
+                Sequence.from("A", "B", "C"), Sequence.from("A", "D", "C"), Sequence.from("A", "C"));
+        assertSameAsSequential(sequentialLearner, batchLearner, sequences, 4);
+        Assert.assertEquals("A[[B|]|D]C", batchLearner.getGraph().toString());
+    }
+
+    @Test
+    public void testOverriddenIntegrationIsSequential() {
+        Random random = new Random(3);
+        for (int graph = 0; graph < 20; graph++) {
+            List<Sequence<String>> sequences = randomSequences(random, 2 + random.nextInt(20));
+            IntegratingGraphLearner<String> batchLearner = new IntegratingGraphLearner<>();
+            assertSameAsSequential(new IntegratingGraphLearner<>(), batchLearner, sequences, 4);
+            Assert.assertEquals(Collections.singleton(Thread.currentThread()), batchLearner.costThreads);
+        }
+    }
+
+    @Test
+    public void testEmptyBatch() {
+        GraphLearner<String> learner = new GraphLearner<>();
+        learner.integrateSequences(new ArrayList<>(), 2);
+        Assert.assertNull(learner.getGraph());
+    }
+
+    private static void assertSameAsSequential(GraphLearner<String> sequentialLearner,
+            GraphLearner<String> batchLearner, List<Sequence<String>> sequences, int parallelism) {
+        List<String> sequentialScript = new ArrayList<>();
+        List<String> batchScript = new ArrayList<>();
+        sequentialLearner.addDiffListener(new RecordingListener(sequentialScript));
+        sequentialLearner.addIntegrationListener(new RecordingListener(sequentialScript));
+        batchLearner.addDiffListener(new RecordingListener(batchScript));
+        batchLearner.addIntegrationListener(new RecordingListener(batchScript));
+
+        for (Sequence<String> sequence : sequences) {
+            sequentialLearner.integrateSequence(sequence);
+        }
+        batchLearner.integrateSequences(sequences, parallelism);
+
+        String message = sequences + " with parallelism " + parallelism;
+        Assert.assertEquals(message, sequentialLearner.getGraph().toString(), batchLearner.getGraph().toString());
+        Assert.assertEquals(message, TestUtils.pathToSetOfStrings(sequentialLearner.getGraph().allPaths()),
+                TestUtils.pathToSetOfStrings(batchLearner.getGraph().allPaths()));
+        Assert.assertEquals(message, sequentialScript, batchScript);
+    }
+
+    /**
+     * @return variants of a few random sequences, so that many of them are contained in the graph
+     *         by the time they are integrated
+     */
+    private static List<Sequence<String>> randomSequences(Random random, int count) {
+        List<List<String>> bases = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            List<String> base = new ArrayList<>();
+            for (int j = 0; j < 1 + random.nextInt(8); j++) {
+                base.add(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+            bases.add(base);
+        }
+        List<Sequence<String>> sequences = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            List<String> elements = new ArrayList<>(bases.get(random.nextInt(bases.size())));
+            if (random.nextInt(3) == 0) {
+                int position = random.nextInt(elements.size());
+                if (random.nextBoolean() && elements.size() > 1) {
+                    elements.remove(position);
+                } else {
+                    elements.set(position, ALPHABET[random.nextInt(ALPHABET.length)]);
+                }
+            }
+            sequences.add(Sequence.from(elements.toArray(new String[0])));
+        }
+        return sequences;
+    }
+
+    /**
+     * Overrides the cost function, which makes the learner enumerate all paths.
+     */
+    private static class EnumeratingGraphLearner<T> extends GraphLearner<T> {
+        @Override
+        protected int cost(Patch<Node> patch) {
+            return super.cost(patch);
+        }
+    }
+
+    /**
+     * Overrides the integration, which makes each integration count as a modification of the graph,
+     * and records the threads computing costs.
+     */
+    private static class IntegratingGraphLearner<T> extends GraphLearner<T> {
+
+        private final Set<Thread> costThreads = ConcurrentHashMap.newKeySet();
+
+        @Override
+        protected void integrate(Path closestPath, Sequence<T> sequence) {
+            super.integrate(closestPath, sequence);
+        }
+
+        @Override
+        protected int cost(Patch<Node> patch) {
+            costThreads.add(Thread.currentThread());
+            return super.cost(patch);
+        }
+    }
+
+    private static class RecordingListener implements DiffListener, PathIntegrationListener {
+
+        private final List<String> script;
+
+        public RecordingListener(List<String> script) {
+            this.script = script;
+        }
+
+        @Override
+        public void notifyIntegration(Path originalPath, Sequence<?> addPath, Path combinedPath) {
+            script.add("integration " + originalPath + " " + addPath + " " + combinedPath);
+        }
+
+        @Override
+        public void notifyClosestPath(Path path) {
+            script.add("closestPath " + path);
+        }
+
+        @Override
+        public void change(Path original, List<Node> revised) {
+            script.add("change " + original + " " + revised);
+        }
+
+        @Override
+        public void delete(Path path) {
+            script.add("delete " + path);
+        }
+
+        @Override
+        public void insertAfter(Node reference, List<Node> insertNodes) {
+            script.add("insertAfter " + reference + " " + insertNodes);
+        }
+
+        @Override
+        public void insertBefore(Node reference, List<Node> insertNodes) {
+            script.add("insertBefore " + reference + " " + insertNodes);
+        }
+    }
+
+}
@@ -0,0 +1,178 @@
+package org.annotationsmox.graphlearner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.annotationsmox.graphlearner.node.Node;
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import difflib.Patch;
+
+/**
+ * Compares the closest paths found by {@link ClosestPathSearch} with the closest paths found by
+ * enumerating all paths of the graph, for randomly learned graphs and random sequences.
+ */
+public class TestClosestPath {
+
+    private static final String[] ALPHABET = { "A", "B", "C", "D", "E" };
+
+    @BeforeClass
+    public static void setup() {
+        // log4j basic setup
+        BasicConfigurator.configure();
+        Logger.getRootLogger().setLevel(Level.INFO);
+    }
+
+    @Test
+    public void testSameClosestPathAsEnumeration() {
+        Random random = new Random(42);
+        for (int graph = 0; graph < 200; graph++) {
+            GraphLearner<String> learner = new GraphLearner<>();
+            int sequences = 1 + random.nextInt(8);
+            for (int i = 0; i < sequences; i++) {
+                learner.integrateSequence(randomSequence(random, 1 + random.nextInt(8)));
+            }
+            for (int i = 0; i < 20; i++) {
+                List<Node> nodes = Node.from(randomSequence(random, random.nextInt(10)));
+                Path expected = learner.findPathClosestToByEnumeration(nodes);
+                Path actual = learner.findPathClosestTo(nodes);
+                assertSameNodes(learner.getGraph() + " " + nodes, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testSameGraphAsEnumeration() {
+        Random random = new Random(7);
+        for (int graph = 0; graph < 200; graph++) {
+            GraphLearner<String> learner = new GraphLearner<>();
+            GraphLearner<String> enumeratingLearner = new EnumeratingGraphLearner<>();
+            List<String> script = new ArrayList<>();
+            List<String> enumeratingScript = new ArrayList<>();
+            learner.addDiffListener(new RecordingDiffListener(script));
+            enumeratingLearner.addDiffListener(new RecordingDiffListener(enumeratingScript));
+            int sequences = 1 + random.nextInt(10);
+            for (int i = 0; i < sequences; i++) {
+                Sequence<String> sequence = randomSequence(random, 1 + random.nextInt(8));
+                learner.integrateSequence(sequence);
+                enumeratingLearner.integrateSequence(sequence);
+                Assert.assertEquals(enumeratingLearner.getGraph().toString(), learner.getGraph().toString());
+            }
+            Assert.assertEquals(enumeratingScript, script);
+        }
+    }
+
+    @Test
+    public void testManyParallelBranches() {
+        GraphLearner<String> learner = new GraphLearner<>();
+        int branches = 24;
+        List<String> base = new ArrayList<>();
+        for (int i = 0; i < branches; i++) {
+            base.add("X" + i);
+        }
+        learner.integrateSequence(Sequence.from(base.toArray(new String[0])));
+        for (int i = 0; i < branches; i++) {
+            List<String> variant = new ArrayList<>(base);
+            variant.set(i, "Y" + i);
+            learner.integrateSequence(Sequence.from(variant.toArray(new String[0])));
+        }
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < branches; i++) {
+            expected.add(i % 3 == 0 ? "Y" + i : "X" + i);
+        }
+        Path closestPath = learner.findPathClosestTo(Node.from(Sequence.from(expected.toArray(new String[0]))));
+        Assert.assertEquals(expected.toString(), TestUtils.pathToString(closestPath));
+
+        // all paths have the same cost, so the first one is returned
+        List<String> unrelated = new ArrayList<>();
+        for (int i = 0; i < branches; i++) {
+            unrelated.add("Z" + i);
+        }
+        closestPath = learner.findPathClosestTo(Node.from(Sequence.from(unrelated.toArray(new String[0]))));
+        Assert.assertEquals(base.toString(), TestUtils.pathToString(closestPath));
+    }
+
+    @Test
+    public void testCostAboveEditDistanceOnAllPaths() {
+        // the edit distance of each path to the sequence is one less than its cost, so the search
+        // prunes no path and falls back to the enumeration
+        GraphLearner<String> learner = new GraphLearner<>();
+        int branches = 12;
+        List<String> base = new ArrayList<>();
+        base.add("A");
+        for (int i = 0; i < branches; i++) {
+            base.add("P" + i);
+        }
+        learner.integrateSequence(Sequence.from(base.toArray(new String[0])));
+        for (int i = 0; i < branches; i++) {
+            List<String> variant = new ArrayList<>(base);
+            variant.set(i + 1, "Q" + i);
+            learner.integrateSequence(Sequence.from(variant.toArray(new String[0])));
+        }
+        List<Node> nodes = Node.from(Sequence.from("X", "Y", "A"));
+        assertSameNodes(learner.getGraph() + " " + nodes, learner.findPathClosestToByEnumeration(nodes),
+                learner.findPathClosestTo(nodes));
+        Assert.assertEquals(base.toString(), TestUtils.pathToString(learner.findPathClosestTo(nodes)));
+    }
+
+    private static void assertSameNodes(String message, Path expected, Path actual) {
+        Assert.assertEquals(message, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertTrue(message, expected.getNodes().get(i) == actual.getNodes().get(i));
+        }
+    }
+
+    private static Sequence<String> randomSequence(Random random, int length) {
+        Sequence<String> sequence = new Sequence<>();
+        for (int i = 0; i < length; i++) {
+            sequence.add(ALPHABET[random.nextInt(ALPHABET.length)]);
+        }
+        return sequence;
+    }
+
+    /**
+     * Overrides the cost function, which makes the learner enumerate all paths.
+     */
+    private static class EnumeratingGraphLearner<T> extends GraphLearner<T> {
+        @Override
+        protected int cost(Patch<Node> patch) {
+            return super.cost(patch);
+        }
+    }
+
+    private static class RecordingDiffListener implements DiffListener {
+
+        private final List<String> script;
+
+        public RecordingDiffListener(List<String> script) {
+            this.script = script;
+        }
+
+        @Override
+        public void change(Path original, List<Node> revised) {
+            script.add("change " + original + " " + revised);
+        }
+
+        @Override
+        public void delete(Path path) {
+            script.add("delete " + path);
+        }
+
+        @Override
+        public void insertAfter(Node reference, List<Node> insertNodes) {
+            script.add("insertAfter " + reference + " " + insertNodes);
+        }
+
+        @Override
+        public void insertBefore(Node reference, List<Node> insertNodes) {
+            script.add("insertBefore " + reference + " " + insertNodes);
+        }
+    }
+
+}
@@ -3,7 +3,9 @@ package org.annotationsmox.graphlearner;
 import java.util.List;
 
 import org.annotationsmox.graphlearner.GraphLearner;
+import org.annotationsmox.graphlearner.node.NestableNode;
 import org.annotationsmox.graphlearner.node.Node;
+import org.annotationsmox.graphlearner.visitor.AllChildrenVisitor;
 import org.annotationsmox.graphlearner.visitor.AllLeavesVisitor;
 import org.apache.log4j.BasicConfigurator;
 import org.junit.Assert;
@@ -84,6 +86,25 @@ public class TestNodes {
         Assert.assertEquals(cNode.pathToRoot().toString(), "[(R), (S), (P), C]");
     }
 
+    @Test
+    public void testChildIds() {
+        learner1.integrateSequence("A", "B");
+        learner1.integrateSequence("A", "B", "C");
+        learner1.integrateSequence("A", "C");
+        learner1.integrateSequence("D", "A", "C", "E");
+
+        AllChildrenVisitor visitor = new AllChildrenVisitor();
+        learner1.getGraph().traverse(visitor);
+        for (Node node : visitor.getResult()) {
+            if (node instanceof NestableNode) {
+                NestableNode parent = (NestableNode) node;
+                for (int i = 0; i < parent.getChildren().size(); i++) {
+                    Assert.assertEquals(parent.getChildren().get(i).getId(), parent.getChildId(i));
+                }
+            }
+        }
+    }
+
     @Test
     public void testCommonParent() {
         // TODO
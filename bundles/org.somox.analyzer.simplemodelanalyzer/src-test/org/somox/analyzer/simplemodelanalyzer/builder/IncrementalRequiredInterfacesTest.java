@@ -0,0 +1,166 @@
+package org.somox.analyzer.simplemodelanalyzer.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.emftext.language.java.containers.CompilationUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.palladiosimulator.pcm.repository.RepositoryFactory;
+import org.somox.analyzer.SimpleAnalysisResult;
+import org.somox.configuration.SoMoXConfiguration;
+import org.somox.kdmhelper.KDMReader;
+import org.somox.kdmhelper.metamodeladdition.Root;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.SourceCodeDecoratorRepository;
+import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+import org.splevo.jamopp.extraction.JaMoPPSoftwareModelExtractor;
+
+/**
+ * Creates components one after another, updates the required interfaces of the existing
+ * components incrementally and compares them with a full rescan after each step.
+ */
+public class IncrementalRequiredInterfacesTest {
+
+    private Path fixture;
+
+    private Root root;
+
+    private final Map<String, ConcreteClassifier> classifiers = new HashMap<String, ConcreteClassifier>();
+
+    private SourceCodeDecoratorRepository sourceCodeDecorator;
+
+    private ComponentBuilder componentBuilder;
+
+    private RequiredInterfaceConsistencyChecker checker;
+
+    @Before
+    public void setUp() throws IOException {
+        this.fixture = Files.createTempDirectory("somox-required-interfaces");
+        final Path fixturePackage = Files.createDirectories(this.fixture.resolve("src/fixture"));
+        write(fixturePackage, "Service", "public interface Service {\n    void serve();\n}\n");
+        write(fixturePackage, "ServiceImpl",
+                "public class ServiceImpl implements Service {\n    public void serve() {\n        int i = 0;\n    }\n}\n");
+        write(fixturePackage, "Helper", "public class Helper {\n    public int help() {\n        return 1;\n    }\n}\n");
+        write(fixturePackage, "Client",
+                "public class Client {\n    private Service service;\n    private Helper helper;\n"
+                        + "    public void run() {\n        service.serve();\n        helper.help();\n    }\n}\n");
+        write(fixturePackage, "Other", "public class Other {\n    private Helper helper;\n"
+                + "    public int work() {\n        return helper.help();\n    }\n}\n");
+        write(fixturePackage, "Unrelated", "public class Unrelated {\n    public int idle() {\n        return 0;\n    }\n}\n");
+
+        final JaMoPPSoftwareModelExtractor extractor = new JaMoPPSoftwareModelExtractor();
+        final List<File> sourceFolders = new ArrayList<File>();
+        sourceFolders.add(this.fixture.toFile());
+        extractor.extractSoftwareModelFromFolders(sourceFolders, new NullProgressMonitor(), null, false);
+        final KDMReader reader = new KDMReader();
+        reader.addModelsToRoot(extractor.getSourceResources());
+        this.root = reader.getRoot();
+        for (final CompilationUnit compilationUnit : this.root.getCompilationUnits()) {
+            for (final ConcreteClassifier classifier : compilationUnit.getClassifiers()) {
+                this.classifiers.put(classifier.getName(), classifier);
+            }
+        }
+
+        final SimpleAnalysisResult result = new SimpleAnalysisResult(null);
+        result.setInternalArchitectureModel(RepositoryFactory.eINSTANCE.createRepository());
+        this.sourceCodeDecorator = SourcecodedecoratorFactory.eINSTANCE.createSourceCodeDecoratorRepository();
+        result.setSourceCodeDecoratorRepository(this.sourceCodeDecorator);
+        result.setRoot(this.root);
+        this.componentBuilder = new ComponentBuilder(this.root, new SoMoXConfiguration(), result);
+        this.checker = new RequiredInterfaceConsistencyChecker(this.componentBuilder.getInterfaceBuilder());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.fixture)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdateEqualsFullRescan() {
+        final InterfaceBuilder interfaceBuilder = this.componentBuilder.getInterfaceBuilder();
+        final ComponentImplementingClassesLink client = this.createComponent("Client");
+        final ComponentImplementingClassesLink other = this.createComponent("Other");
+        this.createComponent("Unrelated");
+        assertEquals(1, client.getComponent().getRequiredRoles_InterfaceRequiringEntity().size());
+        assertTrue(other.getComponent().getRequiredRoles_InterfaceRequiringEntity().isEmpty());
+
+        // no accessed class has become a component interface
+        assertTrue(interfaceBuilder.updateRequiredInterfacesOfExistingPrimitiveComponents().isEmpty());
+        assertTrue(this.checker.findInconsistentComponents(this.sourceCodeDecorator).isEmpty());
+
+        // the public methods of Helper become a component interface required by Client and Other
+        this.createComponent("Helper");
+        assertEquals(Arrays.asList(client, other), this.checker.findInconsistentComponents(this.sourceCodeDecorator));
+
+        assertEquals(new HashSet<ComponentImplementingClassesLink>(Arrays.asList(client, other)),
+                interfaceBuilder.updateRequiredInterfacesOfExistingPrimitiveComponents());
+        assertTrue(this.checker.findInconsistentComponents(this.sourceCodeDecorator).isEmpty());
+        assertEquals(2, client.getComponent().getRequiredRoles_InterfaceRequiringEntity().size());
+        assertEquals(1, other.getComponent().getRequiredRoles_InterfaceRequiringEntity().size());
+
+        // Service already was a component interface
+        this.createComponent("ServiceImpl");
+        assertTrue(interfaceBuilder.updateRequiredInterfacesOfExistingPrimitiveComponents().isEmpty());
+        assertTrue(this.checker.findInconsistentComponents(this.sourceCodeDecorator).isEmpty());
+    }
+
+    @Test
+    public void testComponentsMissingInTheIndexAreScannedCompletely() {
+        final ComponentImplementingClassesLink client = this.createComponent("Client");
+        this.createComponent("Helper");
+        final ComponentImplementingClassesLink copy = SourcecodedecoratorFactory.eINSTANCE
+                .createComponentImplementingClassesLink();
+        copy.setComponent(RepositoryFactory.eINSTANCE.createBasicComponent());
+        copy.getImplementingClasses().addAll(client.getImplementingClasses());
+        this.sourceCodeDecorator.getComponentImplementingClassesLink().add(copy);
+
+        assertTrue(this.componentBuilder.getInterfaceBuilder().updateRequiredInterfacesOfExistingPrimitiveComponents()
+                .containsAll(Arrays.asList(client, copy)));
+        assertTrue(this.checker.findInconsistentComponents(this.sourceCodeDecorator).isEmpty());
+        assertEquals(2, copy.getComponent().getRequiredRoles_InterfaceRequiringEntity().size());
+    }
+
+    @Test
+    public void testDiscardedComponentsAreNotUpdated() {
+        final InterfaceBuilder interfaceBuilder = this.componentBuilder.getInterfaceBuilder();
+        final ComponentImplementingClassesLink client = this.createComponent("Client");
+        final ComponentImplementingClassesLink other = this.createComponent("Other");
+        interfaceBuilder.discardComponent(client);
+
+        this.createComponent("Helper");
+        assertEquals(new HashSet<ComponentImplementingClassesLink>(Arrays.asList(other)),
+                interfaceBuilder.updateRequiredInterfacesOfExistingPrimitiveComponents());
+        assertTrue(this.checker.findInconsistentComponents(this.sourceCodeDecorator).isEmpty());
+        assertEquals(1, client.getComponent().getRequiredRoles_InterfaceRequiringEntity().size());
+    }
+
+    private ComponentImplementingClassesLink createComponent(final String className) {
+        return this.componentBuilder.createPrimitiveComponentFromGASTClass(this.classifiers.get(className));
+    }
+
+    private static void write(final Path fixturePackage, final String className, final String body)
+            throws IOException {
+        Files.write(fixturePackage.resolve(className + ".java"),
+                ("package fixture;\n\n" + body).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,112 @@
+package org.somox.analyzer.simplemodelanalyzer.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.emftext.language.java.classifiers.ClassifiersFactory;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.junit.Before;
+import org.junit.Test;
+import org.somox.analyzer.simplemodelanalyzer.detection.IComponentInterfaceStrategy;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+
+public class RequiredInterfaceIndexTest {
+
+    private final Set<ConcreteClassifier> componentInterfaces = new HashSet<ConcreteClassifier>();
+
+    private RequiredInterfaceIndex index;
+
+    private ConcreteClassifier api;
+
+    private ConcreteClassifier helper;
+
+    private ConcreteClassifier util;
+
+    private ComponentImplementingClassesLink client;
+
+    private ComponentImplementingClassesLink other;
+
+    @Before
+    public void setUp() {
+        this.index = new RequiredInterfaceIndex(new IComponentInterfaceStrategy() {
+            @Override
+            public boolean isComponentInterface(final ConcreteClassifier classToCheck) {
+                return RequiredInterfaceIndexTest.this.componentInterfaces.contains(classToCheck);
+            }
+        });
+        this.api = createClass("Api");
+        this.helper = createClass("Helper");
+        this.util = createClass("Util");
+        this.componentInterfaces.add(this.api);
+
+        this.client = SourcecodedecoratorFactory.eINSTANCE.createComponentImplementingClassesLink();
+        this.other = SourcecodedecoratorFactory.eINSTANCE.createComponentImplementingClassesLink();
+        this.index.addComponent(this.client, Arrays.asList(this.api, this.helper, this.util));
+        this.index.addComponent(this.other, Arrays.asList(this.helper));
+    }
+
+    @Test
+    public void testAccessingComponents() {
+        assertEquals(new HashSet<ComponentImplementingClassesLink>(Arrays.asList(this.client, this.other)),
+                this.index.getAccessingComponents(this.helper));
+        assertEquals(Collections.singleton(this.client), this.index.getAccessingComponents(this.api));
+        assertTrue(this.index.getAccessingComponents(createClass("Unknown")).isEmpty());
+        assertEquals(Arrays.asList(this.api, this.helper, this.util), this.index.getAccessedClasses(this.client));
+    }
+
+    @Test
+    public void testOnlyComponentsAccessingNewInterfacesAreAffected() {
+        assertTrue(this.index.collectNewComponentInterfaces().isEmpty());
+
+        this.componentInterfaces.add(this.util);
+        Map<ComponentImplementingClassesLink, Set<ConcreteClassifier>> newInterfaces = this.index
+                .collectNewComponentInterfaces();
+        assertEquals(Collections.singleton(this.client), newInterfaces.keySet());
+        assertEquals(Collections.singleton(this.util), newInterfaces.get(this.client));
+
+        // classes are reported once
+        assertTrue(this.index.collectNewComponentInterfaces().isEmpty());
+
+        this.componentInterfaces.add(this.helper);
+        newInterfaces = this.index.collectNewComponentInterfaces();
+        assertEquals(Arrays.asList(this.client, this.other),
+                Arrays.asList(newInterfaces.keySet().toArray()));
+        assertEquals(Collections.singleton(this.helper), newInterfaces.get(this.other));
+    }
+
+    @Test
+    public void testRemovedComponentsAreNotAffected() {
+        this.index.removeComponent(this.other);
+        assertFalse(this.index.containsComponent(this.other));
+        assertEquals(Collections.singleton(this.client), this.index.getAccessingComponents(this.helper));
+
+        this.index.removeComponent(this.client);
+        this.componentInterfaces.add(this.helper);
+        assertTrue(this.index.collectNewComponentInterfaces().isEmpty());
+        assertTrue(this.index.getAccessingComponents(this.helper).isEmpty());
+    }
+
+    @Test
+    public void testAddingAComponentAgainReplacesItsAccessedClasses() {
+        this.index.addComponent(this.client, Arrays.asList(this.api));
+        assertEquals(Collections.singleton(this.other), this.index.getAccessingComponents(this.helper));
+        assertTrue(this.index.getAccessingComponents(this.util).isEmpty());
+
+        this.componentInterfaces.add(this.util);
+        assertTrue(this.index.collectNewComponentInterfaces().isEmpty());
+    }
+
+    private static ConcreteClassifier createClass(final String name) {
+        final ConcreteClassifier jaMoPPClass = ClassifiersFactory.eINSTANCE.createClass();
+        jaMoPPClass.setName(name);
+        return jaMoPPClass;
+    }
+}
@@ -0,0 +1,202 @@
+package org.somox.analyzer.simplemodelanalyzer.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.jgrapht.DirectedGraph;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.palladiosimulator.pcm.repository.RepositoryFactory;
+import org.somox.analyzer.SimpleAnalysisResult;
+import org.somox.analyzer.simplemodelanalyzer.builder.ComponentBuilder;
+import org.somox.analyzer.simplemodelanalyzer.factories.BasicSoMoXStrategiesFactory;
+import org.somox.analyzer.simplemodelanalyzer.metrics.DefaultCompositionIndicatingMetric;
+import org.somox.analyzer.simplemodelanalyzer.metrics.DefaultMergeIndicatingMetric;
+import org.somox.configuration.SoMoXConfiguration;
+import org.somox.kdmhelper.KDMReader;
+import org.somox.kdmhelper.metamodeladdition.Root;
+import org.somox.metrics.IMetric;
+import org.somox.metrics.MetricID;
+import org.somox.metrics.helper.AccessNeighbourhoodIndex;
+import org.somox.metrics.helper.Class2ClassAccessGraphHelper;
+import org.somox.metrics.helper.ClassAccessGraphEdge;
+import org.somox.metrics.helper.ComponentToImplementingClassesHelper;
+import org.somox.metrics.registry.MetricsRegistry;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+import org.splevo.jamopp.extraction.JaMoPPSoftwareModelExtractor;
+
+/**
+ * Runs the clustering on a model of several loosely coupled packages with and without pruning of
+ * the candidate pairs and compares the detected components.
+ */
+public class CandidatePairPrunerTest {
+
+    private Path fixture;
+
+    @Before
+    public void setUp() throws IOException {
+        this.fixture = Files.createTempDirectory("somox-pair-pruning");
+        final Path orders = Files.createDirectories(this.fixture.resolve("src/shop/orders"));
+        write(orders, "Order", "public class Order {\n    private int amount;\n"
+                + "    public int getAmount() {\n        return amount;\n    }\n}\n");
+        write(orders, "OrderRepository", "public class OrderRepository {\n    private Order last;\n"
+                + "    public Order find(int id) {\n        return last;\n    }\n}\n");
+        write(orders, "OrderService", "public interface OrderService {\n    Order order(int id);\n}\n");
+        write(orders, "OrderServiceImpl",
+                "public class OrderServiceImpl implements OrderService {\n"
+                        + "    private OrderRepository repository;\n    public Order order(int id) {\n"
+                        + "        return repository.find(id);\n    }\n}\n");
+        final Path billing = Files.createDirectories(this.fixture.resolve("src/shop/billing"));
+        write(billing, "Invoice", "public class Invoice {\n    private int total;\n"
+                + "    public int getTotal() {\n        return total;\n    }\n}\n");
+        write(billing, "BillingService", "public interface BillingService {\n    Invoice bill(int id);\n}\n");
+        write(billing, "BillingServiceImpl",
+                "import shop.orders.OrderService;\n\npublic class BillingServiceImpl implements BillingService {\n"
+                        + "    private OrderService orders;\n    public Invoice bill(int id) {\n"
+                        + "        orders.order(id).getAmount();\n        return new Invoice();\n    }\n}\n");
+        final Path reporting = Files.createDirectories(this.fixture.resolve("src/office/reporting"));
+        write(reporting, "Report", "public class Report {\n    private String title;\n"
+                + "    public String getTitle() {\n        return title;\n    }\n}\n");
+        write(reporting, "ReportPrinter", "public class ReportPrinter {\n    private Report report;\n"
+                + "    public String print() {\n        return report.getTitle();\n    }\n}\n");
+        final Path util = Files.createDirectories(this.fixture.resolve("src/office/util"));
+        write(util, "Clock", "public class Clock {\n    public long now() {\n        return 0L;\n    }\n}\n");
+        write(util, "Strings",
+                "public class Strings {\n    public String trim(String s) {\n        return s;\n    }\n}\n");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.fixture)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testPrunedAndExhaustiveClusteringDetectSameComponents() throws Exception {
+        final Set<String> exhaustiveComponents = this.detectComponents(false);
+        final Set<String> prunedComponents = this.detectComponents(true);
+
+        assertFalse(exhaustiveComponents.isEmpty());
+        assertEquals(exhaustiveComponents, prunedComponents);
+    }
+
+    @Test
+    public void testPairsWithoutAccessesArePruned() {
+        final Root root = this.extract();
+        final SoMoXConfiguration somoxConfiguration = new SoMoXConfiguration();
+        final List<ComponentImplementingClassesLink> candidates = createInitialCandidates(root, somoxConfiguration,
+                createComponentBuilder(root, somoxConfiguration));
+        final ComponentToImplementingClassesHelper componentToClassHelper = new ComponentToImplementingClassesHelper();
+        final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph = Class2ClassAccessGraphHelper
+                .computeFilteredClass2ClassAccessGraph(somoxConfiguration,
+                        componentToClassHelper.collectAllClasses(candidates), root.getAccessSummaryIndex());
+        final Map<MetricID, IMetric> allMetrics = MetricsRegistry.getRegisteredMetrics();
+        for (final IMetric metric : allMetrics.values()) {
+            metric.initialize(root, somoxConfiguration, allMetrics, accessGraph, componentToClassHelper);
+        }
+        final CandidatePairPruner pruner = new CandidatePairPruner(
+                new AccessNeighbourhoodIndex(accessGraph, 1, componentToClassHelper),
+                allMetrics.get(DefaultMergeIndicatingMetric.METRIC_ID),
+                allMetrics.get(DefaultCompositionIndicatingMetric.METRIC_ID), allMetrics,
+                somoxConfiguration.getClusteringConfig());
+
+        final List<NodePair> work = new IncrementalClusteringGraph().deriveComputationWork(candidates);
+        final List<NodePair> prunedWork = pruner.prune(work);
+
+        assertTrue(work.containsAll(prunedWork));
+        assertTrue("Expected pairs of the unrelated packages to be pruned", prunedWork.size() < work.size());
+    }
+
+    /**
+     * Analyses a fresh model of the fixture.
+     *
+     * @return The descriptions of the detected components, see {@link #describe}
+     */
+    private Set<String> detectComponents(final boolean candidatePairPruning) throws Exception {
+        final Root root = this.extract();
+        final SoMoXConfiguration somoxConfiguration = new SoMoXConfiguration();
+        somoxConfiguration.getClusteringConfig().setCandidatePairPruning(candidatePairPruning);
+        somoxConfiguration.getClusteringConfig().setMetricComputationParallelism(2);
+        final ComponentBuilder componentBuilder = createComponentBuilder(root, somoxConfiguration);
+        final List<ComponentImplementingClassesLink> initialCandidates = createInitialCandidates(root,
+                somoxConfiguration, componentBuilder);
+        final List<ComponentImplementingClassesLink> components = new ComponentDetectionByClustering(root,
+                initialCandidates, somoxConfiguration).startDetection(componentBuilder, somoxConfiguration,
+                        new NullProgressMonitor(), initialCandidates);
+
+        final Set<String> descriptions = new HashSet<String>();
+        for (final ComponentImplementingClassesLink component : components) {
+            descriptions.add(describe(component));
+        }
+        return descriptions;
+    }
+
+    private static ComponentBuilder createComponentBuilder(final Root root,
+            final SoMoXConfiguration somoxConfiguration) {
+        final SimpleAnalysisResult result = new SimpleAnalysisResult(null);
+        result.setInternalArchitectureModel(RepositoryFactory.eINSTANCE.createRepository());
+        result.setSourceCodeDecoratorRepository(
+                SourcecodedecoratorFactory.eINSTANCE.createSourceCodeDecoratorRepository());
+        result.setRoot(root);
+        return new ComponentBuilder(root, somoxConfiguration, result);
+    }
+
+    private static List<ComponentImplementingClassesLink> createInitialCandidates(final Root root,
+            final SoMoXConfiguration somoxConfiguration, final ComponentBuilder componentBuilder) {
+        return new BasicSoMoXStrategiesFactory(root, somoxConfiguration).getInitializationStrategy()
+                .createInitialComponentCandidates(root, somoxConfiguration, componentBuilder);
+    }
+
+    private Root extract() {
+        final JaMoPPSoftwareModelExtractor extractor = new JaMoPPSoftwareModelExtractor();
+        final List<File> sourceFolders = new ArrayList<File>();
+        sourceFolders.add(this.fixture.toFile());
+        extractor.extractSoftwareModelFromFolders(sourceFolders, new NullProgressMonitor(), null, false);
+        final KDMReader reader = new KDMReader();
+        reader.addModelsToRoot(extractor.getSourceResources());
+        return reader.getRoot();
+    }
+
+    /**
+     * @return The kind of the component and the names of its classes and the descriptions of its
+     *         sub components, sorted, which identifies a component across two analyses
+     */
+    private static String describe(final ComponentImplementingClassesLink component) {
+        final List<String> parts = new ArrayList<String>();
+        for (final ConcreteClassifier implementingClass : component.getImplementingClasses()) {
+            parts.add(implementingClass.getName());
+        }
+        for (final ComponentImplementingClassesLink subComponent : component.getSubComponents()) {
+            parts.add(describe(subComponent));
+        }
+        Collections.sort(parts);
+        return (component.isIsCompositeComponent() ? "composite" : "primitive") + parts;
+    }
+
+    private static void write(final Path packageFolder, final String className, final String source)
+            throws IOException {
+        final String packageName = packageFolder.getParent().getFileName() + "." + packageFolder.getFileName();
+        Files.write(packageFolder.resolve(className + ".java"),
+                ("package " + packageName + ";\n\n" + source).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,279 @@
+package org.somox.analyzer.simplemodelanalyzer.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.emftext.language.java.classifiers.ClassifiersFactory;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.alg.ConnectivityInspector;
+import org.jgrapht.graph.DirectedSubgraph;
+import org.jgrapht.graph.SimpleDirectedGraph;
+import org.junit.Test;
+import org.somox.analyzer.simplemodelanalyzer.detection.util.EdgeThresholdFilter;
+import org.somox.configuration.SoMoXConfiguration;
+import org.somox.filter.FilteredCollectionsFactory;
+import org.somox.kdmhelper.metamodeladdition.Root;
+import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.IMetric;
+import org.somox.metrics.MetricID;
+import org.somox.metrics.MetricResultStore;
+import org.somox.metrics.helper.ClassAccessGraphEdge;
+import org.somox.metrics.helper.ComponentToImplementingClassesHelper;
+import org.somox.metrics.parameter.ParameterDescriptor;
+import org.somox.metrics.tabs.MetricTab;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+
+/**
+ * Differential test of the {@link IncrementalClusteringGraph}: runs the merge and compose
+ * iterations of {@link ComponentDetectionByClustering} on synthetic class models and checks after
+ * each iteration that the incrementally maintained graph equals a graph rebuilt from scratch by
+ * computing all pairs of the current component candidates.
+ */
+public class IncrementalClusteringGraphTest {
+
+    private static final MetricID AFFINITY = new MetricID("org.somox.analyzer.simplemodelanalyzer.test.Affinity");
+
+    @Test
+    public void testSameGraphAsFullRebuild() throws Exception {
+        for (int seed = 0; seed < 20; seed++) {
+            this.runClustering(new Random(seed), 10 + seed * 2);
+        }
+    }
+
+    @Test
+    public void testOnlyPairsOfNewCandidatesAreComputed() throws Exception {
+        final AffinityMetric metric = new AffinityMetric(new Random(3), 4);
+        final List<ComponentImplementingClassesLink> candidates = metric.createPrimitiveCandidates();
+        final IncrementalClusteringGraph clusteringGraph = new IncrementalClusteringGraph();
+
+        assertEquals(6, clusteringGraph.deriveComputationWork(candidates).size());
+
+        final List<ComponentImplementingClassesLink> merged = candidates.subList(0, 2);
+        final ComponentImplementingClassesLink mergeResult = metric.createClusteredCandidate(merged, false);
+        clusteringGraph.recordClustering(merged, mergeResult);
+        final List<ComponentImplementingClassesLink> nextCandidates = new ArrayList<ComponentImplementingClassesLink>(
+                candidates.subList(2, 4));
+        nextCandidates.add(mergeResult);
+        final List<NodePair> work = clusteringGraph.deriveComputationWork(nextCandidates);
+
+        assertEquals(2, work.size());
+        for (final NodePair pair : work) {
+            assertTrue(pair.getFirst() == mergeResult || pair.getSecond() == mergeResult);
+        }
+    }
+
+    /**
+     * Clusters the primitive candidates of a random class model with decreasing thresholds, first
+     * merging, then composing, and compares both graphs in each iteration.
+     */
+    private void runClustering(final Random random, final int classCount) throws Exception {
+        final AffinityMetric metric = new AffinityMetric(random, classCount);
+        final Map<MetricID, IMetric> allMetrics = Collections.<MetricID, IMetric> singletonMap(AFFINITY, metric);
+        final MetricResultStore store = new MetricResultStore(allMetrics.keySet(), 16);
+        final IncrementalClusteringGraph clusteringGraph = new IncrementalClusteringGraph();
+
+        List<ComponentImplementingClassesLink> candidates = metric.createPrimitiveCandidates();
+        boolean merge = true;
+        double threshold = 0.9;
+        int iterations = 0;
+        int previousCount = candidates.size();
+        boolean newComponentsFound = true;
+        while (candidates.size() > 1 && threshold > 0.0) {
+            iterations++;
+            if (newComponentsFound) {
+                for (final NodePair pair : clusteringGraph.deriveComputationWork(candidates)) {
+                    clusteringGraph.addRelations(pair.getWorkTask(metric, allMetrics, store).call());
+                }
+                final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> rebuiltGraph = this
+                        .rebuildGraph(candidates, metric, allMetrics);
+                this.assertSameGraph(rebuiltGraph, clusteringGraph.getGraph());
+                assertEquals("Relations of removed candidates have to be released",
+                        clusteringGraph.getGraph().edgeSet().size(), store.getPairCount());
+            }
+
+            candidates = this.cluster(clusteringGraph, metric, threshold, !merge);
+            newComponentsFound = candidates.size() != previousCount;
+            previousCount = candidates.size();
+            if (!newComponentsFound) {
+                threshold -= 0.1;
+                if (merge && threshold < 0.5) {
+                    merge = false;
+                    threshold = 0.6;
+                }
+            }
+        }
+        assertTrue("Expected several clustering iterations, got " + iterations, iterations > 3);
+    }
+
+    private DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> rebuildGraph(
+            final List<ComponentImplementingClassesLink> candidates, final IMetric metric,
+            final Map<MetricID, IMetric> allMetrics) throws Exception {
+        final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> graph = new SimpleDirectedGraph<ComponentImplementingClassesLink, ClusteringRelation>(
+                ClusteringRelation.class);
+        final MetricResultStore store = new MetricResultStore(allMetrics.keySet(), 16);
+        for (final ComponentImplementingClassesLink candidate : candidates) {
+            graph.addVertex(candidate);
+        }
+        for (int i = 0; i < candidates.size(); i++) {
+            for (int j = i + 1; j < candidates.size(); j++) {
+                for (final ClusteringRelation relation : new NodePair(candidates.get(i), candidates.get(j))
+                        .getWorkTask(metric, allMetrics, store).call()) {
+                    graph.addEdge(relation.getSourceComponent(), relation.getTargetComponent(), relation);
+                }
+            }
+        }
+        return graph;
+    }
+
+    private void assertSameGraph(final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> expected,
+            final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> actual) {
+        assertEquals(expected.vertexSet(), actual.vertexSet());
+        assertEquals(expected.edgeSet().size(), actual.edgeSet().size());
+        for (final ClusteringRelation expectedRelation : expected.edgeSet()) {
+            final ClusteringRelation actualRelation = actual.getEdge(expectedRelation.getSourceComponent(),
+                    expectedRelation.getTargetComponent());
+            assertNotNull(actualRelation);
+            assertEquals(expectedRelation.getResultMetric(AFFINITY), actualRelation.getResultMetric(AFFINITY), 0.0);
+        }
+    }
+
+    /**
+     * Clusters the connected sets of the projected graph as
+     * {@link ComponentDetectionByClustering#startDetection} does and records the clustering.
+     */
+    private List<ComponentImplementingClassesLink> cluster(final IncrementalClusteringGraph clusteringGraph,
+            final AffinityMetric metric, final double threshold, final boolean compose) {
+        final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> graph = clusteringGraph.getGraph();
+        final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> projectedGraph = new DirectedSubgraph<ComponentImplementingClassesLink, ClusteringRelation>(
+                graph, graph.vertexSet(), FilteredCollectionsFactory
+                        .getFilteredHashSet(new EdgeThresholdFilter(AFFINITY, threshold), graph.edgeSet()));
+        final List<ComponentImplementingClassesLink> result = new LinkedList<ComponentImplementingClassesLink>();
+        for (final Set<ComponentImplementingClassesLink> connectedSet : new ConnectivityInspector<ComponentImplementingClassesLink, ClusteringRelation>(
+                projectedGraph).connectedSets()) {
+            if (connectedSet.size() > 1) {
+                final ComponentImplementingClassesLink clusteredCandidate = metric
+                        .createClusteredCandidate(connectedSet, compose);
+                clusteringGraph.recordClustering(connectedSet, clusteredCandidate);
+                result.add(clusteredCandidate);
+            } else {
+                result.addAll(connectedSet);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Average of random affinities between the classes of two candidates. The value of a pair only
+     * depends on the classes of its candidates, so recomputing it yields the same value.
+     */
+    private static class AffinityMetric implements IMetric {
+
+        private final List<ConcreteClassifier> classes = new ArrayList<ConcreteClassifier>();
+
+        private final Map<ConcreteClassifier, Integer> classIndices = new HashMap<ConcreteClassifier, Integer>();
+
+        private final double[][] affinities;
+
+        public AffinityMetric(final Random random, final int classCount) {
+            this.affinities = new double[classCount][classCount];
+            for (int i = 0; i < classCount; i++) {
+                final ConcreteClassifier gastClass = ClassifiersFactory.eINSTANCE.createClass();
+                gastClass.setName("C" + i);
+                this.classes.add(gastClass);
+                this.classIndices.put(gastClass, i);
+                for (int j = 0; j < classCount; j++) {
+                    this.affinities[i][j] = random.nextDouble();
+                }
+            }
+        }
+
+        public List<ComponentImplementingClassesLink> createPrimitiveCandidates() {
+            final List<ComponentImplementingClassesLink> candidates = new ArrayList<ComponentImplementingClassesLink>();
+            for (final ConcreteClassifier gastClass : this.classes) {
+                final ComponentImplementingClassesLink candidate = SourcecodedecoratorFactory.eINSTANCE
+                        .createComponentImplementingClassesLink();
+                candidate.getImplementingClasses().add(gastClass);
+                candidates.add(candidate);
+            }
+            return candidates;
+        }
+
+        public ComponentImplementingClassesLink createClusteredCandidate(
+                final Iterable<ComponentImplementingClassesLink> clusteredCandidates, final boolean compose) {
+            final ComponentImplementingClassesLink result = SourcecodedecoratorFactory.eINSTANCE
+                    .createComponentImplementingClassesLink();
+            final Set<ConcreteClassifier> implementingClasses = new HashSet<ConcreteClassifier>();
+            for (final ComponentImplementingClassesLink candidate : clusteredCandidates) {
+                implementingClasses.addAll(candidate.getImplementingClasses());
+                if (compose) {
+                    result.getSubComponents().add(candidate);
+                }
+            }
+            for (final ConcreteClassifier gastClass : this.classes) {
+                if (implementingClasses.contains(gastClass)) {
+                    result.getImplementingClasses().add(gastClass);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void computeDirected(final ClusteringRelation relationToCompute) {
+            double sum = 0.0;
+            int count = 0;
+            for (final ConcreteClassifier source : relationToCompute.getSourceComponent().getImplementingClasses()) {
+                for (final ConcreteClassifier target : relationToCompute.getTargetComponent()
+                        .getImplementingClasses()) {
+                    sum += this.affinities[this.classIndices.get(source)][this.classIndices.get(target)];
+                    count++;
+                }
+            }
+            relationToCompute.setResultMetric(AFFINITY, sum / count);
+        }
+
+        @Override
+        public boolean isCommutative() {
+            return false;
+        }
+
+        @Override
+        public boolean isNormalised() {
+            return true;
+        }
+
+        @Override
+        public void initialize(final Root gastModel, final SoMoXConfiguration somoxConfiguration,
+                final Map<MetricID, IMetric> allMetrics,
+                final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph,
+                final ComponentToImplementingClassesHelper componentToClassHelper) {
+        }
+
+        @Override
+        public MetricTab getLaunchConfigurationTab() {
+            return null;
+        }
+
+        @Override
+        public MetricID getMID() {
+            return AFFINITY;
+        }
+
+        @Override
+        public ParameterDescriptor[] getMetricParameters() {
+            return new ParameterDescriptor[0];
+        }
+    }
+}
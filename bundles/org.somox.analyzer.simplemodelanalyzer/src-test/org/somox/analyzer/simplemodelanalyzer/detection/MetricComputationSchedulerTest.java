@@ -0,0 +1,179 @@
+package org.somox.analyzer.simplemodelanalyzer.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.jgrapht.DirectedGraph;
+import org.junit.Test;
+import org.somox.analyzer.ModelAnalyzerException;
+import org.somox.configuration.SoMoXConfiguration;
+import org.somox.kdmhelper.metamodeladdition.Root;
+import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.IMetric;
+import org.somox.metrics.MetricID;
+import org.somox.metrics.MetricResultStore;
+import org.somox.metrics.helper.ClassAccessGraphEdge;
+import org.somox.metrics.helper.ComponentToImplementingClassesHelper;
+import org.somox.metrics.parameter.ParameterDescriptor;
+import org.somox.metrics.tabs.MetricTab;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+
+/**
+ * Checks that both {@link IMetricComputationScheduler}s release all relations of a computation
+ * which fails or is interrupted.
+ */
+public class MetricComputationSchedulerTest {
+
+    private static final MetricID VALUE = new MetricID("org.somox.analyzer.simplemodelanalyzer.test.Value");
+
+    private static final int CANDIDATE_COUNT = 40;
+
+    @Test
+    public void testComputesAllPairs() throws Exception {
+        for (final IMetricComputationScheduler scheduler : createSchedulers()) {
+            try {
+                final ValueMetric metric = new ValueMetric(null);
+                final MetricResultStore store = createStore(metric);
+                final List<NodePair> work = createWork();
+                final ClusteringRelation[][] relations = scheduler.computeRelations(work, metric,
+                        Collections.<MetricID, IMetric> singletonMap(VALUE, metric), store,
+                        new NullProgressMonitor());
+                assertEquals(work.size(), relations.length);
+                assertEquals(2 * work.size(), store.getPairCount());
+            } finally {
+                scheduler.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testFailureReleasesRelations() {
+        for (final IMetricComputationScheduler scheduler : createSchedulers()) {
+            try {
+                final List<NodePair> work = createWork();
+                final ValueMetric metric = new ValueMetric(work.get(work.size() / 2).getFirst());
+                final MetricResultStore store = createStore(metric);
+                try {
+                    scheduler.computeRelations(work, metric,
+                            Collections.<MetricID, IMetric> singletonMap(VALUE, metric), store,
+                            new NullProgressMonitor());
+                    fail("Expected the computation to fail");
+                } catch (final ModelAnalyzerException e) {
+                    assertEquals(0, store.getPairCount());
+                }
+            } finally {
+                scheduler.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testInterruptionReleasesRelations() {
+        for (final IMetricComputationScheduler scheduler : createSchedulers()) {
+            try {
+                final ValueMetric metric = new ValueMetric(null);
+                final MetricResultStore store = createStore(metric);
+                Thread.currentThread().interrupt();
+                try {
+                    scheduler.computeRelations(createWork(), metric,
+                            Collections.<MetricID, IMetric> singletonMap(VALUE, metric), store,
+                            new NullProgressMonitor());
+                    fail("Expected the computation to be interrupted");
+                } catch (final ModelAnalyzerException e) {
+                    assertTrue("Expected the interrupt flag to be restored", Thread.interrupted());
+                    assertEquals(0, store.getPairCount());
+                }
+            } finally {
+                Thread.interrupted();
+                scheduler.shutdown();
+            }
+            assertFalse(Thread.currentThread().isInterrupted());
+        }
+    }
+
+    private static List<IMetricComputationScheduler> createSchedulers() {
+        return Arrays.<IMetricComputationScheduler> asList(new ExecutorMetricComputationScheduler(4),
+                new ForkJoinMetricComputationScheduler(4));
+    }
+
+    private static MetricResultStore createStore(final IMetric metric) {
+        return new MetricResultStore(Collections.singleton(metric.getMID()), 16);
+    }
+
+    private static List<NodePair> createWork() {
+        final List<ComponentImplementingClassesLink> candidates = new ArrayList<ComponentImplementingClassesLink>();
+        for (int i = 0; i < CANDIDATE_COUNT; i++) {
+            candidates.add(SourcecodedecoratorFactory.eINSTANCE.createComponentImplementingClassesLink());
+        }
+        final List<NodePair> work = new ArrayList<NodePair>();
+        for (int i = 0; i < candidates.size(); i++) {
+            for (int j = i + 1; j < candidates.size(); j++) {
+                work.add(new NodePair(candidates.get(i), candidates.get(j)));
+            }
+        }
+        return work;
+    }
+
+    /**
+     * Sets a constant value, failing for the relations of one candidate.
+     */
+    private static class ValueMetric implements IMetric {
+
+        private final ComponentImplementingClassesLink failingCandidate;
+
+        public ValueMetric(final ComponentImplementingClassesLink failingCandidate) {
+            this.failingCandidate = failingCandidate;
+        }
+
+        @Override
+        public void computeDirected(final ClusteringRelation relationToCompute) {
+            if (relationToCompute.getSourceComponent() == this.failingCandidate) {
+                throw new IllegalStateException("Metric failed");
+            }
+            relationToCompute.setResultMetric(VALUE, 1.0);
+        }
+
+        @Override
+        public boolean isCommutative() {
+            return false;
+        }
+
+        @Override
+        public boolean isNormalised() {
+            return true;
+        }
+
+        @Override
+        public void initialize(final Root gastModel, final SoMoXConfiguration somoxConfiguration,
+                final Map<MetricID, IMetric> allMetrics,
+                final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph,
+                final ComponentToImplementingClassesHelper componentToClassHelper) {
+        }
+
+        @Override
+        public MetricTab getLaunchConfigurationTab() {
+            return null;
+        }
+
+        @Override
+        public MetricID getMID() {
+            return VALUE;
+        }
+
+        @Override
+        public ParameterDescriptor[] getMetricParameters() {
+            return new ParameterDescriptor[0];
+        }
+    }
+}
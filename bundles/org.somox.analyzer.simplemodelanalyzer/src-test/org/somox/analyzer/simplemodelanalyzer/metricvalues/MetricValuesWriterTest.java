@@ -0,0 +1,187 @@
+package org.somox.analyzer.simplemodelanalyzer.metricvalues;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+import org.emftext.language.java.classifiers.Class;
+import org.emftext.language.java.classifiers.ClassifiersFactory;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.SimpleDirectedGraph;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.palladiosimulator.pcm.repository.BasicComponent;
+import org.palladiosimulator.pcm.repository.RepositoryFactory;
+import org.somox.configuration.SoMoXConfiguration;
+import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.MetricID;
+import org.somox.metrics.MetricResultStore;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+
+import metricvalues.MetricValuesModel;
+
+/**
+ * Saves the metric values of several iterations and compares the assembled model with the model
+ * built in memory from the same iterations. Also checks that the saved iterations do not outlive
+ * the assembly.
+ */
+public class MetricValuesWriterTest {
+
+    private static final MetricID FIRST_METRIC = new MetricID("first");
+
+    private static final MetricID SECOND_METRIC = new MetricID("second");
+
+    private File folder;
+
+    private URI modelURI;
+
+    private ComponentImplementingClassesLink first;
+
+    private ComponentImplementingClassesLink second;
+
+    private ComponentImplementingClassesLink composite;
+
+    private DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> graph;
+
+    @Before
+    public void setUp() throws IOException {
+        this.folder = Files.createTempDirectory("somox-metric-values").toFile();
+        this.modelURI = URI.createFileURI(new File(this.folder, "metricValues.ecore").getAbsolutePath());
+
+        final Resource classes = new XMIResourceImpl(
+                URI.createFileURI(new File(this.folder, "classes.xmi").getAbsolutePath()));
+        this.first = this.createComponentLink("first", classes);
+        this.second = this.createComponentLink("second", classes);
+        this.composite = this.createComponentLink("composite", classes);
+        this.composite.getSubComponents().add(this.first);
+        this.composite.getSubComponents().add(this.second);
+        classes.save(Collections.EMPTY_MAP);
+
+        final MetricResultStore store = new MetricResultStore(Arrays.asList(FIRST_METRIC, SECOND_METRIC));
+        this.graph = new SimpleDirectedGraph<ComponentImplementingClassesLink, ClusteringRelation>(
+                ClusteringRelation.class);
+        this.graph.addVertex(this.first);
+        this.graph.addVertex(this.second);
+        this.graph.addVertex(this.composite);
+        this.addRelation(this.first, this.second, store, 0.25, 0.5);
+        this.addRelation(this.second, this.first, store, 0.75, 1.0);
+        this.addRelation(this.first, this.composite, store, 0.0, 0.125);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.folder.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testAssembledModelEqualsIterations() {
+        final MetricValuesWriter writer = new MetricValuesWriter(new SoMoXConfiguration(), this.modelURI);
+        final List<ComponentImplementingClassesLink> candidates = Arrays.asList(this.first, this.second,
+                this.composite);
+        final List<ComponentImplementingClassesLink> composed = Arrays.asList(this.composite);
+
+        final MetricValuesModel expected = writer.createMetricValuesModel();
+        expected.getIterations().add(writer.createCurrentIteration(this.graph, 1, 0.3, candidates, true));
+        expected.getIterations().add(writer.createCurrentIteration(this.graph, 2, 0.4, candidates, true));
+        expected.getIterations().add(writer.createCurrentIteration(this.graph, 3, 0.9, composed, false));
+
+        writer.saveMetricValuesModel(this.graph, 1, 0.3, candidates, true);
+        writer.saveMetricValuesModel(this.graph, 2, 0.4, candidates, true);
+        writer.saveMetricValuesModel(this.graph, 3, 0.9, composed, false);
+        writer.assembleMetricValuesModel();
+
+        final ResourceSet resourceSet = new ResourceSetImpl();
+        resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap()
+                .put(Resource.Factory.Registry.DEFAULT_EXTENSION, new XMIResourceFactoryImpl());
+        final MetricValuesModel assembled = (MetricValuesModel) resourceSet.getResource(this.modelURI, true)
+                .getContents().get(0);
+
+        assertEquals(3, assembled.getIterations().size());
+        assertEquals(3, assembled.getIterations().get(0).getComponentCandidates().size());
+        assertTrue(EcoreUtil.equals(expected, assembled));
+        assertFalse(new File(this.folder, "metricValues.ecore.iterations").exists());
+    }
+
+    @Test
+    public void testIterationsAreAppendedWithoutRewritingEarlierIterations() {
+        final MetricValuesWriter writer = new MetricValuesWriter(new SoMoXConfiguration(), this.modelURI);
+        final List<ComponentImplementingClassesLink> candidates = Arrays.asList(this.first, this.second,
+                this.composite);
+        final File chunks = new File(this.folder, "metricValues.ecore.iterations");
+        final File firstChunk = new File(chunks, "iteration0.bin");
+
+        writer.saveMetricValuesModel(this.graph, 1, 0.3, candidates, true);
+        assertTrue(firstChunk.exists());
+        final long firstChunkLength = firstChunk.length();
+        final long firstChunkModified = firstChunk.lastModified();
+
+        writer.saveMetricValuesModel(this.graph, 2, 0.4, candidates, true);
+        assertTrue(new File(chunks, "iteration1.bin").exists());
+        assertEquals(firstChunkLength, firstChunk.length());
+        assertEquals(firstChunkModified, firstChunk.lastModified());
+        assertFalse(new File(this.folder, "metricValues.ecore").exists());
+
+        writer.assembleMetricValuesModel();
+        assertTrue(new File(this.folder, "metricValues.ecore").exists());
+    }
+
+    @Test
+    public void testIterationsAreDeletedIfModelCannotBeSaved() throws IOException {
+        final MetricValuesWriter writer = new MetricValuesWriter(new SoMoXConfiguration(), this.modelURI);
+        final List<ComponentImplementingClassesLink> candidates = Arrays.asList(this.first, this.second,
+                this.composite);
+
+        writer.saveMetricValuesModel(this.graph, 1, 0.3, candidates, true);
+        assertTrue(new File(this.folder, "metricValues.ecore.iterations").exists());
+        // a folder in place of the model lets saving the model fail
+        Files.createDirectory(new File(this.folder, "metricValues.ecore").toPath());
+        writer.assembleMetricValuesModel();
+
+        assertFalse(new File(this.folder, "metricValues.ecore.iterations").exists());
+    }
+
+    private ComponentImplementingClassesLink createComponentLink(final String name, final Resource classes) {
+        final BasicComponent component = RepositoryFactory.eINSTANCE.createBasicComponent();
+        component.setId(name + "Id");
+        component.setEntityName(name);
+        final Class jaMoPPClass = ClassifiersFactory.eINSTANCE.createClass();
+        jaMoPPClass.setName(name.toUpperCase());
+        classes.getContents().add(jaMoPPClass);
+
+        final ComponentImplementingClassesLink link = SourcecodedecoratorFactory.eINSTANCE
+                .createComponentImplementingClassesLink();
+        link.setComponent(component);
+        link.getImplementingClasses().add(jaMoPPClass);
+        return link;
+    }
+
+    private void addRelation(final ComponentImplementingClassesLink source,
+            final ComponentImplementingClassesLink target, final MetricResultStore store, final double firstValue,
+            final double secondValue) {
+        final ClusteringRelation relation = new ClusteringRelation(source, target, store);
+        relation.setResultMetric(FIRST_METRIC, firstValue);
+        relation.setResultMetric(SECOND_METRIC, secondValue);
+        this.graph.addEdge(source, target, relation);
+    }
+}
@@ -104,6 +104,9 @@ public class SimpleModelAnalyzer implements ModelAnalyzer<SoMoXConfiguration> {
         final SimpleAnalysisResult analysisResult = this.initializeAnalysisResult();
         analysisResult.setResultStatus(AnalysisResult.ResultStatus.FAILED);
 
+        // Decide the classifier filter once per classifier instead of per query
+        somoxConfiguration.precomputeClassifierFilter(astModel.getConcreteClassifiers());
+
         // Set up model builder
         final ComponentBuilder pcmComponentBuilder = new ComponentBuilder(astModel, somoxConfiguration, analysisResult);
         final ISoMoXStrategiesFactory strategiesFactory = new BasicSoMoXStrategiesFactory(astModel, somoxConfiguration);
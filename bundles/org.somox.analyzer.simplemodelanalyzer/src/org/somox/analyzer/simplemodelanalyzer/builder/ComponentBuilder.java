@@ -24,6 +24,7 @@ import org.somox.configuration.SoMoXConfiguration;
 import org.somox.kdmhelper.KDMHelper;
 import org.somox.kdmhelper.metamodeladdition.Root;
 import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.helper.ComponentToImplementingClassesHelper;
 import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
 import org.somox.sourcecodedecorator.FileLevelSourceCodeLink;
 import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
@@ -44,6 +45,12 @@ public class ComponentBuilder extends AbstractBuilder {
     private IAssemblyConnectorStrategy assemblyConnectorInnerBuilder = null;
     private IRoleBuilderStrategy roleBuilder = null;
 
+    /**
+     * Attaches the implementing classes to each created or changed component candidate, so the
+     * metrics can read them without deriving them again
+     */
+    private final ComponentToImplementingClassesHelper componentToImplementingClassesHelper = new ComponentToImplementingClassesHelper();
+
     private static Logger logger = Logger.getLogger(ComponentBuilder.class);
 
     /**
@@ -123,6 +130,8 @@ public class ComponentBuilder extends AbstractBuilder {
         this.roleBuilder.buildProvidedRole(result);
         this.roleBuilder.buildRequiredRole(result);
 
+        this.componentToImplementingClassesHelper.attachImplementingClasses(result);
+
         return result;
     }
 
@@ -265,6 +274,8 @@ public class ComponentBuilder extends AbstractBuilder {
         // remove duplicate interfaces which are provided AND required
         this.interfaceBuilder.removeInterfaceSelfAccesses(primitiveComponent);
 
+        this.componentToImplementingClassesHelper.attachImplementingClasses(primitiveComponent);
+
         return primitiveComponent;
     }
 
@@ -286,6 +297,8 @@ public class ComponentBuilder extends AbstractBuilder {
 
         newPrimitiveComponent.getImplementingClasses().addAll(this.getInnerClasses(gastClass));
 
+        this.componentToImplementingClassesHelper.attachImplementingClasses(newPrimitiveComponent);
+
         return newPrimitiveComponent;
     }
 
@@ -307,6 +320,9 @@ public class ComponentBuilder extends AbstractBuilder {
         ComponentImplementingClassesLink result = SourcecodedecoratorFactory.eINSTANCE
                 .createComponentImplementingClassesLink();
         result = this.createSinglePrimitiveComponentFromGASTClasses(classesOfPrimitiveComponent);
+        for (final ComponentImplementingClassesLink mergedComponent : compositeComponentSubgraph.vertexSet()) {
+            this.interfaceBuilder.discardComponent(mergedComponent);
+        }
         return result;
     }
 
@@ -344,6 +360,7 @@ public class ComponentBuilder extends AbstractBuilder {
 
                 // update the result source code decorator
                 compositeComponentLink.getSubComponents().add(newInnerPrimitiveComponent);
+                this.interfaceBuilder.discardComponent(innerComponent);
             } else {
                 // do not handle an existing component
             }
@@ -357,6 +374,9 @@ public class ComponentBuilder extends AbstractBuilder {
                 compositeComponentSubgraph);
         this.assemblyConnectorInnerBuilder.buildAssemblyConnectors(compositeComponentLink, compositeComponentSubgraph);
 
+        // the composite has new sub-components
+        this.componentToImplementingClassesHelper.attachImplementingClasses(compositeComponentLink);
+
         return compositeComponentLink;
     }
 
@@ -1,13 +1,15 @@
 package org.somox.analyzer.simplemodelanalyzer.builder;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
-import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.emftext.language.java.classifiers.Classifier;
 //import org.eclipse.gmt.modisco.java.ASTNode;
@@ -15,7 +17,6 @@ import org.emftext.language.java.classifiers.Classifier;
 import org.emftext.language.java.classifiers.ConcreteClassifier;
 import org.emftext.language.java.types.ClassifierReference;
 import org.emftext.language.java.types.Type;
-import org.emftext.language.java.types.TypeReference;
 import org.palladiosimulator.pcm.core.entity.ComposedProvidingRequiringEntity;
 import org.palladiosimulator.pcm.repository.BasicComponent;
 import org.palladiosimulator.pcm.repository.Interface;
@@ -38,9 +39,9 @@ import org.somox.analyzer.AnalysisResult;
 import org.somox.analyzer.simplemodelanalyzer.builder.util.InterfacePortBuilderHelper;
 import org.somox.analyzer.simplemodelanalyzer.detection.ComponentInterfaceStrategy;
 import org.somox.analyzer.simplemodelanalyzer.detection.IComponentInterfaceStrategy;
-import org.somox.analyzer.simplemodelanalyzer.detection.util.AccessFilter;
 import org.somox.configuration.SoMoXConfiguration;
-import org.somox.filter.EClassBasedFilter;
+import org.somox.kdmhelper.AccessSummary;
+import org.somox.kdmhelper.AccessSummaryIndex;
 import org.somox.kdmhelper.KDMHelper;
 import org.somox.kdmhelper.metamodeladdition.Root;
 import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
@@ -86,6 +87,16 @@ public class InterfaceBuilder extends AbstractBuilder {
      */
     private IComponentInterfaceStrategy interfaceStrategy = null;
 
+    /**
+     * Classes accessed by the components, used to update their required interfaces incrementally
+     */
+    private RequiredInterfaceIndex requiredInterfaceIndex = null;
+
+    /**
+     * Components merged into other components, whose required interfaces are no longer updated
+     */
+    private final Set<ComponentImplementingClassesLink> discardedComponents = new HashSet<ComponentImplementingClassesLink>();
+
     /**
      * Constant indicating the case of a provided interface.
      */
@@ -115,44 +126,76 @@ public class InterfaceBuilder extends AbstractBuilder {
 
         // TODO: extract to configurable strategy
         this.interfaceStrategy = new ComponentInterfaceStrategy(result.getSourceCodeDecoratorRepository());
+        this.requiredInterfaceIndex = new RequiredInterfaceIndex(this.interfaceStrategy);
     }
 
     /**
      * Method used to find for a given component the set of required interfaces. Currently
-     * interfaces are detected using a {@link IComponentInterfaceStrategy}.
+     * interfaces are detected using a {@link IComponentInterfaceStrategy}. The accessed classes of
+     * the component are added to the {@link RequiredInterfaceIndex} for later updates.
      *
      * @param componentCandidate
      *            The component for which this method should create required interfaces
      * @return true if a interface was added; false else
      */
     public boolean findAndAddRequiredInterfaces(final ComponentImplementingClassesLink componentCandidate) {
-        boolean addedARequiredInterface = false;
+        final List<ConcreteClassifier> accessedClasses = this.findAccessedClasses(componentCandidate);
+        this.requiredInterfaceIndex.addComponent(componentCandidate, accessedClasses);
+        return this.addRequiredInterfaces(componentCandidate, accessedClasses);
+    }
 
-        // Filter used to remove inheritance type relations from the list of accesses
-        final EClassBasedFilter<TypeReference> accessFilter = new EClassBasedFilter<TypeReference>(new EClass[] {
-                /** accessesPackage.eINSTANCE.getInheritanceTypeAccess() **/
-                // SOMOXTODOCHANGE
-                // JavaPackage.eINSTANCE.getThisExpression(), //remove class-internal
-                // accesses//SOMOXTODOCHANGE
-                // JavaPackage.eINSTANCE.getSuperFieldAccess()//REALLYADDED//SOMOXTODOCHANGE
-        });
+    /**
+     * Looks up the accesses of the implementing classes of the given component in the access
+     * summaries of the analysed model.
+     *
+     * @param componentCandidate
+     *            The component to scan
+     * @return The accessed classes passing the classifier filter which are not implementing
+     *         classes of the component, in the order of their first access
+     */
+    List<ConcreteClassifier> findAccessedClasses(final ComponentImplementingClassesLink componentCandidate) {
+        return this.findAccessedClasses(componentCandidate, this.astModel.getAccessSummaryIndex());
+    }
 
+    private List<ConcreteClassifier> findAccessedClasses(final ComponentImplementingClassesLink componentCandidate,
+            final AccessSummaryIndex accessSummaryIndex) {
         // Get all accessed classes from all implementation classes of this
-        // component
-        final List<ConcreteClassifier> filteredAccessedClasses = new LinkedList<ConcreteClassifier>();
-        final List<ConcreteClassifier> componentClasses = new LinkedList<ConcreteClassifier>();
+        // component; inheritance type accesses are included
+        final Set<ConcreteClassifier> filteredAccessedClasses = new LinkedHashSet<ConcreteClassifier>();
         for (final ConcreteClassifier clazz : componentCandidate.getImplementingClasses()) {
-            final List<ConcreteClassifier> filteredAccessList = AccessFilter
-                    .filterAccessList(KDMHelper.getAllAccesses(clazz), accessFilter);
-            filteredAccessedClasses.addAll(filteredAccessList);
-            componentClasses.add(clazz);
+            final AccessSummary summary = accessSummaryIndex.getSummary(clazz);
+            filteredAccessedClasses.addAll(summary.getAccessedClassifiers());
+            if (summary.getUnresolvedAccessCount() > 0) {
+                InterfaceBuilder.logger.warn("found " + summary.getUnresolvedAccessCount()
+                        + " empty accesses: accessed class null, in " + KDMHelper.getSISSyID(clazz));
+            }
         }
 
         // remove self accesses inside component (NOT equal to a self access)
-        filteredAccessedClasses.removeAll(componentClasses);
+        filteredAccessedClasses.removeAll(componentCandidate.getImplementingClasses());
 
+        final List<ConcreteClassifier> accessedClasses = new ArrayList<ConcreteClassifier>();
         for (final ConcreteClassifier accessedClass : this.somoxConfiguration.getClassifierFilter()
                 .filter(filteredAccessedClasses)) {
+            accessedClasses.add(accessedClass);
+        }
+        return accessedClasses;
+    }
+
+    /**
+     * Adds required roles for the accessed classes which are component interfaces.
+     *
+     * @param componentCandidate
+     *            The component for which this method should create required interfaces
+     * @param accessedClasses
+     *            The classes accessed by the component
+     * @return true if a interface was added; false else
+     */
+    private boolean addRequiredInterfaces(final ComponentImplementingClassesLink componentCandidate,
+            final List<ConcreteClassifier> accessedClasses) {
+        boolean addedARequiredInterface = false;
+
+        for (final ConcreteClassifier accessedClass : accessedClasses) {
             if (this.interfaceStrategy.isComponentInterface(accessedClass)) {
 
                 // Setting null here since the interface implementation is not generally known; i.
@@ -474,25 +517,53 @@ public class InterfaceBuilder extends AbstractBuilder {
      * Updates the component interfaces of all interface existing until now in the source code
      * decorator. The interfaces might have changed due to newly discovered interfaces during
      * reverse engineering.
+     *
+     * Only the primitive components accessing classes which have become component interfaces since
+     * the last update are updated, using the accessed classes stored in the
+     * {@link RequiredInterfaceIndex}. Primitive components not in the index yet are scanned
+     * completely, {@linkplain #discardComponent(ComponentImplementingClassesLink) discarded}
+     * components are skipped. Assembly connectors are rebuilt for the composites containing updated
+     * components.
+     *
+     * @return The updated primitive components
      */
-    public void updateRequiredInterfacesOfExistingPrimitiveComponents() {
-        boolean addedANewInterface = false;
+    public Set<ComponentImplementingClassesLink> updateRequiredInterfacesOfExistingPrimitiveComponents() {
+        final Map<ComponentImplementingClassesLink, Set<ConcreteClassifier>> newInterfaces = this.requiredInterfaceIndex
+                .collectNewComponentInterfaces();
+        final Set<ComponentImplementingClassesLink> updatedComponents = new HashSet<ComponentImplementingClassesLink>();
 
         for (final ComponentImplementingClassesLink compLink : this.analysisResult.getSourceCodeDecoratorRepository()
                 .getComponentImplementingClassesLink()) {
-            if (!compLink.isIsCompositeComponent()) {
-                addedANewInterface = this.findAndAddRequiredInterfaces(compLink);
-                addedANewInterface = true;
+            if (!compLink.isIsCompositeComponent() && !this.discardedComponents.contains(compLink)) {
+                if (!this.requiredInterfaceIndex.containsComponent(compLink)) {
+                    this.findAndAddRequiredInterfaces(compLink);
+                    updatedComponents.add(compLink);
+                } else if (newInterfaces.containsKey(compLink)) {
+                    final Set<ConcreteClassifier> newInterfacesOfComponent = newInterfaces.get(compLink);
+                    final List<ConcreteClassifier> accessedClasses = new ArrayList<ConcreteClassifier>();
+                    for (final ConcreteClassifier accessedClass : this.requiredInterfaceIndex
+                            .getAccessedClasses(compLink)) {
+                        if (newInterfacesOfComponent.contains(accessedClass)) {
+                            accessedClasses.add(accessedClass);
+                        }
+                    }
+                    this.addRequiredInterfaces(compLink, accessedClasses);
+                    updatedComponents.add(compLink);
+                } else {
+                    // the provided interfaces may have changed as well
+                    this.removeInterfaceSelfAccesses(compLink);
+                }
             }
         }
 
         // assembly connector builder: for new interfaces (assembly connectors for surrounding
         // composites)
         final IAssemblyConnectorStrategy assemblyConnectorStrategy = new AssemblyConnectorsInsideCompositeComponentStrategy();
-        if (addedANewInterface) {
+        if (!updatedComponents.isEmpty()) {
             for (final ComponentImplementingClassesLink compLink : this.analysisResult
                     .getSourceCodeDecoratorRepository().getComponentImplementingClassesLink()) {
-                if (compLink.isIsCompositeComponent()) {
+                if (compLink.isIsCompositeComponent()
+                        && !Collections.disjoint(compLink.getSubComponents(), updatedComponents)) {
                     final ComposedProvidingRequiringEntity composite = (ComposedProvidingRequiringEntity) compLink
                             .getComponent();
                     assemblyConnectorStrategy.buildAssemblyConnectors(composite, compLink.getSubComponents());
@@ -501,6 +572,52 @@ public class InterfaceBuilder extends AbstractBuilder {
         }
 
         // FIXME: can ripple through entire architecture
+        return updatedComponents;
+    }
+
+    /**
+     * Removes a component which has been merged into another component from the
+     * {@link RequiredInterfaceIndex}. Its required interfaces are no longer updated, as the
+     * component is replaced by the merged component.
+     *
+     * @param componentCandidate
+     *            The merged primitive component
+     */
+    public void discardComponent(final ComponentImplementingClassesLink componentCandidate) {
+        this.requiredInterfaceIndex.removeComponent(componentCandidate);
+        this.discardedComponents.add(componentCandidate);
+    }
+
+    /**
+     * @return true if the component has been
+     *         {@linkplain #discardComponent(ComponentImplementingClassesLink) discarded}
+     */
+    boolean isDiscarded(final ComponentImplementingClassesLink componentCandidate) {
+        return this.discardedComponents.contains(componentCandidate);
+    }
+
+    /**
+     * Determines the required interfaces of the given component by a full rescan of the accesses
+     * of its implementing classes, independent of the {@link RequiredInterfaceIndex}.
+     *
+     * @param componentCandidate
+     *            A primitive component
+     * @return The interfaces the component is expected to require, without the interfaces it
+     *         provides itself. Accessed component interfaces without an interface in the repository
+     *         are returned as null.
+     */
+    Set<Interface> findRequiredInterfacesByFullRescan(final ComponentImplementingClassesLink componentCandidate) {
+        final Set<Interface> requiredInterfaces = new HashSet<Interface>();
+        for (final ConcreteClassifier accessedClass : this.findAccessedClasses(componentCandidate,
+                new AccessSummaryIndex())) {
+            if (this.interfaceStrategy.isComponentInterface(accessedClass)) {
+                requiredInterfaces.add(this.getExistingInterface(accessedClass));
+            }
+        }
+        for (final InterfaceSourceCodeLink providedInterfaceLink : componentCandidate.getProvidedInterfaces()) {
+            requiredInterfaces.remove(providedInterfaceLink.getInterface());
+        }
+        return requiredInterfaces;
     }
 
     /**
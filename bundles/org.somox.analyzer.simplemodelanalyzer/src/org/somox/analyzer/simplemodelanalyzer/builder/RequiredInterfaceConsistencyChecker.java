@@ -0,0 +1,77 @@
+package org.somox.analyzer.simplemodelanalyzer.builder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.palladiosimulator.pcm.repository.Interface;
+import org.palladiosimulator.pcm.repository.OperationRequiredRole;
+import org.palladiosimulator.pcm.repository.RequiredRole;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.InterfaceSourceCodeLink;
+import org.somox.sourcecodedecorator.SourceCodeDecoratorRepository;
+
+/**
+ * Compares the required interfaces of the primitive components, as maintained incrementally by
+ * the {@link InterfaceBuilder} and its {@link RequiredInterfaceIndex}, with the required interfaces
+ * found by a full rescan of the accesses of their implementing classes. The required roles of the
+ * components and the required interface links in the source code decorator are both checked.
+ */
+public class RequiredInterfaceConsistencyChecker {
+
+    private final InterfaceBuilder interfaceBuilder;
+
+    /**
+     * @param interfaceBuilder
+     *            The builder which created the required interfaces
+     */
+    public RequiredInterfaceConsistencyChecker(final InterfaceBuilder interfaceBuilder) {
+        this.interfaceBuilder = interfaceBuilder;
+    }
+
+    /**
+     * @param sourceCodeDecorator
+     *            The source code decorator containing the components to check
+     * @return The primitive components whose required interfaces differ from a full rescan,
+     *         without the discarded components
+     */
+    public List<ComponentImplementingClassesLink> findInconsistentComponents(
+            final SourceCodeDecoratorRepository sourceCodeDecorator) {
+        final List<ComponentImplementingClassesLink> inconsistentComponents = new ArrayList<ComponentImplementingClassesLink>();
+
+        for (final ComponentImplementingClassesLink compLink : sourceCodeDecorator
+                .getComponentImplementingClassesLink()) {
+            if (!compLink.isIsCompositeComponent() && !this.interfaceBuilder.isDiscarded(compLink)
+                    && !this.isConsistent(compLink)) {
+                inconsistentComponents.add(compLink);
+            }
+        }
+
+        return inconsistentComponents;
+    }
+
+    /**
+     * @param primitiveComponent
+     *            The primitive component to check
+     * @return true if the required roles and the required interface links of the component match
+     *         a full rescan
+     */
+    public boolean isConsistent(final ComponentImplementingClassesLink primitiveComponent) {
+        final Set<Interface> expected = this.interfaceBuilder.findRequiredInterfacesByFullRescan(primitiveComponent);
+
+        final Set<Interface> requiredByRoles = new HashSet<Interface>();
+        for (final RequiredRole role : primitiveComponent.getComponent().getRequiredRoles_InterfaceRequiringEntity()) {
+            if (role instanceof OperationRequiredRole) {
+                requiredByRoles.add(((OperationRequiredRole) role).getRequiredInterface__OperationRequiredRole());
+            }
+        }
+
+        final Set<Interface> requiredByLinks = new HashSet<Interface>();
+        for (final InterfaceSourceCodeLink requiredInterfaceLink : primitiveComponent.getRequiredInterfaces()) {
+            requiredByLinks.add(requiredInterfaceLink.getInterface());
+        }
+
+        return expected.equals(requiredByRoles) && expected.equals(requiredByLinks);
+    }
+}
@@ -0,0 +1,149 @@
+package org.somox.analyzer.simplemodelanalyzer.builder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.somox.analyzer.simplemodelanalyzer.detection.IComponentInterfaceStrategy;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+
+/**
+ * Reverse index from the classes accessed by components to the components accessing them. It is
+ * used to update the required interfaces of existing components incrementally: the accessed
+ * classes of a component are computed once when the component is added, and later updates only
+ * need the components accessing classes which have become component interfaces since the last
+ * update (e.g. classes whose public methods are used as interface by a fall back strategy).
+ *
+ * The implementing classes of a component are expected not to change after the component has been
+ * added. {@link RequiredInterfaceConsistencyChecker} compares the result with a full rescan.
+ */
+public class RequiredInterfaceIndex {
+
+    private final IComponentInterfaceStrategy interfaceStrategy;
+
+    /** accessed classes of each component, in the order of the accesses */
+    private final Map<ComponentImplementingClassesLink, List<ConcreteClassifier>> accessedClasses = new HashMap<ComponentImplementingClassesLink, List<ConcreteClassifier>>();
+
+    /** components accessing each class, in the order they were added */
+    private final Map<ConcreteClassifier, Set<ComponentImplementingClassesLink>> accessingComponents = new HashMap<ConcreteClassifier, Set<ComponentImplementingClassesLink>>();
+
+    /** accessed classes which were no component interfaces when they were checked last */
+    private final Set<ConcreteClassifier> pendingClasses = new LinkedHashSet<ConcreteClassifier>();
+
+    /**
+     * @param interfaceStrategy
+     *            Strategy used to identify accessed classes as component interfaces
+     */
+    public RequiredInterfaceIndex(final IComponentInterfaceStrategy interfaceStrategy) {
+        this.interfaceStrategy = interfaceStrategy;
+    }
+
+    /**
+     * Adds a component and the classes it accesses to the index. If the component has been added
+     * before, its accessed classes are replaced.
+     *
+     * @param component
+     *            The component to add
+     * @param accessedClasses
+     *            The classes accessed by the implementing classes of the component which are not
+     *            part of the component itself
+     */
+    public void addComponent(final ComponentImplementingClassesLink component,
+            final List<ConcreteClassifier> accessedClasses) {
+        this.removeComponent(component);
+        this.accessedClasses.put(component, new ArrayList<ConcreteClassifier>(accessedClasses));
+
+        for (final ConcreteClassifier accessedClass : accessedClasses) {
+            Set<ComponentImplementingClassesLink> components = this.accessingComponents.get(accessedClass);
+            if (components == null) {
+                components = new LinkedHashSet<ComponentImplementingClassesLink>();
+                this.accessingComponents.put(accessedClass, components);
+                if (!this.interfaceStrategy.isComponentInterface(accessedClass)) {
+                    this.pendingClasses.add(accessedClass);
+                }
+            }
+            components.add(component);
+        }
+    }
+
+    /**
+     * Removes a component from the index.
+     *
+     * @param component
+     *            The component to remove
+     */
+    public void removeComponent(final ComponentImplementingClassesLink component) {
+        final List<ConcreteClassifier> oldAccessedClasses = this.accessedClasses.remove(component);
+        if (oldAccessedClasses == null) {
+            return;
+        }
+        for (final ConcreteClassifier accessedClass : oldAccessedClasses) {
+            final Set<ComponentImplementingClassesLink> components = this.accessingComponents.get(accessedClass);
+            if (components != null && components.remove(component) && components.isEmpty()) {
+                this.accessingComponents.remove(accessedClass);
+                this.pendingClasses.remove(accessedClass);
+            }
+        }
+    }
+
+    /**
+     * @return true if the component has been added to the index
+     */
+    public boolean containsComponent(final ComponentImplementingClassesLink component) {
+        return this.accessedClasses.containsKey(component);
+    }
+
+    /**
+     * @return The classes accessed by the component in the order of the accesses, or an empty list
+     *         if the component has not been added
+     */
+    public List<ConcreteClassifier> getAccessedClasses(final ComponentImplementingClassesLink component) {
+        final List<ConcreteClassifier> classes = this.accessedClasses.get(component);
+        return classes == null ? new ArrayList<ConcreteClassifier>() : classes;
+    }
+
+    /**
+     * @return The components accessing the given class
+     */
+    public Set<ComponentImplementingClassesLink> getAccessingComponents(final ConcreteClassifier accessedClass) {
+        final Set<ComponentImplementingClassesLink> components = this.accessingComponents.get(accessedClass);
+        return components == null ? new HashSet<ComponentImplementingClassesLink>() : components;
+    }
+
+    /**
+     * Checks which accessed classes have become component interfaces since the last call and
+     * collects the components accessing them. Only classes which were no component interfaces
+     * before are checked again.
+     *
+     * @return For each affected component, the accessed classes which have become component
+     *         interfaces
+     */
+    public Map<ComponentImplementingClassesLink, Set<ConcreteClassifier>> collectNewComponentInterfaces() {
+        final Map<ComponentImplementingClassesLink, Set<ConcreteClassifier>> result = new LinkedHashMap<ComponentImplementingClassesLink, Set<ConcreteClassifier>>();
+
+        for (final Iterator<ConcreteClassifier> iterator = this.pendingClasses.iterator(); iterator.hasNext();) {
+            final ConcreteClassifier accessedClass = iterator.next();
+            if (this.interfaceStrategy.isComponentInterface(accessedClass)) {
+                iterator.remove();
+                for (final ComponentImplementingClassesLink component : this.accessingComponents
+                        .get(accessedClass)) {
+                    Set<ConcreteClassifier> newInterfaces = result.get(component);
+                    if (newInterfaces == null) {
+                        newInterfaces = new HashSet<ConcreteClassifier>();
+                        result.put(component, newInterfaces);
+                    }
+                    newInterfaces.add(accessedClass);
+                }
+            }
+        }
+
+        return result;
+    }
+}
@@ -41,6 +41,7 @@ import org.somox.sourcecodedecorator.MethodLevelSourceCodeLink;
 import org.somox.sourcecodedecorator.SEFF2MethodMapping;
 import org.somox.sourcecodedecorator.SourceCodeDecoratorRepository;
 import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+import org.somox.util.SourceCodeDecoratorIndex;
 
 /**
  * Builder used to add GAST behaviour to methods detected as provided operations of components
@@ -289,11 +290,11 @@ public class Seff2JavaASTBuilder extends AbstractBuilder {
      * @return ComponentLink for component.
      */
     private ComponentImplementingClassesLink findComponenentLink(final RepositoryComponent component) {
-        for (final ComponentImplementingClassesLink compLink : this.analysisResult.getSourceCodeDecoratorRepository()
-                .getComponentImplementingClassesLink()) {
-            if (compLink.getComponent().equals(component)) {
-                return compLink;
-            }
+        final ComponentImplementingClassesLink compLink = SourceCodeDecoratorIndex
+                .getIndex(this.analysisResult.getSourceCodeDecoratorRepository())
+                .getComponentImplementingClassesLink(component);
+        if (compLink != null) {
+            return compLink;
         }
         logger.error("No component link found for component " + component.getEntityName());
         return null;
@@ -301,12 +302,9 @@ public class Seff2JavaASTBuilder extends AbstractBuilder {
 
     private MethodLevelSourceCodeLink getMethodLevelSourceCodeLink(final Signature operation) {
         assert this.operationUnique(operation);
-        for (final MethodLevelSourceCodeLink link : this.sourceCodeDecorator.getMethodLevelSourceCodeLink()) {
-            if (operation == link.getOperation()) {
-                return link;
-            }
-        }
-        return null;
+        final List<MethodLevelSourceCodeLink> links = SourceCodeDecoratorIndex.getIndex(this.sourceCodeDecorator)
+                .getMethodLevelSourceCodeLinksOfOperation(operation);
+        return links.isEmpty() ? null : links.get(0);
     }
 
     /**
@@ -319,17 +317,7 @@ public class Seff2JavaASTBuilder extends AbstractBuilder {
      * @return true/false whether already present or not.
      */
     private boolean operationUnique(final Signature signature) {
-        boolean alreadyFound = false;
-        for (final MethodLevelSourceCodeLink link : this.sourceCodeDecorator.getMethodLevelSourceCodeLink()) {
-            if (signature == link.getOperation()) {
-
-                if (alreadyFound) {
-                    return false;
-                }
-
-                alreadyFound = true;
-            }
-        }
-        return alreadyFound;
+        return SourceCodeDecoratorIndex.getIndex(this.sourceCodeDecorator)
+                .getMethodLevelSourceCodeLinksOfOperation(signature).size() == 1;
     }
 }
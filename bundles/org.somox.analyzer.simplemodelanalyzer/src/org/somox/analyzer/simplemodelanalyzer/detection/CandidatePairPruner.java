@@ -0,0 +1,214 @@
+package org.somox.analyzer.simplemodelanalyzer.detection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.somox.configuration.ClusteringConfiguration;
+import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.IMetric;
+import org.somox.metrics.MetricID;
+import org.somox.metrics.MetricResultStore;
+import org.somox.metrics.abstractmetrics.AbstractComposedMetric;
+import org.somox.metrics.basic.InterfaceAccessesCount;
+import org.somox.metrics.basic.InternalAccessesCount;
+import org.somox.metrics.helper.AccessNeighbourhoodIndex;
+import org.somox.metrics.hierarchy.DirectoryMapping;
+import org.somox.metrics.hierarchy.PackageMapping;
+import org.somox.metrics.ratio.AdherenceToInterfaceCommunication;
+import org.somox.metrics.ratio.Coupling;
+import org.somox.metrics.structure.SliceLayerArchitectureQuality;
+import org.somox.metrics.structure.SubsystemComponent;
+
+/**
+ * Removes pairs of component candidates from the computation work which can neither reach the
+ * merge nor the compose threshold.
+ *
+ * Candidates which are no neighbours in the class access graph (see
+ * {@link AccessNeighbourhoodIndex}) have no accesses between each other in either direction, so
+ * their coupling and interface adherence are 0. For such pairs the cheap, commutative package,
+ * directory and subsystem metrics are computed exactly and the merge and compose indicating
+ * metrics are bounded by {@link AbstractComposedMetric#computeUpperBound(Map)}. A pair is pruned
+ * only if both bounds are not above the minimum thresholds; the thresholds of the clustering never
+ * fall below those minimums and an edge only passes if its value is strictly above the threshold,
+ * so a pruned pair never contributes an edge to a projected graph. If one of the indicating
+ * metrics cannot be bounded, all pairs are evaluated.
+ *
+ * Only direct accesses enter the coupling and interface adherence metrics, so the neighbourhoods
+ * are one hop wide; wider neighbourhoods are sound as well but prune fewer pairs. Package and
+ * directory proximity are not indexed: {@link PackageMapping} and {@link DirectoryMapping} are
+ * cheap and computed exactly for each pair which is no neighbour, which bounds the indicating
+ * metrics tighter than any proximity index could.
+ *
+ * When running with assertions enabled, all metrics of each pruned pair are computed as well and
+ * checked against the thresholds.
+ */
+public class CandidatePairPruner {
+
+    private static final Logger LOG = Logger.getLogger(CandidatePairPruner.class);
+
+    /**
+     * Margin between a bound and a threshold covering different rounding of bound and exact value
+     */
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Metrics computed exactly for pairs which are no neighbours, in the order of computation.
+     * {@link SubsystemComponent} may compute {@link SliceLayerArchitectureQuality} on its own.
+     */
+    private static final MetricID[] EXACT_METRIC_IDS = { PackageMapping.METRIC_ID, DirectoryMapping.METRIC_ID,
+            SubsystemComponent.METRIC_ID, SliceLayerArchitectureQuality.METRIC_ID };
+
+    /**
+     * Values of the access based metrics of pairs which are no neighbours
+     */
+    private static final MetricID[] ZERO_METRIC_IDS = { InternalAccessesCount.METRIC_ID,
+            InterfaceAccessesCount.METRIC_ID, Coupling.METRIC_ID, AdherenceToInterfaceCommunication.METRIC_ID };
+
+    private final AccessNeighbourhoodIndex neighbourhoodIndex;
+
+    private final IMetric mergeIndicatingMetric;
+
+    private final IMetric compositionIndicatingMetric;
+
+    private final Map<MetricID, IMetric> allMetrics;
+
+    private final double minMergeThreshold;
+
+    private final double minComposeThreshold;
+
+    /**
+     * Commutative metrics of {@link #EXACT_METRIC_IDS} available in this run
+     */
+    private final List<IMetric> exactMetrics = new ArrayList<IMetric>();
+
+    /**
+     * Store of the temporary relations used to compute the exact metrics
+     */
+    private final MetricResultStore exactMetricStore;
+
+    private final boolean boundable;
+
+    /**
+     * @param neighbourhoodIndex
+     *            The index of the class access graph the metrics have been initialised with
+     * @param mergeIndicatingMetric
+     *            The metric compared to the merge thresholds
+     * @param compositionIndicatingMetric
+     *            The metric compared to the compose thresholds
+     * @param allMetrics
+     *            All initialised metrics mapped on their IDs
+     * @param clusteringConfig
+     *            Configuration containing the minimum thresholds
+     */
+    public CandidatePairPruner(final AccessNeighbourhoodIndex neighbourhoodIndex, final IMetric mergeIndicatingMetric,
+            final IMetric compositionIndicatingMetric, final Map<MetricID, IMetric> allMetrics,
+            final ClusteringConfiguration clusteringConfig) {
+        super();
+        this.neighbourhoodIndex = neighbourhoodIndex;
+        this.mergeIndicatingMetric = mergeIndicatingMetric;
+        this.compositionIndicatingMetric = compositionIndicatingMetric;
+        this.allMetrics = allMetrics;
+        this.minMergeThreshold = clusteringConfig.getMinMergeClusteringThreshold();
+        this.minComposeThreshold = clusteringConfig.getMinComposeClusteringThreshold();
+
+        final List<MetricID> exactMetricIDs = new ArrayList<MetricID>();
+        for (final MetricID metricID : EXACT_METRIC_IDS) {
+            final IMetric metric = allMetrics.get(metricID);
+            if (metric != null && metric.isCommutative()) {
+                this.exactMetrics.add(metric);
+                exactMetricIDs.add(metricID);
+            }
+        }
+        this.exactMetricStore = new MetricResultStore(exactMetricIDs, 1);
+
+        this.boundable = mergeIndicatingMetric instanceof AbstractComposedMetric
+                && compositionIndicatingMetric instanceof AbstractComposedMetric;
+        if (!this.boundable) {
+            LOG.info("The merge or compose indicating metric cannot be bounded, all candidate pairs are evaluated");
+        }
+    }
+
+    /**
+     * @param work
+     *            The pairs of component candidates to compute the relations for
+     * @return The pairs which may reach a merge or compose threshold, in the order of the given
+     *         work
+     */
+    public List<NodePair> prune(final List<NodePair> work) {
+        if (!this.boundable) {
+            return work;
+        }
+        final AccessNeighbourhoodIndex.Neighbourhoods neighbourhoods = this.neighbourhoodIndex.createNeighbourhoods();
+        final List<NodePair> result = new ArrayList<NodePair>(work.size());
+        for (final NodePair pair : work) {
+            if (this.isRelevant(pair, neighbourhoods)) {
+                result.add(pair);
+            } else {
+                assert this.isBelowMinimumThresholds(pair) : "Pruned pair " + pair.getFirst() + ", "
+                        + pair.getSecond() + " reaches a clustering threshold";
+            }
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Pruned " + (work.size() - result.size()) + " of " + work.size()
+                    + " component candidate pairs using the neighbourhoods of "
+                    + this.neighbourhoodIndex.getClassCount() + " classes");
+        }
+        return result;
+    }
+
+    private boolean isRelevant(final NodePair pair, final AccessNeighbourhoodIndex.Neighbourhoods neighbourhoods) {
+        if (neighbourhoods.areNeighbours(pair.getFirst(), pair.getSecond())) {
+            return true;
+        }
+        final Map<MetricID, Double> knownValues = new HashMap<MetricID, Double>();
+        for (final MetricID metricID : ZERO_METRIC_IDS) {
+            knownValues.put(metricID, 0.0);
+        }
+        if (!this.isBelowMinimumThresholds(knownValues)) {
+            final ClusteringRelation relation = new ClusteringRelation(pair.getFirst(), pair.getSecond(),
+                    this.exactMetricStore);
+            try {
+                for (final IMetric metric : this.exactMetrics) {
+                    if (!relation.hasResultMetric(metric.getMID())) {
+                        metric.computeDirected(relation);
+                    }
+                    knownValues.put(metric.getMID(), relation.getResultMetric(metric.getMID()));
+                }
+            } finally {
+                relation.release();
+            }
+            return !this.isBelowMinimumThresholds(knownValues);
+        }
+        return false;
+    }
+
+    private boolean isBelowMinimumThresholds(final Map<MetricID, Double> knownValues) {
+        return ((AbstractComposedMetric) this.mergeIndicatingMetric).computeUpperBound(knownValues)
+                <= this.minMergeThreshold - EPSILON
+                && ((AbstractComposedMetric) this.compositionIndicatingMetric).computeUpperBound(knownValues)
+                        <= this.minComposeThreshold - EPSILON;
+    }
+
+    /**
+     * Computes all metrics of the given pair in both directions. Used in assertions only.
+     */
+    private boolean isBelowMinimumThresholds(final NodePair pair) {
+        final MetricResultStore store = new MetricResultStore(this.allMetrics.keySet(), 2);
+        final ClusteringRelation[] relations;
+        try {
+            relations = pair.getWorkTask(this.mergeIndicatingMetric, this.allMetrics, store).call();
+        } catch (final Exception e) {
+            throw new RuntimeException("Computation of clustering relation failed", e);
+        }
+        for (final ClusteringRelation relation : relations) {
+            if (relation.getResultMetric(this.mergeIndicatingMetric.getMID()) > this.minMergeThreshold
+                    || relation.getResultMetric(this.compositionIndicatingMetric.getMID()) > this.minComposeThreshold) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
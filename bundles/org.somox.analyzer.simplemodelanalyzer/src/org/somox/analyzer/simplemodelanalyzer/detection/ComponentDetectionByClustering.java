@@ -1,16 +1,9 @@
 package org.somox.analyzer.simplemodelanalyzer.detection;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
@@ -21,7 +14,6 @@ import org.jgrapht.DirectedGraph;
 import org.jgrapht.Graph;
 import org.jgrapht.alg.ConnectivityInspector;
 import org.jgrapht.graph.DirectedSubgraph;
-import org.jgrapht.graph.SimpleDirectedGraph;
 import org.jgrapht.graph.Subgraph;
 import org.somox.analyzer.ModelAnalyzerException;
 import org.somox.analyzer.simplemodelanalyzer.builder.ComponentBuilder;
@@ -32,6 +24,7 @@ import org.somox.analyzer.simplemodelanalyzer.metrics.DefaultCompositionIndicati
 import org.somox.analyzer.simplemodelanalyzer.metrics.DefaultMergeIndicatingMetric;
 import org.somox.analyzer.simplemodelanalyzer.metricvalues.MetricValuesWriter;
 import org.somox.configuration.AbstractMoxConfiguration;
+import org.somox.configuration.ClusteringConfiguration;
 import org.somox.configuration.SoMoXConfiguration;
 import org.somox.filter.BaseFilter;
 import org.somox.filter.FilteredCollectionsFactory;
@@ -39,6 +32,8 @@ import org.somox.kdmhelper.metamodeladdition.Root;
 import org.somox.metrics.ClusteringRelation;
 import org.somox.metrics.IMetric;
 import org.somox.metrics.MetricID;
+import org.somox.metrics.MetricResultStore;
+import org.somox.metrics.helper.AccessNeighbourhoodIndex;
 import org.somox.metrics.helper.Class2ClassAccessGraphHelper;
 import org.somox.metrics.helper.ClassAccessGraphEdge;
 import org.somox.metrics.helper.ComponentToImplementingClassesHelper;
@@ -95,11 +90,20 @@ public class ComponentDetectionByClustering implements IDetectionStrategy {
     private final Map<MetricID, IMetric> allMetrics;
 
     /**
-     * Executor service which is used to compute any damage to the clustering graph in parallel
+     * Store holding the values of all metrics computed for the clustering relations
      */
-    private final ExecutorCompletionService<ClusteringRelation[]> completionService;
+    private final MetricResultStore metricResultStore;
 
-    private ExecutorService pool;
+    /**
+     * Scheduler which is used to compute any damage to the clustering graph in parallel
+     */
+    private final IMetricComputationScheduler metricComputationScheduler;
+
+    /**
+     * Pruner removing pairs which cannot reach a clustering threshold from the computation work, null
+     * if all pairs are computed
+     */
+    private final CandidatePairPruner candidatePairPruner;
 
     public ComponentDetectionByClustering(final Root kdmModelToAnalyze,
             final List<ComponentImplementingClassesLink> initialComponentCandidates,
@@ -110,11 +114,20 @@ public class ComponentDetectionByClustering implements IDetectionStrategy {
 
         this.kdmModel = kdmModelToAnalyze;
         this.somoxConfiguration = somoxConfig;
-        this.allMetrics = this.initializeMetrics(initialComponentCandidates);
+        final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph = this
+                .getAccessGraph(initialComponentCandidates);
+        this.allMetrics = this.initializeMetrics(accessGraph);
+        this.metricResultStore = new MetricResultStore(this.allMetrics.keySet());
         this.compositionIndicatingMetric = this.getMetric(this.allMetrics,
                 DefaultCompositionIndicatingMetric.METRIC_ID);
         this.mergeIndicatingMetric = this.getMetric(this.allMetrics, DefaultMergeIndicatingMetric.METRIC_ID);
-        this.completionService = this.initializeExecutorCompletionService();
+        this.metricComputationScheduler = this.initializeMetricComputationScheduler(somoxConfig);
+        this.candidatePairPruner = somoxConfig.getClusteringConfig().isCandidatePairPruning()
+                ? new CandidatePairPruner(
+                        new AccessNeighbourhoodIndex(accessGraph, 1, this.componentToImplementingClassHelper),
+                        this.mergeIndicatingMetric, this.compositionIndicatingMetric, this.allMetrics,
+                        somoxConfig.getClusteringConfig())
+                : null;
 
         GraphPrinter.cleanOutputFolder(somoxConfig.getFileLocations().getAnalyserInputFile());
     }
@@ -142,21 +155,28 @@ public class ComponentDetectionByClustering implements IDetectionStrategy {
             throw new IllegalArgumentException(
                     "The minimum merge threshold must be lower than maximum merge threshold");
         }
+        if (somoxConfig.getClusteringConfig().getMetricComputationParallelism() < 0) {
+            throw new IllegalArgumentException("The metric computation parallelism must not be negative");
+        }
     }
 
     /**
-     * Initialize the {@link ExecutorCompletionService} used to compute repair tasks of the
+     * Initialize the {@link IMetricComputationScheduler} used to compute repair tasks of the
      * clustering graph
      *
-     * @return the created {@link ExecutorCompletionService} initialized to the number of CPU cores
-     *         or 1 in debug mode
+     * @param somoxConfig
+     *            configuration selecting the scheduler and its parallelism
+     * @return the created scheduler
      */
-    private ExecutorCompletionService<ClusteringRelation[]> initializeExecutorCompletionService() {
-        final int poolSize = LOG.isDebugEnabled() ? 1 : Runtime.getRuntime().availableProcessors() + 1;
-        LOG.debug("Initialized thread pool to compute repair actions of the clustering graph with " + poolSize
-                + " threads");
-        this.pool = Executors.newFixedThreadPool(poolSize);
-        return new ExecutorCompletionService<ClusteringRelation[]>(this.pool);
+    private IMetricComputationScheduler initializeMetricComputationScheduler(final SoMoXConfiguration somoxConfig) {
+        final ClusteringConfiguration clusteringConfig = somoxConfig.getClusteringConfig();
+        final int parallelism = clusteringConfig.getEffectiveMetricComputationParallelism();
+        final IMetricComputationScheduler scheduler = clusteringConfig.isForkJoinMetricComputation()
+                ? new ForkJoinMetricComputationScheduler(parallelism)
+                : new ExecutorMetricComputationScheduler(parallelism);
+        LOG.debug("Initialized " + scheduler.getClass().getSimpleName()
+                + " to compute repair actions of the clustering graph with " + parallelism + " threads");
+        return scheduler;
     }
 
     private enum OperationMode {
@@ -185,76 +205,95 @@ public class ComponentDetectionByClustering implements IDetectionStrategy {
         int componentCountPreviousIteration = componentCandidates.size();
         boolean newComponentsFound = true;
         int iteration = 0;
-        final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> componentIndicatingGraph = this
-                .setupGraph(componentCandidates);
+        final IncrementalClusteringGraph clusteringGraph = new IncrementalClusteringGraph();
+        final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> componentIndicatingGraph = clusteringGraph
+                .getGraph();
+        final MetricValuesWriter metricValuesWriter = new MetricValuesWriter(this.somoxConfiguration);
 
-        // Cluster as long as there is a chance to find new components in the clustering step
-        while (this.clusteringCanContinue(componentCandidates, currentMode, currentThreshold, currentThresholdBound)) {
+        boolean completed = false;
+        try {
+            // Cluster as long as there is a chance to find new components in the clustering step
+            while (this.clusteringCanContinue(componentCandidates, currentMode, currentThreshold,
+                    currentThresholdBound)) {
 
-            iteration++;
+                iteration++;
 
-            LOG.info("Clustering iteration nr.: " + iteration + " in mode: " + currentMode);
-            LOG.info("NR Component candidates: " + componentCandidates.size());
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Operation mode: " + currentMode + ", current threshold value: " + currentThreshold
-                        + ", current delta: " + currentDelta + ", current bound: " + currentThresholdBound);
-            }
+                LOG.info("Clustering iteration nr.: " + iteration + " in mode: " + currentMode);
+                LOG.info("NR Component candidates: " + componentCandidates.size());
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Operation mode: " + currentMode + ", current threshold value: " + currentThreshold
+                            + ", current delta: " + currentDelta + ", current bound: " + currentThresholdBound);
+                }
 
-            if (newComponentsFound) {
-                // Recompute missing metrics and add their corresponding vertices and edges
-                LOG.debug("Computing clustering graphs");
-                this.computeAllMetrics(componentCandidates, this.mergeIndicatingMetric, componentIndicatingGraph,
-                        progressMonitor);
+                if (newComponentsFound) {
+                    // Recompute missing metrics and add their corresponding vertices and edges
+                    LOG.debug("Computing clustering graphs");
+                    this.computeAllMetrics(componentCandidates, this.mergeIndicatingMetric, clusteringGraph,
+                            progressMonitor);
 
-                this.saveMetricValuesModel(componentIndicatingGraph, iteration, currentThreshold, currentMode,
-                        componentCandidates);
-            }
+                    this.saveMetricValuesModel(metricValuesWriter, componentIndicatingGraph, iteration,
+                            currentThreshold, currentMode, componentCandidates);
+                }
 
-            // 2. create projected graph from one with evaluated metrics:
-            LOG.debug("Projecting graph based on current threshold " + currentThreshold);
-            final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> projectedGraph = this
-                    .createProjectedGraph(componentIndicatingGraph, currentThreshold, currentMode);
-            this.createDebugOutputForIteration(currentMode, iteration, componentIndicatingGraph, projectedGraph);
+                // 2. create projected graph from one with evaluated metrics:
+                LOG.debug("Projecting graph based on current threshold " + currentThreshold);
+                final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> projectedGraph = this
+                        .createProjectedGraph(componentIndicatingGraph, currentThreshold, currentMode);
+                this.createDebugOutputForIteration(currentMode, iteration, componentIndicatingGraph, projectedGraph);
 
-            // 3. Component Clustering
-            componentCandidates = this.componentComposition(pcmBuilder, projectedGraph, iteration,
-                    currentMode == OperationMode.MERGE);
+                // 3. Component Clustering
+                componentCandidates = this.componentComposition(pcmBuilder, projectedGraph, clusteringGraph, iteration,
+                        currentMode == OperationMode.MERGE);
 
-            // update existing components for new interfaces
-            // TODO: the following line causes a lot of performance overhead and is only useful if
-            // public methods are being recognized as interfaces in a fall back strategy
-            pcmBuilder.updateRequiredInterfacesOfExistingPrimitiveComponents();
+                // update existing components for new interfaces; only useful if public methods are
+                // being recognized as interfaces in a fall back strategy. Only the components accessing
+                // such new interfaces are updated.
+                pcmBuilder.updateRequiredInterfacesOfExistingPrimitiveComponents();
 
-            // 4. Check whether new components have been found in this iteration
-            if (componentCandidates.size() == componentCountPreviousIteration) {
-                newComponentsFound = false;
-            } else {
-                componentCountPreviousIteration = componentCandidates.size();
-                newComponentsFound = true;
-            }
+                // 4. Check whether new components have been found in this iteration
+                if (componentCandidates.size() == componentCountPreviousIteration) {
+                    newComponentsFound = false;
+                } else {
+                    componentCountPreviousIteration = componentCandidates.size();
+                    newComponentsFound = true;
+                }
 
-            // 5. adapt thresholds if necessary
-            if (!newComponentsFound) {
-                currentThreshold += currentDelta;
-                if (currentMode == OperationMode.MERGE
-                        && this.isSwitchToCompose(currentThreshold, currentThresholdBound)) {
-                    LOG.info("Done merging primitive components, now starting to compose.");
-                    currentMode = OperationMode.COMPOSE;
-                    currentThreshold = this.somoxConfiguration.getClusteringConfig().getMaxComposeClusteringThreshold();
-                    currentThresholdBound = this.somoxConfiguration.getClusteringConfig()
-                            .getMinComposeClusteringThreshold();
-                    currentDelta = -this.somoxConfiguration.getClusteringConfig()
-                            .getClusteringComposeThresholdDecrement();
+                // 5. adapt thresholds if necessary
+                if (!newComponentsFound) {
+                    currentThreshold += currentDelta;
+                    if (currentMode == OperationMode.MERGE
+                            && this.isSwitchToCompose(currentThreshold, currentThresholdBound)) {
+                        LOG.info("Done merging primitive components, now starting to compose.");
+                        currentMode = OperationMode.COMPOSE;
+                        currentThreshold = this.somoxConfiguration.getClusteringConfig()
+                                .getMaxComposeClusteringThreshold();
+                        currentThresholdBound = this.somoxConfiguration.getClusteringConfig()
+                                .getMinComposeClusteringThreshold();
+                        currentDelta = -this.somoxConfiguration.getClusteringConfig()
+                                .getClusteringComposeThresholdDecrement();
+                    }
                 }
             }
+            completed = true;
+        } finally {
+            this.shutdown();
+            clusteringGraph.releaseRelations();
+            // also keeps the iterations saved before a failure or cancellation
+            try {
+                metricValuesWriter.assembleMetricValuesModel();
+            } catch (final RuntimeException e) {
+                if (completed) {
+                    throw e;
+                }
+                // do not replace the exception the clustering failed with
+                LOG.error("Could not assemble the metric values model of the failed clustering", e);
+            }
         }
 
         if (LOG.isDebugEnabled()) {
             ComponentPrinter.printComponents(componentCandidates, LOG);
         }
 
-        this.pool.shutdown();
-
         return componentCandidates;
     }
 
@@ -284,11 +323,10 @@ public class ComponentDetectionByClustering implements IDetectionStrategy {
         // WTF? && iteration < MAX_ACCEPTABLE_ITERATIONS;
     }
 
-    private void saveMetricValuesModel(
+    private void saveMetricValuesModel(final MetricValuesWriter mvWriter,
             final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> metricsGraph, final int iteration,
             final double currentThreshold, final OperationMode mode,
             final List<ComponentImplementingClassesLink> componentCandidates) {
-        final MetricValuesWriter mvWriter = new MetricValuesWriter(this.somoxConfiguration);
         mvWriter.saveMetricValuesModel(metricsGraph, iteration, currentThreshold, componentCandidates,
                 mode == OperationMode.MERGE);
 
@@ -337,7 +375,8 @@ public class ComponentDetectionByClustering implements IDetectionStrategy {
         // Graph whose nodes are GASTClasses and whose Edges
         final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph = Class2ClassAccessGraphHelper
                 .computeFilteredClass2ClassAccessGraph(this.somoxConfiguration,
-                        this.componentToImplementingClassHelper.collectAllClasses(componentCandidates));
+                        this.componentToImplementingClassHelper.collectAllClasses(componentCandidates),
+                        this.kdmModel.getAccessSummaryIndex());
 
         return accessGraph;
     }
@@ -345,19 +384,18 @@ public class ComponentDetectionByClustering implements IDetectionStrategy {
     /**
      * This method is used to initialize all metrics used in the clustering algorithm
      *
-     * @param componentCandidates
-     *            The set of component candidates. They will be used to limit the size of the
-     *            caching graph which is sent to the metric instances.
+     * @param accessGraph
+     *            The class access graph of the initial component candidates which is sent to the
+     *            metric instances, see {@link #getAccessGraph(List)}
      * @return The initialized set of metrics mapped on their IDs
      * @throws AnalyzerRuleException
      *             If the initialization of a metric fails, an {@link AnalyzerRuleException} is
      *             thrown
      */
-    private Map<MetricID, IMetric> initializeMetrics(final List<ComponentImplementingClassesLink> componentCandidates) {
+    private Map<MetricID, IMetric> initializeMetrics(
+            final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph) {
         final Map<MetricID, IMetric> allMetrics = MetricsRegistry.getRegisteredMetrics();
 
-        final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph = this
-                .getAccessGraph(componentCandidates);
         for (final IMetric metric : allMetrics.values()) {
             metric.initialize(this.kdmModel, this.somoxConfiguration, allMetrics, accessGraph,
                     this.componentToImplementingClassHelper);
@@ -392,6 +430,36 @@ public class ComponentDetectionByClustering implements IDetectionStrategy {
                 FilteredCollectionsFactory.getFilteredHashSet(filter, componentIndicatingGraph.edgeSet()));
     }
 
+    /**
+     * Computes the merge indicating metric for all pairs of the given component candidates which are
+     * missing in the clustering graph and adds the relations to it, as each clustering iteration of
+     * {@link #startDetection} does. This allows to measure the metric computation on its own, e.g.
+     * in benchmarks. Callers which do not run {@link #startDetection} have to call
+     * {@link #shutdown()} when done.
+     *
+     * @param componentCandidates
+     *            The current component candidates
+     * @param clusteringGraph
+     *            The graph of the previous computation. Only missing relations are computed and added
+     * @param progressMonitor
+     *            The progress monitor used to indicate clustering progress
+     * @throws ModelAnalyzerException
+     *             Thrown if the metric computation fails unexpectedly
+     */
+    public void computeMergeIndicatingMetrics(final List<ComponentImplementingClassesLink> componentCandidates,
+            final IncrementalClusteringGraph clusteringGraph, final IProgressMonitor progressMonitor)
+            throws ModelAnalyzerException {
+        this.computeAllMetrics(componentCandidates, this.mergeIndicatingMetric, clusteringGraph, progressMonitor);
+    }
+
+    /**
+     * Shuts down the threads computing the metrics. {@link #startDetection} does so when it
+     * returns; the detection cannot compute metrics afterwards.
+     */
+    public void shutdown() {
+        this.metricComputationScheduler.shutdown();
+    }
+
     /**
      * For the given list of potential components, i.e., classes, compute a triangular matrix of
      * metrics indicating the relationship of the two classes.
@@ -401,6 +469,8 @@ public class ComponentDetectionByClustering implements IDetectionStrategy {
      * @param metricComputationStrategy
      *            A class which encapsulates the computation of the metrics. The top level metric
      *            which is to be computed (merge or compose).
+     * @param clusteringGraph
+     *            The graph of the previous iteration. Only missing relations are computed and added
      * @param progressMonitor
      *            The progress monitor used to indicate clustering progress
      * @return The elements of the triangular matrix showing the relationship of all classes
@@ -409,99 +479,34 @@ public class ComponentDetectionByClustering implements IDetectionStrategy {
      *             Thrown if the metric computation fails unexpectedly
      */
     private void computeAllMetrics(final List<ComponentImplementingClassesLink> newComponentCandidates,
-            final IMetric metricComputationStrategy,
-            final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> previousGraph,
+            final IMetric metricComputationStrategy, final IncrementalClusteringGraph clusteringGraph,
             final IProgressMonitor progressMonitor) throws ModelAnalyzerException {
 
-        final Collection<NodePair> work = this.deriveComputationWork(newComponentCandidates, previousGraph);
+        List<NodePair> work = clusteringGraph.deriveComputationWork(newComponentCandidates);
+        if (this.candidatePairPruner != null) {
+            work = this.candidatePairPruner.prune(work);
+        }
         final int totalCount = work.size();
 
         final IProgressMonitor clusteringProgressMonitor = new SubProgressMonitor(progressMonitor, totalCount);
+        clusteringProgressMonitor.beginTask("Computing metrics of " + totalCount + " component candidate pairs",
+                totalCount);
         final long startTimeClustering = System.nanoTime();
         LOG.debug("Creating weighted directed graph for " + newComponentCandidates.size() + " components.");
 
-        for (final NodePair nodePair : work) {
-            this.completionService.submit(nodePair.getWorkTask(metricComputationStrategy, this.allMetrics));
-        }
-
-        try {
-            for (int stepNo = 0; stepNo < totalCount; stepNo++) {
-                final ClusteringRelation[] computedRelationPair = this.completionService.take().get();
-                for (final ClusteringRelation relation : computedRelationPair) {
-                    previousGraph.addEdge(relation.getSourceComponent(), relation.getTargetComponent(), relation);
-                }
-                LOG.debug(stepNo * 100 / totalCount + "% of clustering done.");
-            }
-        } catch (final InterruptedException e) {
-            throw new RuntimeException("Parallel execution failed unexpectedly", e);
-        } catch (final ExecutionException e) {
-            throw new RuntimeException("Parallel execution failed unexpectedly", e);
+        final ClusteringRelation[][] relations = this.metricComputationScheduler.computeRelations(work,
+                metricComputationStrategy, this.allMetrics, this.metricResultStore, clusteringProgressMonitor);
+        for (final ClusteringRelation[] pairRelations : relations) {
+            clusteringGraph.addRelations(pairRelations);
         }
 
         final long clusteringTime = System.nanoTime() - startTimeClustering;
-        LOG.debug("TIME for Compute All Metrics: " + TimeUnit.NANOSECONDS.toSeconds(clusteringTime) + " s");
-
-        clusteringProgressMonitor.done();
-    }
-
-    private Collection<NodePair> deriveComputationWork(final List<ComponentImplementingClassesLink> componentCandidates,
-            final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> previousGraph) {
-        final Set<ComponentImplementingClassesLink> newNodes = new HashSet<ComponentImplementingClassesLink>();
-        final Set<ComponentImplementingClassesLink> nodesToRemove = new HashSet<ComponentImplementingClassesLink>();
-
-        for (final ComponentImplementingClassesLink link : previousGraph.vertexSet()) {
-            if (!componentCandidates.contains(link)) {
-                nodesToRemove.add(link);
-            }
-        }
-
-        previousGraph.removeAllVertices(nodesToRemove);
-        final Set<ComponentImplementingClassesLink> oldNodesSet = new HashSet<ComponentImplementingClassesLink>(
-                previousGraph.vertexSet());
-
-        for (final ComponentImplementingClassesLink link : componentCandidates) {
-            if (!previousGraph.vertexSet().contains(link)) {
-                newNodes.add(link);
-                previousGraph.addVertex(link);
-            }
-        }
-
-        assert Collections.disjoint(newNodes, oldNodesSet);
-
-        final int totalCount = newNodes.size() * (newNodes.size() - 1) / 2 + newNodes.size() * oldNodesSet.size();
-
-        final Collection<NodePair> pairsToCompute = this.derivePairsToCompute(newNodes, oldNodesSet);
-        assert pairsToCompute.size() == totalCount;
-
-        return pairsToCompute;
-    }
-
-    private Collection<NodePair> derivePairsToCompute(final Set<ComponentImplementingClassesLink> newNodes,
-            final Set<ComponentImplementingClassesLink> oldNodesSet) {
-        final Set<NodePair> result = new HashSet<NodePair>();
-        for (final ComponentImplementingClassesLink oldNode : oldNodesSet) {
-            for (final ComponentImplementingClassesLink newNode : newNodes) {
-                result.add(new NodePair(newNode, oldNode));
-            }
-        }
-        for (final ComponentImplementingClassesLink newNode1 : newNodes) {
-            for (final ComponentImplementingClassesLink newNode2 : newNodes) {
-                if (newNode1 != newNode2) {
-                    final NodePair newPair = new NodePair(newNode1, newNode2);
-                    if (!result.contains(newPair)) {
-                        result.add(newPair);
-                    }
-                }
-            }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("TIME for Compute All Metrics: " + TimeUnit.NANOSECONDS.toSeconds(clusteringTime) + " s, "
+                    + totalCount * TimeUnit.SECONDS.toNanos(1) / Math.max(clusteringTime, 1) + " pairs/s");
         }
-        return result;
-    }
 
-    private DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> setupGraph(
-            final List<ComponentImplementingClassesLink> componentCandidates) {
-        final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> result = new SimpleDirectedGraph<ComponentImplementingClassesLink, ClusteringRelation>(
-                ClusteringRelation.class);
-        return result;
+        clusteringProgressMonitor.done();
     }
 
     /**
@@ -512,6 +517,8 @@ public class ComponentDetectionByClustering implements IDetectionStrategy {
      * @param relationshipGraph
      *            The triangular matrix containing the metrics for the relationship of pairwise
      *            classes
+     * @param clusteringGraph
+     *            The graph in which the merged or composed candidates are recorded
      * @param iteration
      *            current iteration count
      * @param isMergeCase
@@ -521,7 +528,7 @@ public class ComponentDetectionByClustering implements IDetectionStrategy {
      */
     private List<ComponentImplementingClassesLink> componentComposition(final ComponentBuilder sammBuilder,
             final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> relationshipGraph,
-            final int iteration, final boolean isMergeCase) {
+            final IncrementalClusteringGraph clusteringGraph, final int iteration, final boolean isMergeCase) {
 
         final LinkedList<ComponentImplementingClassesLink> result = new LinkedList<ComponentImplementingClassesLink>();
 
@@ -556,6 +563,7 @@ public class ComponentDetectionByClustering implements IDetectionStrategy {
                 } else {
                     newComponent = sammBuilder.createCompositeComponent(compositeComponentSubgraph);
                 }
+                clusteringGraph.recordClustering(componentsToMerge, newComponent);
                 result.add(newComponent);
             } else {
                 result.addAll(componentsToMerge);
@@ -7,8 +7,8 @@ import org.emftext.language.java.types.Type;
 import org.somox.kdmhelper.KDMHelper;
 //import de.fzi.gast.functions.Method;
 //import de.fzi.gast.types.GASTClass;
-import org.somox.sourcecodedecorator.InterfaceSourceCodeLink;
 import org.somox.sourcecodedecorator.SourceCodeDecoratorRepository;
+import org.somox.util.SourceCodeDecoratorIndex;
 
 /**
  * Default interface detection strategy. Conditions in GAST: interface or only virtual methods which
@@ -67,12 +67,8 @@ public class ComponentInterfaceStrategy implements IComponentInterfaceStrategy {
      * @return true if the class appears in the source code decorator.
      */
     private boolean isClassifiedAsInterfaceViaSourceCodeDecorator(final Type classToCheck) {
-        for (final InterfaceSourceCodeLink ifLink : this.sourceCodeDecorator.getInterfaceSourceCodeLink()) {
-            if (ifLink.getGastClass().equals(classToCheck)) {
-                return true;
-            }
-        }
-        return false;
+        return !SourceCodeDecoratorIndex.getIndex(this.sourceCodeDecorator)
+                .getInterfaceSourceCodeLinksOfType(classToCheck).isEmpty();
     }
 
     /**
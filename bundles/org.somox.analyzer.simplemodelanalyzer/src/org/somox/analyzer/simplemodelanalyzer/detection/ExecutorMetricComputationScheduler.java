@@ -0,0 +1,115 @@
+package org.somox.analyzer.simplemodelanalyzer.detection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.somox.analyzer.ModelAnalyzerException;
+import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.IMetric;
+import org.somox.metrics.MetricID;
+import org.somox.metrics.MetricResultStore;
+
+/**
+ * Scheduler submitting one {@link PairwiseRelationComputationTask} per pair to a fixed thread pool.
+ */
+public class ExecutorMetricComputationScheduler implements IMetricComputationScheduler {
+
+    private final ExecutorService pool;
+
+    /**
+     * @param parallelism
+     *            The number of threads of the pool
+     */
+    public ExecutorMetricComputationScheduler(final int parallelism) {
+        this.pool = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @Override
+    public ClusteringRelation[][] computeRelations(final List<NodePair> work, final IMetric overallMetric,
+            final Map<MetricID, IMetric> allMetrics, final MetricResultStore store,
+            final IProgressMonitor progressMonitor) throws ModelAnalyzerException {
+        final ExecutorCompletionService<ClusteringRelation[]> completionService = new ExecutorCompletionService<ClusteringRelation[]>(
+                this.pool);
+        final List<Future<ClusteringRelation[]>> futures = new ArrayList<Future<ClusteringRelation[]>>(work.size());
+        for (final NodePair nodePair : work) {
+            futures.add(completionService.submit(nodePair.getWorkTask(overallMetric, allMetrics, store)));
+        }
+
+        final MetricComputationProgress progress = new MetricComputationProgress(progressMonitor, work.size());
+        final ClusteringRelation[][] result = new ClusteringRelation[work.size()][];
+        try {
+            int completed = 0;
+            while (completed < work.size()) {
+                if (progress.isCanceled()) {
+                    this.cancelAndRelease(futures);
+                    throw new ModelAnalyzerException("Metric computation has been cancelled");
+                }
+                if (completionService.poll(MetricComputationProgress.POLL_INTERVAL_MILLIS,
+                        TimeUnit.MILLISECONDS) != null) {
+                    completed++;
+                    progress.update(completed);
+                }
+            }
+            for (int i = 0; i < result.length; i++) {
+                result[i] = futures.get(i).get();
+            }
+        } catch (final InterruptedException e) {
+            this.cancelAndReleaseUninterruptibly(futures);
+            Thread.currentThread().interrupt();
+            throw new ModelAnalyzerException("Metric computation has been interrupted", e);
+        } catch (final ExecutionException e) {
+            this.cancelAndReleaseUninterruptibly(futures);
+            throw new ModelAnalyzerException("Metric computation failed", e);
+        }
+        return result;
+    }
+
+    /**
+     * Cancels the pairs not started yet and releases the relations of all other pairs, waiting for
+     * the running ones.
+     */
+    private void cancelAndRelease(final List<Future<ClusteringRelation[]>> futures) throws InterruptedException {
+        for (final Future<ClusteringRelation[]> future : futures) {
+            if (!future.cancel(false)) {
+                try {
+                    for (final ClusteringRelation relation : future.get()) {
+                        relation.release();
+                    }
+                } catch (final ExecutionException e) {
+                    // a failed pair has no relations to release
+                }
+            }
+        }
+    }
+
+    /**
+     * {@link #cancelAndRelease(List)}, restoring the interrupt flag if interrupted while waiting.
+     */
+    private void cancelAndReleaseUninterruptibly(final List<Future<ClusteringRelation[]>> futures) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                this.cancelAndRelease(futures);
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        this.pool.shutdownNow();
+    }
+}
@@ -0,0 +1,193 @@
+package org.somox.analyzer.simplemodelanalyzer.detection;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.somox.analyzer.ModelAnalyzerException;
+import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.IMetric;
+import org.somox.metrics.MetricID;
+import org.somox.metrics.MetricResultStore;
+
+/**
+ * Scheduler computing the pairs on a work-stealing {@link ForkJoinPool}. The work is split
+ * recursively into ranges of pairs. A range is only split further while it is larger than
+ * {@link #MAX_CHUNK_SIZE} or while the pool lacks queued work for idle threads to steal; this
+ * keeps the number of tasks low for millions of cheap pairs and still balances expensive pairs.
+ * The relations of a pair are created by the worker computing it, not upfront.
+ */
+public class ForkJoinMetricComputationScheduler implements IMetricComputationScheduler {
+
+    /**
+     * Ranges of at most this number of pairs are never split
+     */
+    private static final int MIN_CHUNK_SIZE = 8;
+
+    /**
+     * Ranges of more than this number of pairs are always split
+     */
+    private static final int MAX_CHUNK_SIZE = 1024;
+
+    /**
+     * A range is split if the current worker has less than this number of surplus queued tasks
+     */
+    private static final int SURPLUS_QUEUED_TASKS_THRESHOLD = 2;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism
+     *            The number of worker threads of the pool
+     */
+    public ForkJoinMetricComputationScheduler(final int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    @Override
+    public ClusteringRelation[][] computeRelations(final List<NodePair> work, final IMetric overallMetric,
+            final Map<MetricID, IMetric> allMetrics, final MetricResultStore store,
+            final IProgressMonitor progressMonitor) throws ModelAnalyzerException {
+        final Computation computation = new Computation(work.toArray(new NodePair[work.size()]), overallMetric,
+                allMetrics, store);
+        final ForkJoinTask<Void> rootTask = this.pool.submit(computation.new RangeAction(0, work.size()));
+        final MetricComputationProgress progress = new MetricComputationProgress(progressMonitor, work.size());
+
+        try {
+            while (true) {
+                try {
+                    rootTask.get(MetricComputationProgress.POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (final TimeoutException e) {
+                    progress.update(computation.computedPairs.get());
+                    if (progress.isCanceled()) {
+                        this.cancel(computation, rootTask);
+                        throw new ModelAnalyzerException("Metric computation has been cancelled");
+                    }
+                }
+            }
+        } catch (final InterruptedException e) {
+            this.cancel(computation, rootTask);
+            Thread.currentThread().interrupt();
+            throw new ModelAnalyzerException("Metric computation has been interrupted", e);
+        } catch (final ExecutionException e) {
+            this.cancel(computation, rootTask);
+            throw new ModelAnalyzerException("Metric computation failed", e);
+        }
+        progress.update(work.size());
+
+        return computation.result;
+    }
+
+    /**
+     * Stops the computation, waits for the running ranges and releases the relations computed so
+     * far.
+     */
+    private void cancel(final Computation computation, final ForkJoinTask<Void> rootTask) {
+        computation.canceled = true;
+        rootTask.quietlyJoin();
+        // ranges forked by a failed range may still run after the root task completed
+        this.pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        computation.release();
+    }
+
+    @Override
+    public void shutdown() {
+        this.pool.shutdownNow();
+    }
+
+    /**
+     * State shared by all range actions of one call of {@link #computeRelations}.
+     */
+    private static final class Computation {
+
+        private final NodePair[] work;
+
+        private final IMetric overallMetric;
+
+        private final Map<MetricID, IMetric> allMetrics;
+
+        private final MetricResultStore store;
+
+        private final ClusteringRelation[][] result;
+
+        private final AtomicInteger computedPairs = new AtomicInteger();
+
+        private volatile boolean canceled = false;
+
+        private Computation(final NodePair[] work, final IMetric overallMetric,
+                final Map<MetricID, IMetric> allMetrics, final MetricResultStore store) {
+            this.work = work;
+            this.overallMetric = overallMetric;
+            this.allMetrics = allMetrics;
+            this.store = store;
+            this.result = new ClusteringRelation[work.length][];
+        }
+
+        /**
+         * Releases the relations computed so far. Must only be called when no range is running.
+         */
+        private void release() {
+            for (final ClusteringRelation[] relations : this.result) {
+                if (relations != null) {
+                    for (final ClusteringRelation relation : relations) {
+                        relation.release();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Computes the pairs in the range from {@code from} (inclusive) to {@code to} (exclusive).
+         */
+        private final class RangeAction extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            private final int from;
+
+            private final int to;
+
+            private RangeAction(final int from, final int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                final int size = this.to - this.from;
+                if (size > MAX_CHUNK_SIZE || (size > MIN_CHUNK_SIZE
+                        && getSurplusQueuedTaskCount() < SURPLUS_QUEUED_TASKS_THRESHOLD)) {
+                    final int middle = this.from + size / 2;
+                    invokeAll(new RangeAction(this.from, middle), new RangeAction(middle, this.to));
+                } else {
+                    this.computeRange();
+                }
+            }
+
+            private void computeRange() {
+                for (int i = this.from; i < this.to; i++) {
+                    if (Computation.this.canceled) {
+                        return;
+                    }
+                    try {
+                        Computation.this.result[i] = Computation.this.work[i]
+                                .getWorkTask(Computation.this.overallMetric, Computation.this.allMetrics,
+                                        Computation.this.store)
+                                .call();
+                    } catch (final Exception e) {
+                        throw new RuntimeException("Computation of clustering relation failed", e);
+                    }
+                }
+                Computation.this.computedPairs.addAndGet(this.to - this.from);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.somox.analyzer.simplemodelanalyzer.detection;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.somox.analyzer.ModelAnalyzerException;
+import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.IMetric;
+import org.somox.metrics.MetricID;
+import org.somox.metrics.MetricResultStore;
+
+/**
+ * Strategy scheduling the computation of the pairwise metrics of component candidates onto
+ * threads.
+ *
+ * @see ComponentDetectionByClustering
+ */
+public interface IMetricComputationScheduler {
+
+    /**
+     * Computes the clustering relations of all given pairs in both directions. Implementations
+     * report the number of computed pairs to the given progress monitor and stop as soon as
+     * possible if the monitor is cancelled.
+     *
+     * @param work
+     *            The pairs of component candidates to compute the relations for
+     * @param overallMetric
+     *            The top level metric to compute (merge or compose)
+     * @param allMetrics
+     *            All initialised metrics mapped on their IDs
+     * @param store
+     *            The store holding the values of the computed relations
+     * @param progressMonitor
+     *            Monitor to report progress to. {@code beginTask} has to be called with the size of
+     *            the work by the caller.
+     * @return The two relations computed for each pair, in the order of the given work
+     * @throws ModelAnalyzerException
+     *             If the computation has been cancelled, interrupted or has failed. Relations
+     *             computed so far are released and the clustering must not be continued. If the
+     *             calling thread has been interrupted, its interrupt flag is set again.
+     */
+    ClusteringRelation[][] computeRelations(List<NodePair> work, IMetric overallMetric,
+            Map<MetricID, IMetric> allMetrics, MetricResultStore store, IProgressMonitor progressMonitor)
+            throws ModelAnalyzerException;
+
+    /**
+     * Releases the threads of this scheduler. The scheduler must not be used afterwards.
+     */
+    void shutdown();
+}
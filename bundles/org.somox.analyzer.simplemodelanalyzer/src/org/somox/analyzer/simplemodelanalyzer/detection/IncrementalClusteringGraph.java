@@ -0,0 +1,174 @@
+package org.somox.analyzer.simplemodelanalyzer.detection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.SimpleDirectedGraph;
+import org.somox.metrics.ClusteringRelation;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+
+/**
+ * The clustering graph of component candidates which is kept alive over all clustering iterations.
+ * The graph records which component candidates have been created and which have been merged or
+ * composed into a new candidate in each iteration. When the next iteration starts, only the
+ * {@link ClusteringRelation} edges touching those candidates are invalidated, all other metric
+ * values are reused from the previous iteration.
+ *
+ * Note that a merge can return an already existing composite component candidate (see
+ * {@link org.somox.analyzer.simplemodelanalyzer.builder.ComponentBuilder#createMergedComponent}).
+ * Such a candidate keeps its edges, exactly as the non-incremental algorithm did.
+ */
+public class IncrementalClusteringGraph {
+
+    private static final Logger LOG = Logger.getLogger(IncrementalClusteringGraph.class);
+
+    /**
+     * The graph containing all component candidates and the metrics computed between them
+     */
+    private final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> graph = new SimpleDirectedGraph<ComponentImplementingClassesLink, ClusteringRelation>(
+            ClusteringRelation.class);
+
+    /**
+     * Candidates which have been created by merge or compose operations since the last call of
+     * {@link #deriveComputationWork(List)}
+     */
+    private final Set<ComponentImplementingClassesLink> createdCandidates = new LinkedHashSet<ComponentImplementingClassesLink>();
+
+    /**
+     * Candidates which have been merged or composed into other candidates since the last call of
+     * {@link #deriveComputationWork(List)}
+     */
+    private final Set<ComponentImplementingClassesLink> consumedCandidates = new HashSet<ComponentImplementingClassesLink>();
+
+    /**
+     * True as long as the graph has not been synchronised with a list of candidates, i.e., all
+     * candidates passed in the first iteration are new.
+     */
+    private boolean initial = true;
+
+    /**
+     * @return The graph of all component candidates and their computed clustering relations
+     */
+    public DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * Records that the given candidates have been merged or composed into the given result
+     * candidate in the current iteration.
+     *
+     * @param clusteredCandidates
+     *            The candidates which have been merged or composed
+     * @param result
+     *            The candidate resulting from the merge or composition
+     */
+    public void recordClustering(final Collection<ComponentImplementingClassesLink> clusteredCandidates,
+            final ComponentImplementingClassesLink result) {
+        for (final ComponentImplementingClassesLink candidate : clusteredCandidates) {
+            if (candidate != result) {
+                this.consumedCandidates.add(candidate);
+            }
+        }
+        if (!this.graph.containsVertex(result)) {
+            this.createdCandidates.add(result);
+        }
+    }
+
+    /**
+     * Applies the changes recorded since the last call to the graph: vertices of consumed
+     * candidates and all their edges are removed, vertices for created candidates are added.
+     * Returns the pairs of candidates for which the metrics have to be (re-)computed, i.e., all
+     * pairs between a new and an old candidate and all pairs of new candidates.
+     *
+     * @param componentCandidates
+     *            The current list of component candidates
+     * @return The pairs for which the clustering relations are missing in the graph
+     */
+    public List<NodePair> deriveComputationWork(final List<ComponentImplementingClassesLink> componentCandidates) {
+        final List<ComponentImplementingClassesLink> newNodes;
+        if (this.initial) {
+            newNodes = new ArrayList<ComponentImplementingClassesLink>(componentCandidates);
+            this.initial = false;
+        } else {
+            newNodes = new ArrayList<ComponentImplementingClassesLink>(this.createdCandidates);
+        }
+        for (final ComponentImplementingClassesLink consumedCandidate : this.consumedCandidates) {
+            for (final ClusteringRelation invalidatedRelation : this.graph.edgesOf(consumedCandidate)) {
+                invalidatedRelation.release();
+            }
+        }
+        this.graph.removeAllVertices(this.consumedCandidates);
+        final List<ComponentImplementingClassesLink> oldNodes = new ArrayList<ComponentImplementingClassesLink>(
+                this.graph.vertexSet());
+        for (final ComponentImplementingClassesLink newNode : newNodes) {
+            this.graph.addVertex(newNode);
+        }
+
+        assert this.isConsistentWith(componentCandidates);
+        assert Collections.disjoint(newNodes, oldNodes);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Clustering graph update: " + newNodes.size() + " new, " + this.consumedCandidates.size()
+                    + " removed, " + oldNodes.size() + " reused component candidates");
+        }
+        this.createdCandidates.clear();
+        this.consumedCandidates.clear();
+
+        final List<NodePair> result = new ArrayList<NodePair>(
+                newNodes.size() * (newNodes.size() - 1) / 2 + newNodes.size() * oldNodes.size());
+        for (final ComponentImplementingClassesLink oldNode : oldNodes) {
+            for (final ComponentImplementingClassesLink newNode : newNodes) {
+                result.add(new NodePair(newNode, oldNode));
+            }
+        }
+        for (int i = 0; i < newNodes.size(); i++) {
+            for (int j = i + 1; j < newNodes.size(); j++) {
+                result.add(new NodePair(newNodes.get(i), newNodes.get(j)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds computed clustering relations as edges to the graph.
+     *
+     * @param relations
+     *            The relations to add
+     */
+    public void addRelations(final ClusteringRelation[] relations) {
+        for (final ClusteringRelation relation : relations) {
+            this.graph.addEdge(relation.getSourceComponent(), relation.getTargetComponent(), relation);
+        }
+    }
+
+    /**
+     * Releases the clustering relations of all edges and removes the edges from the graph. Called
+     * when the clustering ends, also if it fails or is cancelled.
+     */
+    public void releaseRelations() {
+        final List<ClusteringRelation> relations = new ArrayList<ClusteringRelation>(this.graph.edgeSet());
+        for (final ClusteringRelation relation : relations) {
+            relation.release();
+        }
+        this.graph.removeAllEdges(relations);
+    }
+
+    /**
+     * Checks that the recorded changes lead to the same vertex set as a full rescan of the given
+     * candidates. Used in assertions only.
+     *
+     * @param componentCandidates
+     *            The current list of component candidates
+     * @return true if the vertices of the graph are exactly the given candidates
+     */
+    private boolean isConsistentWith(final List<ComponentImplementingClassesLink> componentCandidates) {
+        return this.graph.vertexSet().equals(new HashSet<ComponentImplementingClassesLink>(componentCandidates));
+    }
+}
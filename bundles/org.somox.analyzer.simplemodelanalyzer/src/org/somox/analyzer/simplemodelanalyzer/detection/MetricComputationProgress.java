@@ -0,0 +1,70 @@
+package org.somox.analyzer.simplemodelanalyzer.detection;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Reports the progress of a metric computation including throughput and estimated remaining time
+ * to an {@link IProgressMonitor}. Must only be used by the thread owning the monitor.
+ */
+final class MetricComputationProgress {
+
+    /**
+     * Interval in which schedulers poll their workers for progress and cancellation
+     */
+    static final long POLL_INTERVAL_MILLIS = 250;
+
+    private final IProgressMonitor progressMonitor;
+
+    private final int totalPairs;
+
+    private final long startTime = System.nanoTime();
+
+    private int reportedPairs = 0;
+
+    private long lastSubTaskTime = Long.MIN_VALUE;
+
+    MetricComputationProgress(final IProgressMonitor progressMonitor, final int totalPairs) {
+        this.progressMonitor = progressMonitor;
+        this.totalPairs = totalPairs;
+    }
+
+    /**
+     * @param computedPairs
+     *            The number of pairs computed so far
+     */
+    void update(final int computedPairs) {
+        if (computedPairs <= this.reportedPairs) {
+            return;
+        }
+        this.progressMonitor.worked(computedPairs - this.reportedPairs);
+        this.reportedPairs = computedPairs;
+
+        // the throughput is only shown once per poll interval
+        final long now = System.nanoTime();
+        if (computedPairs < this.totalPairs && this.lastSubTaskTime != Long.MIN_VALUE
+                && now - this.lastSubTaskTime < TimeUnit.MILLISECONDS.toNanos(POLL_INTERVAL_MILLIS)) {
+            return;
+        }
+        this.lastSubTaskTime = now;
+        final double pairsPerSecond = computedPairs / Math.max(this.getElapsedSeconds(), 1e-9);
+        final long remainingSeconds = Math.round((this.totalPairs - computedPairs) / pairsPerSecond);
+        this.progressMonitor.subTask(String.format("%d of %d candidate pairs, %.0f pairs/s, about %d s remaining",
+                computedPairs, this.totalPairs, pairsPerSecond, remainingSeconds));
+    }
+
+    /**
+     * @return true if the user requested to cancel the computation
+     */
+    boolean isCanceled() {
+        return this.progressMonitor.isCanceled();
+    }
+
+    /**
+     * @return Seconds passed since the creation of this object
+     */
+    double getElapsedSeconds() {
+        return (System.nanoTime() - this.startTime) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
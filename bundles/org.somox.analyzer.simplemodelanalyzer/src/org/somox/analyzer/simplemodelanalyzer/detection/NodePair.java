@@ -6,6 +6,7 @@ import java.util.concurrent.Callable;
 import org.somox.metrics.ClusteringRelation;
 import org.somox.metrics.IMetric;
 import org.somox.metrics.MetricID;
+import org.somox.metrics.MetricResultStore;
 import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
 
 /**
@@ -35,10 +36,24 @@ public final class NodePair {
         this.second = second;
     }
 
+    public ComponentImplementingClassesLink getFirst() {
+        return this.first;
+    }
+
+    public ComponentImplementingClassesLink getSecond() {
+        return this.second;
+    }
+
+    /**
+     * @return A task computing the relations of this pair in both directions. The relations are
+     *         created when the task is called, so a task which is never called does not allocate a
+     *         pair of the store.
+     */
     public Callable<ClusteringRelation[]> getWorkTask(final IMetric overallMetric,
-            final Map<MetricID, IMetric> allMetrics) {
-        return new PairwiseRelationComputationTask(overallMetric, new ClusteringRelation(this.first, this.second),
-                new ClusteringRelation(this.second, this.first), allMetrics);
+            final Map<MetricID, IMetric> allMetrics, final MetricResultStore store) {
+        return () -> new PairwiseRelationComputationTask(overallMetric,
+                new ClusteringRelation(this.first, this.second, store),
+                new ClusteringRelation(this.second, this.first, store), allMetrics).call();
     }
 
     /*
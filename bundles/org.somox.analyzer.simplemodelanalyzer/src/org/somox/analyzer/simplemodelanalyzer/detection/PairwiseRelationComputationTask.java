@@ -29,11 +29,20 @@ public class PairwiseRelationComputationTask implements Callable<ClusteringRelat
         this.allMetrics = allMetrics;
     }
 
+    /**
+     * Computes both relations. If the computation fails, both relations are released.
+     */
     @Override
     public ClusteringRelation[] call() throws Exception {
         final ClusteringRelation result[] = new ClusteringRelation[2];
-        result[0] = this.computeClusteringRelation(this.firstRelation, null);
-        result[1] = this.computeClusteringRelation(this.secondRelation, this.firstRelation);
+        try {
+            result[0] = this.computeClusteringRelation(this.firstRelation, null);
+            result[1] = this.computeClusteringRelation(this.secondRelation, this.firstRelation);
+        } catch (final Exception | Error e) {
+            this.firstRelation.release();
+            this.secondRelation.release();
+            throw e;
+        }
         return result;
     }
 
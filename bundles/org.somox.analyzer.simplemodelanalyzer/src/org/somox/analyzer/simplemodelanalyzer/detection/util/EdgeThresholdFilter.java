@@ -21,8 +21,8 @@ public class EdgeThresholdFilter extends BaseFilter<ClusteringRelation> {
 
     @Override
     public boolean passes(final ClusteringRelation object) {
-        assert object.getResult().containsKey(this.metric);
-        final double relationValue = object.getResult().get(this.metric);
+        assert object.hasResultMetric(this.metric);
+        final double relationValue = object.getResultMetric(this.metric);
         return relationValue > this.threshold;
     }
 };
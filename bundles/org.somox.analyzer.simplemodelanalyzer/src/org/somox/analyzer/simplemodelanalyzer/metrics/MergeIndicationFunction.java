@@ -4,7 +4,7 @@ import java.util.Map;
 
 import org.apache.log4j.Logger;
 import org.somox.configuration.SoMoXConfiguration;
-import org.somox.metrics.ICompositionFunction;
+import org.somox.metrics.IBoundedCompositionFunction;
 import org.somox.metrics.MetricID;
 import org.somox.metrics.abstractmetrics.AbstractMetric;
 import org.somox.metrics.hierarchy.DirectoryMapping;
@@ -21,11 +21,26 @@ import org.somox.metrics.structure.SubsystemComponent;
  *
  * @author Klaus Krogmann
  */
-public class MergeIndicationFunction implements ICompositionFunction {
+public class MergeIndicationFunction implements IBoundedCompositionFunction {
 
     private final SoMoXConfiguration somoxConfig;
     private static Logger logger = Logger.getLogger(MergeIndicationFunction.class);
 
+    /**
+     * One coupling value of each bracket distinguished by the weight functions below
+     */
+    private static final double[] COUPLING_BRACKET_REPRESENTATIVES = { 0.0, 0.2, 0.3, 0.7, 0.9 };
+
+    /**
+     * One interface adherence value for zero and for positive adherence
+     */
+    private static final double[] ZERO_OR_POSITIVE_REPRESENTATIVES = { 0.0, 1.0 };
+
+    /**
+     * One SLAQ value of each bracket distinguished by {@link #getSubsystemComponentWeight(double)}
+     */
+    private static final double[] SLAQ_BRACKET_REPRESENTATIVES = { 0.0, 0.5 };
+
     private double packageMappingWeight, directoryMappingWeight;
 
     /**
@@ -93,6 +108,62 @@ public class MergeIndicationFunction implements ICompositionFunction {
         return score;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The weights depend on coupling, interface adherence and SLAQ only through the brackets used
+     * in this function. For unknown values one representative of each bracket is enumerated and
+     * the numerator is maximised term by term for the weights of each combination.
+     */
+    @Override
+    public double computeUpperBound(final Map<MetricID, Double> knownMetricValues) {
+        final double[] couplings = candidateValues(knownMetricValues.get(Coupling.METRIC_ID),
+                COUPLING_BRACKET_REPRESENTATIVES);
+        final double[] interfaceAdherences = candidateValues(
+                knownMetricValues.get(AdherenceToInterfaceCommunication.METRIC_ID), ZERO_OR_POSITIVE_REPRESENTATIVES);
+        final double[] slaqs = candidateValues(knownMetricValues.get(SliceLayerArchitectureQuality.METRIC_ID),
+                SLAQ_BRACKET_REPRESENTATIVES);
+
+        double result = Double.NEGATIVE_INFINITY;
+        for (final double coupling : couplings) {
+            for (final double interfaceAdherence : interfaceAdherences) {
+                for (final double slaq : slaqs) {
+                    final double interfaceAdherenceWeight = this.getInterfaceAdherenceWeight(coupling,
+                            interfaceAdherence);
+                    final double subsystemComponentWeight = this.getSubsystemComponentWeight(slaq);
+                    final double sum = this.getMaxNameResemblanceWeigth() + interfaceAdherenceWeight
+                            + subsystemComponentWeight + this.packageMappingWeight + this.directoryMappingWeight;
+                    if (sum <= 0) {
+                        return Double.POSITIVE_INFINITY;
+                    }
+                    final double score = maxTerm(this.getNameResemblanceWeight(coupling),
+                            knownMetricValues.get(NameResemblance.METRIC_ID))
+                            + maxTerm(-interfaceAdherenceWeight,
+                                    knownMetricValues.get(AdherenceToInterfaceCommunication.METRIC_ID))
+                            + maxTerm(subsystemComponentWeight, knownMetricValues.get(SubsystemComponent.METRIC_ID))
+                            + maxTerm(this.packageMappingWeight, knownMetricValues.get(PackageMapping.METRIC_ID))
+                            + maxTerm(this.directoryMappingWeight, knownMetricValues.get(DirectoryMapping.METRIC_ID));
+                    result = Math.max(result, score / sum);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The known value or the representatives of all brackets if the value is unknown
+     */
+    private static double[] candidateValues(final Double knownValue, final double[] representatives) {
+        return knownValue == null ? representatives : new double[] { knownValue };
+    }
+
+    /**
+     * @return The maximum of weight * value, for an unknown value over all values in [0, 1]
+     */
+    private static double maxTerm(final double weight, final Double knownValue) {
+        return knownValue == null ? Math.max(weight, 0.0) : weight * knownValue;
+    }
+
     private double getMaxNameResemblanceWeigth() {
         double result = Math.max(this.somoxConfig.getWeightLowCoupling(), this.somoxConfig.getWeightHighCoupling());
         result = Math.max(result, this.somoxConfig.getWeightLowNameResemblance());
@@ -104,17 +175,21 @@ public class MergeIndicationFunction implements ICompositionFunction {
     }
 
     private double getNameResemblance(final double nameResemblance, final double coupling) {
+        return this.getNameResemblanceWeight(coupling) * nameResemblance;
+    }
+
+    private double getNameResemblanceWeight(final double coupling) {
 
         // determine nameResemblance
         if (coupling >= 0 && coupling < 0.2) {
-            return this.somoxConfig.getWeightLowNameResemblance() * nameResemblance; // TODO make 0
+            return this.somoxConfig.getWeightLowNameResemblance(); // TODO make 0
             // config (Ci)
         } else if (coupling >= 0.2 && coupling < 0.7) {
-            return this.somoxConfig.getWeightMidNameResemblance() * nameResemblance;
+            return this.somoxConfig.getWeightMidNameResemblance();
         } else if (coupling >= 0.7 && coupling < 0.9) {
-            return this.somoxConfig.getWeightHighNameResemblance() * nameResemblance;
+            return this.somoxConfig.getWeightHighNameResemblance();
         } else {
-            return this.somoxConfig.getWeightHighestNameResemblance() * nameResemblance;
+            return this.somoxConfig.getWeightHighestNameResemblance();
         }
     }
 
@@ -0,0 +1,114 @@
+package org.somox.analyzer.simplemodelanalyzer.metricvalues;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+
+import metricvalues.Iteration;
+import metricvalues.MetricValuesModel;
+
+/**
+ * Append-only storage of the iterations of a metric values model. Each appended iteration is
+ * saved as a binary chunk of its own next to the model, so appending an iteration neither loads
+ * nor saves the iterations before it. The chunks are assembled into the model only when
+ * {@link #assemble(MetricValuesModel)} is called.
+ */
+public class MetricValuesIterationStore {
+
+    private static final String CHUNK_FOLDER_SUFFIX = ".iterations";
+
+    private static final String CHUNK_FILE_EXTENSION = "bin";
+
+    private final URI modelURI;
+
+    private final URI chunkFolderURI;
+
+    private final List<URI> chunkURIs = new ArrayList<URI>();
+
+    /**
+     * @param modelURI
+     *            The URI to save the assembled model to. The chunks are saved in a folder named
+     *            after the model.
+     */
+    public MetricValuesIterationStore(final URI modelURI) {
+        this.modelURI = modelURI;
+        this.chunkFolderURI = modelURI.trimSegments(1)
+                .appendSegment(modelURI.lastSegment() + CHUNK_FOLDER_SUFFIX);
+    }
+
+    /**
+     * Saves the iteration as a chunk of its own. The iteration is contained in the resource of the
+     * chunk afterwards.
+     *
+     * @param iteration
+     *            The iteration to append.
+     * @throws IOException
+     *             Thrown if the chunk could not be saved.
+     */
+    public void append(final Iteration iteration) throws IOException {
+        final URI chunkURI = this.chunkFolderURI.appendSegment("iteration" + this.chunkURIs.size())
+                .appendFileExtension(CHUNK_FILE_EXTENSION);
+        final Resource chunk = new BinaryResourceImpl(chunkURI);
+        chunk.getContents().add(iteration);
+        chunk.save(Collections.EMPTY_MAP);
+        this.chunkURIs.add(chunkURI);
+    }
+
+    /**
+     * @return The number of iterations appended so far.
+     */
+    public int getIterationCount() {
+        return this.chunkURIs.size();
+    }
+
+    /**
+     * Adds the appended iterations to the model in the order they were appended and saves the
+     * model. References of the iterations to other resources are kept as proxies.
+     *
+     * @param model
+     *            The model without iterations.
+     * @throws IOException
+     *             Thrown if a chunk could not be loaded or the model could not be saved.
+     */
+    public void assemble(final MetricValuesModel model) throws IOException {
+        final ResourceSet resourceSet = new ResourceSetImpl();
+        for (final URI chunkURI : this.chunkURIs) {
+            final Resource chunk = new BinaryResourceImpl(chunkURI);
+            resourceSet.getResources().add(chunk);
+            chunk.load(Collections.EMPTY_MAP);
+            model.getIterations().add((Iteration) chunk.getContents().get(0));
+        }
+
+        final URI normalized = resourceSet.getURIConverter().normalize(this.modelURI);
+        final Resource resource = resourceSet.createResource(normalized);
+        resource.getContents().add(model);
+        resource.save(Collections.EMPTY_MAP);
+    }
+
+    /**
+     * Deletes the chunks appended so far.
+     *
+     * @throws IOException
+     *             Thrown if a chunk could not be deleted.
+     */
+    public void delete() throws IOException {
+        final URIConverter uriConverter = new ResourceSetImpl().getURIConverter();
+        for (final URI chunkURI : this.chunkURIs) {
+            if (uriConverter.exists(chunkURI, null)) {
+                uriConverter.delete(chunkURI, null);
+            }
+        }
+        if (uriConverter.exists(this.chunkFolderURI, null)) {
+            uriConverter.delete(this.chunkFolderURI, null);
+        }
+        this.chunkURIs.clear();
+    }
+}
@@ -3,18 +3,17 @@ package org.somox.analyzer.simplemodelanalyzer.metricvalues;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 
+import org.apache.log4j.Logger;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.emf.common.util.URI;
-import org.eclipse.emf.ecore.resource.Resource;
-import org.eclipse.emf.ecore.resource.ResourceSet;
-import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.emftext.language.java.classifiers.ConcreteClassifier;
 import org.emftext.language.java.types.Type;
 import org.jgrapht.DirectedGraph;
@@ -33,57 +32,112 @@ import metricvalues.MetricValue;
 import metricvalues.MetricValuesModel;
 import metricvalues.MetricvaluesFactory;
 
+/**
+ * Writes the metric values of the clustering iterations. Each iteration is appended to a
+ * {@link MetricValuesIterationStore} when it is saved; the {@link MetricValuesModel} is assembled
+ * from the saved iterations by {@link #assembleMetricValuesModel()}.
+ */
 public class MetricValuesWriter {
 
+    private static final Logger LOG = Logger.getLogger(MetricValuesWriter.class);
+
     private static final String CONFIG_METRIC_VALUES_MODEL_PROPERTIES_FILE = "/config/MetricValuesModel.properties";
 
     private static final String CONFIG_METRIC_VALUES_MODEL_PATH = "metricvaluesmodel.path";
 
     private final SoMoXConfiguration somoxConfiguration;
 
+    /** the URI configured in the bundle properties if null */
+    private URI metricValuesModelURI;
+
+    private MetricValuesIterationStore iterationStore;
+
     public MetricValuesWriter(final SoMoXConfiguration somoxConfiguration) {
+        this(somoxConfiguration, null);
+    }
+
+    /**
+     * @param metricValuesModelURI
+     *            The URI to save the metric values model to.
+     */
+    public MetricValuesWriter(final SoMoXConfiguration somoxConfiguration, final URI metricValuesModelURI) {
         this.somoxConfiguration = somoxConfiguration;
+        this.metricValuesModelURI = metricValuesModelURI;
     }
 
+    /**
+     * Saves the metric values of an iteration. The first iteration starts a new model.
+     */
     public void saveMetricValuesModel(
             final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> metricsGraph, final int iteration,
             final double currentThreshold, final List<ComponentImplementingClassesLink> componentCandidates,
             final boolean isMergeIteration) {
 
-        final URI resourceURI = this.getMetricValuesPlatformResourceURI();
-
-        final ResourceSet resourceSet = new ResourceSetImpl();
-        final URI normalized = resourceSet.getURIConverter().normalize(resourceURI);
-        Resource resource = null;
-        MetricValuesModel model = null;
-
-        if (iteration == 1) {
-            resource = resourceSet.createResource(normalized);
-            model = MetricvaluesFactory.eINSTANCE.createMetricValuesModel();
-            this.setModelAttributes(model);
-        } else {
-            resource = resourceSet.getResource(normalized, true);
-
-            model = (MetricValuesModel) resource.getContents().get(0);
+        if (iteration == 1 || this.iterationStore == null) {
+            if (this.metricValuesModelURI == null) {
+                this.metricValuesModelURI = this.getMetricValuesPlatformResourceURI();
+            }
+            this.iterationStore = new MetricValuesIterationStore(this.metricValuesModelURI);
         }
 
         final Iteration currentIteration = this.createCurrentIteration(metricsGraph, iteration, currentThreshold,
                 componentCandidates, isMergeIteration);
 
-        model.getIterations().add(currentIteration);// REALLYCHANGEMF
-
-        if (iteration == 1) {
-            resource.getContents().add(model);
+        try {
+            this.iterationStore.append(currentIteration);
+        } catch (final IOException e) {
+            log(new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+                    "Could not save metric values of iteration " + iteration, e));
+            return;
         }
 
-        try {
-            resource.save(Collections.EMPTY_MAP);
+        log(new Status(IStatus.INFO, Activator.PLUGIN_ID, "Saved metric values of iteration " + iteration));
+    }
 
+    /**
+     * Assembles the iterations saved so far into the metric values model and saves it. Does
+     * nothing if no iteration has been saved. The saved iterations are deleted afterwards, also if
+     * the model could not be assembled, so this is to be called when the clustering ends in any
+     * way.
+     */
+    public void assembleMetricValuesModel() {
+        if (this.iterationStore == null || this.iterationStore.getIterationCount() == 0) {
+            return;
+        }
+        final int iterationCount = this.iterationStore.getIterationCount();
+        try {
+            this.iterationStore.assemble(this.createMetricValuesModel());
+            log(new Status(IStatus.INFO, Activator.PLUGIN_ID,
+                    "Saved metric values model with " + iterationCount + " iterations"));
         } catch (final IOException e) {
+            log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not assemble the metric values model", e));
+        } finally {
+            try {
+                this.iterationStore.delete();
+            } catch (final IOException e) {
+                log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not delete the saved iterations", e));
+            }
         }
+    }
 
-        Activator.getDefault().getLog()
-                .log(new Status(IStatus.INFO, Activator.PLUGIN_ID, "Saved metric values of iteration " + iteration));
+    /**
+     * Logs to the log of the plug-in, or to log4j when running without the Eclipse runtime.
+     */
+    private static void log(final IStatus status) {
+        final Activator activator = Activator.getDefault();
+        if (activator != null) {
+            activator.getLog().log(status);
+        } else if (status.getSeverity() == IStatus.ERROR) {
+            LOG.error(status.getMessage(), status.getException());
+        } else {
+            LOG.info(status.getMessage());
+        }
+    }
+
+    MetricValuesModel createMetricValuesModel() {
+        final MetricValuesModel model = MetricvaluesFactory.eINSTANCE.createMetricValuesModel();
+        this.setModelAttributes(model);
+        return model;
     }
 
     private void setModelAttributes(final MetricValuesModel model) {
@@ -121,7 +175,7 @@ public class MetricValuesWriter {
         return blacklistString.toString();
     }
 
-    private Iteration createCurrentIteration(
+    Iteration createCurrentIteration(
             final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> metricsGraph, final int iteration,
             final double currentThreshold, final List<ComponentImplementingClassesLink> componentCandidates,
             final boolean isMergeIteration) {
@@ -143,18 +197,26 @@ public class MetricValuesWriter {
     private void createComponentCandidates(
             final DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> metricsGraph,
             final Iteration currentIteration) {
+        // the last component with an id wins, as when scanning the components
+        final Map<String, Component> componentsById = new HashMap<String, Component>();
+        for (final Component component : currentIteration.getComponents()) {
+            componentsById.put(component.getId(), component);
+        }
+
         final Set<ClusteringRelation> edges = metricsGraph.edgeSet();
         for (final ClusteringRelation clusteringRelation : edges) {
             final ComponentCandidate compCandidate = MetricvaluesFactory.eINSTANCE.createComponentCandidate();
             final RepositoryComponent compA = clusteringRelation.getSourceComponent().getComponent();
             final RepositoryComponent compB = clusteringRelation.getTargetComponent().getComponent();
 
-            for (final Component component : currentIteration.getComponents())// REALLYCHANGEMF
-            {
-                if (component.getId().equals(compA.getId())) {
-                    compCandidate.setFirstComponent(component);
-                } else if (component.getId().equals(compB.getId())) {
-                    compCandidate.setSecondComponent(component);
+            final Component firstComponent = componentsById.get(compA.getId());
+            if (firstComponent != null) {
+                compCandidate.setFirstComponent(firstComponent);
+            }
+            if (!compB.getId().equals(compA.getId())) {
+                final Component secondComponent = componentsById.get(compB.getId());
+                if (secondComponent != null) {
+                    compCandidate.setSecondComponent(secondComponent);
                 }
             }
 
@@ -0,0 +1,56 @@
+package org.somox.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark state holding a {@link SyntheticModel}. The size of the model is set with the
+ * parameters {@code components} and {@code classesPerComponent}, e.g.
+ * {@code -p components=20,80}. The model is generated once per trial; the benchmarks prepare
+ * their own state in {@link #setUpBenchmark()}.
+ */
+@State(Scope.Benchmark)
+public abstract class AbstractSyntheticModelBenchmark {
+
+    @Param("20")
+    public int components;
+
+    @Param("5")
+    public int classesPerComponent;
+
+    @Param("1")
+    public long seed;
+
+    protected SyntheticModel model;
+
+    @Setup(Level.Trial)
+    public void setUpModel() throws Exception {
+        this.model = new SyntheticModel(this.components, this.classesPerComponent, this.seed);
+        this.setUpBenchmark();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownModel() throws Exception {
+        try {
+            this.tearDownBenchmark();
+        } finally {
+            this.model.close();
+        }
+    }
+
+    /**
+     * Prepares the state of the benchmark after the model has been generated.
+     */
+    protected abstract void setUpBenchmark() throws Exception;
+
+    /**
+     * Releases the state of the benchmark before the model is deleted.
+     */
+    protected void tearDownBenchmark() throws Exception {
+        // nothing to release
+    }
+}
@@ -0,0 +1,99 @@
+package org.somox.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.somox.metrics.helper.ComponentToImplementingClassesHelper;
+import org.somox.metrics.util.AccessCacheGraph;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+
+/**
+ * Queries the access counts of {@link AccessCacheGraph} for the class sets of all candidates. With
+ * {@code candidates=class} the sets are those of the initial candidates, with
+ * {@code candidates=component} those of whole components of the synthetic code.
+ */
+public class AccessCacheGraphBenchmark extends AbstractSyntheticModelBenchmark {
+
+    @Param({ "class", "component" })
+    public String candidates;
+
+    private AccessCacheGraph accessCacheGraph;
+
+    private List<Set<ConcreteClassifier>> classSets;
+
+    @Override
+    protected void setUpBenchmark() {
+        this.classSets = new ArrayList<Set<ConcreteClassifier>>();
+        if ("class".equals(this.candidates)) {
+            for (final ComponentImplementingClassesLink candidate : this.model.getInitialComponentCandidates()) {
+                this.classSets
+                        .add(this.model.getComponentToImplementingClassesHelper().deriveImplementingClasses(candidate));
+            }
+        } else {
+            final ComponentToImplementingClassesHelper helper = new ComponentToImplementingClassesHelper();
+            for (final ComponentImplementingClassesLink component : this.model.createAnalysisResult()
+                    .getSourceCodeDecoratorRepository().getComponentImplementingClassesLink()) {
+                this.classSets.add(helper.attachImplementingClasses(component));
+            }
+        }
+        this.accessCacheGraph = new AccessCacheGraph(this.model.getAccessGraph());
+        // builds the index
+        this.accessCacheGraph.calculateNumberOfInternalAccesses(this.classSets.get(0));
+    }
+
+    /**
+     * Accesses from each set to the next one and to the one halfway around the list.
+     */
+    @Benchmark
+    public long accessesToClassesInSet() {
+        final int size = this.classSets.size();
+        long accesses = 0;
+        for (int i = 0; i < size; i++) {
+            accesses += this.accessCacheGraph.calculateNumberOfAccessesToClassesInSet(this.classSets.get(i),
+                    this.classSets.get((i + 1) % size));
+            accesses += this.accessCacheGraph.calculateNumberOfAccessesToClassesInSet(this.classSets.get(i),
+                    this.classSets.get((i + size / 2) % size));
+        }
+        return accesses;
+    }
+
+    @Benchmark
+    public long incomingAccesses() {
+        long accesses = 0;
+        for (final Set<ConcreteClassifier> classSet : this.classSets) {
+            accesses += this.accessCacheGraph.calculateNumberOfIncommingAccesses(classSet);
+        }
+        return accesses;
+    }
+
+    @Benchmark
+    public long externalAccesses() {
+        long accesses = 0;
+        for (final Set<ConcreteClassifier> classSet : this.classSets) {
+            accesses += this.accessCacheGraph.calculateNumberOfExternalAccesses(classSet);
+        }
+        return accesses;
+    }
+
+    @Benchmark
+    public long internalAccesses() {
+        long accesses = 0;
+        for (final Set<ConcreteClassifier> classSet : this.classSets) {
+            accesses += this.accessCacheGraph.calculateNumberOfInternalAccesses(classSet);
+        }
+        return accesses;
+    }
+
+    /**
+     * Creates the graph and answers a first query, which includes building its index.
+     */
+    @Benchmark
+    public long firstQuery() {
+        final AccessCacheGraph newAccessCacheGraph = new AccessCacheGraph(this.model.getAccessGraph());
+        return newAccessCacheGraph.calculateNumberOfInternalAccesses(this.classSets.get(0));
+    }
+}
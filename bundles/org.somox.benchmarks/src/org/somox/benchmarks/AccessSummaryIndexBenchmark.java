@@ -0,0 +1,22 @@
+package org.somox.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.somox.kdmhelper.AccessSummaryIndex;
+
+/**
+ * Summarizes the classifier accesses of all compilation units of the synthetic model.
+ */
+public class AccessSummaryIndexBenchmark extends AbstractSyntheticModelBenchmark {
+
+    @Override
+    protected void setUpBenchmark() {
+        // the index is built by the benchmark
+    }
+
+    @Benchmark
+    public AccessSummaryIndex build() {
+        final AccessSummaryIndex index = new AccessSummaryIndex();
+        index.build(this.model.getRoot().getCompilationUnits());
+        return index;
+    }
+}
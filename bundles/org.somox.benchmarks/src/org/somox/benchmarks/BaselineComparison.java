@@ -0,0 +1,174 @@
+package org.somox.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares the CSV results of a benchmark run with the results of a baseline run, e.g. of the
+ * previous release. A benchmark regressed if its score got worse by more than the threshold and by
+ * more than the errors of both scores. Scores of the throughput mode are better if higher, scores
+ * of all other modes if lower.
+ *
+ * Usage: {@code BaselineComparison <baseline.csv> <current.csv> [threshold in percent, default 10]}.
+ * Exits with 1 if a benchmark regressed.
+ */
+public final class BaselineComparison {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10.0;
+
+    private static final String THROUGHPUT_MODE = "thrpt";
+
+    private BaselineComparison() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: BaselineComparison <baseline.csv> <current.csv> [threshold in percent]");
+            System.exit(2);
+        }
+        final double threshold = (args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT) / 100;
+        final Map<String, Score> baseline = readResults(args[0]);
+        final Map<String, Score> current = readResults(args[1]);
+
+        int regressions = 0;
+        for (final Map.Entry<String, Score> entry : current.entrySet()) {
+            final Score baselineScore = baseline.get(entry.getKey());
+            final Score score = entry.getValue();
+            if (baselineScore == null) {
+                System.out.println(String.format(Locale.ROOT, "NEW        %s: %.3f %s", entry.getKey(), score.value,
+                        score.unit));
+                continue;
+            }
+            final boolean higherIsBetter = THROUGHPUT_MODE.equals(score.mode);
+            final double change = (score.value - baselineScore.value) / baselineScore.value;
+            final double worsening = higherIsBetter ? -change : change;
+            final double difference = Math.abs(score.value - baselineScore.value);
+            final boolean regressed = worsening > threshold && difference > score.error + baselineScore.error;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.println(String.format(Locale.ROOT, "%-10s %s: %.3f -> %.3f %s (%+.1f%%)",
+                    regressed ? "REGRESSION" : "OK", entry.getKey(), baselineScore.value, score.value, score.unit,
+                    change * 100));
+        }
+        System.out.println(regressions + " of " + current.size() + " benchmarks regressed");
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return The scores of the result file mapped on the benchmark, mode, threads and parameters
+     */
+    private static Map<String, Score> readResults(final String file) throws IOException {
+        final List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+        final Map<String, Score> results = new LinkedHashMap<String, Score>();
+        if (lines.isEmpty()) {
+            return results;
+        }
+        final List<String> header = parseLine(lines.get(0));
+        final int benchmarkColumn = header.indexOf("Benchmark");
+        final int modeColumn = header.indexOf("Mode");
+        final int threadsColumn = header.indexOf("Threads");
+        final int scoreColumn = header.indexOf("Score");
+        final int unitColumn = header.indexOf("Unit");
+        int errorColumn = -1;
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i).startsWith("Score Error")) {
+                errorColumn = i;
+            }
+        }
+        if (benchmarkColumn < 0 || modeColumn < 0 || scoreColumn < 0) {
+            throw new IOException(file + " is no JMH result in CSV format");
+        }
+
+        for (final String line : lines.subList(1, lines.size())) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            final List<String> fields = parseLine(line);
+            final StringBuilder key = new StringBuilder(fields.get(benchmarkColumn));
+            key.append(" [").append(fields.get(modeColumn));
+            if (threadsColumn >= 0) {
+                key.append(", threads=").append(fields.get(threadsColumn));
+            }
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ") && i < fields.size() && !fields.get(i).isEmpty()) {
+                    key.append(", ").append(header.get(i).substring("Param: ".length())).append('=')
+                            .append(fields.get(i));
+                }
+            }
+            key.append(']');
+            final double error = errorColumn < 0 ? 0.0 : parseNumber(fields.get(errorColumn));
+            results.put(key.toString(), new Score(fields.get(modeColumn), parseNumber(fields.get(scoreColumn)),
+                    Double.isNaN(error) ? 0.0 : error, unitColumn < 0 ? "" : fields.get(unitColumn)));
+        }
+        return results;
+    }
+
+    private static double parseNumber(final String field) {
+        try {
+            return Double.parseDouble(field);
+        } catch (final NumberFormatException e) {
+            // written with a locale using the decimal comma
+            return Double.parseDouble(field.replace(',', '.'));
+        }
+    }
+
+    /**
+     * Splits a line of a CSV file into its fields. Fields may be quoted; quotes in quoted fields are
+     * doubled.
+     */
+    private static List<String> parseLine(final String line) {
+        final List<String> fields = new ArrayList<String>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final class Score {
+
+        private final String mode;
+
+        private final double value;
+
+        private final double error;
+
+        private final String unit;
+
+        private Score(final String mode, final double value, final double error, final String unit) {
+            this.mode = mode;
+            this.value = value;
+            this.error = error;
+            this.unit = unit;
+        }
+    }
+}
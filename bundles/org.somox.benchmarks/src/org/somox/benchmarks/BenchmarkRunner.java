@@ -0,0 +1,35 @@
+package org.somox.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options, e.g.
+ * {@code MetricBenchmark -p components=20,80 -prof gc}. Unless a result format or file is given,
+ * the results are written as CSV to {@value #DEFAULT_RESULT_FILE}, so they can be compared with a
+ * baseline by {@link BaselineComparison}.
+ */
+public final class BenchmarkRunner {
+
+    public static final String DEFAULT_RESULT_FILE = "somox-benchmarks.csv";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(final String[] args) throws CommandLineOptionException, RunnerException {
+        final List<String> arguments = Arrays.asList(args);
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(new CommandLineOptions(args));
+        if (!arguments.contains("-rf") && !arguments.contains("-rff")) {
+            options.resultFormat(ResultFormatType.CSV).result(DEFAULT_RESULT_FILE);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,117 @@
+package org.somox.benchmarks;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.eclipse.emf.ecore.EObject;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.emftext.language.java.commons.Commentable;
+import org.emftext.language.java.members.ClassMethod;
+import org.emftext.language.java.members.Field;
+import org.emftext.language.java.members.InterfaceMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.somox.filter.BaseFilter;
+import org.somox.filter.BlacklistFilter;
+import org.somox.filter.ComposedFilter;
+import org.somox.filter.DataObjectFilter;
+import org.somox.filter.NotFilter;
+import org.somox.filter.PrecomputedFilter;
+import org.somox.kdmhelper.KDMHelper;
+
+/**
+ * Filters the classifiers of the synthetic model by a blacklist of many wildcard prefixes, once by
+ * the single pattern the blacklist used to be compiled to and once by the compiled blacklist. The
+ * filter chain benchmarks ask a chain of filters a number of times per classifier, as the builders
+ * and metrics do, once through the chain and once through its precomputed verdicts.
+ */
+public class ClassifierFilterBenchmark extends AbstractSyntheticModelBenchmark {
+
+    @Param({ "100", "5000" })
+    public int entries;
+
+    @Param("10")
+    public int queriesPerClassifier;
+
+    private List<ConcreteClassifier> classifiers;
+
+    private Set<String> blacklist;
+
+    private Pattern pattern;
+
+    @Override
+    protected void setUpBenchmark() {
+        this.classifiers = this.model.getRoot().getConcreteClassifiers();
+        final Random random = new Random(this.seed);
+        this.blacklist = new HashSet<>();
+        while (this.blacklist.size() < this.entries) {
+            this.blacklist.add("com.vendor" + random.nextInt(this.entries * 10) + ".lib.*");
+        }
+        this.pattern = Pattern.compile(String.join("|", this.blacklist), Pattern.CASE_INSENSITIVE);
+    }
+
+    @Benchmark
+    public int patternBlacklist() {
+        int passed = 0;
+        for (final ConcreteClassifier classifier : this.classifiers) {
+            if (!this.pattern.matcher(computeContainerName(classifier)).matches()) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    @Benchmark
+    public int compiledBlacklist() {
+        final BlacklistFilter filter = new BlacklistFilter(this.blacklist);
+        int passed = 0;
+        for (final ConcreteClassifier classifier : this.classifiers) {
+            if (filter.passes(classifier)) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    @Benchmark
+    public int filterChain() {
+        return this.query(this.createChain());
+    }
+
+    @Benchmark
+    public int precomputedFilterChain() {
+        return this.query(new PrecomputedFilter<>(this.createChain(), this.classifiers));
+    }
+
+    private int query(final BaseFilter<ConcreteClassifier> filter) {
+        int passed = 0;
+        for (int query = 0; query < this.queriesPerClassifier; query++) {
+            for (final ConcreteClassifier classifier : this.classifiers) {
+                if (filter.passes(classifier)) {
+                    passed++;
+                }
+            }
+        }
+        return passed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private BaseFilter<ConcreteClassifier> createChain() {
+        return new ComposedFilter<ConcreteClassifier>(new BlacklistFilter(this.blacklist),
+                new NotFilter<ConcreteClassifier>(new NotFilter<ConcreteClassifier>(new DataObjectFilter())));
+    }
+
+    /**
+     * The name {@link BlacklistFilter} matches.
+     */
+    private static String computeContainerName(final ConcreteClassifier classifier) {
+        EObject container = classifier.eContainer();
+        if (container instanceof ClassMethod || container instanceof Field || container instanceof InterfaceMethod) {
+            container = container.eContainer();
+        }
+        return KDMHelper.computeFullQualifiedName((Commentable) container);
+    }
+}
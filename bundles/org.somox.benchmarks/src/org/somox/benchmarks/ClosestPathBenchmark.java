@@ -0,0 +1,102 @@
+package org.somox.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.annotationsmox.graphlearner.GraphLearner;
+import org.annotationsmox.graphlearner.Path;
+import org.annotationsmox.graphlearner.Sequence;
+import org.annotationsmox.graphlearner.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Searches the path closest to a sequence in a graph of a call {@code A} followed by
+ * {@code branches} parallel nodes in series, each with two alternatives, i.e. with
+ * 2<sup>branches</sup> paths. The {@code variant} query takes a random alternative at each parallel
+ * node and differs by a few random edits. The {@code unrelated} query shares no call with the
+ * graph, so all paths have the same cost. The {@code adversarial} query {@code Z0 Z1 A} has an edit
+ * distance to each path one below its cost, so the search cannot prune any path and falls back to
+ * the enumeration. The enumeration of all paths is the baseline; exclude it with
+ * {@code -e enumerate} for more than about 16 branches.
+ */
+@State(Scope.Benchmark)
+public class ClosestPathBenchmark {
+
+    @Param({ "8", "16", "24" })
+    public int branches;
+
+    @Param({ "variant", "unrelated", "adversarial" })
+    public String query;
+
+    @Param("1")
+    public long seed;
+
+    private GraphLearner<String> learner;
+
+    private List<Node> nodes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(this.seed);
+        final List<String> base = new ArrayList<String>();
+        base.add("A");
+        for (int i = 0; i < this.branches; i++) {
+            base.add("X" + i);
+        }
+        this.learner = new GraphLearner<String>();
+        this.learner.integrateSequence(toSequence(base));
+        for (int i = 0; i < this.branches; i++) {
+            final List<String> variant = new ArrayList<String>(base);
+            variant.set(i + 1, "Y" + i);
+            this.learner.integrateSequence(toSequence(variant));
+        }
+        final List<String> elements = new ArrayList<String>();
+        if ("unrelated".equals(this.query)) {
+            for (int i = 0; i < this.branches; i++) {
+                elements.add("Z" + i);
+            }
+        } else if ("adversarial".equals(this.query)) {
+            elements.add("Z0");
+            elements.add("Z1");
+            elements.add("A");
+        } else {
+            elements.add("A");
+            for (int i = 0; i < this.branches; i++) {
+                elements.add(random.nextBoolean() ? "X" + i : "Y" + i);
+            }
+            for (int edit = 0; edit < 1 + this.branches / 8; edit++) {
+                final int position = random.nextInt(elements.size());
+                if (random.nextBoolean()) {
+                    elements.set(position, "Z" + edit);
+                } else {
+                    elements.remove(position);
+                }
+            }
+        }
+        this.nodes = Node.from(toSequence(elements));
+    }
+
+    @Benchmark
+    public Path search() {
+        return this.learner.findPathClosestTo(this.nodes);
+    }
+
+    @Benchmark
+    public Path enumerate() {
+        return this.learner.findPathClosestToByEnumeration(this.nodes);
+    }
+
+    private static Sequence<String> toSequence(final List<String> elements) {
+        final Sequence<String> sequence = new Sequence<String>();
+        for (final String element : elements) {
+            sequence.add(element);
+        }
+        return sequence;
+    }
+}
@@ -0,0 +1,66 @@
+package org.somox.benchmarks;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+import org.somox.analyzer.ModelAnalyzerException;
+import org.somox.analyzer.simplemodelanalyzer.detection.ComponentDetectionByClustering;
+import org.somox.analyzer.simplemodelanalyzer.detection.IncrementalClusteringGraph;
+import org.somox.configuration.ClusteringConfiguration;
+
+/**
+ * Computes the merge indicating metric for all pairs of initial candidates as the first clustering
+ * iteration of {@link ComponentDetectionByClustering} does, with the selected scheduler,
+ * parallelism and pruning.
+ */
+public class ComputeAllMetricsBenchmark extends AbstractSyntheticModelBenchmark {
+
+    @Param({ "executor", "forkjoin" })
+    public String scheduler;
+
+    @Param({ "1", "4" })
+    public int parallelism;
+
+    @Param({ "false", "true" })
+    public boolean pruning;
+
+    private ComponentDetectionByClustering detection;
+
+    private IncrementalClusteringGraph clusteringGraph;
+
+    @Override
+    protected void setUpBenchmark() {
+        final ClusteringConfiguration clusteringConfig = this.model.getSoMoXConfiguration().getClusteringConfig();
+        clusteringConfig.setForkJoinMetricComputation("forkjoin".equals(this.scheduler));
+        clusteringConfig.setMetricComputationParallelism(this.parallelism);
+        clusteringConfig.setCandidatePairPruning(this.pruning);
+        this.detection = new ComponentDetectionByClustering(this.model.getRoot(),
+                this.model.getInitialComponentCandidates(), this.model.getSoMoXConfiguration());
+    }
+
+    @Override
+    protected void tearDownBenchmark() {
+        this.detection.shutdown();
+    }
+
+    @Benchmark
+    public IncrementalClusteringGraph computeAllMetrics() throws ModelAnalyzerException {
+        this.clusteringGraph = new IncrementalClusteringGraph();
+        this.detection.computeMergeIndicatingMetrics(this.model.getInitialComponentCandidates(),
+                this.clusteringGraph, new NullProgressMonitor());
+        return this.clusteringGraph;
+    }
+
+    /**
+     * Releases the values of the computed relations, so the store does not grow.
+     */
+    @TearDown(Level.Invocation)
+    public void releaseRelations() {
+        if (this.clusteringGraph != null) {
+            this.clusteringGraph.releaseRelations();
+            this.clusteringGraph = null;
+        }
+    }
+}
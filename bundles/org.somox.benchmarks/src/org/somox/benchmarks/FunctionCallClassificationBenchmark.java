@@ -0,0 +1,74 @@
+package org.somox.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.emftext.language.java.statements.Statement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+import org.palladiosimulator.pcm.repository.BasicComponent;
+import org.palladiosimulator.pcm.seff.ResourceDemandingSEFF;
+import org.somox.analyzer.SimpleAnalysisResult;
+import org.somox.gast2seff.visitors.BasicFunctionClassificationStrategy;
+import org.somox.gast2seff.visitors.FunctionCallClassificationVisitor;
+import org.somox.gast2seff.visitors.FunctionClassificationMemo;
+import org.somox.gast2seff.visitors.IFunctionClassificationStrategy;
+import org.somox.gast2seff.visitors.MethodCallFinder;
+import org.somox.sourcecodedecorator.SEFF2MethodMapping;
+import org.somox.sourcecodedecorator.SourceCodeDecoratorRepository;
+
+/**
+ * Classifies the calls in the bodies of all SEFFs of the synthetic model as GAST2SEFF does before
+ * it creates the actions, with or without a memo shared by the visitors of all SEFFs.
+ */
+public class FunctionCallClassificationBenchmark extends AbstractSyntheticModelBenchmark {
+
+    @Param({ "true", "false" })
+    public boolean memoize;
+
+    private final List<BasicComponent> seffComponents = new ArrayList<BasicComponent>();
+
+    private final List<SEFF2MethodMapping> seffMappings = new ArrayList<SEFF2MethodMapping>();
+
+    private final List<IFunctionClassificationStrategy> strategies = new ArrayList<IFunctionClassificationStrategy>();
+
+    private MethodCallFinder methodCallFinder;
+
+    @Override
+    protected void setUpBenchmark() {
+        final SimpleAnalysisResult result = this.model.createAnalysisResult();
+        final SourceCodeDecoratorRepository decorator = result.getSourceCodeDecoratorRepository();
+        this.methodCallFinder = new MethodCallFinder();
+        final List<BasicComponent> components = new ArrayList<BasicComponent>();
+        final List<IFunctionClassificationStrategy> componentStrategies =
+                new ArrayList<IFunctionClassificationStrategy>();
+        for (final SEFF2MethodMapping mapping : decorator.getSeff2MethodMappings()) {
+            final BasicComponent component = (BasicComponent) ((ResourceDemandingSEFF) mapping.getSeff())
+                    .eContainer();
+            int index = components.indexOf(component);
+            if (index < 0) {
+                index = components.size();
+                components.add(component);
+                componentStrategies.add(new BasicFunctionClassificationStrategy(decorator, component,
+                        this.model.getRoot(), this.methodCallFinder));
+            }
+            this.seffComponents.add(component);
+            this.seffMappings.add(mapping);
+            this.strategies.add(componentStrategies.get(index));
+        }
+    }
+
+    @Benchmark
+    public void classifyAllSeffs(final Blackhole blackhole) {
+        final FunctionClassificationMemo memo = this.memoize ? new FunctionClassificationMemo() : null;
+        for (int i = 0; i < this.seffMappings.size(); i++) {
+            final FunctionCallClassificationVisitor visitor = new FunctionCallClassificationVisitor(
+                    this.strategies.get(i), this.methodCallFinder, memo, this.seffComponents.get(i));
+            for (final Statement statement : this.seffMappings.get(i).getStatementListContainer().getStatements()) {
+                visitor.doSwitch(statement);
+            }
+            blackhole.consume(visitor.getAnnotations());
+        }
+    }
+}
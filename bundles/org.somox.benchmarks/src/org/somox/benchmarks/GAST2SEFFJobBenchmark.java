@@ -0,0 +1,38 @@
+package org.somox.benchmarks;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.somox.gast2seff.jobs.GAST2SEFFJob;
+import org.somox.gast2seff.jobs.SoMoXBlackboard;
+
+import de.uka.ipd.sdq.workflow.jobs.JobFailedException;
+import de.uka.ipd.sdq.workflow.jobs.UserCanceledException;
+
+/**
+ * Creates the SEFFs of all operations of the synthetic model. The job completes the SEFFs of the
+ * analysis result, so each invocation gets a new result.
+ */
+public class GAST2SEFFJobBenchmark extends AbstractSyntheticModelBenchmark {
+
+    private SoMoXBlackboard blackboard;
+
+    @Override
+    protected void setUpBenchmark() {
+        // the analysis result is created per invocation
+    }
+
+    @Setup(Level.Invocation)
+    public void createAnalysisResult() {
+        this.blackboard = new SoMoXBlackboard();
+        this.blackboard.setAnalysisResult(this.model.createAnalysisResult());
+    }
+
+    @Benchmark
+    public void createSeffs() throws JobFailedException, UserCanceledException {
+        final GAST2SEFFJob job = new GAST2SEFFJob();
+        job.setBlackboard(this.blackboard);
+        job.execute(new NullProgressMonitor());
+    }
+}
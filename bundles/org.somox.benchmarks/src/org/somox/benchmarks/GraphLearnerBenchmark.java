@@ -0,0 +1,93 @@
+package org.somox.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.annotationsmox.graphlearner.GraphLearner;
+import org.annotationsmox.graphlearner.Sequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Learns a graph from sequences which are variants of a common base sequence, as the sequences of
+ * calls observed for the same operation. Each variant differs from the base sequence by a few
+ * random insertions, deletions and replacements. The batch benchmark integrates the same sequences
+ * by {@link GraphLearner#integrateSequences(List)}, searching closest paths concurrently.
+ */
+@State(Scope.Benchmark)
+public class GraphLearnerBenchmark {
+
+    private static final int ALPHABET_SIZE = 32;
+
+    @Param({ "10", "50" })
+    public int sequenceLength;
+
+    @Param({ "20", "100" })
+    public int sequences;
+
+    @Param("1")
+    public long seed;
+
+    private final List<Sequence<String>> variants = new ArrayList<Sequence<String>>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(this.seed);
+        final List<String> base = new ArrayList<String>();
+        for (int i = 0; i < this.sequenceLength; i++) {
+            base.add(this.randomElement(random));
+        }
+        for (int i = 0; i < this.sequences; i++) {
+            final List<String> variant = new ArrayList<String>(base);
+            final int edits = 1 + random.nextInt(Math.max(1, this.sequenceLength / 5));
+            for (int edit = 0; edit < edits; edit++) {
+                final int position = random.nextInt(variant.size() + 1);
+                switch (random.nextInt(3)) {
+                case 0:
+                    variant.add(position, this.randomElement(random));
+                    break;
+                case 1:
+                    if (position < variant.size() && variant.size() > 1) {
+                        variant.remove(position);
+                    }
+                    break;
+                default:
+                    if (position < variant.size()) {
+                        variant.set(position, this.randomElement(random));
+                    }
+                    break;
+                }
+            }
+            final Sequence<String> sequence = new Sequence<String>();
+            for (final String element : variant) {
+                sequence.add(element);
+            }
+            this.variants.add(sequence);
+        }
+    }
+
+    @Benchmark
+    public GraphLearner<String> integrateSequences() {
+        final GraphLearner<String> learner = new GraphLearner<String>();
+        for (final Sequence<String> sequence : this.variants) {
+            learner.integrateSequence(sequence);
+        }
+        return learner;
+    }
+
+    @Benchmark
+    public GraphLearner<String> integrateSequencesInBatch() {
+        final GraphLearner<String> learner = new GraphLearner<String>();
+        learner.integrateSequences(this.variants);
+        return learner;
+    }
+
+    private String randomElement(final Random random) {
+        return "call" + random.nextInt(ALPHABET_SIZE);
+    }
+}
@@ -0,0 +1,96 @@
+package org.somox.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.annotationsmox.graphlearner.GraphLearner;
+import org.annotationsmox.graphlearner.Path;
+import org.annotationsmox.graphlearner.SPGraph;
+import org.annotationsmox.graphlearner.Sequence;
+import org.annotationsmox.graphlearner.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Enumerates and walks the paths of a graph of {@code branches} parallel nodes in series, each with
+ * two alternatives of {@code length} calls, as the graph learner does when integrating a sequence.
+ * Meant to be run with {@code -prof gc}, as the allocations per operation
+ * ({@code gc.alloc.rate.norm}) dominate these operations.
+ */
+@State(Scope.Benchmark)
+public class GraphPathBenchmark {
+
+    @Param({ "8", "12" })
+    public int branches;
+
+    @Param({ "1", "10" })
+    public int length;
+
+    private SPGraph graph;
+
+    private List<Path> paths;
+
+    private List<Node> leaves;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final List<String> base = new ArrayList<String>();
+        for (int i = 0; i < this.branches; i++) {
+            for (int j = 0; j < this.length; j++) {
+                base.add("X" + i + "." + j);
+            }
+        }
+        final GraphLearner<String> learner = new GraphLearner<String>();
+        learner.integrateSequence(toSequence(base));
+        for (int i = 0; i < this.branches; i++) {
+            final List<String> variant = new ArrayList<String>(base);
+            for (int j = 0; j < this.length; j++) {
+                variant.set(i * this.length + j, "Y" + i + "." + j);
+            }
+            learner.integrateSequence(toSequence(variant));
+        }
+        this.graph = learner.getGraph();
+        this.paths = this.graph.allPaths();
+        this.leaves = this.paths.get(0).excludeNonLeaves().getNodes();
+    }
+
+    @Benchmark
+    public List<Path> allPaths() {
+        return this.graph.allPaths();
+    }
+
+    @Benchmark
+    public int excludeNonLeaves() {
+        int size = 0;
+        for (final Path path : this.paths) {
+            size += path.excludeNonLeaves().excludeEpsilon().size();
+        }
+        return size;
+    }
+
+    @Benchmark
+    public List<Node> completelyCoveredSubtrees() {
+        return Node.findCompletelyCoveredSubtrees(this.leaves);
+    }
+
+    @Benchmark
+    public int pathsToRoot() {
+        int size = 0;
+        for (final Node leaf : this.leaves) {
+            size += leaf.pathToRoot().size();
+        }
+        return size;
+    }
+
+    private static Sequence<String> toSequence(final List<String> elements) {
+        final Sequence<String> sequence = new Sequence<String>();
+        for (final String element : elements) {
+            sequence.add(element);
+        }
+        return sequence;
+    }
+}
@@ -0,0 +1,129 @@
+package org.somox.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.emftext.language.java.types.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.somox.metrics.helper.ComponentToImplementingClassesHelper;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.InterfaceSourceCodeLink;
+
+/**
+ * Reads the implementing classes of all initial candidates and tests them for all classes from a
+ * number of threads at once, as the metric computation does. Compares the sets attached to the
+ * candidates with the derivation memoized under a global lock the helper used before. Both are
+ * derived in the first invocation, so the benchmark measures the reads.
+ */
+public class ImplementingClassesBenchmark extends AbstractSyntheticModelBenchmark {
+
+    @Param({ "1", "2", "4", "8", "16", "32" })
+    public int threads;
+
+    @Param({ "attached", "synchronized" })
+    public String derivation;
+
+    private ExecutorService pool;
+
+    private List<ConcreteClassifier> classes;
+
+    private SynchronizedHelper synchronizedHelper;
+
+    @Override
+    protected void setUpBenchmark() {
+        this.pool = Executors.newFixedThreadPool(this.threads);
+        this.classes = new ArrayList<ConcreteClassifier>(this.model.getComponentToImplementingClassesHelper()
+                .collectAllClasses(this.model.getInitialComponentCandidates()));
+        this.synchronizedHelper = new SynchronizedHelper();
+    }
+
+    @Override
+    protected void tearDownBenchmark() {
+        this.pool.shutdownNow();
+    }
+
+    @Benchmark
+    public int deriveAndTest() throws Exception {
+        final ComponentToImplementingClassesHelper attachedHelper = this.model
+                .getComponentToImplementingClassesHelper();
+        final SynchronizedHelper synchronizedHelper = this.synchronizedHelper;
+        final boolean attached = "attached".equals(this.derivation);
+        final List<ComponentImplementingClassesLink> candidates = this.model.getInitialComponentCandidates();
+
+        final List<Future<Integer>> futures = new ArrayList<Future<Integer>>(this.threads);
+        for (int thread = 0; thread < this.threads; thread++) {
+            final int offset = thread;
+            futures.add(this.pool.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    int contained = 0;
+                    for (int i = 0; i < candidates.size(); i++) {
+                        final ComponentImplementingClassesLink candidate = candidates
+                                .get((i + offset) % candidates.size());
+                        final Set<ConcreteClassifier> implementingClasses = attached
+                                ? attachedHelper.deriveImplementingClasses(candidate)
+                                : synchronizedHelper.deriveImplementingClasses(candidate);
+                        for (final ConcreteClassifier clazz : ImplementingClassesBenchmark.this.classes) {
+                            if (implementingClasses.contains(clazz)) {
+                                contained++;
+                            }
+                        }
+                    }
+                    return contained;
+                }
+            }));
+        }
+        int contained = 0;
+        for (final Future<Integer> future : futures) {
+            contained += future.get();
+        }
+        return contained;
+    }
+
+    /**
+     * The derivation of {@link ComponentToImplementingClassesHelper} before the classes were
+     * attached to the candidates: hash sets memoized in a map guarded by the helper.
+     */
+    private static final class SynchronizedHelper {
+
+        private final Map<ComponentImplementingClassesLink, Set<ConcreteClassifier>> mapOfImplementingClasses =
+                new HashMap<ComponentImplementingClassesLink, Set<ConcreteClassifier>>();
+
+        private synchronized Set<ConcreteClassifier> deriveImplementingClasses(
+                final ComponentImplementingClassesLink componentCandidate) {
+            Set<ConcreteClassifier> classSet = this.mapOfImplementingClasses.get(componentCandidate);
+            if (classSet != null) {
+                return classSet;
+            }
+            classSet = new HashSet<ConcreteClassifier>();
+            for (final Type type : componentCandidate.getImplementingClasses()) {
+                if (type instanceof ConcreteClassifier) {
+                    classSet.add((ConcreteClassifier) type);
+                }
+            }
+            for (final ComponentImplementingClassesLink subComponent : componentCandidate.getSubComponents()) {
+                classSet.addAll(this.deriveImplementingClasses(subComponent));
+            }
+            for (final InterfaceSourceCodeLink providedIfLink : componentCandidate.getProvidedInterfaces()) {
+                if (providedIfLink.getGastClass() instanceof ConcreteClassifier) {
+                    classSet.add(providedIfLink.getGastClass());
+                }
+            }
+            if (classSet.isEmpty()) {
+                throw new RuntimeException("Component must have associated classes");
+            }
+            this.mapOfImplementingClasses.put(componentCandidate, classSet);
+            return classSet;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.somox.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.IMetric;
+import org.somox.metrics.MetricID;
+import org.somox.metrics.MetricResultStore;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+
+/**
+ * Computes one metric for the relations from each initial candidate to the next one and to the one
+ * halfway around the list of candidates. Composed metrics compute their child metrics as well, as
+ * each relation starts empty.
+ */
+public class MetricBenchmark extends AbstractSyntheticModelBenchmark {
+
+    @Param({ "org.somox.metrics.basic.InterfaceAccessesCount", "org.somox.metrics.basic.TotalTypesCount",
+            "org.somox.metrics.basic.AfferentCoupling", "org.somox.metric.basic.AbstractTypesCount",
+            "org.somox.metrics.basic.ExternalAccessesCount", "org.somox.metric.basic.EfferentCoupling",
+            "org.somox.metrics.basic.InternalAccessesCount", "org.somox.metrics.PackageMapping",
+            "org.somox.metrics.DirectoryMapping", "org.somox.metrics.SubsystemComponent",
+            "org.somox.metrics.SliceLayerArchitectureQuality", "org.somox.metrics.AdherenceToInterfaceCommunication",
+            "org.somox.metrics.Instability", "org.somox.metrics.DMS", "org.somox.metrics.Abstractness",
+            "org.somox.metrics.Coupling", "org.somox.metrics.NameResemblance",
+            "org.somox.analyzer.simplemodelanalyzer.metrics.DefaultCompositionIndicatingMetric",
+            "org.somox.analyzer.simplemodelanalyzer.metrics.DefaultMergeIndicatingMetric" })
+    public String metric;
+
+    private IMetric metricToCompute;
+
+    private MetricResultStore store;
+
+    private List<ComponentImplementingClassesLink> candidates;
+
+    @Override
+    protected void setUpBenchmark() {
+        final Map<MetricID, IMetric> allMetrics = this.model.initializeMetrics();
+        this.metricToCompute = allMetrics.get(new MetricID(this.metric));
+        if (this.metricToCompute == null) {
+            throw new IllegalArgumentException("Metric " + this.metric + " is not registered");
+        }
+        this.store = new MetricResultStore(allMetrics.keySet());
+        this.candidates = this.model.getInitialComponentCandidates();
+    }
+
+    @Benchmark
+    public void computeDirected(final Blackhole blackhole) {
+        final int size = this.candidates.size();
+        for (int i = 0; i < size; i++) {
+            this.compute(this.candidates.get(i), this.candidates.get((i + 1) % size), blackhole);
+            this.compute(this.candidates.get(i), this.candidates.get((i + size / 2) % size), blackhole);
+        }
+    }
+
+    private void compute(final ComponentImplementingClassesLink source, final ComponentImplementingClassesLink target,
+            final Blackhole blackhole) {
+        final ClusteringRelation relation = new ClusteringRelation(source, target, this.store);
+        this.metricToCompute.computeDirected(relation);
+        blackhole.consume(relation.getResultMetric(this.metricToCompute.getMID()));
+        relation.release();
+    }
+}
@@ -0,0 +1,129 @@
+package org.somox.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.MetricID;
+import org.somox.metrics.MetricResultStore;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+
+/**
+ * Stores the values of {@code metrics} metrics for {@code pairs} clustering relations in a
+ * {@link MetricResultStore} and, as baseline, in a {@code HashMap<MetricID, Double>} per relation
+ * as {@link ClusteringRelation} did before the store. Meant to be run with {@code -prof gc}: all
+ * objects allocated by the {@code fill} benchmarks stay reachable from the returned relations, so
+ * their {@code gc.alloc.rate.norm} is the heap retained by the relations of either layout.
+ */
+@State(Scope.Benchmark)
+public class MetricResultStoreBenchmark {
+
+    @Param({ "10000", "100000" })
+    public int pairs;
+
+    @Param("17")
+    public int metrics;
+
+    private List<MetricID> metricIDs;
+
+    private ComponentImplementingClassesLink source;
+
+    private ComponentImplementingClassesLink target;
+
+    private ClusteringRelation[] storedRelations;
+
+    private MapPerEdgeRelation[] mapPerEdgeRelations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.metricIDs = new ArrayList<MetricID>();
+        for (int i = 0; i < this.metrics; i++) {
+            this.metricIDs.add(new MetricID("org.somox.benchmarks.Metric" + i));
+        }
+        this.source = SourcecodedecoratorFactory.eINSTANCE.createComponentImplementingClassesLink();
+        this.target = SourcecodedecoratorFactory.eINSTANCE.createComponentImplementingClassesLink();
+        this.storedRelations = this.fillStore();
+        this.mapPerEdgeRelations = this.fillMapPerEdge();
+    }
+
+    @Benchmark
+    public ClusteringRelation[] fillStore() {
+        final MetricResultStore store = new MetricResultStore(this.metricIDs);
+        final ClusteringRelation[] relations = new ClusteringRelation[this.pairs];
+        for (int pair = 0; pair < this.pairs; pair++) {
+            relations[pair] = new ClusteringRelation(this.source, this.target, store);
+            for (int metric = 0; metric < this.metrics; metric++) {
+                relations[pair].setResultMetric(this.metricIDs.get(metric), value(pair, metric));
+            }
+        }
+        return relations;
+    }
+
+    @Benchmark
+    public MapPerEdgeRelation[] fillMapPerEdge() {
+        final MapPerEdgeRelation[] relations = new MapPerEdgeRelation[this.pairs];
+        for (int pair = 0; pair < this.pairs; pair++) {
+            relations[pair] = new MapPerEdgeRelation();
+            for (int metric = 0; metric < this.metrics; metric++) {
+                relations[pair].setResultMetric(this.metricIDs.get(metric), value(pair, metric));
+            }
+        }
+        return relations;
+    }
+
+    @Benchmark
+    public double readStore() {
+        final MetricID metric = this.metricIDs.get(this.metrics - 1);
+        double sum = 0.0;
+        for (final ClusteringRelation relation : this.storedRelations) {
+            sum += relation.getResultMetric(metric);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double readMapPerEdge() {
+        final MetricID metric = this.metricIDs.get(this.metrics - 1);
+        double sum = 0.0;
+        for (final MapPerEdgeRelation relation : this.mapPerEdgeRelations) {
+            sum += relation.getResult().get(metric);
+        }
+        return sum;
+    }
+
+    private static double value(final int pair, final int metric) {
+        return (pair * 31 + metric) % 101 / 100.0;
+    }
+
+    /**
+     * The value storage of a clustering relation before the {@link MetricResultStore}: one map of
+     * boxed values per relation.
+     */
+    public static final class MapPerEdgeRelation {
+
+        private final Map<MetricID, Double> result = new HashMap<MetricID, Double>();
+
+        private final Map<MetricID, Double> unmodifiableResult = Collections.unmodifiableMap(this.result);
+
+        public void setResultMetric(final MetricID metric, final double value) {
+            if (this.result.containsKey(metric)) {
+                throw new IllegalArgumentException("Metric added to clustering relation is already set");
+            }
+            this.result.put(metric, value);
+        }
+
+        public Map<MetricID, Double> getResult() {
+            return this.unmodifiableResult;
+        }
+    }
+}
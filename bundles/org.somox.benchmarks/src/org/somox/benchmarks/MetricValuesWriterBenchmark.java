@@ -0,0 +1,72 @@
+package org.somox.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.common.util.URI;
+import org.jgrapht.DirectedGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.somox.analyzer.simplemodelanalyzer.detection.ExecutorMetricComputationScheduler;
+import org.somox.analyzer.simplemodelanalyzer.detection.IMetricComputationScheduler;
+import org.somox.analyzer.simplemodelanalyzer.detection.IncrementalClusteringGraph;
+import org.somox.analyzer.simplemodelanalyzer.detection.NodePair;
+import org.somox.analyzer.simplemodelanalyzer.metricvalues.MetricValuesWriter;
+import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.IMetric;
+import org.somox.metrics.MetricID;
+import org.somox.metrics.MetricResultStore;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+
+/**
+ * Saves the metric values of all pairs of initial candidates for a number of iterations and
+ * assembles them into the metric values model, as the clustering does when it writes the metric
+ * values.
+ */
+public class MetricValuesWriterBenchmark extends AbstractSyntheticModelBenchmark {
+
+    private static final MetricID MERGE_INDICATING_METRIC = new MetricID(
+            "org.somox.analyzer.simplemodelanalyzer.metrics.DefaultMergeIndicatingMetric");
+
+    @Param("5")
+    public int iterations;
+
+    private DirectedGraph<ComponentImplementingClassesLink, ClusteringRelation> metricsGraph;
+
+    private URI metricValuesModelURI;
+
+    @Override
+    protected void setUpBenchmark() throws Exception {
+        final Map<MetricID, IMetric> allMetrics = this.model.initializeMetrics();
+        final IMetricComputationScheduler scheduler = new ExecutorMetricComputationScheduler(1);
+        try {
+            final IncrementalClusteringGraph clusteringGraph = new IncrementalClusteringGraph();
+            final List<NodePair> work = clusteringGraph
+                    .deriveComputationWork(this.model.getInitialComponentCandidates());
+            final ClusteringRelation[][] relations = scheduler.computeRelations(work,
+                    allMetrics.get(MERGE_INDICATING_METRIC), allMetrics,
+                    new MetricResultStore(allMetrics.keySet()), new NullProgressMonitor());
+            for (final ClusteringRelation[] pairRelations : relations) {
+                clusteringGraph.addRelations(pairRelations);
+            }
+            this.metricsGraph = clusteringGraph.getGraph();
+        } finally {
+            scheduler.shutdown();
+        }
+        this.metricValuesModelURI = URI.createFileURI(
+                this.model.getFolder().resolve("somox.metricvalues").toAbsolutePath().toString());
+    }
+
+    @Benchmark
+    public void saveAndAssemble() {
+        final MetricValuesWriter writer = new MetricValuesWriter(this.model.getSoMoXConfiguration(),
+                this.metricValuesModelURI);
+        final double thresholdDecrement = 1.0 / this.iterations;
+        for (int iteration = 1; iteration <= this.iterations; iteration++) {
+            writer.saveMetricValuesModel(this.metricsGraph, iteration, 1.0 - iteration * thresholdDecrement,
+                    this.model.getInitialComponentCandidates(), iteration % 2 == 1);
+        }
+        writer.assembleMetricValuesModel();
+    }
+}
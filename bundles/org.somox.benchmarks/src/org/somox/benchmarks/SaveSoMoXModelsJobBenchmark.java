@@ -0,0 +1,40 @@
+package org.somox.benchmarks;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.common.util.URI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.somox.gast2seff.jobs.SaveSoMoXModelsJob;
+import org.somox.gast2seff.jobs.SoMoXBlackboard;
+
+import de.uka.ipd.sdq.workflow.jobs.JobFailedException;
+import de.uka.ipd.sdq.workflow.jobs.UserCanceledException;
+
+/**
+ * Saves the models of an analysis result of the synthetic model into its folder. The job adds the
+ * models to its own resources, so each invocation saves newly created models.
+ */
+public class SaveSoMoXModelsJobBenchmark extends AbstractSyntheticModelBenchmark {
+
+    private SoMoXBlackboard blackboard;
+
+    @Override
+    protected void setUpBenchmark() {
+        this.model.getSoMoXConfiguration().getFileLocations().setOutputFolder(
+                URI.createFileURI(this.model.getFolder().resolve("model").toAbsolutePath().toString()).toString());
+    }
+
+    @Setup(Level.Invocation)
+    public void createAnalysisResult() {
+        this.blackboard = new SoMoXBlackboard();
+        this.blackboard.setAnalysisResult(this.model.createAnalysisResult());
+    }
+
+    @Benchmark
+    public void saveModels() throws JobFailedException, UserCanceledException {
+        final SaveSoMoXModelsJob job = new SaveSoMoXModelsJob(this.model.getSoMoXConfiguration());
+        job.setBlackboard(this.blackboard);
+        job.execute(new NullProgressMonitor());
+    }
+}
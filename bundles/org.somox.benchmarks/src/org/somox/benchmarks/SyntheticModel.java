@@ -0,0 +1,596 @@
+package org.somox.benchmarks;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.emftext.language.java.containers.CompilationUnit;
+import org.emftext.language.java.members.Method;
+import org.emftext.language.java.statements.StatementListContainer;
+import org.jgrapht.DirectedGraph;
+import org.palladiosimulator.pcm.allocation.AllocationFactory;
+import org.palladiosimulator.pcm.qosannotations.QosannotationsFactory;
+import org.palladiosimulator.pcm.repository.BasicComponent;
+import org.palladiosimulator.pcm.repository.OperationInterface;
+import org.palladiosimulator.pcm.repository.OperationProvidedRole;
+import org.palladiosimulator.pcm.repository.OperationRequiredRole;
+import org.palladiosimulator.pcm.repository.OperationSignature;
+import org.palladiosimulator.pcm.repository.Repository;
+import org.palladiosimulator.pcm.repository.RepositoryFactory;
+import org.palladiosimulator.pcm.seff.ResourceDemandingSEFF;
+import org.palladiosimulator.pcm.seff.SeffFactory;
+import org.palladiosimulator.pcm.system.SystemFactory;
+import org.somox.analyzer.SimpleAnalysisResult;
+import org.somox.configuration.SoMoXConfiguration;
+import org.somox.kdmhelper.KDMReader;
+import org.somox.kdmhelper.metamodeladdition.Root;
+import org.somox.metrics.IMetric;
+import org.somox.metrics.MetricID;
+import org.somox.metrics.helper.Class2ClassAccessGraphHelper;
+import org.somox.metrics.helper.ClassAccessGraphEdge;
+import org.somox.metrics.helper.ComponentToImplementingClassesHelper;
+import org.somox.metrics.registry.MetricsRegistry;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.InterfaceSourceCodeLink;
+import org.somox.sourcecodedecorator.MethodLevelSourceCodeLink;
+import org.somox.sourcecodedecorator.SEFF2MethodMapping;
+import org.somox.sourcecodedecorator.SourceCodeDecoratorRepository;
+import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+import org.splevo.jamopp.extraction.JaMoPPSoftwareModelExtractor;
+
+/**
+ * A generated code base and the models SoMoX derives from it, used as input of the benchmarks. The
+ * code is generated from a seed, so the same parameters always yield the same model.
+ *
+ * Each component consists of an API interface, a service class implementing it and helper parts in
+ * a package of its own. The packages are grouped into subsystems. The operations of a service
+ * branch, loop, call the parts of their component and the APIs of the components they require; the
+ * parts call each other and sometimes a required API. The required components are drawn from the
+ * seed, so the access graph is neither complete nor layered.
+ *
+ * The code is extracted with JaMoPP into a temporary folder, which is deleted by {@link #close()}.
+ */
+public class SyntheticModel implements Closeable {
+
+    /** Number of operations of each API */
+    public static final int OPERATIONS = 4;
+
+    /** Number of components grouped into one subsystem */
+    private static final int COMPONENTS_PER_SUBSYSTEM = 5;
+
+    private static final int MAX_REQUIRED_COMPONENTS = 3;
+
+    private static final String PCM_MODELS_PATHMAP = "pathmap://PCM_MODELS/";
+
+    private static final String PCM_RESOURCE_TYPES = "defaultModels/Palladio.resourcetype";
+
+    /** Stems of the component names, so that name resemblance finds related classes */
+    private static final String[] NAMES = { "Order", "Customer", "Invoice", "Payment", "Shipment", "Catalog",
+            "Account", "Report", "Session", "Inventory", "Pricing", "Audit" };
+
+    private final int componentCount;
+
+    private final int classesPerComponent;
+
+    /** Indices of the components required by each component */
+    private final int[][] requiredComponents;
+
+    /** Per component and part, the index into the required components called by it or -1 */
+    private final int[][] partCalls;
+
+    private final Path folder;
+
+    private final Root root;
+
+    /** The extracted classifiers by their names, which are unique */
+    private final Map<String, ConcreteClassifier> classifiers = new HashMap<String, ConcreteClassifier>();
+
+    private final SoMoXConfiguration somoxConfiguration = new SoMoXConfiguration();
+
+    private final ComponentToImplementingClassesHelper componentToImplementingClassesHelper = new ComponentToImplementingClassesHelper();
+
+    private final List<ComponentImplementingClassesLink> initialComponentCandidates;
+
+    private final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph;
+
+    /**
+     * Generates and extracts the code base.
+     *
+     * @param componentCount
+     *            Number of components, at least two.
+     * @param classesPerComponent
+     *            Number of classes of each component besides its API, at least one.
+     * @param seed
+     *            Seed of the random choices.
+     * @throws IOException
+     *             If the code cannot be written to a temporary folder.
+     */
+    public SyntheticModel(final int componentCount, final int classesPerComponent, final long seed)
+            throws IOException {
+        if (componentCount < 2) {
+            throw new IllegalArgumentException("A synthetic model needs at least two components");
+        }
+        if (classesPerComponent < 1) {
+            throw new IllegalArgumentException("Each component needs at least one class");
+        }
+        initializeStandalone();
+        this.componentCount = componentCount;
+        this.classesPerComponent = classesPerComponent;
+
+        final Random random = new Random(seed);
+        this.requiredComponents = new int[componentCount][];
+        this.partCalls = new int[componentCount][classesPerComponent - 1];
+        for (int component = 0; component < componentCount; component++) {
+            final List<Integer> others = new ArrayList<Integer>();
+            for (int other = 0; other < componentCount; other++) {
+                if (other != component) {
+                    others.add(other);
+                }
+            }
+            Collections.shuffle(others, random);
+            final int requiredCount = 1 + random.nextInt(Math.min(MAX_REQUIRED_COMPONENTS, others.size()));
+            this.requiredComponents[component] = new int[requiredCount];
+            for (int i = 0; i < requiredCount; i++) {
+                this.requiredComponents[component][i] = others.get(i);
+            }
+            for (int part = 0; part < classesPerComponent - 1; part++) {
+                this.partCalls[component][part] = random.nextInt(3) == 0 ? random.nextInt(requiredCount) : -1;
+            }
+        }
+
+        this.folder = Files.createTempDirectory("somox-benchmark-model");
+        try {
+            this.writeSources();
+            this.root = this.extract();
+            this.initialComponentCandidates = Collections.unmodifiableList(this.createInitialComponentCandidates());
+            this.accessGraph = Class2ClassAccessGraphHelper.computeFilteredClass2ClassAccessGraph(
+                    this.somoxConfiguration,
+                    this.componentToImplementingClassesHelper.collectAllClasses(this.initialComponentCandidates),
+                    this.root.getAccessSummaryIndex());
+        } catch (final IOException | RuntimeException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    public int getComponentCount() {
+        return this.componentCount;
+    }
+
+    public int getClassesPerComponent() {
+        return this.classesPerComponent;
+    }
+
+    /**
+     * @return The temporary folder of the model. Benchmarks may write their output to it.
+     */
+    public Path getFolder() {
+        return this.folder;
+    }
+
+    public Root getRoot() {
+        return this.root;
+    }
+
+    /**
+     * @return The default configuration, which the blacklist and the metrics of this model use
+     */
+    public SoMoXConfiguration getSoMoXConfiguration() {
+        return this.somoxConfiguration;
+    }
+
+    /**
+     * @return The helper the implementing classes of the initial component candidates are attached
+     *         with
+     */
+    public ComponentToImplementingClassesHelper getComponentToImplementingClassesHelper() {
+        return this.componentToImplementingClassesHelper;
+    }
+
+    /**
+     * @return One candidate per class, as created by the initialization of the clustering. The
+     *         candidate of a service provides the API of its component.
+     */
+    public List<ComponentImplementingClassesLink> getInitialComponentCandidates() {
+        return this.initialComponentCandidates;
+    }
+
+    /**
+     * @return The class access graph of the classes of the initial component candidates
+     */
+    public DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> getAccessGraph() {
+        return this.accessGraph;
+    }
+
+    /**
+     * Initializes all registered metrics for this model, as the clustering does.
+     *
+     * @return The initialized metrics mapped on their IDs
+     */
+    public Map<MetricID, IMetric> initializeMetrics() {
+        final Map<MetricID, IMetric> allMetrics = MetricsRegistry.getRegisteredMetrics();
+        for (final IMetric metric : allMetrics.values()) {
+            metric.initialize(this.root, this.somoxConfiguration, allMetrics, this.accessGraph,
+                    this.componentToImplementingClassesHelper);
+        }
+        return allMetrics;
+    }
+
+    /**
+     * Creates the architecture of the code base as GAST2SEFF expects it: one basic component per
+     * component of the code, an operation interface per API, and an empty SEFF per operation mapped
+     * to the method of the service. Each call creates new models, as the jobs consuming them modify
+     * or move them.
+     *
+     * @return An analysis result with all models set
+     */
+    public SimpleAnalysisResult createAnalysisResult() {
+        final Repository repository = RepositoryFactory.eINSTANCE.createRepository();
+        repository.setEntityName("Synthetic");
+        final SourceCodeDecoratorRepository decorator = SourcecodedecoratorFactory.eINSTANCE
+                .createSourceCodeDecoratorRepository();
+
+        final List<InterfaceSourceCodeLink> interfaceLinks = new ArrayList<InterfaceSourceCodeLink>();
+        final List<BasicComponent> components = new ArrayList<BasicComponent>();
+        for (int component = 0; component < this.componentCount; component++) {
+            final ConcreteClassifier api = this.classifiers.get(this.getApiName(component));
+            final OperationInterface pcmInterface = RepositoryFactory.eINSTANCE.createOperationInterface();
+            pcmInterface.setEntityName(api.getName());
+            repository.getInterfaces__Repository().add(pcmInterface);
+            final InterfaceSourceCodeLink interfaceLink = SourcecodedecoratorFactory.eINSTANCE
+                    .createInterfaceSourceCodeLink();
+            interfaceLink.setInterface(pcmInterface);
+            interfaceLink.setGastClass(api);
+            decorator.getInterfaceSourceCodeLink().add(interfaceLink);
+            interfaceLinks.add(interfaceLink);
+
+            for (int operation = 0; operation < OPERATIONS; operation++) {
+                final OperationSignature signature = RepositoryFactory.eINSTANCE.createOperationSignature();
+                signature.setEntityName("op" + operation);
+                pcmInterface.getSignatures__OperationInterface().add(signature);
+                final MethodLevelSourceCodeLink methodLink = SourcecodedecoratorFactory.eINSTANCE
+                        .createMethodLevelSourceCodeLink();
+                methodLink.setOperation(signature);
+                methodLink.setFunction(findMethod(api, "op" + operation));
+                decorator.getMethodLevelSourceCodeLink().add(methodLink);
+            }
+
+            final BasicComponent basicComponent = RepositoryFactory.eINSTANCE.createBasicComponent();
+            basicComponent.setEntityName(this.getComponentName(component));
+            repository.getComponents__Repository().add(basicComponent);
+            final OperationProvidedRole providedRole = RepositoryFactory.eINSTANCE.createOperationProvidedRole();
+            providedRole.setProvidedInterface__OperationProvidedRole(pcmInterface);
+            basicComponent.getProvidedRoles_InterfaceProvidingEntity().add(providedRole);
+            components.add(basicComponent);
+        }
+
+        for (int component = 0; component < this.componentCount; component++) {
+            final BasicComponent basicComponent = components.get(component);
+            final ComponentImplementingClassesLink componentLink = SourcecodedecoratorFactory.eINSTANCE
+                    .createComponentImplementingClassesLink();
+            componentLink.setComponent(basicComponent);
+            componentLink.getImplementingClasses().addAll(this.getImplementingClasses(component));
+            componentLink.getProvidedInterfaces().add(interfaceLinks.get(component));
+            for (final int requiredComponent : this.requiredComponents[component]) {
+                final OperationRequiredRole requiredRole = RepositoryFactory.eINSTANCE.createOperationRequiredRole();
+                requiredRole.setRequiredInterface__OperationRequiredRole(
+                        interfaceLinks.get(requiredComponent).getInterface());
+                basicComponent.getRequiredRoles_InterfaceRequiringEntity().add(requiredRole);
+                componentLink.getRequiredInterfaces().add(interfaceLinks.get(requiredComponent));
+            }
+            decorator.getComponentImplementingClassesLink().add(componentLink);
+
+            final ConcreteClassifier service = this.classifiers.get(this.getServiceName(component));
+            final OperationInterface pcmInterface = interfaceLinks.get(component).getInterface();
+            for (int operation = 0; operation < OPERATIONS; operation++) {
+                final ResourceDemandingSEFF seff = SeffFactory.eINSTANCE.createResourceDemandingSEFF();
+                seff.setDescribedService__SEFF(pcmInterface.getSignatures__OperationInterface().get(operation));
+                basicComponent.getServiceEffectSpecifications__BasicComponent().add(seff);
+                final SEFF2MethodMapping mapping = SourcecodedecoratorFactory.eINSTANCE.createSEFF2MethodMapping();
+                mapping.setSeff(seff);
+                mapping.setStatementListContainer((StatementListContainer) findMethod(service, "op" + operation));
+                decorator.getSeff2MethodMappings().add(mapping);
+            }
+        }
+
+        final SimpleAnalysisResult result = new SimpleAnalysisResult(null);
+        result.setInternalArchitectureModel(repository);
+        result.setSourceCodeDecoratorRepository(decorator);
+        result.setSystemModel(SystemFactory.eINSTANCE.createSystem());
+        result.setQosAnnotationModel(QosannotationsFactory.eINSTANCE.createQoSAnnotations());
+        result.setAllocation(AllocationFactory.eINSTANCE.createAllocation());
+        result.setRoot(this.root);
+        return result;
+    }
+
+    /**
+     * Deletes the temporary folder of the model.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!Files.exists(this.folder)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(this.folder)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private void writeSources() throws IOException {
+        final Path sourceFolder = this.folder.resolve("src");
+        for (int component = 0; component < this.componentCount; component++) {
+            final Path packageFolder = Files
+                    .createDirectories(sourceFolder.resolve(this.getPackageName(component).replace('.', '/')));
+            this.write(packageFolder, this.getApiName(component), this.createApi(component));
+            this.write(packageFolder, this.getServiceName(component), this.createService(component));
+            for (int part = 0; part < this.classesPerComponent - 1; part++) {
+                this.write(packageFolder, this.getPartName(component, part), this.createPart(component, part));
+            }
+        }
+    }
+
+    private void write(final Path packageFolder, final String className, final String source) throws IOException {
+        Files.write(packageFolder.resolve(className + ".java"), source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Root extract() {
+        final JaMoPPSoftwareModelExtractor extractor = new JaMoPPSoftwareModelExtractor();
+        final List<File> sourceFolders = new ArrayList<File>();
+        sourceFolders.add(this.folder.resolve("src").toFile());
+        extractor.extractSoftwareModelFromFolders(sourceFolders, new NullProgressMonitor(), null, false);
+        final KDMReader reader = new KDMReader();
+        reader.addModelsToRoot(extractor.getSourceResources());
+        final Root root = reader.getRoot();
+
+        for (final CompilationUnit compilationUnit : root.getCompilationUnits()) {
+            for (final ConcreteClassifier classifier : compilationUnit.getClassifiers()) {
+                this.classifiers.put(classifier.getName(), classifier);
+            }
+        }
+        final int expectedClassifiers = this.componentCount * (this.classesPerComponent + 1);
+        if (this.classifiers.size() != expectedClassifiers) {
+            throw new IllegalStateException(
+                    "Extracted " + this.classifiers.size() + " classifiers instead of " + expectedClassifiers);
+        }
+        return root;
+    }
+
+    /**
+     * Creates one candidate per class. The candidates and their PCM components are contained in
+     * resources, as the candidates of the clustering are.
+     */
+    private List<ComponentImplementingClassesLink> createInitialComponentCandidates() {
+        final ResourceSet resourceSet = new ResourceSetImpl();
+        final Resource repositoryResource = resourceSet
+                .createResource(URI.createFileURI(this.folder.resolve("candidates.repository").toString()));
+        final Resource decoratorResource = resourceSet
+                .createResource(URI.createFileURI(this.folder.resolve("candidates.sourcecodedecorator").toString()));
+        final Repository repository = RepositoryFactory.eINSTANCE.createRepository();
+        final SourceCodeDecoratorRepository decorator = SourcecodedecoratorFactory.eINSTANCE
+                .createSourceCodeDecoratorRepository();
+        repositoryResource.getContents().add(repository);
+        decoratorResource.getContents().add(decorator);
+
+        final List<ComponentImplementingClassesLink> candidates = new ArrayList<ComponentImplementingClassesLink>();
+        for (int component = 0; component < this.componentCount; component++) {
+            final ConcreteClassifier api = this.classifiers.get(this.getApiName(component));
+            final OperationInterface pcmInterface = RepositoryFactory.eINSTANCE.createOperationInterface();
+            pcmInterface.setEntityName(api.getName());
+            repository.getInterfaces__Repository().add(pcmInterface);
+            final InterfaceSourceCodeLink interfaceLink = SourcecodedecoratorFactory.eINSTANCE
+                    .createInterfaceSourceCodeLink();
+            interfaceLink.setInterface(pcmInterface);
+            interfaceLink.setGastClass(api);
+            decorator.getInterfaceSourceCodeLink().add(interfaceLink);
+
+            boolean service = true;
+            for (final ConcreteClassifier clazz : this.getImplementingClasses(component)) {
+                final BasicComponent basicComponent = RepositoryFactory.eINSTANCE.createBasicComponent();
+                basicComponent.setEntityName(clazz.getName());
+                repository.getComponents__Repository().add(basicComponent);
+                final ComponentImplementingClassesLink candidate = SourcecodedecoratorFactory.eINSTANCE
+                        .createComponentImplementingClassesLink();
+                candidate.setComponent(basicComponent);
+                candidate.getImplementingClasses().add(clazz);
+                if (service) {
+                    candidate.getProvidedInterfaces().add(interfaceLink);
+                    service = false;
+                }
+                decorator.getComponentImplementingClassesLink().add(candidate);
+                this.componentToImplementingClassesHelper.attachImplementingClasses(candidate);
+                candidates.add(candidate);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * @return The service and the parts of the component, in this order
+     */
+    private List<ConcreteClassifier> getImplementingClasses(final int component) {
+        final List<ConcreteClassifier> classes = new ArrayList<ConcreteClassifier>();
+        classes.add(this.classifiers.get(this.getServiceName(component)));
+        for (int part = 0; part < this.classesPerComponent - 1; part++) {
+            classes.add(this.classifiers.get(this.getPartName(component, part)));
+        }
+        return classes;
+    }
+
+    private String createApi(final int component) {
+        final StringBuilder source = new StringBuilder();
+        source.append("package ").append(this.getPackageName(component)).append(";\n\n");
+        source.append("public interface ").append(this.getApiName(component)).append(" {\n");
+        for (int operation = 0; operation < OPERATIONS; operation++) {
+            source.append("    void op").append(operation).append("(int value);\n");
+        }
+        source.append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * Each operation branches into a part, loops over a required API and calls an internal helper.
+     */
+    private String createService(final int component) {
+        final int[] required = this.requiredComponents[component];
+        final int parts = this.classesPerComponent - 1;
+        final StringBuilder source = new StringBuilder();
+        source.append("package ").append(this.getPackageName(component)).append(";\n\n");
+        source.append("public class ").append(this.getServiceName(component)).append(" implements ")
+                .append(this.getApiName(component)).append(" {\n");
+        for (int i = 0; i < required.length; i++) {
+            source.append("    private ").append(this.getQualifiedName(required[i], this.getApiName(required[i])))
+                    .append(" required").append(i).append(";\n");
+        }
+        for (int part = 0; part < parts; part++) {
+            final String partName = this.getPartName(component, part);
+            source.append("    private ").append(partName).append(" part").append(part).append(" = new ")
+                    .append(partName).append("();\n");
+        }
+        source.append("\n");
+        for (int operation = 0; operation < OPERATIONS; operation++) {
+            source.append("    public void op").append(operation).append("(int value) {\n");
+            source.append("        int local = value * ").append(operation + 1).append(";\n");
+            source.append("        if (local > ").append(component).append(") {\n");
+            if (parts > 0) {
+                source.append("            local = part").append(operation % parts).append(".run(local);\n");
+            } else {
+                source.append("            local = local / 2;\n");
+            }
+            source.append("        } else {\n");
+            source.append("            local--;\n");
+            source.append("        }\n");
+            source.append("        for (int i = 0; i < local; i++) {\n");
+            source.append("            required").append(operation % required.length).append(".op")
+                    .append((operation + 1) % OPERATIONS).append("(i);\n");
+            source.append("        }\n");
+            source.append("        helper").append(operation % 2).append("(local);\n");
+            source.append("    }\n\n");
+        }
+        for (int helper = 0; helper < 2; helper++) {
+            source.append("    private void helper").append(helper).append("(int value) {\n");
+            source.append("        while (value > ").append(helper).append(") {\n");
+            source.append("            value--;\n");
+            source.append("        }\n");
+            source.append("        required").append(helper % required.length).append(".op").append(helper)
+                    .append("(value);\n");
+            source.append("    }\n\n");
+        }
+        source.append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * Each part calls the next part of its component; some parts call a required API as well.
+     */
+    private String createPart(final int component, final int part) {
+        final int requiredCall = this.partCalls[component][part];
+        final boolean hasNext = part + 1 < this.classesPerComponent - 1;
+        final StringBuilder source = new StringBuilder();
+        source.append("package ").append(this.getPackageName(component)).append(";\n\n");
+        source.append("public class ").append(this.getPartName(component, part)).append(" {\n");
+        if (hasNext) {
+            final String nextName = this.getPartName(component, part + 1);
+            source.append("    private ").append(nextName).append(" next = new ").append(nextName).append("();\n");
+        }
+        if (requiredCall >= 0) {
+            final int requiredComponent = this.requiredComponents[component][requiredCall];
+            source.append("    private ")
+                    .append(this.getQualifiedName(requiredComponent, this.getApiName(requiredComponent)))
+                    .append(" required;\n");
+        }
+        source.append("\n");
+        source.append("    public int run(int value) {\n");
+        source.append("        int result = value;\n");
+        source.append("        for (int i = 0; i < value; i++) {\n");
+        source.append("            result += i % ").append(part + 2).append(";\n");
+        source.append("        }\n");
+        if (hasNext) {
+            source.append("        if (result > ").append(part).append(") {\n");
+            source.append("            result = next.run(result - 1);\n");
+            source.append("        }\n");
+        }
+        if (requiredCall >= 0) {
+            source.append("        required.op").append(part % OPERATIONS).append("(result);\n");
+        }
+        source.append("        return result;\n");
+        source.append("    }\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private String getComponentName(final int component) {
+        final String stem = NAMES[component % NAMES.length];
+        final int round = component / NAMES.length;
+        return round == 0 ? stem : stem + round;
+    }
+
+    private String getPackageName(final int component) {
+        return "synthetic.subsystem" + component / COMPONENTS_PER_SUBSYSTEM + "."
+                + this.getComponentName(component).toLowerCase(Locale.ROOT);
+    }
+
+    private String getQualifiedName(final int component, final String className) {
+        return this.getPackageName(component) + "." + className;
+    }
+
+    private String getApiName(final int component) {
+        return this.getComponentName(component) + "Api";
+    }
+
+    private String getServiceName(final int component) {
+        return this.getComponentName(component) + "Service";
+    }
+
+    private String getPartName(final int component, final int part) {
+        return this.getComponentName(component) + "Part" + part;
+    }
+
+    private static Method findMethod(final ConcreteClassifier classifier, final String name) {
+        for (final Method method : classifier.getMethods()) {
+            if (name.equals(method.getName())) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("No method " + name + " in " + classifier.getName());
+    }
+
+    /**
+     * Registers the XMI resource factory and the PCM path map, which the Eclipse runtime registers
+     * from the plug-in manifests. Does nothing for entries which are registered already.
+     */
+    private static synchronized void initializeStandalone() {
+        final Map<String, Object> factories = Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap();
+        if (!factories.containsKey(Resource.Factory.Registry.DEFAULT_EXTENSION)) {
+            factories.put(Resource.Factory.Registry.DEFAULT_EXTENSION, new XMIResourceFactoryImpl());
+        }
+        final URI pathmap = URI.createURI(PCM_MODELS_PATHMAP);
+        if (!URIConverter.URI_MAP.containsKey(pathmap)) {
+            final URL resourceTypes = SyntheticModel.class.getClassLoader().getResource(PCM_RESOURCE_TYPES);
+            if (resourceTypes != null) {
+                URIConverter.URI_MAP.put(pathmap, URI.createURI(resourceTypes.toString()).trimSegments(1)
+                        .appendSegment(""));
+            }
+        }
+    }
+}
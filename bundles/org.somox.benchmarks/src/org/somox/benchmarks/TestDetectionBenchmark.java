@@ -0,0 +1,149 @@
+package org.somox.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.emftext.language.java.containers.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.somox.filter.tests.JaMoPPAnnotationTestDetector;
+import org.somox.filter.tests.TestFileFilter;
+import org.somox.kdmhelper.KDMReader;
+import org.somox.kdmhelper.metamodeladdition.Root;
+import org.splevo.jamopp.extraction.JaMoPPSoftwareModelExtractor;
+
+/**
+ * Detects the test files among a number of generated files: JUnit 4, JUnit 5 and TestNG tests,
+ * tests inheriting their test methods, and production classes with chains of super classes. The
+ * sources are parsed by JaMoPP once per trial.
+ */
+@State(Scope.Benchmark)
+public class TestDetectionBenchmark {
+
+    private static final int PACKAGE_SIZE = 100;
+
+    @Param("10000")
+    public int files;
+
+    @Param("1")
+    public long seed;
+
+    private Path folder;
+
+    private List<CompilationUnit> compilationUnits;
+
+    private List<ConcreteClassifier> classifiers;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.folder = Files.createTempDirectory("somox-benchmark-tests");
+        final Path sourceFolder = this.folder.resolve("src");
+        write(sourceFolder, "org.junit", "Test", "public @interface Test {\n}\n");
+        write(sourceFolder, "org.junit", "Before", "public @interface Before {\n}\n");
+        write(sourceFolder, "org.junit.jupiter.api", "Test", "public @interface Test {\n}\n");
+        write(sourceFolder, "org.testng.annotations", "Test", "public @interface Test {\n}\n");
+
+        final Random random = new Random(this.seed);
+        for (int file = 0; file < this.files; file++) {
+            final String packageName = "synthetic.tests.p" + file / PACKAGE_SIZE;
+            final String name = "Type" + file;
+            final String body;
+            switch (file % 10) {
+            case 0:
+                body = "public class " + name + " {\n    @org.junit.Before\n    public void setUp() {\n    }\n\n"
+                        + "    @org.junit.Test\n    public void test() {\n    }\n}\n";
+                break;
+            case 1:
+                body = "public class " + name + " {\n    @org.junit.jupiter.api.Test\n    void test() {\n    }\n}\n";
+                break;
+            case 2:
+                body = "@org.testng.annotations.Test\npublic class " + name + " {\n}\n";
+                break;
+            case 3:
+                // inherits the test methods of a test above
+                body = "public class " + name + " extends " + this.getQualifiedName(file - 3) + " {\n}\n";
+                break;
+            default:
+                // production class extending an earlier production class, if any
+                final int superFile = file - 10 + random.nextInt(6);
+                final String superClass = superFile >= 0 && superFile % 10 >= 4
+                        ? " extends " + this.getQualifiedName(superFile)
+                        : "";
+                body = "public class " + name + superClass + " {\n    public int compute(int value) {\n"
+                        + "        return value + " + file + ";\n    }\n}\n";
+                break;
+            }
+            write(sourceFolder, packageName, name, body);
+        }
+
+        final JaMoPPSoftwareModelExtractor extractor = new JaMoPPSoftwareModelExtractor();
+        final List<File> sourceFolders = new ArrayList<File>();
+        sourceFolders.add(sourceFolder.toFile());
+        extractor.extractSoftwareModelFromFolders(sourceFolders, new NullProgressMonitor(), null, false);
+        final KDMReader reader = new KDMReader();
+        reader.addModelsToRoot(extractor.getSourceResources());
+        final Root root = reader.getRoot();
+        this.compilationUnits = root.getCompilationUnits();
+        this.classifiers = new ArrayList<ConcreteClassifier>();
+        for (final CompilationUnit compilationUnit : this.compilationUnits) {
+            this.classifiers.addAll(compilationUnit.getClassifiers());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.folder)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public int detectTests() {
+        final JaMoPPAnnotationTestDetector detector = new JaMoPPAnnotationTestDetector();
+        int tests = 0;
+        for (final CompilationUnit compilationUnit : this.compilationUnits) {
+            if (detector.isTest(compilationUnit)) {
+                tests++;
+            }
+        }
+        return tests;
+    }
+
+    @Benchmark
+    public int filterClassifiers() {
+        final TestFileFilter filter = new TestFileFilter();
+        int passed = 0;
+        for (final ConcreteClassifier classifier : this.classifiers) {
+            if (filter.passes(classifier)) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    private String getQualifiedName(final int file) {
+        return "synthetic.tests.p" + file / PACKAGE_SIZE + ".Type" + file;
+    }
+
+    private static void write(final Path sourceFolder, final String packageName, final String className,
+            final String body) throws IOException {
+        final Path packageFolder = Files.createDirectories(sourceFolder.resolve(packageName.replace('.', '/')));
+        Files.write(packageFolder.resolve(className + ".java"),
+                ("package " + packageName + ";\n\n" + body).getBytes(StandardCharsets.UTF_8));
+    }
+}
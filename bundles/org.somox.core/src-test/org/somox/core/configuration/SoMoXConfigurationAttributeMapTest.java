@@ -1,5 +1,6 @@
 package org.somox.core.configuration;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
 import java.io.ByteArrayOutputStream;
@@ -21,6 +22,7 @@ import org.hamcrest.Description;
 import org.hamcrest.Matcher;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
 import org.junit.Test;
+import org.somox.configuration.ClusteringConfiguration;
 import org.somox.configuration.SoMoXConfiguration;
 
 /**
@@ -61,6 +63,19 @@ public class SoMoXConfigurationAttributeMapTest {
                 behavesLike(defaultConfiguration));
     }
 
+    /**
+     * Asserts that the default metric computation parallelism is not stored as the number of
+     * processors of the machine saving the configuration.
+     */
+    @Test
+    public void testDefaultParallelismIsNotPinned() {
+        SoMoXConfiguration defaultConfiguration = new SoMoXConfiguration();
+        assertEquals(ClusteringConfiguration.ALL_PROCESSORS, defaultConfiguration.toMap()
+                .get(SoMoXConfiguration.SOMOX_CLUSTERING_METRIC_COMPUTATION_PARALLELISM));
+        assertEquals(Runtime.getRuntime().availableProcessors(),
+                defaultConfiguration.getClusteringConfig().getEffectiveMetricComputationParallelism());
+    }
+
     /**
      * Asserts that setting values through setters or through an attribute map has the same effect
      * for various combinations of attributes.
@@ -223,11 +238,18 @@ public class SoMoXConfigurationAttributeMapTest {
         Supplier<Object> double1Supplier = () -> {
             return Math.random();
         };
+        Supplier<Object> positiveIntegerSupplier = () -> {
+            return (int) (Math.random() * 64) + 1;
+        };
         valueSuppliers.put(SoMoXConfiguration.BLACKLIST_CONFIGURATION_WILDCARDS_ADDITIONAL, stringSupplier);
         valueSuppliers.put(SoMoXConfiguration.SOMOX_ANALYZER_INPUT_FILE, stringSupplier);
         valueSuppliers.put(SoMoXConfiguration.SOMOX_ANALYZER_REVERSE_ENGINEER_INTERFACES_NOT_ASSIGNED_TO_INTERFACES,
                 booleanSupplier);
         valueSuppliers.put(SoMoXConfiguration.SOMOX_ANALYZER_WILDCARD_KEY, stringSupplier);
+        valueSuppliers.put(SoMoXConfiguration.SOMOX_CLUSTERING_CANDIDATE_PAIR_PRUNING, booleanSupplier);
+        valueSuppliers.put(SoMoXConfiguration.SOMOX_CLUSTERING_FORK_JOIN_METRIC_COMPUTATION, booleanSupplier);
+        valueSuppliers.put(SoMoXConfiguration.SOMOX_CLUSTERING_METRIC_COMPUTATION_PARALLELISM,
+                positiveIntegerSupplier);
         valueSuppliers.put(SoMoXConfiguration.SOMOX_EXCLUDED_PREFIXES, stringSupplier);
         valueSuppliers.put(SoMoXConfiguration.SOMOX_EXCLUDED_SUFFIXES, stringSupplier);
         valueSuppliers.put(SoMoXConfiguration.SOMOX_OUTPUT_FOLDER, stringSupplier);
@@ -275,6 +297,18 @@ public class SoMoXConfigurationAttributeMapTest {
         keysToSetters.put(SoMoXConfiguration.SOMOX_ANALYZER_WILDCARD_KEY, (SoMoXConfiguration c, Object s) -> {
             c.setWildcardKey((String) s);
         });
+        keysToSetters.put(SoMoXConfiguration.SOMOX_CLUSTERING_CANDIDATE_PAIR_PRUNING,
+                (SoMoXConfiguration c, Object b) -> {
+                    c.getClusteringConfig().setCandidatePairPruning((Boolean) b);
+                });
+        keysToSetters.put(SoMoXConfiguration.SOMOX_CLUSTERING_FORK_JOIN_METRIC_COMPUTATION,
+                (SoMoXConfiguration c, Object b) -> {
+                    c.getClusteringConfig().setForkJoinMetricComputation((Boolean) b);
+                });
+        keysToSetters.put(SoMoXConfiguration.SOMOX_CLUSTERING_METRIC_COMPUTATION_PARALLELISM,
+                (SoMoXConfiguration c, Object i) -> {
+                    c.getClusteringConfig().setMetricComputationParallelism((Integer) i);
+                });
         keysToSetters.put(SoMoXConfiguration.SOMOX_EXCLUDED_PREFIXES, (SoMoXConfiguration c, Object s) -> {
             c.setExcludedPrefixesForNameResemblance((String) s);
         });
@@ -2,6 +2,11 @@ package org.somox.configuration;
 
 public class ClusteringConfiguration {
 
+    /**
+     * Metric computation parallelism using one thread per processor available to the analysis
+     */
+    public static final int ALL_PROCESSORS = 0;
+
     private double minComposeClusteringThreshold = .25;
     private double clusteringComposeThresholdDecrement = .1;
     private double maxComposeClusteringThreshold = 1;
@@ -10,6 +15,10 @@ public class ClusteringConfiguration {
     private double clusteringMergeThresholdDecrement = .1;
     private double maxMergeClusteringThreshold = 1;
 
+    private int metricComputationParallelism = ALL_PROCESSORS;
+    private boolean forkJoinMetricComputation = true;
+    private boolean candidatePairPruning = false;
+
     // COMPOSE
     public double getMaxComposeClusteringThreshold() {
         return maxComposeClusteringThreshold;
@@ -65,4 +74,51 @@ public class ClusteringConfiguration {
         this.maxMergeClusteringThreshold = maxMergeClusteringThreshold;
     }
 
+    // METRIC COMPUTATION
+    /**
+     * @return The configured number of threads computing the pairwise metrics of the component
+     *         candidates, {@link #ALL_PROCESSORS} to use one thread per available processor
+     */
+    public int getMetricComputationParallelism() {
+        return metricComputationParallelism;
+    }
+
+    /**
+     * @return The number of threads computing the pairwise metrics of the component candidates on
+     *         this machine
+     */
+    public int getEffectiveMetricComputationParallelism() {
+        return metricComputationParallelism == ALL_PROCESSORS ? Runtime.getRuntime().availableProcessors()
+                : metricComputationParallelism;
+    }
+
+    public void setMetricComputationParallelism(final int metricComputationParallelism) {
+        this.metricComputationParallelism = metricComputationParallelism;
+    }
+
+    /**
+     * @return true if the pairwise metrics are computed by a work-stealing fork/join scheduler,
+     *         false if a fixed thread pool executing one task per pair is used
+     */
+    public boolean isForkJoinMetricComputation() {
+        return forkJoinMetricComputation;
+    }
+
+    public void setForkJoinMetricComputation(final boolean forkJoinMetricComputation) {
+        this.forkJoinMetricComputation = forkJoinMetricComputation;
+    }
+
+    /**
+     * @return true if pairs of component candidates which cannot reach a merge or compose
+     *         threshold are skipped, false if the metrics of all pairs are computed. Off by
+     *         default, as skipped pairs are missing in the metric values model.
+     */
+    public boolean isCandidatePairPruning() {
+        return candidatePairPruning;
+    }
+
+    public void setCandidatePairPruning(final boolean candidatePairPruning) {
+        this.candidatePairPruning = candidatePairPruning;
+    }
+
 }
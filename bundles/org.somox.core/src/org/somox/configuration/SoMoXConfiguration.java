@@ -9,6 +9,7 @@ import org.emftext.language.java.classifiers.ConcreteClassifier;
 import org.somox.filter.BaseFilter;
 import org.somox.filter.BlacklistFilter;
 import org.somox.filter.ComposedFilter;
+import org.somox.filter.PrecomputedFilter;
 import org.somox.filter.tests.TestFileFilter;
 
 /**
@@ -79,6 +80,24 @@ public class SoMoXConfiguration extends AbstractMoxConfiguration {
      * {@link #getClusteringConfig()}. {@code setMinMergeClusteringThreshold(double)}
      */
     public static final String SOMOX_WEIGHT_CLUSTERING_THRESHOLD_MIN_MERGE = "org.somox.clusteringThresholdMin.Merge";
+    /**
+     * attribute key for {@link #getClusteringConfig()}.
+     * {@code getMetricComputationParallelism()} / {@link #getClusteringConfig()}.
+     * {@code setMetricComputationParallelism(int)}. Stored as
+     * {@link ClusteringConfiguration#ALL_PROCESSORS} unless set explicitly, so a launch
+     * configuration uses the processors of the machine running it.
+     */
+    public static final String SOMOX_CLUSTERING_METRIC_COMPUTATION_PARALLELISM = "org.somox.clustering.metricComputationParallelism";
+    /**
+     * attribute key for {@link #getClusteringConfig()}. {@code isForkJoinMetricComputation()} /
+     * {@link #getClusteringConfig()}. {@code setForkJoinMetricComputation(boolean)}
+     */
+    public static final String SOMOX_CLUSTERING_FORK_JOIN_METRIC_COMPUTATION = "org.somox.clustering.forkJoinMetricComputation";
+    /**
+     * attribute key for {@link #getClusteringConfig()}. {@code isCandidatePairPruning()} /
+     * {@link #getClusteringConfig()}. {@code setCandidatePairPruning(boolean)}
+     */
+    public static final String SOMOX_CLUSTERING_CANDIDATE_PAIR_PRUNING = "org.somox.clustering.candidatePairPruning";
     /**
      * attribute key for {@link #getWeightDirectoryMapping()} /
      * {@link #setWeightDirectoryMapping(double)}
@@ -144,7 +163,8 @@ public class SoMoXConfiguration extends AbstractMoxConfiguration {
     private String additionalWildcards = "";
 
     private final BlacklistFilter blacklistFilter = new BlacklistFilter();
-    private ComposedFilter<ConcreteClassifier> classifierFilter = new ComposedFilter<>(new TestFileFilter(), blacklistFilter);
+    private final ComposedFilter<ConcreteClassifier> composedClassifierFilter = new ComposedFilter<>(new TestFileFilter(), blacklistFilter);
+    private BaseFilter<ConcreteClassifier> classifierFilter = composedClassifierFilter;
 
     private final ClusteringConfiguration clusteringConfig = new ClusteringConfiguration();
     private String excludedPrefixesForNameResemblance = "";
@@ -306,6 +326,21 @@ public class SoMoXConfiguration extends AbstractMoxConfiguration {
             clusteringConfiguration.setClusteringMergeThresholdDecrement(
                     (Double) attributeMap.get(SoMoXConfiguration.SOMOX_WEIGHT_CLUSTERING_THRESHOLD_DECREMENT_MERGE));
         }
+
+        if (attributeMap.get(SoMoXConfiguration.SOMOX_CLUSTERING_METRIC_COMPUTATION_PARALLELISM) != null) {
+            clusteringConfiguration.setMetricComputationParallelism(
+                    (Integer) attributeMap.get(SoMoXConfiguration.SOMOX_CLUSTERING_METRIC_COMPUTATION_PARALLELISM));
+        }
+
+        if (attributeMap.get(SoMoXConfiguration.SOMOX_CLUSTERING_FORK_JOIN_METRIC_COMPUTATION) != null) {
+            clusteringConfiguration.setForkJoinMetricComputation(
+                    (Boolean) attributeMap.get(SoMoXConfiguration.SOMOX_CLUSTERING_FORK_JOIN_METRIC_COMPUTATION));
+        }
+
+        if (attributeMap.get(SoMoXConfiguration.SOMOX_CLUSTERING_CANDIDATE_PAIR_PRUNING) != null) {
+            clusteringConfiguration.setCandidatePairPruning(
+                    (Boolean) attributeMap.get(SoMoXConfiguration.SOMOX_CLUSTERING_CANDIDATE_PAIR_PRUNING));
+        }
     }
 
     public String getAdditionalWildcards() {
@@ -337,6 +372,18 @@ public class SoMoXConfiguration extends AbstractMoxConfiguration {
         return this.classifierFilter;
     }
 
+    /**
+     * Decides the classifier filter once for each of the {@code classifiers}, so that
+     * {@link #getClassifierFilter()} answers for them by lookup. Changing the blacklist afterwards
+     * discards the precomputed verdicts.
+     *
+     * @param classifiers
+     *            The classifiers of the analysed model.
+     */
+    public void precomputeClassifierFilter(final Iterable<? extends ConcreteClassifier> classifiers) {
+        this.classifierFilter = new PrecomputedFilter<>(this.composedClassifierFilter, classifiers);
+    }
+
     /**
      * @return the clusteringConfig
      */
@@ -527,6 +574,12 @@ public class SoMoXConfiguration extends AbstractMoxConfiguration {
                 clusteringConfiguration.getMinMergeClusteringThreshold());
         result.put(SoMoXConfiguration.SOMOX_WEIGHT_CLUSTERING_THRESHOLD_DECREMENT_MERGE,
                 clusteringConfiguration.getClusteringMergeThresholdDecrement());
+        result.put(SoMoXConfiguration.SOMOX_CLUSTERING_METRIC_COMPUTATION_PARALLELISM,
+                clusteringConfiguration.getMetricComputationParallelism());
+        result.put(SoMoXConfiguration.SOMOX_CLUSTERING_FORK_JOIN_METRIC_COMPUTATION,
+                clusteringConfiguration.isForkJoinMetricComputation());
+        result.put(SoMoXConfiguration.SOMOX_CLUSTERING_CANDIDATE_PAIR_PRUNING,
+                clusteringConfiguration.isCandidatePairPruning());
 
         return result;
     }
@@ -537,6 +590,7 @@ public class SoMoXConfiguration extends AbstractMoxConfiguration {
             wildCardList.add(this.additionalWildcards);
         }
         this.blacklistFilter.setBlacklist(wildCardList);
+        this.classifierFilter = this.composedClassifierFilter;
     }
 
 }
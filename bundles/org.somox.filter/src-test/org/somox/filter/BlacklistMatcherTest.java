@@ -0,0 +1,123 @@
+package org.somox.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Compares the decisions of {@link BlacklistMatcher} with the pattern {@link BlacklistFilter} used
+ * to compile from the blacklist.
+ */
+public class BlacklistMatcherTest {
+
+    private static final String[] SEGMENTS = { "org", "com", "java", "javax", "util", "Util", "x", "eclipse",
+            "somox", "Filter", "impl", "a", "ab", "" };
+
+    private static final String[] NAMES = { "", "org", "org.somox", "ORG.SOMOX.filter", "org.somox.filter.Impl",
+            "orgXsomox", "org.somox.", "java", "java.util", "javax.swing", "javaxswing", "java.util.Map",
+            "java.util.Map$Entry", "default.Foo", "\u00C4rger.Stra\u00DFe", "\u00E4rger.Stra\u00DFe",
+            "org.somox\n.filter", "org.somox\u2028filter", "org.\uD801\uDC00.x", "a.b", "a\u0085b" };
+
+    @Test
+    public void testLiteralAndPrefixEntries() {
+        final Set<String> blacklist = new HashSet<>(
+                Arrays.asList("org.somox.*", "java.*", "com.example.Foo", "a\\.b", "\u00C4rger.Stra\u00DFe"));
+        final BlacklistMatcher matcher = BlacklistMatcher.compile(blacklist);
+        assertEquals(blacklist.size(), matcher.getTrieEntries());
+        assertNull(matcher.getResidualPattern());
+        assertMatchesAsPattern(blacklist, NAMES);
+        assertMatchesAsPattern(blacklist, "COM.EXAMPLE.FOO", "com-example-foo", "com.example.Foo.Bar", "aXb");
+    }
+
+    @Test
+    public void testResidualEntries() {
+        final Set<String> blacklist = new LinkedHashSet<>(Arrays.asList("org.somox.*", ".*Test", "java\\.util\\..*",
+                "(org|com)\\.example", "a.b|c.d", "Outer$Inner", "[jJ]ava.*"));
+        final BlacklistMatcher matcher = BlacklistMatcher.compile(blacklist);
+        assertEquals(2, matcher.getTrieEntries());
+        assertNotNull(matcher.getResidualPattern());
+        assertMatchesAsPattern(blacklist, NAMES);
+        assertMatchesAsPattern(blacklist, "org.example", "com.example", "net.example", "FooTest", "cxd", "Java7");
+    }
+
+    @Test
+    public void testEmptyAndDefaultBlacklist() {
+        assertMatchesAsPattern(Collections.<String>emptySet(), NAMES);
+        assertMatchesAsPattern(Collections.singleton(".*"), NAMES);
+        assertMatchesAsPattern(Collections.singleton(""), NAMES);
+        assertMatchesAsPattern(new HashSet<>(Arrays.asList("", "org")), NAMES);
+    }
+
+    @Test
+    public void testRandomBlacklists() {
+        final Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            final Set<String> blacklist = new LinkedHashSet<>();
+            final int entries = random.nextInt(50);
+            for (int i = 0; i < entries; i++) {
+                blacklist.add(randomEntry(random));
+            }
+            final List<String> names = new ArrayList<>(Arrays.asList(NAMES));
+            for (int i = 0; i < 200; i++) {
+                names.add(randomName(random));
+            }
+            assertMatchesAsPattern(blacklist, names.toArray(new String[names.size()]));
+        }
+    }
+
+    private static String randomEntry(final Random random) {
+        final StringBuilder entry = new StringBuilder(randomName(random));
+        switch (random.nextInt(6)) {
+        case 0:
+            entry.append(".*");
+            break;
+        case 1:
+            entry.append("\\..*");
+            break;
+        case 2:
+            entry.insert(0, ".*");
+            break;
+        case 3:
+            return entry.toString().replace(".", "\\.");
+        default:
+            break;
+        }
+        return entry.toString();
+    }
+
+    private static String randomName(final Random random) {
+        final StringBuilder name = new StringBuilder();
+        final int segments = random.nextInt(4);
+        for (int i = 0; i < segments; i++) {
+            if (i > 0) {
+                name.append(random.nextInt(10) == 0 ? "_" : ".");
+            }
+            name.append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+        }
+        return name.toString();
+    }
+
+    /**
+     * @param blacklist
+     *            The blacklist, compiled as by {@link BlacklistFilter} before.
+     */
+    private static void assertMatchesAsPattern(final Set<String> blacklist, final String... names) {
+        final Pattern pattern = Pattern.compile(String.join("|", blacklist), Pattern.CASE_INSENSITIVE);
+        final BlacklistMatcher matcher = BlacklistMatcher.compile(blacklist);
+        for (final String name : names) {
+            assertEquals(blacklist + " on " + name, pattern.matcher(name).matches(), matcher.matches(name));
+        }
+    }
+}
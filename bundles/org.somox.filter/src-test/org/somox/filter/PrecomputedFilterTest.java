@@ -0,0 +1,160 @@
+package org.somox.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.ecore.EObject;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.emftext.language.java.commons.Commentable;
+import org.emftext.language.java.members.ClassMethod;
+import org.emftext.language.java.members.Field;
+import org.emftext.language.java.members.InterfaceMethod;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.somox.filter.tests.TestFileFilter;
+import org.somox.kdmhelper.KDMHelper;
+import org.somox.kdmhelper.KDMReader;
+import org.somox.kdmhelper.metamodeladdition.Root;
+import org.splevo.jamopp.extraction.JaMoPPSoftwareModelExtractor;
+
+/**
+ * Compares the verdicts of a {@link PrecomputedFilter} of the classifier filter chain, with a
+ * {@link BlacklistFilter} matching by {@link BlacklistMatcher}, with the verdicts of the same chain
+ * matching the blacklist by a single pattern, as before.
+ */
+public class PrecomputedFilterTest {
+
+    private static final List<Set<String>> BLACKLISTS = Arrays.asList(Collections.<String>emptySet(),
+            new HashSet<>(Arrays.asList("com.vendor.*", "org.somox.app.Service")),
+            new HashSet<>(Arrays.asList("org.somox.*", ".*Test\\.java")),
+            new HashSet<>(Arrays.asList("org.somox.app", "org\\.somox\\.app\\..*", "(com|net)\\..*")),
+            Collections.singleton(".*"));
+
+    private Path sourceFolder;
+
+    private List<ConcreteClassifier> classifiers;
+
+    @Before
+    public void setUp() throws IOException {
+        this.sourceFolder = Files.createTempDirectory("somox-filter");
+        write("org.junit", "Test", "public @interface Test {\n}\n");
+        write("org.somox.app", "Service", "public class Service {\n    private final Object data = new Data();\n"
+                + "    public void serve() {\n        class Local {\n        }\n    }\n"
+                + "    static class Data {\n        private int value;\n"
+                + "        public int getValue() {\n            return this.value;\n        }\n    }\n}\n");
+        write("org.somox.app", "ServiceTest", "public class ServiceTest {\n"
+                + "    @org.junit.Test\n    public void test() {\n    }\n}\n");
+        write("org.somox.application", "Main", "public class Main {\n    public static void main(String[] args) {\n"
+                + "    }\n}\n");
+        write("org.somox.app.api", "Api", "public interface Api {\n    void call();\n}\n");
+        write("com.vendor.lib", "Library", "public enum Library {\n    INSTANCE;\n    public void use() {\n    }\n}\n");
+        write("net.other", "Other", "public class Other extends com.vendor.lib.Helper {\n}\n");
+        write("com.vendor.lib", "Helper", "public abstract class Helper {\n    public abstract void help();\n}\n");
+
+        final JaMoPPSoftwareModelExtractor extractor = new JaMoPPSoftwareModelExtractor();
+        final List<File> sourceFolders = new ArrayList<File>();
+        sourceFolders.add(this.sourceFolder.toFile());
+        extractor.extractSoftwareModelFromFolders(sourceFolders, new NullProgressMonitor(), null, false);
+        final KDMReader reader = new KDMReader();
+        reader.addModelsToRoot(extractor.getSourceResources());
+        final Root root = reader.getRoot();
+        this.classifiers = root.getConcreteClassifiers();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.sourceFolder)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDecidesAsFilterChain() {
+        assertEquals(10, this.classifiers.size());
+        for (final Set<String> blacklist : BLACKLISTS) {
+            final BaseFilter<ConcreteClassifier> expected = new ComposedFilter<ConcreteClassifier>(
+                    new TestFileFilter(), new PatternBlacklistFilter(blacklist),
+                    new NotFilter<ConcreteClassifier>(new NotFilter<ConcreteClassifier>(new DataObjectFilter())));
+            final PrecomputedFilter<ConcreteClassifier> actual = new PrecomputedFilter<ConcreteClassifier>(
+                    new ComposedFilter<ConcreteClassifier>(new TestFileFilter(), new BlacklistFilter(blacklist),
+                            new NotFilter<ConcreteClassifier>(
+                                    new NotFilter<ConcreteClassifier>(new DataObjectFilter()))),
+                    this.classifiers);
+            assertEquals(this.classifiers.size(), actual.size());
+            for (final ConcreteClassifier classifier : this.classifiers) {
+                assertEquals(blacklist + " on " + classifier.getName(), expected.passes(classifier),
+                        actual.passes(classifier));
+            }
+            final List<ConcreteClassifier> expectedClassifiers = new ArrayList<>();
+            expected.filter(this.classifiers).forEach(expectedClassifiers::add);
+            final List<ConcreteClassifier> actualClassifiers = new ArrayList<>();
+            actual.filter(this.classifiers).forEach(actualClassifiers::add);
+            assertEquals(expectedClassifiers, actualClassifiers);
+        }
+    }
+
+    @Test
+    public void testDecidesUnknownElementsByFilter() {
+        final List<Integer> evaluated = new ArrayList<>();
+        final BaseFilter<Integer> even = new BaseFilter<Integer>() {
+            @Override
+            public boolean passes(final Integer object) {
+                evaluated.add(object);
+                return object % 2 == 0;
+            }
+        };
+        final PrecomputedFilter<Integer> filter = new PrecomputedFilter<>(even, Arrays.asList(1, 2, 3, 4));
+        assertEquals(Arrays.asList(1, 2, 3, 4), evaluated);
+        assertEquals(false, filter.passes(1));
+        assertEquals(true, filter.passes(4));
+        assertEquals(Arrays.asList(1, 2, 3, 4), evaluated);
+        assertEquals(true, filter.passes(6));
+        assertEquals(Arrays.asList(1, 2, 3, 4, 6), evaluated);
+    }
+
+    private void write(final String packageName, final String className, final String body) throws IOException {
+        final Path packageFolder = Files.createDirectories(this.sourceFolder.resolve(packageName.replace('.', '/')));
+        Files.write(packageFolder.resolve(className + ".java"),
+                ("package " + packageName + ";\n\n" + body).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The {@link BlacklistFilter} as it matched the blacklist by a single pattern.
+     */
+    private static class PatternBlacklistFilter extends BaseFilter<ConcreteClassifier> {
+
+        private final Pattern matchPattern;
+
+        private PatternBlacklistFilter(final Set<String> blacklist) {
+            this.matchPattern = Pattern.compile(String.join("|", blacklist), Pattern.CASE_INSENSITIVE);
+        }
+
+        @Override
+        public boolean passes(final ConcreteClassifier object) {
+            EObject container = object.eContainer();
+            if (container instanceof ClassMethod || container instanceof Field
+                    || container instanceof InterfaceMethod) {
+                container = container.eContainer();
+            }
+            final String fqn = KDMHelper.computeFullQualifiedName((Commentable) container);
+            return !this.matchPattern.matcher(fqn).matches();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.somox.filter.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.emftext.language.java.containers.CompilationUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.somox.kdmhelper.KDMReader;
+import org.somox.kdmhelper.metamodeladdition.Root;
+import org.splevo.jamopp.extraction.JaMoPPSoftwareModelExtractor;
+
+/**
+ * Compares the decisions of {@link JaMoPPAnnotationTestDetector} with the decisions of
+ * {@link JUnitAnnotationTestDetector} for each file of a fixture with JUnit 4, JUnit 5 and TestNG
+ * tests, inherited and nested tests, and production code. The fixture is a Java project in the
+ * workspace, as the JDT based detector needs one.
+ */
+public class JaMoPPAnnotationTestDetectorTest {
+
+    private static final Set<String> EXPECTED_TESTS = new HashSet<>(Arrays.asList("JUnit4Test", "JUnit5Test",
+            "TestNgClassTest", "AbstractBaseTest", "InheritedTest", "DeeplyInheritedTest", "TestContract",
+            "ContractTest", "NestedTest"));
+
+    private static final String JRE_CONTAINER = "org.eclipse.jdt.launching.JRE_CONTAINER";
+
+    private IProject project;
+
+    private Root root;
+
+    @Before
+    public void setUp() throws CoreException, IOException {
+        this.project = ResourcesPlugin.getWorkspace().getRoot().getProject("somox-test-detection");
+        this.project.create(new NullProgressMonitor());
+        this.project.open(new NullProgressMonitor());
+        final IProjectDescription description = this.project.getDescription();
+        description.setNatureIds(new String[] { JavaCore.NATURE_ID });
+        this.project.setDescription(description, new NullProgressMonitor());
+        this.project.getFolder("src").create(true, true, new NullProgressMonitor());
+        final IJavaProject javaProject = JavaCore.create(this.project);
+        javaProject.setRawClasspath(
+                new IClasspathEntry[] { JavaCore.newSourceEntry(this.project.getFolder("src").getFullPath()),
+                        JavaCore.newContainerEntry(new org.eclipse.core.runtime.Path(JRE_CONTAINER)) },
+                new NullProgressMonitor());
+
+        final Path sourceFolder = this.project.getFolder("src").getLocation().toFile().toPath();
+        write(sourceFolder, "org.junit", "Test", "public @interface Test {\n}\n");
+        write(sourceFolder, "org.junit", "Before", "public @interface Before {\n}\n");
+        write(sourceFolder, "org.junit.jupiter.api", "Test", "public @interface Test {\n}\n");
+        write(sourceFolder, "org.junit.jupiter.api", "BeforeEach", "public @interface BeforeEach {\n}\n");
+        write(sourceFolder, "org.testng.annotations", "Test", "public @interface Test {\n}\n");
+
+        write(sourceFolder, "fixture", "ProductionService",
+                "public class ProductionService {\n    @Deprecated\n    public void serve() {\n    }\n}\n");
+        write(sourceFolder, "fixture", "ProductionSubclass",
+                "public class ProductionSubclass extends ProductionService implements Runnable {\n"
+                        + "    public void run() {\n    }\n}\n");
+        write(sourceFolder, "fixture", "JUnit4Test",
+                "import org.junit.Test;\n\npublic class JUnit4Test {\n    @Test\n    public void test() {\n    }\n}\n");
+        write(sourceFolder, "fixture", "JUnit5Test", "import org.junit.jupiter.api.BeforeEach;\n\n"
+                + "public class JUnit5Test {\n    @BeforeEach\n    void setUp() {\n    }\n}\n");
+        write(sourceFolder, "fixture", "TestNgClassTest", "@org.testng.annotations.Test\n"
+                + "public class TestNgClassTest {\n    public void test() {\n    }\n}\n");
+        write(sourceFolder, "fixture", "AbstractBaseTest", "import org.junit.Before;\n\n"
+                + "public abstract class AbstractBaseTest {\n    @Before\n    public void setUp() {\n    }\n}\n");
+        write(sourceFolder, "fixture", "InheritedTest", "public class InheritedTest extends AbstractBaseTest {\n}\n");
+        write(sourceFolder, "fixture", "DeeplyInheritedTest",
+                "public class DeeplyInheritedTest extends InheritedTest {\n}\n");
+        write(sourceFolder, "fixture", "TestContract", "public interface TestContract {\n"
+                + "    @org.junit.jupiter.api.Test\n    default void contract() {\n    }\n}\n");
+        write(sourceFolder, "fixture", "ContractTest",
+                "public class ContractTest extends ProductionService implements TestContract {\n}\n");
+        write(sourceFolder, "fixture", "NestedTest", "public class NestedTest {\n    static class Inner {\n"
+                + "        @org.junit.Test\n        public void test() {\n        }\n    }\n}\n");
+        write(sourceFolder, "fixture", "AnonymousTest", "public class AnonymousTest {\n"
+                + "    private final Object anonymous = new Object() {\n"
+                + "        @org.junit.Test\n        public void test() {\n        }\n    };\n}\n");
+        write(sourceFolder, "fixture", "CyclicA",
+                "public class CyclicA {\n    static class Inner extends CyclicB {\n    }\n}\n");
+        write(sourceFolder, "fixture", "CyclicB",
+                "public class CyclicB {\n    static class Inner extends CyclicA {\n    }\n}\n");
+        this.project.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
+
+        final JaMoPPSoftwareModelExtractor extractor = new JaMoPPSoftwareModelExtractor();
+        final List<File> sourceFolders = new ArrayList<File>();
+        sourceFolders.add(sourceFolder.toFile());
+        extractor.extractSoftwareModelFromFolders(sourceFolders, new NullProgressMonitor(), null, false);
+        final KDMReader reader = new KDMReader();
+        reader.addModelsToRoot(extractor.getSourceResources());
+        this.root = reader.getRoot();
+    }
+
+    @After
+    public void tearDown() throws CoreException {
+        this.project.delete(true, true, new NullProgressMonitor());
+    }
+
+    @Test
+    public void testDecidesAsJdtBasedDetector() throws IOException {
+        final JaMoPPAnnotationTestDetector detector = new JaMoPPAnnotationTestDetector();
+        final JUnitAnnotationTestDetector jdtDetector = new JUnitAnnotationTestDetector();
+        int compilationUnits = 0;
+        for (final CompilationUnit compilationUnit : this.root.getCompilationUnits()) {
+            final Path path = Paths.get(compilationUnit.eResource().getURI().toFileString());
+            final String name = path.getFileName().toString().replace(".java", "");
+            final boolean isTest = detector.isTest(compilationUnit);
+            assertEquals(name, jdtDetector.isTest(path).orElse(false), isTest);
+            assertEquals(name, EXPECTED_TESTS.contains(name), isTest);
+            // cached per resource
+            assertEquals(name, isTest, detector.isTest(compilationUnit));
+            compilationUnits++;
+        }
+        assertEquals(19, compilationUnits);
+    }
+
+    @Test
+    public void testDecisionDoesNotDependOnOrder() {
+        final JaMoPPAnnotationTestDetector forward = new JaMoPPAnnotationTestDetector();
+        final JaMoPPAnnotationTestDetector backward = new JaMoPPAnnotationTestDetector();
+        final List<CompilationUnit> compilationUnits = this.root.getCompilationUnits();
+        final boolean[] forwardResults = new boolean[compilationUnits.size()];
+        for (int i = 0; i < compilationUnits.size(); i++) {
+            forwardResults[i] = forward.isTest(compilationUnits.get(i));
+        }
+        for (int i = compilationUnits.size() - 1; i >= 0; i--) {
+            assertEquals(forwardResults[i], backward.isTest(compilationUnits.get(i)));
+        }
+    }
+
+    private static void write(final Path sourceFolder, final String packageName, final String className,
+            final String body) throws IOException {
+        final Path packageFolder = Files.createDirectories(sourceFolder.resolve(packageName.replace('.', '/')));
+        Files.write(packageFolder.resolve(className + ".java"),
+                ("package " + packageName + ";\n\n" + body).getBytes(StandardCharsets.UTF_8));
+    }
+}
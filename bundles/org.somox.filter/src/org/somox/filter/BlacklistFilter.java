@@ -1,7 +1,7 @@
 package org.somox.filter;
 
+import java.util.Collections;
 import java.util.Set;
-import java.util.regex.Pattern;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.ecore.EObject;
@@ -18,10 +18,10 @@ public class BlacklistFilter extends BaseFilter<ConcreteClassifier> {
 
     private static Logger logger = Logger.getLogger(BlacklistFilter.class);
 
-    private Pattern matchPattern = null;
+    private BlacklistMatcher matcher = null;
 
     public BlacklistFilter() {
-        this.matchPattern = Pattern.compile(".*");
+        this.matcher = BlacklistMatcher.compile(Collections.singleton(".*"));
     }
 
     public BlacklistFilter(final Set<String> blacklist) {
@@ -31,7 +31,7 @@ public class BlacklistFilter extends BaseFilter<ConcreteClassifier> {
     }
 
     public void setBlacklist(final Set<String> blacklist) {
-        this.matchPattern = deriveMatchPattern(blacklist);
+        this.matcher = deriveMatcher(blacklist);
     }
 
     @Override
@@ -40,33 +40,24 @@ public class BlacklistFilter extends BaseFilter<ConcreteClassifier> {
     }
 
     /**
-     * Compile a sinlge {@link Pattern} containing all elements of the blacklist
+     * Compile a single {@link BlacklistMatcher} containing all elements of the blacklist
      *
      * @param blacklist
      *            The list of blacklist patterns
-     * @return A corresponding {@link Pattern} used to match component FQNs
+     * @return A corresponding {@link BlacklistMatcher} used to match component FQNs
      */
-    private static Pattern deriveMatchPattern(final Set<String> blacklist) {
-        final StringBuffer sw = new StringBuffer();
-        for (final String s : blacklist) {
-            sw.append(s);
-            sw.append("|");
-        }
-        if (sw.length() > 0) {
-            sw.deleteCharAt(sw.length() - 1);
-        }
-        final Pattern matchPattern = Pattern.compile(sw.toString(), Pattern.CASE_INSENSITIVE);
+    private static BlacklistMatcher deriveMatcher(final Set<String> blacklist) {
+        final BlacklistMatcher matcher = BlacklistMatcher.compile(blacklist);
 
-        logger.debug("Initialised Blacklist filter with pattern " + matchPattern.toString());
+        logger.debug("Initialised Blacklist filter with pattern " + matcher + ", " + matcher.getTrieEntries()
+                + " of " + blacklist.size() + " entries compiled into a trie");
 
-        return matchPattern;
+        return matcher;
     }
 
     /**
-     * Uses Regular Expressions to match FQNs of components
+     * Uses the blacklist matcher to match FQNs of components
      *
-     * @param matchPattern
-     *            The pattern to match against
      * @param currentClass
      *            The class of the component
      * @return true if the FQN of the class matches the given pattern
@@ -90,7 +81,7 @@ public class BlacklistFilter extends BaseFilter<ConcreteClassifier> {
             }
         }
         final String fqn = KDMHelper.computeFullQualifiedName((Commentable) container);
-        result = this.matchPattern.matcher(fqn).matches();
+        result = this.matcher.matches(fqn);
         if (logger.isTraceEnabled()) {
             logger.trace("Blacklist filter matches " + fqn + ": " + result);
         }
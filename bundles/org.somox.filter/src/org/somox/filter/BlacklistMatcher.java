@@ -0,0 +1,264 @@
+package org.somox.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Matches full qualified names against a blacklist in a single pass. Decides exactly as one
+ * {@link Pattern} of all blacklist entries joined by {@code |}, compiled
+ * {@linkplain Pattern#CASE_INSENSITIVE case insensitive} and matched against the whole name.
+ *
+ * <p>
+ * The blacklist entries are almost always names like {@code org.example.Foo} or name prefixes like
+ * {@code org.example.*}. These entries are compiled into a trie of ASCII lower case characters,
+ * with an additional edge for each unescaped {@code .} that matches any character. A trailing
+ * {@code .*} marks its node as matching any rest of the name. As the regular expression {@code .}
+ * also matches a segment separator or part of a segment, the trie works on characters and not on
+ * package segments; {@code java.*} hence still blacklists {@code javax.swing}. All other entries
+ * are kept in a residual pattern, tried only if the trie does not match. Names with characters the
+ * trie does not handle like the pattern, line terminators and surrogates, are matched by the
+ * pattern of all entries.
+ *
+ * <p>
+ * Instances are immutable and thread safe.
+ */
+public final class BlacklistMatcher {
+
+    private final Node root = new Node();
+
+    /**
+     * All entries joined, as matched before. Also checks the syntax of all entries.
+     */
+    private final Pattern pattern;
+
+    /**
+     * The entries the trie cannot represent, {@code null} if there are none.
+     */
+    private final Pattern residualPattern;
+
+    private final int trieEntries;
+
+    private BlacklistMatcher(final Set<String> blacklist) {
+        this.pattern = Pattern.compile(String.join("|", blacklist), Pattern.CASE_INSENSITIVE);
+        final List<String> residualEntries = new ArrayList<>();
+        int trieEntries = 0;
+        if (blacklist.isEmpty()) {
+            // the empty pattern, which matches the empty name only
+            this.root.exact = true;
+        }
+        for (final String entry : blacklist) {
+            if (this.addToTrie(entry)) {
+                trieEntries++;
+            } else {
+                residualEntries.add(entry);
+            }
+        }
+        this.trieEntries = trieEntries;
+        this.residualPattern = residualEntries.isEmpty() ? null
+                : Pattern.compile(String.join("|", residualEntries), Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * Compiles the {@code blacklist}.
+     *
+     * @param blacklist
+     *            The blacklist entries, each a regular expression.
+     * @return A matcher deciding as the entries joined to one case insensitive pattern.
+     * @throws java.util.regex.PatternSyntaxException
+     *             If the joined entries are no valid regular expression.
+     */
+    public static BlacklistMatcher compile(final Set<String> blacklist) {
+        return new BlacklistMatcher(blacklist);
+    }
+
+    /**
+     * @param name
+     *            A full qualified name.
+     * @return {@code true} if the whole {@code name} matches a blacklist entry.
+     */
+    public boolean matches(final CharSequence name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (!isTrieCharacter(name.charAt(i))) {
+                return this.pattern.matcher(name).matches();
+            }
+        }
+        return this.trieMatches(name)
+                || this.residualPattern != null && this.residualPattern.matcher(name).matches();
+    }
+
+    /**
+     * @return The number of entries matched by the trie.
+     */
+    public int getTrieEntries() {
+        return this.trieEntries;
+    }
+
+    /**
+     * @return The pattern of the entries the trie cannot represent, {@code null} if there are none.
+     */
+    public Pattern getResidualPattern() {
+        return this.residualPattern;
+    }
+
+    @Override
+    public String toString() {
+        return this.pattern.toString();
+    }
+
+    /**
+     * Follows all paths through the trie the {@code name} can take at once. As each node is reached
+     * by a single path, the active nodes are distinct.
+     */
+    private boolean trieMatches(final CharSequence name) {
+        Node[] active = new Node[] { this.root };
+        int activeCount = 1;
+        Node[] next = new Node[4];
+        for (int i = 0; i < name.length() && activeCount > 0; i++) {
+            final char character = toLowerCase(name.charAt(i));
+            int nextCount = 0;
+            for (int j = 0; j < activeCount; j++) {
+                final Node node = active[j];
+                if (node.prefix) {
+                    return true;
+                }
+                if (nextCount + 2 > next.length) {
+                    next = Arrays.copyOf(next, next.length * 2);
+                }
+                final Node child = node.getChild(character);
+                if (child != null) {
+                    next[nextCount++] = child;
+                }
+                if (node.any != null) {
+                    next[nextCount++] = node.any;
+                }
+            }
+            final Node[] swap = active;
+            active = next;
+            next = swap.length >= active.length ? swap : new Node[active.length];
+            activeCount = nextCount;
+        }
+        for (int j = 0; j < activeCount; j++) {
+            if (active[j].exact || active[j].prefix) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the {@code entry} to the trie if it consists of literal characters, escaped and
+     * unescaped dots, and optionally a trailing {@code .*}.
+     *
+     * @return {@code false} if the entry needs to be matched by the residual pattern.
+     */
+    private boolean addToTrie(final String entry) {
+        final List<Character> path = new ArrayList<>();
+        boolean prefix = false;
+        for (int i = 0; i < entry.length(); i++) {
+            final char character = entry.charAt(i);
+            if (character == '.' && i + 2 == entry.length() && entry.charAt(i + 1) == '*') {
+                prefix = true;
+                break;
+            } else if (character == '.') {
+                path.add(null);
+            } else if (character == '\\' && i + 1 < entry.length() && entry.charAt(i + 1) == '.') {
+                path.add('.');
+                i++;
+            } else if (isLiteral(character)) {
+                path.add(toLowerCase(character));
+            } else {
+                return false;
+            }
+        }
+        Node node = this.root;
+        for (final Character character : path) {
+            node = character == null ? node.getOrCreateAny() : node.getOrCreateChild(character);
+        }
+        if (prefix) {
+            node.prefix = true;
+        } else {
+            node.exact = true;
+        }
+        return true;
+    }
+
+    /**
+     * Characters a regular expression matches literally. Other than {@code .}, the trie compares
+     * them after {@link #toLowerCase(char)}, as the pattern without
+     * {@link Pattern#UNICODE_CASE}.
+     */
+    private static boolean isLiteral(final char character) {
+        return character == '_' || !Character.isSurrogate(character) && Character.isLetterOrDigit(character);
+    }
+
+    /**
+     * Characters the trie matches like the pattern. A {@code .} neither matches a line terminator
+     * nor half of a surrogate pair.
+     */
+    private static boolean isTrieCharacter(final char character) {
+        return character != '\n' && character != '\r' && character != '\u0085' && character != '\u2028'
+                && character != '\u2029' && !Character.isSurrogate(character);
+    }
+
+    private static char toLowerCase(final char character) {
+        return character >= 'A' && character <= 'Z' ? (char) (character + ('a' - 'A')) : character;
+    }
+
+    private static final class Node {
+
+        private char[] characters = new char[0];
+
+        private Node[] children = new Node[0];
+
+        /**
+         * The child reached by an unescaped {@code .}.
+         */
+        private Node any;
+
+        /**
+         * Whether an entry ends at this node.
+         */
+        private boolean exact;
+
+        /**
+         * Whether an entry ends with {@code .*} at this node.
+         */
+        private boolean prefix;
+
+        private Node getChild(final char character) {
+            final int index = Arrays.binarySearch(this.characters, character);
+            return index < 0 ? null : this.children[index];
+        }
+
+        private Node getOrCreateChild(final char character) {
+            final int index = Arrays.binarySearch(this.characters, character);
+            if (index >= 0) {
+                return this.children[index];
+            }
+            final int insertion = -index - 1;
+            final Node child = new Node();
+            final char[] characters = new char[this.characters.length + 1];
+            final Node[] children = new Node[this.children.length + 1];
+            System.arraycopy(this.characters, 0, characters, 0, insertion);
+            System.arraycopy(this.children, 0, children, 0, insertion);
+            characters[insertion] = character;
+            children[insertion] = child;
+            System.arraycopy(this.characters, insertion, characters, insertion + 1,
+                    this.characters.length - insertion);
+            System.arraycopy(this.children, insertion, children, insertion + 1, this.children.length - insertion);
+            this.characters = characters;
+            this.children = children;
+            return child;
+        }
+
+        private Node getOrCreateAny() {
+            if (this.any == null) {
+                this.any = new Node();
+            }
+            return this.any;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.somox.filter;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Evaluates a filter, usually a chain of {@link ComposedFilter}s and {@link NotFilter}s, once for
+ * each element of a known set of elements and keeps the verdicts in an identity map. Deciding for
+ * one of these elements then costs one lookup instead of a call per filter of the chain. Elements
+ * outside of the set are passed to the filter itself.
+ *
+ * <p>
+ * The verdicts are not updated if the filter changes later on. Instances are thread safe if the
+ * filter is.
+ *
+ * @param <T>
+ *            type of the objects to be filtered
+ */
+public class PrecomputedFilter<T> extends BaseFilter<T> {
+
+    private final BaseFilter<T> filter;
+
+    /**
+     * The verdict of the filter on each precomputed element.
+     */
+    private final Map<T, Boolean> verdicts = new IdentityHashMap<>();
+
+    /**
+     * @param filter
+     *            The filter to precompute.
+     * @param elements
+     *            The elements to decide on now.
+     */
+    public PrecomputedFilter(final BaseFilter<T> filter, final Iterable<? extends T> elements) {
+        super();
+        this.filter = filter;
+        for (final T element : elements) {
+            if (element != null && !this.verdicts.containsKey(element)) {
+                this.verdicts.put(element, filter.passes(element));
+            }
+        }
+    }
+
+    @Override
+    public boolean passes(final T object) {
+        final Boolean verdict = this.verdicts.get(object);
+        if (verdict == null) {
+            return this.filter.passes(object);
+        }
+        return verdict;
+    }
+
+    /**
+     * @return The filter deciding on elements that were not precomputed.
+     */
+    public BaseFilter<T> getFilter() {
+        return this.filter;
+    }
+
+    /**
+     * @return The number of precomputed elements.
+     */
+    public int size() {
+        return this.verdicts.size();
+    }
+}
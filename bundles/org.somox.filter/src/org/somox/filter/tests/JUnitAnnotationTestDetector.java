@@ -2,9 +2,12 @@ package org.somox.filter.tests;
 
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IBinding;
 import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 
@@ -15,39 +18,46 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
- * Detects a files containing a java class containing appropriate Annotations of JUnit as being a
- * test file. This also applies to classes that extends such a class.
+ * Detects a files containing a java class containing appropriate Annotations of JUnit or TestNG as
+ * being a test file. This also applies to classes that extend such a class or implement such an
+ * interface.
  *
  * <h2>Rationale</h2>
  *
  * <p>
- * JUnit is a framework solely used for testing purposes. The chosen annotations declare methods as
- * either containing test logic or preparing tests. If a file contains such a method, it is a test
- * file (see also the rationale in {@link NotASourceFileTestDetector}). Even if JUnit or a plugin
- * contributing to it was analysed, production code would not be annotated with these annotations.
+ * JUnit and TestNG are frameworks solely used for testing purposes. The chosen annotations declare
+ * methods as either containing test logic or preparing tests. If a file contains such a method, it
+ * is a test file (see also the rationale in {@link NotASourceFileTestDetector}). Even if JUnit or a
+ * plugin contributing to it was analysed, production code would not be annotated with these
+ * annotations.
  *
  * <p>
  * The annotations that are being searched for are:
  *
  * <ul>
  *
- * <li><code>@Test</code>
+ * <li>JUnit 4: <code>@Test</code>, <code>@Before</code>, <code>@BeforeClass</code>,
+ * <code>@After</code>, <code>@AfterClass</code>
  *
- * <li><code>@Before</code>
+ * <li>JUnit 5: <code>@Test</code>, <code>@ParameterizedTest</code>, <code>@RepeatedTest</code>,
+ * <code>@TestFactory</code>, <code>@TestTemplate</code>, <code>@BeforeEach</code>,
+ * <code>@BeforeAll</code>, <code>@AfterEach</code>, <code>@AfterAll</code>
  *
- * <li><code>@BeforeClass</code>
- *
- * <li><code>@After</code>
- *
- * <li><code>@AfterClass</code>
+ * <li>TestNG: <code>@Test</code>, which may also annotate a class, and the configuration
+ * annotations <code>@Before…</code> and <code>@After…</code>
  *
  * </ul>
  *
  * <p>
- * Super classes are being searched because the information of these annotations are being inherited
- * (If the parent class has a test method, the child also has it).
+ * Super types are being searched because the information of these annotations are being inherited
+ * (If the parent class has a test method, the child also has it). JUnit 5 also runs the test
+ * methods declared in interfaces.
+ *
+ * <p>
+ * {@link JaMoPPAnnotationTestDetector} decides the same on the compilation units parsed by JaMoPP.
  *
  * @author Joshua Gleitze
  */
@@ -56,8 +66,22 @@ public class JUnitAnnotationTestDetector implements TestDetector {
     /**
      * The annotations we’re looking for.
      */
-    private static final Set<String> SEARCHED_ANNOTATIONS = new HashSet<>(Arrays.asList("org.junit.Test",
-            "org.junit.After", "org.junit.AfterClass", "org.junit.Before", "org.junit.BeforeClass"));
+    static final Set<String> TEST_ANNOTATIONS = new HashSet<>(Arrays.asList(
+            // JUnit 4
+            "org.junit.Test", "org.junit.After", "org.junit.AfterClass", "org.junit.Before",
+            "org.junit.BeforeClass",
+            // JUnit 5
+            "org.junit.jupiter.api.Test", "org.junit.jupiter.api.RepeatedTest", "org.junit.jupiter.api.TestFactory",
+            "org.junit.jupiter.api.TestTemplate", "org.junit.jupiter.params.ParameterizedTest",
+            "org.junit.jupiter.api.BeforeEach", "org.junit.jupiter.api.BeforeAll", "org.junit.jupiter.api.AfterEach",
+            "org.junit.jupiter.api.AfterAll",
+            // TestNG
+            "org.testng.annotations.Test", "org.testng.annotations.BeforeMethod",
+            "org.testng.annotations.AfterMethod", "org.testng.annotations.BeforeClass",
+            "org.testng.annotations.AfterClass", "org.testng.annotations.BeforeTest",
+            "org.testng.annotations.AfterTest", "org.testng.annotations.BeforeSuite",
+            "org.testng.annotations.AfterSuite", "org.testng.annotations.BeforeGroups",
+            "org.testng.annotations.AfterGroups"));
 
     /**
      * The factory to obtain ASTs from.
@@ -70,9 +94,16 @@ public class JUnitAnnotationTestDetector implements TestDetector {
      */
     private Optional<IOException> ioError;
 
+    /**
+     * The source files whose super types are being checked, to stop at cyclic references between
+     * source files.
+     */
+    private final Set<ICompilationUnit> visitedSourceFiles = new HashSet<>();
+
     @Override
     public Optional<Boolean> isTest(final Path path) throws IOException {
         this.ioError = Optional.empty();
+        this.visitedSourceFiles.clear();
         final CompilationUnit compilationUnit = this.astFactory.getCompilationUnit(path, true);
 
         final boolean isTest = this.isTest(compilationUnit);
@@ -97,6 +128,9 @@ public class JUnitAnnotationTestDetector implements TestDetector {
      * @return {@code true} if {@code sourceFile} is surely a test file.
      */
     private boolean isTest(final ICompilationUnit sourceFile) {
+        if (!this.visitedSourceFiles.add(sourceFile)) {
+            return false;
+        }
         try {
             final CompilationUnit compilationUnit = this.astFactory.getCompilationUnit(sourceFile, true);
             return this.isTest(compilationUnit);
@@ -121,27 +155,46 @@ public class JUnitAnnotationTestDetector implements TestDetector {
         final List<AbstractTypeDeclaration> containedTypes = compilationUnit.types();
         final ITypeBinding objectType = compilationUnit.getAST().resolveWellKnownType("java.lang.Object");
 
-        // does any method in the unit contain a JUnit annotation?
-        final boolean hasJunit = containedTypes.stream().flatMap(EclipseAst::withSubDeclarations)
-                .filter(declaration -> declaration.getNodeType() == ASTNode.METHOD_DECLARATION)
-                .map(declaration -> ((MethodDeclaration) declaration).resolveBinding())
-                .filter(binding -> binding != null).flatMap(method -> Arrays.stream(method.getAnnotations())).anyMatch(
-                        annotation -> SEARCHED_ANNOTATIONS.contains(annotation.getAnnotationType().getQualifiedName()));
+        // does any type or method in the unit carry a test annotation?
+        final boolean hasTestAnnotation = containedTypes.stream().flatMap(EclipseAst::withSubDeclarations)
+                .map(JUnitAnnotationTestDetector::resolveBinding).filter(binding -> binding != null)
+                .flatMap(binding -> Arrays.stream(binding.getAnnotations())).anyMatch(
+                        annotation -> TEST_ANNOTATIONS.contains(annotation.getAnnotationType().getQualifiedName()));
 
-        if (hasJunit) {
+        if (hasTestAnnotation) {
             return true;
         }
 
-        // does any type in the unit have a parent type with such a method?
+        // does any type in the unit have a super type with such a method?
         return containedTypes.stream().flatMap(EclipseAst::withSubDeclarations).filter(EclipseAst::isTypeDeclaration)
                 .map(type -> ((AbstractTypeDeclaration) type).resolveBinding()).filter(binding -> binding != null)
-                .map(ITypeBinding::getSuperclass)
+                .flatMap(binding -> Stream.concat(Stream.of(binding.getSuperclass()),
+                        Arrays.stream(binding.getInterfaces())))
                 // java.lang.Object does surely not have such a method but will very often be
                 // a superclass
-                .filter(superclass -> superclass != null && superclass != objectType).map(ITypeBinding::getJavaElement)
-                .filter(javaElement -> javaElement != null
-                        && javaElement.getElementType() == IJavaElement.COMPILATION_UNIT)
-                .anyMatch(parentUnit -> this.isTest((ICompilationUnit) parentUnit));
+                .filter(superType -> superType != null && superType != objectType).map(ITypeBinding::getJavaElement)
+                // only types declared in source files have a compilation unit
+                .filter(javaElement -> javaElement != null && javaElement.getElementType() == IJavaElement.TYPE)
+                .map(type -> ((IType) type).getCompilationUnit()).filter(parentUnit -> parentUnit != null)
+                .anyMatch(parentUnit -> this.isTest(parentUnit));
+    }
+
+    /**
+     * Resolves the binding of a method or type declaration.
+     *
+     * @param declaration
+     *            A body declaration.
+     * @return The binding of {@code declaration} if it declares a method or type and its binding
+     *         could be resolved, {@code null} otherwise.
+     */
+    private static IBinding resolveBinding(final BodyDeclaration declaration) {
+        if (declaration.getNodeType() == ASTNode.METHOD_DECLARATION) {
+            return ((MethodDeclaration) declaration).resolveBinding();
+        }
+        if (EclipseAst.isTypeDeclaration(declaration)) {
+            return ((AbstractTypeDeclaration) declaration).resolveBinding();
+        }
+        return null;
     }
 
     @Override
@@ -0,0 +1,185 @@
+package org.somox.filter.tests;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.emftext.language.java.annotations.AnnotationInstance;
+import org.emftext.language.java.classifiers.Classifier;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.emftext.language.java.containers.CompilationUnit;
+import org.emftext.language.java.members.Member;
+import org.emftext.language.java.members.Method;
+import org.emftext.language.java.modifiers.AnnotableAndModifiable;
+import org.emftext.language.java.modifiers.AnnotationInstanceOrModifier;
+import org.emftext.language.java.types.Type;
+import org.emftext.language.java.types.TypeReference;
+
+/**
+ * Detects a JaMoPP compilation unit as being a test file if it contains a type or method annotated
+ * with one of the {@linkplain JUnitAnnotationTestDetector#TEST_ANNOTATIONS test annotations}, or if
+ * a type in it has a super type in such a compilation unit. Decides the same as
+ * {@link JUnitAnnotationTestDetector}, but works on the compilation units JaMoPP has already parsed
+ * instead of parsing each file again with JDT.
+ *
+ * <p>
+ * Only super types in source files are searched, as by {@link JUnitAnnotationTestDetector}. The
+ * super types of all compilation units reached from a unit form its super type closure; the unit
+ * is a test file iff a unit of its closure is annotated. Both whether a unit is annotated and
+ * whether it is a test file are cached per resource, so each unit is searched for annotations once
+ * and the closure of a unit stops at units already decided. This class is not thread safe.
+ */
+public class JaMoPPAnnotationTestDetector {
+
+    /**
+     * Whether the compilation unit of a resource contains test annotations itself.
+     */
+    private final Map<Resource, Boolean> annotatedResources = new HashMap<>();
+
+    /**
+     * Whether the compilation unit of a resource is a test file.
+     */
+    private final Map<Resource, Boolean> testResources = new HashMap<>();
+
+    /**
+     * Checks whether the provided {@code compilationUnit} is a test file.
+     *
+     * @param compilationUnit
+     *            A compilation unit parsed by JaMoPP.
+     * @return {@code true} if {@code compilationUnit} is surely a test file.
+     */
+    public boolean isTest(final CompilationUnit compilationUnit) {
+        final Resource resource = compilationUnit.eResource();
+        if (resource == null) {
+            return this.isTestBySuperTypes(compilationUnit);
+        }
+        final Boolean cachedResult = this.testResources.get(resource);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+        final boolean isTest = this.isTestBySuperTypes(compilationUnit);
+        this.testResources.put(resource, isTest);
+        return isTest;
+    }
+
+    /**
+     * Searches the super type closure of the {@code compilationUnit}, including the unit itself,
+     * for an annotated unit. Units already known not to be test files are not expanded, as their
+     * closures contain no annotated unit.
+     */
+    private boolean isTestBySuperTypes(final CompilationUnit compilationUnit) {
+        final Set<CompilationUnit> visitedUnits = new HashSet<>();
+        final Deque<CompilationUnit> unitsToVisit = new ArrayDeque<>();
+        visitedUnits.add(compilationUnit);
+        unitsToVisit.add(compilationUnit);
+        while (!unitsToVisit.isEmpty()) {
+            final CompilationUnit unit = unitsToVisit.poll();
+            final Boolean knownResult = unit.eResource() == null ? null : this.testResources.get(unit.eResource());
+            if (knownResult != null) {
+                if (knownResult) {
+                    return true;
+                }
+                continue;
+            }
+            if (this.isAnnotated(unit)) {
+                return true;
+            }
+            for (final ConcreteClassifier type : this.getTypes(unit)) {
+                for (final TypeReference superTypeReference : type.getSuperTypeReferences()) {
+                    final CompilationUnit superUnit = getSourceCompilationUnit(superTypeReference.getTarget());
+                    if (superUnit != null && visitedUnits.add(superUnit)) {
+                        unitsToVisit.add(superUnit);
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether any type or method in the {@code compilationUnit} itself carries a test
+     * annotation.
+     */
+    private boolean isAnnotated(final CompilationUnit compilationUnit) {
+        final Resource resource = compilationUnit.eResource();
+        final Boolean cachedResult = resource == null ? null : this.annotatedResources.get(resource);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+        boolean isAnnotated = false;
+        for (final ConcreteClassifier type : this.getTypes(compilationUnit)) {
+            if (hasTestAnnotation(type)) {
+                isAnnotated = true;
+                break;
+            }
+            for (final Member member : type.getMembers()) {
+                if (member instanceof Method && hasTestAnnotation((Method) member)) {
+                    isAnnotated = true;
+                    break;
+                }
+            }
+            if (isAnnotated) {
+                break;
+            }
+        }
+        if (resource != null) {
+            this.annotatedResources.put(resource, isAnnotated);
+        }
+        return isAnnotated;
+    }
+
+    /**
+     * Collects the types of the {@code compilationUnit} and all types nested in them as members,
+     * the same types {@link EclipseAst#withSubDeclarations} visits.
+     */
+    private Set<ConcreteClassifier> getTypes(final CompilationUnit compilationUnit) {
+        final Set<ConcreteClassifier> types = new HashSet<>();
+        final Deque<ConcreteClassifier> typesToVisit = new ArrayDeque<>(compilationUnit.getClassifiers());
+        while (!typesToVisit.isEmpty()) {
+            final ConcreteClassifier type = typesToVisit.poll();
+            if (types.add(type)) {
+                for (final Member member : type.getMembers()) {
+                    if (member instanceof ConcreteClassifier) {
+                        typesToVisit.add((ConcreteClassifier) member);
+                    }
+                }
+            }
+        }
+        return types;
+    }
+
+    private static boolean hasTestAnnotation(final AnnotableAndModifiable element) {
+        for (final AnnotationInstanceOrModifier annotationOrModifier : element.getAnnotationsAndModifiers()) {
+            if (annotationOrModifier instanceof AnnotationInstance) {
+                final Classifier annotation = ((AnnotationInstance) annotationOrModifier).getAnnotation();
+                if (annotation instanceof ConcreteClassifier && !annotation.eIsProxy()
+                        && JUnitAnnotationTestDetector.TEST_ANNOTATIONS
+                                .contains(((ConcreteClassifier) annotation).getQualifiedName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The compilation unit of the {@code type} if it was parsed from a source file, null
+     *         otherwise.
+     */
+    private static CompilationUnit getSourceCompilationUnit(final Type type) {
+        if (!(type instanceof ConcreteClassifier) || type.eIsProxy()) {
+            return null;
+        }
+        final CompilationUnit compilationUnit = ((ConcreteClassifier) type).getContainingCompilationUnit();
+        if (compilationUnit == null || compilationUnit.eResource() == null) {
+            return null;
+        }
+        final URI uri = compilationUnit.eResource().getURI();
+        return uri.isFile() || uri.isPlatform() ? compilationUnit : null;
+    }
+}
@@ -7,6 +7,7 @@ import java.util.Map;
 import java.util.Optional;
 
 import org.apache.log4j.Logger;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.emftext.language.java.classifiers.ConcreteClassifier;
 import org.emftext.language.java.containers.CompilationUnit;
 import org.somox.filter.BaseFilter;
@@ -17,42 +18,59 @@ public class TestFileFilter extends BaseFilter<ConcreteClassifier> {
     private static final Logger logger = Logger.getLogger(BlacklistFilter.class);
 
     /**
-     * Caches the results of {@link #isTestFile(ConcreteClassifier)}.
+     * Caches the results of {@link #isTestFile(CompilationUnit)} per resource.
      */
-    private final Map<ConcreteClassifier, Boolean> cache = new HashMap<>();
+    private final Map<Resource, Boolean> cache = new HashMap<>();
 
     /**
-     * The detectors that are used to determine whether a file is a test file. Because ordering
-     * affects performance, this is not a set.
+     * The detectors that are used to determine from its path whether a file is a test file.
+     * Because ordering affects performance, this is not a set.
      */
-    private final TestDetector[] detectors = new TestDetector[] { new MavenProjectStructureTestFileDetector(),
-            new JUnitAnnotationTestDetector() };
+    private final TestDetector[] detectors = new TestDetector[] { new MavenProjectStructureTestFileDetector() };
+
+    /**
+     * Detects test files by their annotations on the compilation units already parsed by JaMoPP.
+     * Replaces the {@link JUnitAnnotationTestDetector}, which parses every file again.
+     */
+    private final JaMoPPAnnotationTestDetector annotationDetector = new JaMoPPAnnotationTestDetector();
 
     @Override
     public boolean passes(ConcreteClassifier object) {
-        return !cache.computeIfAbsent(object, this::isTestFile);
+        final CompilationUnit compilationUnit = object.getContainingCompilationUnit();
+        if (compilationUnit == null) {
+            return true;
+        }
+        final Resource resource = compilationUnit.eResource();
+        if (resource == null) {
+            return !this.isTestFile(compilationUnit);
+        }
+        Boolean isTestFile = this.cache.get(resource);
+        if (isTestFile == null) {
+            isTestFile = this.isTestFile(compilationUnit);
+            this.cache.put(resource, isTestFile);
+        }
+        return !isTestFile;
     }
 
     /**
-     * Determines whether the provided {@code classifier} is a test file, using the
-     * {@link #detectors}. The method’s behaviour is equivalent to {@link #isTestFile(Path)}.
+     * Determines whether the provided {@code compilationUnit} is a test file. It is one if any of
+     * the {@link #detectors} decides so from its path, and none decides otherwise, or if the
+     * {@link #annotationDetector} decides so.
      *
-     * @param classifier
-     *            A JaMoPP concrete classifier.
-     * @return Whether the provided {@code classifier} is a test file.
+     * @param compilationUnit
+     *            A JaMoPP compilation unit.
+     * @return Whether the provided {@code compilationUnit} is a test file.
      */
-    private boolean isTestFile(final ConcreteClassifier classifier) {
-        final CompilationUnit compilationUnit = classifier.getContainingCompilationUnit();
-        if (compilationUnit == null) {
-            return false;
-        }
-        final Path compilationUnitPath = EmfResource.getPath(compilationUnit.eResource());
-        if (compilationUnitPath == null) {
-            return false;
-        }
-        final boolean isTestFile = this.isTestFile(compilationUnitPath);
+    private boolean isTestFile(final CompilationUnit compilationUnit) {
+        final Resource resource = compilationUnit.eResource();
+        final Path compilationUnitPath = resource == null ? null : EmfResource.getPath(resource);
+        final Optional<Boolean> isTestFileByPath = compilationUnitPath == null ? Optional.empty()
+                : this.isTestFile(compilationUnitPath);
+        final boolean isTestFile = isTestFileByPath
+                .orElseGet(() -> this.annotationDetector.isTest(compilationUnit));
         if (isTestFile) {
-            logger.debug("Excluded \"" + compilationUnitPath + "\" because it’s a test file.");
+            logger.debug("Excluded \"" + (compilationUnitPath != null ? compilationUnitPath : resource)
+                    + "\" because it’s a test file.");
         }
         return isTestFile;
     }
@@ -64,9 +82,10 @@ public class TestFileFilter extends BaseFilter<ConcreteClassifier> {
      *
      * @param file
      *            The path to a java source file.
-     * @return Whether the provided {@code file} is a test file.
+     * @return Whether the provided {@code file} is a test file, or an empty optional if no
+     *         detector could decide.
      */
-    private boolean isTestFile(final Path file) {
+    private Optional<Boolean> isTestFile(final Path file) {
         // indicates whether any detector thinks the file may be a test file. As long as
         // no other detector returns {@code false}, the file will be regarded as a test
         // file.
@@ -85,13 +104,13 @@ public class TestFileFilter extends BaseFilter<ConcreteClassifier> {
                 if (!result.orElse(true)) {
                     // if any detector returns {@code false}, the file is definitely not a
                     // test file.
-                    return false;
+                    return Optional.of(Boolean.FALSE);
                 } else if (result.orElse(false)) {
                     mayBeTestFile = true;
                 }
             }
         }
-        return mayBeTestFile;
+        return mayBeTestFile ? Optional.of(Boolean.TRUE) : Optional.empty();
     }
 
 }
@@ -0,0 +1,130 @@
+package org.somox.gast2seff.jobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.emftext.language.java.members.MembersFactory;
+import org.emftext.language.java.statements.StatementListContainer;
+import org.junit.Test;
+import org.palladiosimulator.pcm.seff.ResourceDemandingSEFF;
+import org.palladiosimulator.pcm.seff.SeffFactory;
+import org.palladiosimulator.pcm.seff.impl.ResourceDemandingSEFFImpl;
+import org.somox.analyzer.SimpleAnalysisResult;
+import org.somox.sourcecodedecorator.SEFF2MethodMapping;
+import org.somox.sourcecodedecorator.SourceCodeDecoratorRepository;
+import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+
+import de.uka.ipd.sdq.workflow.jobs.JobFailedException;
+
+public class SEFF2MethodMappingIndexTest {
+
+    private static final int SMALL_SIZE = 1000;
+
+    private static final int LARGE_SIZE = 10000;
+
+    @Test
+    public void testFirstMappingIsFound() {
+        final ResourceDemandingSEFF seff = createSeff("seff");
+        final SEFF2MethodMapping first = createMapping(seff);
+        final SEFF2MethodMapping second = createMapping(seff);
+        final SEFF2MethodMappingIndex index = new SEFF2MethodMappingIndex(Arrays.asList(first, second));
+
+        assertSame(first, index.getMapping(seff));
+        assertSame(first, index.getMapping(createSeff("seff")));
+        assertNull(index.getMapping(createSeff("other")));
+    }
+
+    @Test
+    public void testDuplicatesAreFoundOnce() {
+        final ResourceDemandingSEFF a = createSeff("a");
+        final ResourceDemandingSEFF b = createSeff("b");
+        final ResourceDemandingSEFF c = createSeff("c");
+        final SEFF2MethodMappingIndex index = new SEFF2MethodMappingIndex(Arrays.asList(createMapping(b),
+                createMapping(a), createMapping(b), createMapping(c), createMapping(a), createMapping(b)));
+
+        assertEquals(Arrays.asList("b", "a"), index.getDuplicateSeffIds());
+        assertEquals(3, index.getUsages("b"));
+        assertEquals(2, index.getUsages("a"));
+        assertEquals(1, index.getUsages("c"));
+        assertEquals(0, index.getUsages("d"));
+    }
+
+    @Test
+    public void testNoDuplicates() {
+        final SEFF2MethodMappingIndex index = new SEFF2MethodMappingIndex(
+                Arrays.asList(createMapping(createSeff("a")), createMapping(createSeff("b"))));
+        assertTrue(index.getDuplicateSeffIds().isEmpty());
+    }
+
+    /**
+     * Runs the SEFF setup of the {@link GAST2SEFFJob} on synthetic mappings: the mappings are
+     * indexed and duplicates reported, then the body of each SEFF is looked up as the job does
+     * before creating the SEFF. Counts the ids read, which grows quadratically if the mappings are
+     * scanned for each SEFF.
+     */
+    @Test
+    public void testJobSetupGrowsLinearly() throws JobFailedException {
+        final long smallReads = countIdReadsOfJobSetup(SMALL_SIZE);
+        final long largeReads = countIdReadsOfJobSetup(LARGE_SIZE);
+        assertEquals("Ids read per SEFF", (double) smallReads / SMALL_SIZE, (double) largeReads / LARGE_SIZE, 0.0);
+    }
+
+    /**
+     * Every hundredth SEFF is mapped twice.
+     */
+    private static long countIdReadsOfJobSetup(final int size) throws JobFailedException {
+        final long[] reads = new long[1];
+        final SourceCodeDecoratorRepository decorator = SourcecodedecoratorFactory.eINSTANCE
+                .createSourceCodeDecoratorRepository();
+        final List<ResourceDemandingSEFF> seffs = new ArrayList<ResourceDemandingSEFF>(size);
+        final List<StatementListContainer> bodies = new ArrayList<StatementListContainer>(size);
+        for (int i = 0; i < size; i++) {
+            final ResourceDemandingSEFF seff = new ResourceDemandingSEFFImpl() {
+                @Override
+                public String getId() {
+                    reads[0]++;
+                    return super.getId();
+                }
+            };
+            seff.setId("seff" + i);
+            final SEFF2MethodMapping mapping = createMapping(seff);
+            mapping.setStatementListContainer(MembersFactory.eINSTANCE.createClassMethod());
+            decorator.getSeff2MethodMappings().add(mapping);
+            if (i % 100 == 0) {
+                final SEFF2MethodMapping duplicate = createMapping(seff);
+                duplicate.setStatementListContainer(MembersFactory.eINSTANCE.createClassMethod());
+                decorator.getSeff2MethodMappings().add(duplicate);
+            }
+            seffs.add(seff);
+            bodies.add(mapping.getStatementListContainer());
+        }
+        final SimpleAnalysisResult result = new SimpleAnalysisResult(null);
+        result.setSourceCodeDecoratorRepository(decorator);
+        final GAST2SEFFJob job = new GAST2SEFFJob();
+
+        job.indexMappings(result);
+        for (int i = 0; i < size; i++) {
+            assertSame(bodies.get(i), job.findBody(seffs.get(i)));
+        }
+        assertEquals(size / 100, result.getMessages().size());
+        return reads[0];
+    }
+
+    private static ResourceDemandingSEFF createSeff(final String id) {
+        final ResourceDemandingSEFF seff = SeffFactory.eINSTANCE.createResourceDemandingSEFF();
+        seff.setId(id);
+        return seff;
+    }
+
+    private static SEFF2MethodMapping createMapping(final ResourceDemandingSEFF seff) {
+        final SEFF2MethodMapping mapping = SourcecodedecoratorFactory.eINSTANCE.createSEFF2MethodMapping();
+        mapping.setSeff(seff);
+        return mapping;
+    }
+}
@@ -0,0 +1,231 @@
+package org.somox.gast2seff.visitors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.emftext.language.java.commons.Commentable;
+import org.emftext.language.java.containers.CompilationUnit;
+import org.emftext.language.java.members.ClassMethod;
+import org.emftext.language.java.members.Method;
+import org.emftext.language.java.statements.Statement;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.palladiosimulator.pcm.repository.BasicComponent;
+import org.palladiosimulator.pcm.repository.RepositoryFactory;
+import org.somox.kdmhelper.KDMReader;
+import org.somox.kdmhelper.metamodeladdition.Root;
+import org.splevo.jamopp.extraction.JaMoPPSoftwareModelExtractor;
+
+/**
+ * Classifies the methods of a generated class with deep chains of internal calls, recursive calls,
+ * and external calls with and without a shared {@link FunctionClassificationMemo} and compares the
+ * annotations.
+ */
+public class FunctionClassificationMemoTest {
+
+    private static final int CHAIN_LENGTH = 12;
+
+    private static final int ENTRIES = 8;
+
+    private Path fixture;
+
+    private List<ClassMethod> entries;
+
+    @Before
+    public void setUp() throws IOException {
+        this.fixture = Files.createTempDirectory("somox-classification-memo");
+        final Path servicePackage = Files.createDirectories(this.fixture.resolve("service/src/fixture"));
+        Files.write(servicePackage.resolve("Service.java"), createService().getBytes(StandardCharsets.UTF_8));
+        final Path externalPackage = Files.createDirectories(this.fixture.resolve("external/src/fixture"));
+        Files.write(externalPackage.resolve("External.java"), createExternal().getBytes(StandardCharsets.UTF_8));
+
+        final JaMoPPSoftwareModelExtractor extractor = new JaMoPPSoftwareModelExtractor();
+        final List<File> sourceFolders = new ArrayList<File>();
+        sourceFolders.add(this.fixture.resolve("service").toFile());
+        sourceFolders.add(this.fixture.resolve("external").toFile());
+        extractor.extractSoftwareModelFromFolders(sourceFolders, new NullProgressMonitor(), null, false);
+        final KDMReader reader = new KDMReader();
+        reader.addModelsToRoot(extractor.getSourceResources());
+        final Root root = reader.getRoot();
+
+        this.entries = new ArrayList<ClassMethod>();
+        for (final CompilationUnit compilationUnit : root.getCompilationUnits()) {
+            for (final ConcreteClassifier classifier : compilationUnit.getClassifiers()) {
+                for (final Method method : classifier.getMethods()) {
+                    if (method.getName().startsWith("entry")) {
+                        this.entries.add((ClassMethod) method);
+                    }
+                }
+            }
+        }
+        assertEquals(ENTRIES, this.entries.size());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.fixture.toFile());
+    }
+
+    @Test
+    public void testMemoizedAnnotationsEqualComputedAnnotations() {
+        this.assertMemoizedAnnotationsEqualComputedAnnotations(this.entries);
+    }
+
+    @Test
+    public void testMemoizedAnnotationsEqualComputedAnnotationsInReverseOrder() {
+        final List<ClassMethod> reversed = new ArrayList<ClassMethod>(this.entries);
+        Collections.reverse(reversed);
+        this.assertMemoizedAnnotationsEqualComputedAnnotations(reversed);
+    }
+
+    @Test
+    public void testRecursiveBodiesAreNotMemoized() {
+        final FunctionClassificationMemo memo = new FunctionClassificationMemo();
+        final BasicComponent component = RepositoryFactory.eINSTANCE.createBasicComponent();
+        for (final ClassMethod entry : this.entries) {
+            classify(entry, new CountingStrategy(), memo, component);
+        }
+        // helpers of the chain and the leaf helper, but neither ping nor pong nor countdown
+        assertEquals(CHAIN_LENGTH + 1, memo.size(component));
+        assertEquals(0, memo.size(RepositoryFactory.eINSTANCE.createBasicComponent()));
+    }
+
+    private void assertMemoizedAnnotationsEqualComputedAnnotations(final List<ClassMethod> entryMethods) {
+        final FunctionClassificationMemo memo = new FunctionClassificationMemo();
+        final BasicComponent component = RepositoryFactory.eINSTANCE.createBasicComponent();
+        final CountingStrategy computingStrategy = new CountingStrategy();
+        final CountingStrategy memoizingStrategy = new CountingStrategy();
+        for (final ClassMethod entry : entryMethods) {
+            final Map<Commentable, List<BitSet>> computed = classify(entry, computingStrategy, null, null);
+            final Map<Commentable, List<BitSet>> memoized = classify(entry, memoizingStrategy, memo, component);
+            assertFalse(computed.isEmpty());
+            assertEquals(computed, memoized);
+        }
+        assertTrue(memoizingStrategy.classifiedStatements < computingStrategy.classifiedStatements);
+    }
+
+    private static Map<Commentable, List<BitSet>> classify(final ClassMethod entry, final CountingStrategy strategy,
+            final FunctionClassificationMemo memo, final BasicComponent component) {
+        final FunctionCallClassificationVisitor visitor = new FunctionCallClassificationVisitor(strategy,
+                strategy.methodCallFinder, memo, component);
+        for (final Statement statement : entry.getStatements()) {
+            visitor.doSwitch(statement);
+        }
+        return visitor.getAnnotations();
+    }
+
+    /**
+     * Each entry calls into the chain of helpers at a different depth. Each helper calls the next
+     * one in a branch and in a loop, the last one calls a helper with an external call. Some
+     * entries additionally call mutually recursive and self-recursive helpers.
+     */
+    private static String createService() {
+        final StringBuilder source = new StringBuilder();
+        source.append("package fixture;\n\n");
+        source.append("public class Service {\n");
+        source.append("    private External external = new External();\n\n");
+        for (int entry = 0; entry < ENTRIES; entry++) {
+            source.append("    public void entry").append(entry).append("(int value) {\n");
+            source.append("        int local = value;\n");
+            source.append("        helper").append(entry % CHAIN_LENGTH).append("(local);\n");
+            if (entry % 3 == 1) {
+                source.append("        ping(local);\n");
+            }
+            if (entry % 3 == 2) {
+                source.append("        countdown(local);\n");
+                source.append("        helper").append(CHAIN_LENGTH - 1).append("(local);\n");
+            }
+            source.append("        external.call(local);\n");
+            source.append("    }\n\n");
+        }
+        for (int helper = 0; helper < CHAIN_LENGTH; helper++) {
+            final String next = helper + 1 < CHAIN_LENGTH ? "helper" + (helper + 1) : "leaf";
+            source.append("    private void helper").append(helper).append("(int value) {\n");
+            source.append("        if (value > ").append(helper).append(") {\n");
+            source.append("            ").append(next).append("(value - 1);\n");
+            source.append("        } else {\n");
+            source.append("            value++;\n");
+            source.append("        }\n");
+            source.append("        for (int i = 0; i < value; i++) {\n");
+            source.append("            ").append(next).append("(i);\n");
+            source.append("        }\n");
+            source.append("    }\n\n");
+        }
+        source.append("    private void leaf(int value) {\n");
+        source.append("        external.call(value);\n");
+        source.append("    }\n\n");
+        source.append("    private void ping(int value) {\n");
+        source.append("        if (value > 0) {\n");
+        source.append("            pong(value - 1);\n");
+        source.append("        }\n");
+        source.append("    }\n\n");
+        source.append("    private void pong(int value) {\n");
+        source.append("        external.call(value);\n");
+        source.append("        ping(value);\n");
+        source.append("    }\n\n");
+        source.append("    private void countdown(int value) {\n");
+        source.append("        while (value > 0) {\n");
+        source.append("            countdown(value - 1);\n");
+        source.append("        }\n");
+        source.append("        helper0(value);\n");
+        source.append("    }\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private static String createExternal() {
+        return "package fixture;\n\npublic class External {\n    public void call(int value) {\n    }\n}\n";
+    }
+
+    /**
+     * Classifies calls to methods of the class External as external calls and all other calls as
+     * internal calls, counting the classified statements.
+     */
+    private static final class CountingStrategy extends AbstractFunctionClassificationStrategy {
+
+        private final MethodCallFinder methodCallFinder;
+
+        private int classifiedStatements = 0;
+
+        private CountingStrategy() {
+            this(new MethodCallFinder());
+        }
+
+        private CountingStrategy(final MethodCallFinder methodCallFinder) {
+            super(methodCallFinder);
+            this.methodCallFinder = methodCallFinder;
+        }
+
+        @Override
+        public List<BitSet> classifySimpleStatement(final Statement object) {
+            this.classifiedStatements++;
+            return super.classifySimpleStatement(object);
+        }
+
+        @Override
+        protected boolean isExternalCall(final Method method) {
+            return "External".equals(method.getContainingConcreteClassifier().getName());
+        }
+
+        @Override
+        protected boolean isLibraryCall(final Method method) {
+            return false;
+        }
+    }
+}
@@ -10,7 +10,6 @@ import java.util.Map;
 import org.apache.log4j.Logger;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.SubProgressMonitor;
-import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
@@ -19,12 +18,14 @@ import org.emftext.language.java.statements.StatementListContainer;
 import org.palladiosimulator.pcm.repository.BasicComponent;
 import org.palladiosimulator.pcm.seff.ResourceDemandingSEFF;
 import org.palladiosimulator.pcm.seff.SeffFactory;
-import org.palladiosimulator.pcm.seff.ServiceEffectSpecification;
 import org.palladiosimulator.pcm.seff.StartAction;
 import org.palladiosimulator.pcm.seff.StopAction;
 import org.somox.analyzer.AnalysisResult;
+import org.somox.common.Message;
+import org.somox.common.Message.MessageLevel;
 import org.somox.gast2seff.visitors.DefaultResourceDemandingBehaviourForClassMethodFinder;
 import org.somox.gast2seff.visitors.FunctionCallClassificationVisitor;
+import org.somox.gast2seff.visitors.FunctionClassificationMemo;
 import org.somox.gast2seff.visitors.IFunctionClassificationStrategy;
 import org.somox.gast2seff.visitors.IFunctionClassificationStrategyFactory;
 import org.somox.gast2seff.visitors.InterfaceOfExternalCallFindingFactory;
@@ -68,6 +69,16 @@ public class GAST2SEFFJob implements IBlackboardInteractingJob<SoMoXBlackboard>
 
     private MethodCallFinder methodCallFinder;
 
+    /**
+     * Classifications of internal method bodies, shared by all SEFFs of a run
+     */
+    private FunctionClassificationMemo functionClassificationMemo;
+
+    /**
+     * The mappings of the source code decorator model by SEFF, built once per run
+     */
+    private SEFF2MethodMappingIndex seff2MethodMappingIndex;
+
     /**
      * Field that indicates whether ResourceDemandingInternalBehaviour should be created for
      * internal method calls or not. If set to true one RDIB will be created for each internal
@@ -117,9 +128,10 @@ public class GAST2SEFFJob implements IBlackboardInteractingJob<SoMoXBlackboard>
         monitor.subTask("loading models from blackboard");
 
         final AnalysisResult result = this.blackboard.getAnalysisResult();
-        this.sourceCodeDecoratorModel = result.getSourceCodeDecoratorRepository();
         this.root = result.getRoot();
         this.methodCallFinder = new MethodCallFinder();
+        this.functionClassificationMemo = new FunctionClassificationMemo();
+        this.indexMappings(result);
 
         final IProgressMonitor subMonitor = new SubProgressMonitor(monitor, IProgressMonitor.UNKNOWN);
         subMonitor.setTaskName("Creating SEFF behaviour");
@@ -171,7 +183,7 @@ public class GAST2SEFFJob implements IBlackboardInteractingJob<SoMoXBlackboard>
                 .createIFunctionClassificationStrategy(this.sourceCodeDecoratorModel, basicComponent, this.root,
                         this.methodCallFinder);
         this.typeVisitor = new FunctionCallClassificationVisitor(basicFunctionClassifierStrategy,
-                this.methodCallFinder);
+                this.methodCallFinder, this.functionClassificationMemo, basicComponent);
 
         final StatementListContainer body = this.findBody(seff);// GAST2SEFFCHANGE
         this.logger.trace("visiting (seff entry): " + seff.getId());
@@ -197,6 +209,20 @@ public class GAST2SEFFJob implements IBlackboardInteractingJob<SoMoXBlackboard>
         return seff;
     }
 
+    /**
+     * Indexes the mappings of the source code decorator model of the given result once per run and
+     * reports the SEFFs mapped more than once.
+     *
+     * @param result
+     *            The analysis result holding the source code decorator model
+     */
+    void indexMappings(final AnalysisResult result) {
+        this.sourceCodeDecoratorModel = result.getSourceCodeDecoratorRepository();
+        this.seff2MethodMappingIndex = new SEFF2MethodMappingIndex(
+                this.sourceCodeDecoratorModel.getSeff2MethodMappings());
+        this.reportDuplicateMappings(result);
+    }
+
     /**
      * Retrieve the matching GAST behaviour stub from the GAST Behaviour repository
      *
@@ -206,48 +232,30 @@ public class GAST2SEFFJob implements IBlackboardInteractingJob<SoMoXBlackboard>
      * @throws JobFailedException
      *             Thrown if the gast behaviour is missing in the model file
      */
-    private StatementListContainer findBody(final ResourceDemandingSEFF seff) throws JobFailedException {// GAST2SEFFCHANGE
-
-        // assert
-        // onlyOnceAsGastBehaviour(this.gastBehaviourRepositoryModel.getSeff2MethodMappings(),
-        // seff);
-        // TODO burkha 16.05.2013 remove this after checking
-        this.onlyOnceAsGastBehaviour(this.sourceCodeDecoratorModel.getSeff2MethodMappings(), seff);
-
-        for (final SEFF2MethodMapping behaviour : this.sourceCodeDecoratorModel.getSeff2MethodMappings()) {
-            if (((ResourceDemandingSEFF) behaviour.getSeff()).getId().equals(seff.getId())) {
-                this.logger.debug("Matching SEFF found " + seff.getId());
-                return behaviour.getStatementListContainer();
-            }
+    StatementListContainer findBody(final ResourceDemandingSEFF seff) throws JobFailedException {// GAST2SEFFCHANGE
+        final SEFF2MethodMapping behaviour = this.seff2MethodMappingIndex.getMapping(seff);
+        if (behaviour != null) {
+            this.logger.debug("Matching SEFF found " + seff.getId());
+            return behaviour.getStatementListContainer();
         }
         this.logger.warn("Checked gastBehaviourRepository for " + seff.getId() + " but found none");
         throw new JobFailedException("Unable to find operation body for given method");
     }
 
     /**
-     * For assertion only
+     * Reports each SEFF which is mapped to more than one GAST behaviour once. The body of the first
+     * behaviour is used for each of the mappings.
      *
-     * @param seff2MethodMappings
-     * @param seff
-     * @return
+     * @param result
+     *            The analysis result to add the messages to
      */
-    private boolean onlyOnceAsGastBehaviour(final EList<SEFF2MethodMapping> seff2MethodMappings,
-            final ServiceEffectSpecification seff) {
-        int i = 0;
-        for (final SEFF2MethodMapping mapping : seff2MethodMappings) {
-            final ResourceDemandingSEFF seffMapping = (ResourceDemandingSEFF) mapping.getSeff();
-            final ResourceDemandingSEFF seffInput = (ResourceDemandingSEFF) seff;
-            if (seffMapping.getId().equals(seffInput.getId())) {
-                i++;
-            }
-        }
-
-        if (i != 1) {
-            this.logger.error("Assertion fails - onlyOnceAsGastBehaviour: i = " + i + " for "
-                    + ((ResourceDemandingSEFF) seff).getId());
+    private void reportDuplicateMappings(final AnalysisResult result) {
+        for (final String seffId : this.seff2MethodMappingIndex.getDuplicateSeffIds()) {
+            final String message = "SEFF " + seffId + " is mapped to "
+                    + this.seff2MethodMappingIndex.getUsages(seffId) + " GAST behaviours";
+            this.logger.error(message);
+            result.addMessage(new Message(MessageLevel.ERROR, message));
         }
-
-        return i == 1; // must be exactly one
     }
 
     /**
@@ -0,0 +1,67 @@
+package org.somox.gast2seff.jobs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.palladiosimulator.pcm.seff.ResourceDemandingSEFF;
+import org.somox.sourcecodedecorator.SEFF2MethodMapping;
+
+/**
+ * Index of the {@link SEFF2MethodMapping}s of a source code decorator, built once per
+ * {@link GAST2SEFFJob} run. SEFFs are identified by their ids. The index maps each SEFF to its
+ * first mapping and counts the mappings of each SEFF, so SEFFs mapped more than once are found in
+ * the same pass.
+ */
+public class SEFF2MethodMappingIndex {
+
+    private final Map<String, SEFF2MethodMapping> mappings = new HashMap<String, SEFF2MethodMapping>();
+
+    private final Map<String, Integer> usages = new HashMap<String, Integer>();
+
+    /** ids of the SEFFs mapped more than once, in the order of their first mapping */
+    private final List<String> duplicateSeffIds = new ArrayList<String>();
+
+    /**
+     * @param seff2MethodMappings
+     *            The mappings to index.
+     */
+    public SEFF2MethodMappingIndex(final List<SEFF2MethodMapping> seff2MethodMappings) {
+        for (final SEFF2MethodMapping mapping : seff2MethodMappings) {
+            final String seffId = ((ResourceDemandingSEFF) mapping.getSeff()).getId();
+            final Integer usage = this.usages.get(seffId);
+            if (usage == null) {
+                this.mappings.put(seffId, mapping);
+                this.usages.put(seffId, 1);
+            } else {
+                if (usage == 1) {
+                    this.duplicateSeffIds.add(seffId);
+                }
+                this.usages.put(seffId, usage + 1);
+            }
+        }
+    }
+
+    /**
+     * @return The first mapping of the SEFF with the id of the given SEFF, or null if there is none.
+     */
+    public SEFF2MethodMapping getMapping(final ResourceDemandingSEFF seff) {
+        return this.mappings.get(seff.getId());
+    }
+
+    /**
+     * @return The number of mappings of the SEFF with the given id.
+     */
+    public int getUsages(final String seffId) {
+        final Integer usage = this.usages.get(seffId);
+        return usage == null ? 0 : usage;
+    }
+
+    /**
+     * @return The ids of the SEFFs mapped more than once, in the order of their first mapping.
+     */
+    public List<String> getDuplicateSeffIds() {
+        return this.duplicateSeffIds;
+    }
+}
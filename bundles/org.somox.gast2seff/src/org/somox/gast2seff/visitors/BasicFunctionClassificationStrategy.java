@@ -14,6 +14,7 @@ import org.somox.kdmhelper.metamodeladdition.Root;
 import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
 import org.somox.sourcecodedecorator.InterfaceSourceCodeLink;
 import org.somox.sourcecodedecorator.SourceCodeDecoratorRepository;
+import org.somox.util.SourceCodeDecoratorIndex;
 
 /**
  * Implementation of {@link IFunctionClassificationStrategy}. Uses basic heuristics based on the
@@ -69,11 +70,10 @@ public class BasicFunctionClassificationStrategy extends AbstractLibraryCallFunc
     }
 
     private ComponentImplementingClassesLink queryComponentLink(final BasicComponent primitiveComponent) {
-        for (final ComponentImplementingClassesLink compLink : this.sourceCodeDecoratorRepository
-                .getComponentImplementingClassesLink()) {
-            if (compLink.getComponent().equals(primitiveComponent)) {
-                return compLink;
-            }
+        final ComponentImplementingClassesLink compLink = SourceCodeDecoratorIndex
+                .getIndex(this.sourceCodeDecoratorRepository).getComponentImplementingClassesLink(primitiveComponent);
+        if (compLink != null) {
+            return compLink;
         }
         final String msg = "Could not find a component implementing classes link in the source code "
                 + "decorator for component " + primitiveComponent;
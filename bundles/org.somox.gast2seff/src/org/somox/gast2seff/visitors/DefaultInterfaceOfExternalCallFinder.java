@@ -1,8 +1,9 @@
 package org.somox.gast2seff.visitors;
 
+import java.util.List;
+
 import org.apache.log4j.Logger;
 import org.emftext.language.java.classifiers.ConcreteClassifier;
-import org.emftext.language.java.members.Member;
 import org.emftext.language.java.members.Method;
 import org.emftext.language.java.statements.Statement;
 import org.palladiosimulator.pcm.repository.BasicComponent;
@@ -14,6 +15,7 @@ import org.palladiosimulator.pcm.repository.SourceRole;
 import org.somox.sourcecodedecorator.InterfaceSourceCodeLink;
 import org.somox.sourcecodedecorator.MethodLevelSourceCodeLink;
 import org.somox.sourcecodedecorator.SourceCodeDecoratorRepository;
+import org.somox.util.SourceCodeDecoratorIndex;
 
 public class DefaultInterfaceOfExternalCallFinder implements InterfaceOfExternalCallFinding {
 
@@ -40,19 +42,18 @@ public class DefaultInterfaceOfExternalCallFinder implements InterfaceOfExternal
         final InterfacePortOperationTuple interfacePortOperationTuple = new InterfacePortOperationTuple();
         final ConcreteClassifier accessedConcreteClassifier = calledMethod.getContainingConcreteClassifier();
 
+        final SourceCodeDecoratorIndex index = SourceCodeDecoratorIndex
+                .getIndex(this.getSourceCodeDecoratorRepository());
         for (final RequiredRole requiredRole : this.getBasicComponent().getRequiredRoles_InterfaceRequiringEntity()) {
             Interface pcmInterface = this.getInterfaceFromRequiredRole(requiredRole);
-            for (final InterfaceSourceCodeLink ifLink : this.getSourceCodeDecoratorRepository()
-                    .getInterfaceSourceCodeLink()) {
-                if (pcmInterface != null && pcmInterface.equals(ifLink.getInterface())) {
-                    final ConcreteClassifier gastClass = ifLink.getGastClass();
-                    if (gastClass.equals(accessedConcreteClassifier)) {
-                        logger.trace("accessed interface port " + requiredRole.getEntityName());
-                        interfacePortOperationTuple.role = requiredRole;
-                        // query operation:
-                        interfacePortOperationTuple.signature = this.queryInterfaceOperation(calledMethod);
-                        return interfacePortOperationTuple;
-                    }
+            for (final InterfaceSourceCodeLink ifLink : index.getInterfaceSourceCodeLinksOfInterface(pcmInterface)) {
+                final ConcreteClassifier gastClass = ifLink.getGastClass();
+                if (gastClass.equals(accessedConcreteClassifier)) {
+                    logger.trace("accessed interface port " + requiredRole.getEntityName());
+                    interfacePortOperationTuple.role = requiredRole;
+                    // query operation:
+                    interfacePortOperationTuple.signature = this.queryInterfaceOperation(calledMethod);
+                    return interfacePortOperationTuple;
                 }
             }
         }
@@ -87,15 +88,13 @@ public class DefaultInterfaceOfExternalCallFinder implements InterfaceOfExternal
      * @return Signature corresponding to function access
      */
     private Signature queryInterfaceOperation(final Method invokedMethod) { // GAST2SEFFCHANGE
-        for (final MethodLevelSourceCodeLink methodLink : this.getSourceCodeDecoratorRepository()
-                .getMethodLevelSourceCodeLink()) {
-
-            final Member methodSourceCodeDecorator = methodLink.getFunction();
-            if (methodSourceCodeDecorator.equals(invokedMethod)) { // GAST2SEFFCHANGE
-
-                logger.trace("accessed operation " + methodLink.getOperation().getEntityName());
-                return methodLink.getOperation();
-            }
+        final List<MethodLevelSourceCodeLink> methodLinks = SourceCodeDecoratorIndex
+                .getIndex(this.getSourceCodeDecoratorRepository())
+                .getMethodLevelSourceCodeLinksOfFunction(invokedMethod); // GAST2SEFFCHANGE
+        if (!methodLinks.isEmpty()) {
+            final MethodLevelSourceCodeLink methodLink = methodLinks.get(0);
+            logger.trace("accessed operation " + methodLink.getOperation().getEntityName());
+            return methodLink.getOperation();
         }
 
         logger.warn("no accessed operation found for " + invokedMethod.getContainingConcreteClassifier() + "::"
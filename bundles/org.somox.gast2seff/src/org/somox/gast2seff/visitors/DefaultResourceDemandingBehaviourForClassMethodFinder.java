@@ -9,6 +9,7 @@ import org.palladiosimulator.pcm.seff.ServiceEffectSpecification;
 import org.somox.sourcecodedecorator.MethodLevelResourceDemandingInternalBehaviorLink;
 import org.somox.sourcecodedecorator.MethodLevelSourceCodeLink;
 import org.somox.sourcecodedecorator.SourceCodeDecoratorRepository;
+import org.somox.util.SourceCodeDecoratorIndex;
 
 public class DefaultResourceDemandingBehaviourForClassMethodFinder
         implements ResourceDemandingBehaviourForClassMethodFinding {
@@ -25,12 +26,11 @@ public class DefaultResourceDemandingBehaviourForClassMethodFinder
     @Override
     public ResourceDemandingInternalBehaviour getCorrespondingResourceDemandingInternalBehaviour(
             final ClassMethod classMethod) {
-        for (final MethodLevelResourceDemandingInternalBehaviorLink methodLevelResourceDemandingInternalBehaviorLink : this.sourceCodeDecoratorRepository
-                .getMethodLevelResourceDemandingInternalBehaviorLink()) {
-            if (methodLevelResourceDemandingInternalBehaviorLink.getFunction() == classMethod) {
-                if (null != methodLevelResourceDemandingInternalBehaviorLink.getResourceDemandingInternalBehaviour()) {
-                    return methodLevelResourceDemandingInternalBehaviorLink.getResourceDemandingInternalBehaviour();
-                }
+        for (final MethodLevelResourceDemandingInternalBehaviorLink methodLevelResourceDemandingInternalBehaviorLink : SourceCodeDecoratorIndex
+                .getIndex(this.sourceCodeDecoratorRepository)
+                .getMethodLevelResourceDemandingInternalBehaviorLinksOfFunction(classMethod)) {
+            if (null != methodLevelResourceDemandingInternalBehaviorLink.getResourceDemandingInternalBehaviour()) {
+                return methodLevelResourceDemandingInternalBehaviorLink.getResourceDemandingInternalBehaviour();
             }
         }
         return null;
@@ -56,13 +56,11 @@ public class DefaultResourceDemandingBehaviourForClassMethodFinder
     }
 
     private Signature getCorrespondingSignatureForClassMethod(final ClassMethod classMethod) {
-        for (final MethodLevelSourceCodeLink methodLevelSourceCodeLink : this.sourceCodeDecoratorRepository
-                .getMethodLevelSourceCodeLink()) {
-            if (methodLevelSourceCodeLink.getFunction() == classMethod) {
-                final Signature signature = methodLevelSourceCodeLink.getOperation();
-                if (null != signature) {
-                    return signature;
-                }
+        for (final MethodLevelSourceCodeLink methodLevelSourceCodeLink : SourceCodeDecoratorIndex
+                .getIndex(this.sourceCodeDecoratorRepository).getMethodLevelSourceCodeLinksOfFunction(classMethod)) {
+            final Signature signature = methodLevelSourceCodeLink.getOperation();
+            if (null != signature) {
+                return signature;
             }
         }
         return null;
@@ -6,12 +6,15 @@ import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.util.ComposedSwitch;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.emftext.language.java.commons.Commentable;
 import org.emftext.language.java.expressions.util.ExpressionsSwitch;
 import org.emftext.language.java.members.Method;
@@ -30,6 +33,8 @@ import org.emftext.language.java.statements.StatementListContainer;
 import org.emftext.language.java.statements.TryBlock;
 import org.emftext.language.java.statements.WhileLoop;
 import org.emftext.language.java.statements.util.StatementsSwitch;
+import org.palladiosimulator.pcm.repository.BasicComponent;
+import org.somox.gast2seff.visitors.FunctionClassificationMemo.ClassifiedBody;
 import org.somox.kdmhelper.KDMHelper;
 
 /**
@@ -48,12 +53,53 @@ public class FunctionCallClassificationVisitor extends ComposedSwitch<Collection
 
     private final MethodCallFinder methodCallFinder;
 
+    /**
+     * Memo shared with the visitors of other SEFFs, or null if classifications are not shared
+     */
+    private final FunctionClassificationMemo memo;
+
+    /**
+     * The component the strategy classifies the calls for
+     */
+    private final BasicComponent component;
+
+    /**
+     * The bodies of internal methods being classified, the innermost last
+     */
+    private final List<BodyClassification> bodyClassifications = new ArrayList<BodyClassification>();
+
+    /**
+     * Classified bodies which reach a recursive call, so their classification depends on where it
+     * started
+     */
+    private final Set<StatementListContainer> recursiveBodies = Collections
+            .newSetFromMap(new IdentityHashMap<StatementListContainer, Boolean>());
+
     public FunctionCallClassificationVisitor(final IFunctionClassificationStrategy strategy,
             final MethodCallFinder methodCallFinder) {
+        this(strategy, methodCallFinder, null, null);
+    }
+
+    /**
+     * @param strategy
+     *            The strategy classifying the calls for the component.
+     * @param methodCallFinder
+     *            The finder of the calls in the statements.
+     * @param memo
+     *            The memo of classified bodies shared by the visitors of all SEFFs, or null to
+     *            classify all bodies again.
+     * @param component
+     *            The component the strategy classifies the calls for, used as context in the memo.
+     */
+    public FunctionCallClassificationVisitor(final IFunctionClassificationStrategy strategy,
+            final MethodCallFinder methodCallFinder, final FunctionClassificationMemo memo,
+            final BasicComponent component) {
         super();
 
         this.methodCallFinder = methodCallFinder;
         this.myStrategy = strategy;
+        this.memo = memo;
+        this.component = component;
         this.addSwitch(new MembersClassification());
         this.addSwitch(new StatementClassification());
         this.addSwitch(new ExpressionClassification());
@@ -290,7 +336,7 @@ public class FunctionCallClassificationVisitor extends ComposedSwitch<Collection
                 if (targetFunctionBody != null) {
                     logger.trace("visiting internal call. accessed class: "
                             + calledMethod.getContainingConcreteClassifier());
-                    internalTypes = this.doSwitch(targetFunctionBody);
+                    internalTypes = this.classifyInternalBody(targetFunctionBody, statement);
                 } else {
                     logger.warn("Behaviour not set in GAST for " + calledMethod.getName());
                 }
@@ -306,8 +352,117 @@ public class FunctionCallClassificationVisitor extends ComposedSwitch<Collection
         return myTypes;
     }
 
+    /**
+     * Classifies the body of an internal method called by the given statement. If there is a memo,
+     * a memoized classification of the body is copied instead, and the classification is memoized
+     * unless it reaches a recursive call.
+     *
+     * @param body
+     *            the body of the called method
+     * @param callingStatement
+     *            the statement calling the method
+     * @return the annotation of the body
+     */
+    private Collection<BitSet> classifyInternalBody(final StatementListContainer body,
+            final Statement callingStatement) {
+        if (this.memo == null) {
+            return this.doSwitch(body);
+        }
+        if (!this.bodyClassifications.isEmpty()) {
+            this.bodyClassifications.get(this.bodyClassifications.size() - 1).calledBodies.add(body);
+        }
+        if (this.isBeingClassified(body, callingStatement)) {
+            // recursive call, the result depends on where the classification started
+            this.markBodyClassificationsRecursive();
+            return this.doSwitch(body);
+        }
+        if (this.annotations.containsKey(body)) {
+            if (this.recursiveBodies.contains(body)) {
+                this.markBodyClassificationsRecursive();
+            }
+            return this.annotations.get(body);
+        }
+        final ClassifiedBody classifiedBody = this.memo.get(this.component, body);
+        if (classifiedBody != null) {
+            this.copyClassification(classifiedBody);
+            return this.annotations.get(body);
+        }
+
+        final BodyClassification bodyClassification = new BodyClassification(body, callingStatement);
+        this.bodyClassifications.add(bodyClassification);
+        final Collection<BitSet> result;
+        try {
+            result = this.doSwitch(body);
+        } finally {
+            this.bodyClassifications.remove(this.bodyClassifications.size() - 1);
+        }
+        if (bodyClassification.recursive) {
+            this.recursiveBodies.add(body);
+        } else if (body.eContainer() != null) {
+            // bodies without container are created on the fly for methods without statements
+            this.memo.put(this.component, new ClassifiedBody(body, bodyClassification.elements, this.annotations,
+                    bodyClassification.calledBodies));
+        }
+        return result;
+    }
+
+    private boolean isBeingClassified(final StatementListContainer body, final Statement callingStatement) {
+        for (final BodyClassification bodyClassification : this.bodyClassifications) {
+            if (bodyClassification.body == body) {
+                return true;
+            }
+        }
+        // the body the classification started in is not classified as internal body
+        final Statement outermostStatement = this.bodyClassifications.isEmpty() ? callingStatement
+                : this.bodyClassifications.get(0).callingStatement;
+        return EcoreUtil.isAncestor(body, outermostStatement);
+    }
+
+    private void markBodyClassificationsRecursive() {
+        for (final BodyClassification bodyClassification : this.bodyClassifications) {
+            bodyClassification.recursive = true;
+        }
+    }
+
+    private void copyClassification(final ClassifiedBody classifiedBody) {
+        classifiedBody.copyAnnotationsTo(this.annotations);
+        for (final StatementListContainer calledBody : classifiedBody.getCalledBodies()) {
+            if (!this.annotations.containsKey(calledBody)) {
+                final ClassifiedBody classifiedCalledBody = this.memo.get(this.component, calledBody);
+                if (classifiedCalledBody != null) {
+                    this.copyClassification(classifiedCalledBody);
+                }
+            }
+        }
+    }
+
     private void putBitSetInAnnotations(final Commentable object, final List<BitSet> type) {
         this.annotations.put(object, type);
+        if (!this.bodyClassifications.isEmpty()) {
+            this.bodyClassifications.get(this.bodyClassifications.size() - 1).elements.add(object);
+        }
+    }
+
+    /**
+     * State of the classification of the body of an internal method
+     */
+    private static final class BodyClassification {
+
+        private final StatementListContainer body;
+
+        private final Statement callingStatement;
+
+        /** the elements annotated while classifying the body, excluding the called bodies */
+        private final List<Commentable> elements = new ArrayList<Commentable>();
+
+        private final List<StatementListContainer> calledBodies = new ArrayList<StatementListContainer>();
+
+        private boolean recursive = false;
+
+        private BodyClassification(final StatementListContainer body, final Statement callingStatement) {
+            this.body = body;
+            this.callingStatement = callingStatement;
+        }
     }
 
     private BitSet computeChildAnnotations(final BitSet initalValue, final List<Statement> childStatements) {
@@ -0,0 +1,148 @@
+package org.somox.gast2seff.visitors;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.emftext.language.java.commons.Commentable;
+import org.emftext.language.java.statements.StatementListContainer;
+import org.palladiosimulator.pcm.repository.BasicComponent;
+
+/**
+ * Memo of the function call classifications of method bodies, shared by the
+ * {@link FunctionCallClassificationVisitor}s of all SEFFs created in one run. Whether a call is
+ * external depends on the component, so the classifications are kept per component.
+ *
+ * A body is only memoized if no body it calls, directly or transitively, is recursive. The
+ * classification of such a body does not depend on where the classification started, so a visitor
+ * copying the memoized classification gets the same annotations as a visitor computing it. The
+ * memo is safe for concurrent use; memoized classifications are never changed.
+ */
+public class FunctionClassificationMemo {
+
+    private final ConcurrentMap<BasicComponent, ConcurrentMap<StatementListContainer, ClassifiedBody>> memos =
+            new ConcurrentHashMap<BasicComponent, ConcurrentMap<StatementListContainer, ClassifiedBody>>();
+
+    /**
+     * @return The memoized classification of the body in the context of the component, or null if
+     *         there is none.
+     */
+    ClassifiedBody get(final BasicComponent component, final StatementListContainer body) {
+        final Map<StatementListContainer, ClassifiedBody> memo = this.memos.get(component);
+        return memo == null ? null : memo.get(body);
+    }
+
+    void put(final BasicComponent component, final ClassifiedBody classifiedBody) {
+        ConcurrentMap<StatementListContainer, ClassifiedBody> memo = this.memos.get(component);
+        if (memo == null) {
+            memo = new ConcurrentHashMap<StatementListContainer, ClassifiedBody>();
+            final ConcurrentMap<StatementListContainer, ClassifiedBody> existing = this.memos.putIfAbsent(component,
+                    memo);
+            if (existing != null) {
+                memo = existing;
+            }
+        }
+        memo.putIfAbsent(classifiedBody.getBody(), classifiedBody);
+    }
+
+    /**
+     * @return The number of bodies memoized for the component.
+     */
+    public int size(final BasicComponent component) {
+        final Map<StatementListContainer, ClassifiedBody> memo = this.memos.get(component);
+        return memo == null ? 0 : memo.size();
+    }
+
+    /**
+     * The classification of a body: the annotations computed for the body and its statements, and
+     * the bodies of the internal methods it calls, whose annotations are memoized on their own.
+     */
+    static final class ClassifiedBody {
+
+        private final StatementListContainer body;
+
+        private final Commentable[] elements;
+
+        /** index of the annotation of each element; elements may share an annotation */
+        private final int[] annotationIndices;
+
+        private final BitSet[][] annotations;
+
+        private final StatementListContainer[] calledBodies;
+
+        /**
+         * Copies the given annotations, so they can be changed afterwards.
+         */
+        ClassifiedBody(final StatementListContainer body, final List<Commentable> elements,
+                final Map<Commentable, List<BitSet>> annotations, final List<StatementListContainer> calledBodies) {
+            this.body = body;
+            this.elements = elements.toArray(new Commentable[elements.size()]);
+            this.annotationIndices = new int[this.elements.length];
+            final Map<List<BitSet>, Integer> indices = new IdentityHashMap<List<BitSet>, Integer>();
+            final List<BitSet[]> copies = new ArrayList<BitSet[]>();
+            for (int i = 0; i < this.elements.length; i++) {
+                final List<BitSet> annotation = annotations.get(this.elements[i]);
+                Integer index = indices.get(annotation);
+                if (index == null) {
+                    index = copies.size();
+                    indices.put(annotation, index);
+                    copies.add(copy(annotation));
+                }
+                this.annotationIndices[i] = index;
+            }
+            this.annotations = copies.toArray(new BitSet[copies.size()][]);
+            this.calledBodies = calledBodies.toArray(new StatementListContainer[calledBodies.size()]);
+        }
+
+        StatementListContainer getBody() {
+            return this.body;
+        }
+
+        StatementListContainer[] getCalledBodies() {
+            return this.calledBodies;
+        }
+
+        /**
+         * Adds copies of the annotations to the given map. Elements which are already annotated
+         * keep their annotations.
+         */
+        void copyAnnotationsTo(final Map<Commentable, List<BitSet>> target) {
+            final List<List<BitSet>> copies = new ArrayList<List<BitSet>>(this.annotations.length);
+            final boolean[] copied = new boolean[this.annotations.length];
+            for (int i = 0; i < this.annotations.length; i++) {
+                copies.add(null);
+            }
+            for (int i = 0; i < this.elements.length; i++) {
+                if (target.containsKey(this.elements[i])) {
+                    continue;
+                }
+                final int index = this.annotationIndices[i];
+                if (!copied[index] && this.annotations[index] != null) {
+                    final List<BitSet> copy = new ArrayList<BitSet>(this.annotations[index].length);
+                    for (final BitSet bitSet : this.annotations[index]) {
+                        copy.add(bitSet == null ? null : (BitSet) bitSet.clone());
+                    }
+                    copies.set(index, copy);
+                }
+                copied[index] = true;
+                target.put(this.elements[i], copies.get(index));
+            }
+        }
+
+        private static BitSet[] copy(final List<BitSet> annotation) {
+            if (annotation == null) {
+                return null;
+            }
+            final BitSet[] result = new BitSet[annotation.size()];
+            for (int i = 0; i < result.length; i++) {
+                final BitSet bitSet = annotation.get(i);
+                result[i] = bitSet == null ? null : (BitSet) bitSet.clone();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.somox.kdmhelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.ecore.EObject;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.emftext.language.java.containers.CompilationUnit;
+import org.emftext.language.java.members.Field;
+import org.emftext.language.java.members.Member;
+import org.emftext.language.java.types.Type;
+import org.emftext.language.java.types.TypeReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.somox.kdmhelper.AccessSummary.AccessKind;
+import org.somox.kdmhelper.metamodeladdition.Root;
+import org.splevo.jamopp.extraction.JaMoPPSoftwareModelExtractor;
+
+/**
+ * Compares the access summaries with the accesses found by {@link KDMHelper#getAllAccesses} for
+ * each classifier of a fixture with inheritance, nested, local and anonymous classes.
+ */
+public class AccessSummaryIndexTest {
+
+    private Path fixture;
+
+    private Root root;
+
+    @Before
+    public void setUp() throws IOException {
+        this.fixture = Files.createTempDirectory("somox-access-summaries");
+        final Path fixturePackage = Files.createDirectories(this.fixture.resolve("src/fixture"));
+        write(fixturePackage, "Api", "public interface Api {\n    int call(Value value);\n}\n");
+        write(fixturePackage, "Value", "public class Value {\n    public int get() {\n        return 1;\n    }\n}\n");
+        write(fixturePackage, "Base", "public abstract class Base implements Api {\n    protected Value value;\n}\n");
+        write(fixturePackage, "Impl",
+                "import java.util.List;\n\n"
+                        + "public class Impl extends Base implements Api {\n"
+                        + "    private List<Value> values;\n"
+                        + "    private Impl self;\n\n"
+                        + "    public int call(Value value) {\n"
+                        + "        Value local = new Value();\n"
+                        + "        Api anonymous = new Api() {\n"
+                        + "            public int call(Value other) {\n"
+                        + "                return other.get();\n"
+                        + "            }\n"
+                        + "        };\n"
+                        + "        class Local extends Value {\n"
+                        + "            private Impl owner;\n"
+                        + "        }\n"
+                        + "        return local.get() + value.get() + anonymous.call(new Local());\n"
+                        + "    }\n\n"
+                        + "    static class Nested extends Base {\n"
+                        + "        private Value nestedValue;\n\n"
+                        + "        public int call(Value value) {\n"
+                        + "            return nestedValue.get();\n"
+                        + "        }\n"
+                        + "    }\n"
+                        + "}\n");
+
+        final JaMoPPSoftwareModelExtractor extractor = new JaMoPPSoftwareModelExtractor();
+        final List<File> sourceFolders = new ArrayList<File>();
+        sourceFolders.add(this.fixture.toFile());
+        extractor.extractSoftwareModelFromFolders(sourceFolders, new NullProgressMonitor(), null, false);
+        final KDMReader reader = new KDMReader();
+        reader.addModelsToRoot(extractor.getSourceResources());
+        this.root = reader.getRoot();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.fixture.toFile());
+    }
+
+    @Test
+    public void testSummariesEqualTraversal() {
+        final List<ConcreteClassifier> classifiers = this.getAllClassifiers();
+        assertTrue(classifiers.size() >= 7);
+        boolean foundInheritance = false;
+        for (final ConcreteClassifier classifier : classifiers) {
+            final AccessSummary summary = this.root.getAccessSummaryIndex().getSummary(classifier);
+            assertSame(classifier, summary.getClassifier());
+            assertSummaryEqualsTraversal(classifier, summary);
+            for (int entry = 0; entry < summary.getEntryCount(); entry++) {
+                foundInheritance |= summary.getKind(entry) == AccessKind.INHERITANCE;
+            }
+        }
+        assertTrue(foundInheritance);
+    }
+
+    @Test
+    public void testBuildEqualsSummariesOnDemand() {
+        final AccessSummaryIndex onDemand = new AccessSummaryIndex();
+        for (final ConcreteClassifier classifier : this.getAllClassifiers()) {
+            assertSummariesEqual(onDemand.getSummary(classifier),
+                    this.root.getAccessSummaryIndex().getSummary(classifier));
+        }
+    }
+
+    @Test
+    public void testInvalidatedSummariesAreComputedAgain() {
+        final AccessSummaryIndex index = this.root.getAccessSummaryIndex();
+        final ConcreteClassifier impl = this.getClassifier("Impl");
+        final ConcreteClassifier nested = this.getClassifier("Nested");
+        final AccessSummary nestedSummary = index.getSummary(nested);
+        final AccessSummary implSummary = index.getSummary(impl);
+
+        // remove the field of the nested class
+        final Iterator<Member> members = nested.getMembers().iterator();
+        while (members.hasNext()) {
+            if (members.next() instanceof Field) {
+                members.remove();
+            }
+        }
+        assertSame(nestedSummary, index.getSummary(nested));
+
+        index.invalidate(nested);
+        assertNotSame(implSummary, index.getSummary(impl));
+        assertNotSame(nestedSummary, index.getSummary(nested));
+        assertSummaryEqualsTraversal(impl, index.getSummary(impl));
+        assertSummaryEqualsTraversal(nested, index.getSummary(nested));
+    }
+
+    private static void assertSummaryEqualsTraversal(final ConcreteClassifier classifier,
+            final AccessSummary summary) {
+        final Map<List<Object>, Integer> expected = new LinkedHashMap<List<Object>, Integer>();
+        int unresolved = 0;
+        for (final TypeReference access : KDMHelper.getAllAccesses(classifier)) {
+            final Type accessedType = GetAccessedType.getAccessedType(access);
+            if (accessedType instanceof ConcreteClassifier) {
+                final List<Object> key = new ArrayList<Object>();
+                key.add(accessedType);
+                key.add(KDMHelper.isInheritanceTypeAccess(access) ? AccessKind.INHERITANCE : AccessKind.REFERENCE);
+                final Integer count = expected.get(key);
+                expected.put(key, count == null ? 1 : count + 1);
+            } else {
+                unresolved++;
+            }
+        }
+
+        final Map<List<Object>, Integer> actual = new LinkedHashMap<List<Object>, Integer>();
+        for (int entry = 0; entry < summary.getEntryCount(); entry++) {
+            final List<Object> key = new ArrayList<Object>();
+            key.add(summary.getTarget(entry));
+            key.add(summary.getKind(entry));
+            actual.put(key, summary.getCount(entry));
+        }
+        assertEquals(classifier.getName(), new ArrayList<Object>(expected.entrySet()),
+                new ArrayList<Object>(actual.entrySet()));
+        assertEquals(classifier.getName(), unresolved, summary.getUnresolvedAccessCount());
+    }
+
+    private static void assertSummariesEqual(final AccessSummary expected, final AccessSummary actual) {
+        assertSame(expected.getClassifier(), actual.getClassifier());
+        assertEquals(expected.getEntryCount(), actual.getEntryCount());
+        for (int entry = 0; entry < expected.getEntryCount(); entry++) {
+            assertSame(expected.getTarget(entry), actual.getTarget(entry));
+            assertSame(expected.getKind(entry), actual.getKind(entry));
+            assertEquals(expected.getCount(entry), actual.getCount(entry));
+        }
+        assertEquals(expected.getUnresolvedAccessCount(), actual.getUnresolvedAccessCount());
+        assertEquals(expected.getAccessedClassifiers(), actual.getAccessedClassifiers());
+    }
+
+    private List<ConcreteClassifier> getAllClassifiers() {
+        final List<ConcreteClassifier> classifiers = new ArrayList<ConcreteClassifier>();
+        for (final CompilationUnit compilationUnit : this.root.getCompilationUnits()) {
+            for (final Iterator<EObject> iterator = compilationUnit.eAllContents(); iterator.hasNext();) {
+                final EObject element = iterator.next();
+                if (element instanceof ConcreteClassifier) {
+                    classifiers.add((ConcreteClassifier) element);
+                }
+            }
+        }
+        return classifiers;
+    }
+
+    private ConcreteClassifier getClassifier(final String name) {
+        for (final ConcreteClassifier classifier : this.getAllClassifiers()) {
+            if (name.equals(classifier.getName())) {
+                return classifier;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private static void write(final Path fixturePackage, final String className, final String body)
+            throws IOException {
+        Files.write(fixturePackage.resolve(className + ".java"),
+                ("package fixture;\n\n" + body).getBytes(StandardCharsets.UTF_8));
+    }
+}
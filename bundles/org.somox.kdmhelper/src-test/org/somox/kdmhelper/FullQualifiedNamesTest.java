@@ -0,0 +1,277 @@
+package org.somox.kdmhelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.ecore.EObject;
+import org.emftext.language.java.classifiers.AnonymousClass;
+import org.emftext.language.java.classifiers.Class;
+import org.emftext.language.java.classifiers.ClassifiersFactory;
+import org.emftext.language.java.commons.Commentable;
+import org.emftext.language.java.commons.NamedElement;
+import org.emftext.language.java.containers.CompilationUnit;
+import org.emftext.language.java.members.EnumConstant;
+import org.emftext.language.java.members.Method;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.somox.kdmhelper.FullQualifiedNames.QualifiedName;
+import org.somox.kdmhelper.metamodeladdition.Root;
+import org.splevo.jamopp.extraction.JaMoPPSoftwareModelExtractor;
+
+/**
+ * Compares the cached full qualified names with the names computed by walking the containers of
+ * each element, for nested, local and anonymous classes, the default package and enum constants.
+ */
+public class FullQualifiedNamesTest {
+
+    private Path fixture;
+
+    private Root root;
+
+    @Before
+    public void setUp() throws IOException {
+        this.fixture = Files.createTempDirectory("somox-qualified-names");
+        final Path sources = Files.createDirectories(this.fixture.resolve("src"));
+        final Path fixturePackage = Files.createDirectories(sources.resolve("fixture"));
+        write(sources, "DefaultPackaged", "", "public class DefaultPackaged {\n    private int value;\n}\n");
+        write(fixturePackage, "Item", "package fixture;\n\n", "public class Item {\n}\n");
+        write(fixturePackage, "ItemList", "package fixture;\n\n", "public class ItemList {\n    private Item item;\n}\n");
+        write(fixturePackage, "Color", "package fixture;\n\n",
+                "public enum Color {\n    RED,\n    GREEN {\n        public String toString() {\n"
+                        + "            return \"green\";\n        }\n    };\n}\n");
+        write(fixturePackage, "Outer", "package fixture;\n\n",
+                "public class Outer {\n"
+                        + "    public Runnable create() {\n"
+                        + "        return new Runnable() {\n"
+                        + "            public void run() {\n"
+                        + "                class Local {\n"
+                        + "                }\n"
+                        + "            }\n"
+                        + "        };\n"
+                        + "    }\n\n"
+                        + "    static class Inner {\n"
+                        + "        class Innermost {\n"
+                        + "        }\n"
+                        + "    }\n"
+                        + "}\n");
+
+        final JaMoPPSoftwareModelExtractor extractor = new JaMoPPSoftwareModelExtractor();
+        final List<File> sourceFolders = new ArrayList<File>();
+        sourceFolders.add(this.fixture.toFile());
+        extractor.extractSoftwareModelFromFolders(sourceFolders, new NullProgressMonitor(), null, false);
+        final KDMReader reader = new KDMReader();
+        reader.addModelsToRoot(extractor.getSourceResources());
+        this.root = reader.getRoot();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.fixture.toFile());
+    }
+
+    @Test
+    public void testNamesEqualContainerWalk() {
+        final FullQualifiedNames names = new FullQualifiedNames();
+        final List<EObject> elements = this.getAllElements();
+        for (final EObject element : elements) {
+            assertEquals(computeByContainerWalk(element), names.getFullQualifiedName(element));
+        }
+        for (final EObject element : elements) {
+            if (element instanceof Commentable) {
+                assertEquals(computeByContainerWalk(element),
+                        KDMHelper.computeFullQualifiedName((Commentable) element));
+            }
+        }
+    }
+
+    @Test
+    public void testSegments() {
+        final FullQualifiedNames names = new FullQualifiedNames();
+        final QualifiedName outer = names.getQualifiedName(this.getNamedElement(Class.class, "Outer"));
+        final QualifiedName inner = names.getQualifiedName(this.getNamedElement(Class.class, "Inner"));
+        final QualifiedName innermost = names.getQualifiedName(this.getNamedElement(Class.class, "Innermost"));
+        assertEquals("Outer", outer.getSegment(outer.getSegmentCount() - 1));
+        assertEquals("Inner", inner.getSegment(inner.getSegmentCount() - 1));
+        assertEquals(outer.getSegmentCount() + 2, innermost.getSegmentCount());
+        assertTrue(innermost.startsWith(inner));
+        assertTrue(innermost.startsWith(outer));
+        assertTrue(inner.startsWith(inner));
+        assertFalse(outer.startsWith(inner));
+
+        final QualifiedName run = names.getQualifiedName(this.getNamedElement(Method.class, "run"));
+        assertEquals("run()", run.getSegment(run.getSegmentCount() - 1));
+        final QualifiedName local = names.getQualifiedName(this.getNamedElement(Class.class, "Local"));
+        assertTrue(local.startsWith(run));
+        assertTrue(run.startsWith(outer));
+
+        final QualifiedName green = names.getQualifiedName(this.getNamedElement(EnumConstant.class, "GREEN"));
+        assertEquals("GREEN", green.getSegment(green.getSegmentCount() - 1));
+        assertEquals("Color", green.getSegment(green.getSegmentCount() - 2));
+
+        // whole segments are compared, unlike String.startsWith
+        final QualifiedName item = names.getQualifiedName(this.getNamedElement(Class.class, "Item"));
+        final QualifiedName itemList = names.getQualifiedName(this.getNamedElement(Class.class, "ItemList"));
+        assertTrue(itemList.getName().startsWith(item.getName()));
+        assertFalse(itemList.startsWith(item));
+        assertEquals(item.getSegmentCount(), itemList.getSegmentCount());
+        for (int i = 0; i < item.getSegmentCount() - 1; i++) {
+            assertEquals(item.getSegmentId(i), itemList.getSegmentId(i));
+        }
+
+        final QualifiedName defaultPackaged = names
+                .getQualifiedName(this.getNamedElement(Class.class, "DefaultPackaged"));
+        assertEquals("DefaultPackaged", defaultPackaged.getSegment(defaultPackaged.getSegmentCount() - 1));
+    }
+
+    @Test
+    public void testUnnamedElementsHaveTheSegmentsOfTheirNamedContainer() {
+        final FullQualifiedNames names = new FullQualifiedNames();
+        int anonymousClasses = 0;
+        for (final EObject element : this.getAllElements()) {
+            if (element instanceof AnonymousClass) {
+                anonymousClasses++;
+                EObject namedContainer = element.eContainer();
+                while (!(namedContainer instanceof NamedElement)) {
+                    namedContainer = namedContainer.eContainer();
+                }
+                final QualifiedName anonymous = names.getQualifiedName(element);
+                final QualifiedName container = names.getQualifiedName(namedContainer);
+                assertTrue(anonymous.startsWith(container));
+                assertTrue(container.startsWith(anonymous));
+            }
+        }
+        assertEquals(2, anonymousClasses);
+    }
+
+    @Test
+    public void testNamesAreComputedOnceForElementsInResources() {
+        final FullQualifiedNames names = new FullQualifiedNames();
+        final Class outer = this.getNamedElement(Class.class, "Outer");
+        final QualifiedName name = names.getQualifiedName(outer);
+        assertSame(name, names.getQualifiedName(outer));
+        names.invalidate(outer);
+        assertEquals(name.getName(), names.getFullQualifiedName(outer));
+
+        // elements under construction are not cached
+        final Class created = ClassifiersFactory.eINSTANCE.createClass();
+        created.setName("Created");
+        assertEquals("Created", names.getFullQualifiedName(created));
+        created.setName("Renamed");
+        assertEquals("Renamed", names.getFullQualifiedName(created));
+    }
+
+    @Test
+    public void testInvalidateAllRemovesSegmentIds() {
+        final FullQualifiedNames names = new FullQualifiedNames();
+        final Class outer = this.getNamedElement(Class.class, "Outer");
+        final QualifiedName name = names.getQualifiedName(outer);
+        final int id = names.getSegmentId("Outer");
+        assertEquals(id, name.getSegmentId(name.getSegmentCount() - 1));
+
+        names.invalidateAll();
+        assertNotSame(name, names.getQualifiedName(outer));
+        assertTrue(names.getSegmentId("Outer") != id);
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        final FullQualifiedNames names = new FullQualifiedNames();
+        final List<EObject> elements = this.getAllElements();
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+            for (int task = 0; task < 8; task++) {
+                futures.add(pool.submit(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() {
+                        final List<String> result = new ArrayList<String>();
+                        for (final EObject element : elements) {
+                            result.add(names.getFullQualifiedName(element));
+                        }
+                        return result;
+                    }
+                }));
+            }
+            final List<String> expected = new ArrayList<String>();
+            for (final EObject element : elements) {
+                expected.add(computeByContainerWalk(element));
+            }
+            for (final Future<List<String>> future : futures) {
+                assertEquals(expected, future.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * The computation {@link KDMHelper#computeFullQualifiedName} used to do on each call.
+     */
+    private static String computeByContainerWalk(final EObject element) {
+        EObject pack = element;
+        String result = "";
+        if (pack instanceof NamedElement) {
+            result = getName((NamedElement) pack);
+        }
+        while (pack != null) {
+            if (pack.eContainer() != null && pack.eContainer() instanceof NamedElement) {
+                pack = pack.eContainer();
+                result = getName((NamedElement) pack) + "." + result;
+            } else {
+                pack = pack.eContainer();
+            }
+        }
+        return KDMHelper.removeLastPoint(result);
+    }
+
+    private static String getName(final NamedElement element) {
+        return element instanceof Method ? element.getName() + "()" : element.getName();
+    }
+
+    private List<EObject> getAllElements() {
+        final List<EObject> elements = new ArrayList<EObject>();
+        for (final CompilationUnit compilationUnit : this.root.getCompilationUnits()) {
+            elements.add(compilationUnit);
+            for (final Iterator<EObject> iterator = compilationUnit.eAllContents(); iterator.hasNext();) {
+                elements.add(iterator.next());
+            }
+        }
+        return elements;
+    }
+
+    private <T extends NamedElement> T getNamedElement(final java.lang.Class<T> type, final String name) {
+        for (final EObject element : this.getAllElements()) {
+            if (type.isInstance(element) && name.equals(((NamedElement) element).getName())) {
+                return type.cast(element);
+            }
+        }
+        fail("No " + type.getSimpleName() + " " + name);
+        return null;
+    }
+
+    private static void write(final Path folder, final String className, final String packageDeclaration,
+            final String body) throws IOException {
+        Files.write(folder.resolve(className + ".java"),
+                (packageDeclaration + body).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,298 @@
+package org.splevo.jamopp.extraction.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cold, warm and partially invalidated loads of the {@link ReferenceCache} as well as the
+ * recovery from corrupted cache files, the compaction of the cache file and the precedence of
+ * several cache directories.
+ *
+ * Each resource is backed by a source file the content hashes are computed of and contains a
+ * single class named like the resource.
+ */
+public class ReferenceCacheTest {
+
+    private Path directory;
+
+    private File cacheDirectory;
+
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("somox-reference-cache");
+        this.cacheDirectory = this.directory.resolve("cache").toFile();
+        this.cacheFile = new File(this.cacheDirectory, ReferenceCache.CACHE_FILE_NAME);
+        for (final String name : Arrays.asList("A", "B", "C")) {
+            this.writeSource(name, "class " + name + " {}");
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.directory.toFile());
+    }
+
+    @Test
+    public void testColdLoad() {
+        final ResourceSet resourceSet = this.createResourceSet();
+        final ReferenceCache cache = this.createCache();
+        final Resource a = this.getResource(resourceSet, "A");
+
+        assertFalse(cache.isCached(a));
+        assertNull(cache.getEObject(a, "x"));
+
+        cache.registerEObject(a, "x", this.getClass(resourceSet, "B"));
+        assertEquals(1, cache.getNotResolvedFromCacheCounterReference());
+        assertSame(this.getClass(resourceSet, "B"), cache.getEObject(a, "x"));
+        cache.save();
+        assertTrue(this.cacheFile.isFile());
+    }
+
+    @Test
+    public void testWarmLoad() {
+        this.populateCache();
+
+        final ResourceSet resourceSet = this.createResourceSet();
+        final ReferenceCache cache = this.createCache();
+        cache.validate(resourceSet.getResources());
+
+        assertEquals(0, cache.getInvalidatedResourceCounter());
+        assertSame(this.getClass(resourceSet, "B"), cache.getEObject(this.getResource(resourceSet, "A"), "x"));
+        assertSame(this.getClass(resourceSet, "A"), cache.getEObject(this.getResource(resourceSet, "C"), "y"));
+        assertEquals(0, cache.getNotResolvedFromCacheCounterReference());
+    }
+
+    @Test
+    public void testPartiallyInvalidatedLoad() throws IOException {
+        this.populateCache();
+        // A refers to B and has to be resolved again, C only refers to A
+        this.writeSource("B", "class B { int changed; }");
+
+        final ResourceSet resourceSet = this.createResourceSet();
+        final ReferenceCache cache = this.createCache();
+        cache.validate(resourceSet.getResources());
+
+        assertEquals(1, cache.getInvalidatedResourceCounter());
+        assertFalse(cache.isCached(this.getResource(resourceSet, "A")));
+        assertNull(cache.getEObject(this.getResource(resourceSet, "A"), "x"));
+        assertSame(this.getClass(resourceSet, "A"), cache.getEObject(this.getResource(resourceSet, "C"), "y"));
+
+        cache.registerEObject(this.getResource(resourceSet, "A"), "x", this.getClass(resourceSet, "B"));
+        cache.save();
+
+        final ResourceSet warmResourceSet = this.createResourceSet();
+        final ReferenceCache warmCache = this.createCache();
+        warmCache.validate(warmResourceSet.getResources());
+        assertEquals(0, warmCache.getInvalidatedResourceCounter());
+        assertSame(this.getClass(warmResourceSet, "B"),
+                warmCache.getEObject(this.getResource(warmResourceSet, "A"), "x"));
+    }
+
+    @Test
+    public void testResetRemovesReferencesIntoResource() {
+        this.populateCache();
+
+        final ResourceSet resourceSet = this.createResourceSet();
+        final ReferenceCache cache = this.createCache();
+        cache.validate(resourceSet.getResources());
+        cache.reset(this.getResource(resourceSet, "A"));
+
+        assertNull(cache.getEObject(this.getResource(resourceSet, "A"), "x"));
+        assertNull(cache.getEObject(this.getResource(resourceSet, "C"), "y"));
+
+        final ResourceSet warmResourceSet = this.createResourceSet();
+        final ReferenceCache warmCache = this.createCache();
+        assertFalse(warmCache.isCached(this.getResource(warmResourceSet, "A")));
+        assertFalse(warmCache.isCached(this.getResource(warmResourceSet, "C")));
+    }
+
+    @Test
+    public void testCorruptedTailRecovery() throws IOException {
+        this.populateCache();
+        final long validLength = this.cacheFile.length();
+        try (RandomAccessFile file = new RandomAccessFile(this.cacheFile, "rw")) {
+            // a record header announcing more bytes than available
+            file.seek(validLength);
+            file.writeInt(1000);
+            file.writeInt(42);
+            file.write(new byte[] { 1, 2, 3 });
+        }
+
+        final ResourceSet resourceSet = this.createResourceSet();
+        final ReferenceCache cache = this.createCache();
+        assertSame(this.getClass(resourceSet, "B"), cache.getEObject(this.getResource(resourceSet, "A"), "x"));
+
+        cache.registerEObject(this.getResource(resourceSet, "B"), "z", this.getClass(resourceSet, "C"));
+        cache.save();
+
+        final ResourceSet warmResourceSet = this.createResourceSet();
+        final ReferenceCache warmCache = this.createCache();
+        assertSame(this.getClass(warmResourceSet, "B"),
+                warmCache.getEObject(this.getResource(warmResourceSet, "A"), "x"));
+        assertSame(this.getClass(warmResourceSet, "C"),
+                warmCache.getEObject(this.getResource(warmResourceSet, "B"), "z"));
+    }
+
+    @Test
+    public void testCorruptedRecordRecovery() throws IOException {
+        this.populateCache();
+        try (RandomAccessFile file = new RandomAccessFile(this.cacheFile, "rw")) {
+            // flip a byte in the payload of the last record
+            file.seek(file.length() - 1);
+            final int lastByte = file.read();
+            file.seek(file.length() - 1);
+            file.write(lastByte ^ 0xFF);
+        }
+
+        final ResourceSet resourceSet = this.createResourceSet();
+        final ReferenceCache cache = this.createCache();
+        final Resource a = this.getResource(resourceSet, "A");
+        final Resource c = this.getResource(resourceSet, "C");
+        // the last record has been dropped
+        assertTrue(cache.isCached(a));
+        assertFalse(cache.isCached(c));
+    }
+
+    @Test
+    public void testUnknownFormatIsReplaced() throws IOException {
+        FileUtils.forceMkdir(this.cacheDirectory);
+        Files.write(this.cacheFile.toPath(), "not a cache file".getBytes(StandardCharsets.UTF_8));
+
+        final ResourceSet resourceSet = this.createResourceSet();
+        final ReferenceCache cache = this.createCache();
+        assertFalse(cache.isCached(this.getResource(resourceSet, "A")));
+        cache.registerEObject(this.getResource(resourceSet, "A"), "x", this.getClass(resourceSet, "B"));
+        cache.save();
+
+        final ResourceSet warmResourceSet = this.createResourceSet();
+        assertSame(this.getClass(warmResourceSet, "B"),
+                this.createCache().getEObject(this.getResource(warmResourceSet, "A"), "x"));
+    }
+
+    @Test
+    public void testCompaction() {
+        final ResourceSet resourceSet = this.createResourceSet();
+        final ReferenceCache cache = this.createCache();
+        final Resource a = this.getResource(resourceSet, "A");
+        final char[] padding = new char[1000];
+        Arrays.fill(padding, 'p');
+        for (int i = 0; i < 200; i++) {
+            cache.registerEObject(a, "x" + new String(padding) + i, this.getClass(resourceSet, "B"));
+            cache.save();
+        }
+        cache.awaitCompaction();
+        // without compaction, the file would hold about 20 megabytes
+        assertTrue(this.cacheFile.length() < 2 * 1024 * 1024);
+
+        final ResourceSet warmResourceSet = this.createResourceSet();
+        final ReferenceCache warmCache = this.createCache();
+        final Resource warmA = this.getResource(warmResourceSet, "A");
+        for (int i = 0; i < 200; i++) {
+            assertNotNull(warmCache.getEObject(warmA, "x" + new String(padding) + i));
+        }
+    }
+
+    @Test
+    public void testReferencesOfFirstDirectoryTakePrecedence() {
+        final File otherCacheDirectory = this.directory.resolve("other-cache").toFile();
+        final ResourceSet resourceSet = this.createResourceSet();
+        final ReferenceCache otherCache = new ReferenceCache(
+                Collections.singletonList(otherCacheDirectory.getAbsolutePath()));
+        otherCache.registerEObject(this.getResource(resourceSet, "A"), "x", this.getClass(resourceSet, "B"));
+        otherCache.save();
+        final ReferenceCache cache = new ReferenceCache(
+                Arrays.asList(this.cacheDirectory.getAbsolutePath(), otherCacheDirectory.getAbsolutePath()));
+        cache.registerEObject(this.getResource(resourceSet, "A"), "x", this.getClass(resourceSet, "C"));
+        cache.save();
+
+        // the references saved last are stored in the first directory
+        final ResourceSet warmResourceSet = this.createResourceSet();
+        final ReferenceCache warmCache = new ReferenceCache(
+                Arrays.asList(this.cacheDirectory.getAbsolutePath(), otherCacheDirectory.getAbsolutePath()));
+        assertSame(this.getClass(warmResourceSet, "C"),
+                warmCache.getEObject(this.getResource(warmResourceSet, "A"), "x"));
+    }
+
+    @Test
+    public void testLegacyCacheFileIsDeleted() throws IOException {
+        FileUtils.forceMkdir(this.cacheDirectory);
+        final File legacyCacheFile = new File(this.cacheDirectory, ReferenceCache.LEGACY_CACHE_FILE_NAME);
+        Files.write(legacyCacheFile.toPath(), new byte[] { 1, 2, 3 });
+
+        final ResourceSet resourceSet = this.createResourceSet();
+        final ReferenceCache cache = this.createCache();
+        assertFalse(legacyCacheFile.exists());
+        assertFalse(cache.isCached(this.getResource(resourceSet, "A")));
+    }
+
+    /**
+     * Caches A:x pointing to B and C:y pointing to A.
+     */
+    private void populateCache() {
+        final ResourceSet resourceSet = this.createResourceSet();
+        final ReferenceCache cache = this.createCache();
+        cache.registerEObject(this.getResource(resourceSet, "A"), "x", this.getClass(resourceSet, "B"));
+        cache.registerEObject(this.getResource(resourceSet, "C"), "y", this.getClass(resourceSet, "A"));
+        cache.save();
+    }
+
+    private ReferenceCache createCache() {
+        return new ReferenceCache(Collections.singletonList(this.cacheDirectory.getAbsolutePath()));
+    }
+
+    private ResourceSet createResourceSet() {
+        final ResourceSet resourceSet = new ResourceSetImpl();
+        for (final String name : Arrays.asList("A", "B", "C")) {
+            final Resource resource = new ResourceImpl(this.getURI(name));
+            resourceSet.getResources().add(resource);
+            final EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+            eClass.setName(name);
+            resource.getContents().add(eClass);
+        }
+        return resourceSet;
+    }
+
+    private Resource getResource(final ResourceSet resourceSet, final String name) {
+        return resourceSet.getResource(this.getURI(name), false);
+    }
+
+    private EObject getClass(final ResourceSet resourceSet, final String name) {
+        return this.getResource(resourceSet, name).getContents().get(0);
+    }
+
+    private URI getURI(final String name) {
+        return URI.createFileURI(this.directory.resolve(name + ".java").toAbsolutePath().toString());
+    }
+
+    private void writeSource(final String name, final String content) throws IOException {
+        Files.write(this.directory.resolve(name + ".java"), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,169 @@
+package org.somox.kdmhelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.emftext.language.java.types.Type;
+import org.emftext.language.java.types.TypeReference;
+
+/**
+ * The accesses of a classifier, as returned by {@link KDMHelper#getAllAccesses} for it, condensed
+ * into one entry per accessed classifier and {@link AccessKind}. The entries are in the order of
+ * the first access of their classifier and kind. Accesses whose accessed type is
+ * no {@link ConcreteClassifier} are only counted.
+ *
+ * Summaries are immutable. Use an {@link AccessSummaryIndex} to obtain them.
+ */
+public final class AccessSummary {
+
+    /**
+     * Kinds of accesses
+     */
+    public enum AccessKind {
+        /** Super type references of a classifier, see {@link KDMHelper#isInheritanceTypeAccess} */
+        INHERITANCE,
+        /** All other accesses */
+        REFERENCE
+    }
+
+    private final ConcreteClassifier classifier;
+
+    private final ConcreteClassifier[] targets;
+
+    private final AccessKind[] kinds;
+
+    private final int[] counts;
+
+    private final int unresolvedAccessCount;
+
+    private final List<ConcreteClassifier> accessedClassifiers;
+
+    private AccessSummary(final ConcreteClassifier classifier, final ConcreteClassifier[] targets,
+            final AccessKind[] kinds, final int[] counts, final int unresolvedAccessCount) {
+        this.classifier = classifier;
+        this.targets = targets;
+        this.kinds = kinds;
+        this.counts = counts;
+        this.unresolvedAccessCount = unresolvedAccessCount;
+        this.accessedClassifiers = Collections.unmodifiableList(
+                new ArrayList<ConcreteClassifier>(new LinkedHashSet<ConcreteClassifier>(Arrays.asList(targets))));
+    }
+
+    /**
+     * @return The summarized classifier.
+     */
+    public ConcreteClassifier getClassifier() {
+        return this.classifier;
+    }
+
+    /**
+     * @return The number of entries.
+     */
+    public int getEntryCount() {
+        return this.targets.length;
+    }
+
+    /**
+     * @return The accessed classifier of the entry at the given position.
+     */
+    public ConcreteClassifier getTarget(final int entry) {
+        return this.targets[entry];
+    }
+
+    /**
+     * @return The kind of the accesses of the entry at the given position.
+     */
+    public AccessKind getKind(final int entry) {
+        return this.kinds[entry];
+    }
+
+    /**
+     * @return The number of accesses of the entry at the given position.
+     */
+    public int getCount(final int entry) {
+        return this.counts[entry];
+    }
+
+    /**
+     * @return The number of accesses whose accessed type is no {@link ConcreteClassifier}.
+     */
+    public int getUnresolvedAccessCount() {
+        return this.unresolvedAccessCount;
+    }
+
+    /**
+     * @return The accessed classifiers of all kinds without duplicates, in the order of their first
+     *         access. The classifier itself is contained if it accesses itself.
+     */
+    public List<ConcreteClassifier> getAccessedClassifiers() {
+        return this.accessedClassifiers;
+    }
+
+    /**
+     * Collects the accesses of a classifier in the order of the traversal.
+     */
+    static final class Builder {
+
+        private final ConcreteClassifier classifier;
+
+        private final List<Map<ConcreteClassifier, Integer>> entriesByKind = new ArrayList<Map<ConcreteClassifier, Integer>>();
+
+        private final List<ConcreteClassifier> targets = new ArrayList<ConcreteClassifier>();
+
+        private final List<AccessKind> kinds = new ArrayList<AccessKind>();
+
+        private int[] counts = new int[8];
+
+        private int unresolvedAccessCount = 0;
+
+        Builder(final ConcreteClassifier classifier) {
+            this.classifier = classifier;
+            for (int i = 0; i < AccessKind.values().length; i++) {
+                this.entriesByKind.add(new HashMap<ConcreteClassifier, Integer>());
+            }
+        }
+
+        /**
+         * Adds an access. The accessed type and the kind of the access are determined as
+         * {@link GetAccessedType} and {@link KDMHelper#isInheritanceTypeAccess} do.
+         */
+        void add(final TypeReference access) {
+            final Type accessedType = GetAccessedType.getAccessedType(access);
+            if (!(accessedType instanceof ConcreteClassifier)) {
+                this.unresolvedAccessCount++;
+                return;
+            }
+            final AccessKind kind = KDMHelper.isInheritanceTypeAccess(access) ? AccessKind.INHERITANCE
+                    : AccessKind.REFERENCE;
+            this.add((ConcreteClassifier) accessedType, kind);
+        }
+
+        private void add(final ConcreteClassifier target, final AccessKind kind) {
+            final Map<ConcreteClassifier, Integer> entries = this.entriesByKind.get(kind.ordinal());
+            Integer entry = entries.get(target);
+            if (entry == null) {
+                entry = this.targets.size();
+                entries.put(target, entry);
+                this.targets.add(target);
+                this.kinds.add(kind);
+                if (entry == this.counts.length) {
+                    this.counts = Arrays.copyOf(this.counts, 2 * this.counts.length);
+                }
+            }
+            this.counts[entry]++;
+        }
+
+        AccessSummary build() {
+            return new AccessSummary(this.classifier,
+                    this.targets.toArray(new ConcreteClassifier[this.targets.size()]),
+                    this.kinds.toArray(new AccessKind[this.kinds.size()]),
+                    Arrays.copyOf(this.counts, this.targets.size()), this.unresolvedAccessCount);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.somox.kdmhelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+import org.eclipse.emf.ecore.EObject;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.emftext.language.java.containers.CompilationUnit;
+import org.emftext.language.java.types.TypeReference;
+
+/**
+ * {@link AccessSummary}s of classifiers, so the contents of each classifier are traversed once
+ * instead of once per query. Each top-level classifier is traversed in a single pass which
+ * summarizes the classifier and all classifiers nested in it, the way
+ * {@link KDMHelper#getAllAccesses} would for each of them.
+ *
+ * The index is usually built after the model has been loaded and its proxies have been resolved,
+ * see {@link #build(Collection)}. Classifiers not summarized yet are summarized on demand.
+ * Summaries are snapshots: if a classifier is changed afterwards, {@link #invalidate} has to be
+ * called for it, or {@link #invalidateAll()} if models are added or changed in other ways. The
+ * analysis itself never changes the source code model.
+ *
+ * Summarizing navigates the model, which may resolve proxies and load resources, so classifiers
+ * are summarized in the calling thread only. Summaries of classifiers summarized before can be
+ * looked up concurrently.
+ */
+public class AccessSummaryIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(AccessSummaryIndex.class);
+
+    private final Map<ConcreteClassifier, AccessSummary> summaries = new ConcurrentHashMap<ConcreteClassifier, AccessSummary>();
+
+    /**
+     * Summarizes the classifiers of the given compilation units in a single pass.
+     *
+     * @param compilationUnits
+     *            The compilation units whose classifiers and nested classifiers are summarized.
+     */
+    public void build(final Collection<CompilationUnit> compilationUnits) {
+        for (final CompilationUnit compilationUnit : compilationUnits) {
+            for (final ConcreteClassifier classifier : compilationUnit.getClassifiers()) {
+                this.summaries.putAll(summarize(classifier));
+            }
+        }
+        LOGGER.debug("Summarized the accesses of " + this.summaries.size() + " classifiers");
+    }
+
+    /**
+     * Returns the summary of the given classifier. If the classifier has not been summarized yet,
+     * its outermost enclosing classifier is summarized, including the given classifier.
+     *
+     * @param classifier
+     *            The classifier to look up.
+     * @return The summary of the classifier.
+     */
+    public AccessSummary getSummary(final ConcreteClassifier classifier) {
+        final AccessSummary summary = this.summaries.get(classifier);
+        if (summary != null) {
+            return summary;
+        }
+        for (final Map.Entry<ConcreteClassifier, AccessSummary> entry : summarize(getOutermostClassifier(classifier))
+                .entrySet()) {
+            this.summaries.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        return this.summaries.get(classifier);
+    }
+
+    /**
+     * Removes the summaries which may have changed with the given classifier: the summaries of its
+     * outermost enclosing classifier and all classifiers nested in that one.
+     *
+     * @param classifier
+     *            A changed classifier.
+     */
+    public void invalidate(final ConcreteClassifier classifier) {
+        final ConcreteClassifier outermost = getOutermostClassifier(classifier);
+        this.summaries.remove(outermost);
+        for (final Iterator<EObject> iterator = outermost.eAllContents(); iterator.hasNext();) {
+            final EObject element = iterator.next();
+            if (element instanceof ConcreteClassifier) {
+                this.summaries.remove(element);
+            }
+        }
+    }
+
+    /**
+     * Removes all summaries.
+     */
+    public void invalidateAll() {
+        this.summaries.clear();
+    }
+
+    /**
+     * Summarizes a classifier and the classifiers nested in it in a single traversal of its
+     * contents, independent of any index.
+     *
+     * @param classifier
+     *            The classifier to summarize.
+     * @return The summaries of the classifier and all nested classifiers.
+     */
+    public static Map<ConcreteClassifier, AccessSummary> summarize(final ConcreteClassifier classifier) {
+        final Map<ConcreteClassifier, AccessSummary> result = new HashMap<ConcreteClassifier, AccessSummary>();
+        final List<AccessSummary.Builder> enclosing = new ArrayList<AccessSummary.Builder>();
+        final AccessSummary.Builder builder = new AccessSummary.Builder(classifier);
+        enclosing.add(builder);
+        summarizeContents(classifier, enclosing, result);
+        result.put(classifier, builder.build());
+        return result;
+    }
+
+    /**
+     * Visits the contents of the given object in the order of {@link EObject#eAllContents()} and
+     * adds each access to the builders of all enclosing classifiers.
+     */
+    private static void summarizeContents(final EObject object, final List<AccessSummary.Builder> enclosing,
+            final Map<ConcreteClassifier, AccessSummary> result) {
+        for (final EObject element : object.eContents()) {
+            if (element instanceof TypeReference && KDMHelper.isAccess((TypeReference) element)) {
+                for (final AccessSummary.Builder builder : enclosing) {
+                    builder.add((TypeReference) element);
+                }
+            }
+            if (element instanceof ConcreteClassifier) {
+                final AccessSummary.Builder builder = new AccessSummary.Builder((ConcreteClassifier) element);
+                enclosing.add(builder);
+                summarizeContents(element, enclosing, result);
+                enclosing.remove(enclosing.size() - 1);
+                result.put((ConcreteClassifier) element, builder.build());
+            } else {
+                summarizeContents(element, enclosing, result);
+            }
+        }
+    }
+
+    private static ConcreteClassifier getOutermostClassifier(final ConcreteClassifier classifier) {
+        ConcreteClassifier outermost = classifier;
+        for (EObject container = classifier.eContainer(); container != null; container = container.eContainer()) {
+            if (container instanceof ConcreteClassifier) {
+                outermost = (ConcreteClassifier) container;
+            }
+        }
+        return outermost;
+    }
+}
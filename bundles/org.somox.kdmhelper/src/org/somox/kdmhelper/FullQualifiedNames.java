@@ -0,0 +1,226 @@
+package org.somox.kdmhelper;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.emf.ecore.EObject;
+import org.emftext.language.java.commons.NamedElement;
+import org.emftext.language.java.members.Method;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Full qualified names of model elements as computed by
+ * {@link KDMHelper#computeFullQualifiedName}, computed once per element. The name of an element is
+ * derived from the cached name of its nearest named container, so a whole model is named with a
+ * single visit of each element.
+ *
+ * Names are cached in a map with weak keys which compares elements by identity and is safe for
+ * concurrent use. Only elements contained in a resource are cached; elements under construction
+ * are named on each call. If elements are renamed or moved afterwards, {@link #invalidate} has to
+ * be called for them and all their contents, or {@link #invalidateAll()}.
+ *
+ * Besides the name, each {@link QualifiedName} provides the name segments of the element and its
+ * named containers, and an ID per segment which is the same for equal segments of all elements of
+ * this service. Segment prefixes can thereby be compared as integer arrays.
+ */
+public class FullQualifiedNames {
+
+    private static final FullQualifiedNames INSTANCE = new FullQualifiedNames();
+
+    private static final QualifiedName EMPTY_NAME = new QualifiedName("", new String[0], new int[0]);
+
+    private final ConcurrentMap<EObject, QualifiedName> names = new MapMaker().weakKeys().makeMap();
+
+    private final ConcurrentMap<String, Integer> segmentIds = new ConcurrentHashMap<String, Integer>();
+
+    private final AtomicInteger nextSegmentId = new AtomicInteger();
+
+    /**
+     * @return The service used by {@link KDMHelper#computeFullQualifiedName}.
+     */
+    public static FullQualifiedNames getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param element
+     *            An element.
+     * @return The full qualified name of the element, equal to the result of
+     *         {@link KDMHelper#computeFullQualifiedName}.
+     */
+    public String getFullQualifiedName(final EObject element) {
+        return this.getQualifiedName(element).getName();
+    }
+
+    /**
+     * @param element
+     *            An element.
+     * @return The full qualified name of the element with its segments.
+     */
+    public QualifiedName getQualifiedName(final EObject element) {
+        final QualifiedName cachedName = this.names.get(element);
+        if (cachedName != null) {
+            return cachedName;
+        }
+
+        EObject namedContainer = element.eContainer();
+        while (namedContainer != null && !(namedContainer instanceof NamedElement)) {
+            namedContainer = namedContainer.eContainer();
+        }
+        final QualifiedName containerName = namedContainer == null ? EMPTY_NAME
+                : this.getQualifiedName(namedContainer);
+
+        final QualifiedName name = this.createQualifiedName(element, containerName);
+        if (element.eResource() == null) {
+            return name;
+        }
+        final QualifiedName existingName = this.names.putIfAbsent(element, name);
+        return existingName == null ? name : existingName;
+    }
+
+    /**
+     * @param segment
+     *            A name segment.
+     * @return The ID of the segment, assigned on the first request.
+     */
+    public int getSegmentId(final String segment) {
+        final Integer id = this.segmentIds.get(segment);
+        if (id != null) {
+            return id;
+        }
+        final Integer newId = this.nextSegmentId.getAndIncrement();
+        final Integer existingId = this.segmentIds.putIfAbsent(segment, newId);
+        return existingId == null ? newId : existingId;
+    }
+
+    /**
+     * Removes the cached name of the given element. Names of its contents are derived from it and
+     * have to be invalidated as well.
+     *
+     * @param element
+     *            A renamed or moved element.
+     */
+    public void invalidate(final EObject element) {
+        this.names.remove(element);
+    }
+
+    /**
+     * Removes all cached names and segment IDs, e.g. before a new extraction. IDs are not reused,
+     * but names obtained before must not be compared with names obtained afterwards.
+     */
+    public void invalidateAll() {
+        this.names.clear();
+        this.segmentIds.clear();
+    }
+
+    private QualifiedName createQualifiedName(final EObject element, final QualifiedName containerName) {
+        // the names of the containers, each followed by a point
+        final StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < containerName.getSegmentCount(); i++) {
+            prefix.append(containerName.getSegment(i)).append('.');
+        }
+
+        if (!(element instanceof NamedElement)) {
+            return new QualifiedName(KDMHelper.removeLastPoint(prefix.toString()), containerName.segments,
+                    containerName.segmentIds);
+        }
+
+        final String elementName = getNameOfNamedElement((NamedElement) element);
+        final String name;
+        if (prefix.length() == 0) {
+            name = KDMHelper.removeLastPoint(elementName);
+        } else {
+            name = KDMHelper.removeLastPoint(prefix.append(elementName).toString());
+        }
+        final String segment = String.valueOf(elementName);
+        final String[] segments = Arrays.copyOf(containerName.segments, containerName.segments.length + 1);
+        segments[segments.length - 1] = segment;
+        final int[] ids = Arrays.copyOf(containerName.segmentIds, containerName.segmentIds.length + 1);
+        ids[ids.length - 1] = this.getSegmentId(segment);
+        return new QualifiedName(name, segments, ids);
+    }
+
+    private static String getNameOfNamedElement(final NamedElement input) {
+        if (input instanceof Method) {
+            return input.getName() + "()";
+        }
+        return input.getName();
+    }
+
+    /**
+     * The full qualified name of an element and the segments it consists of: the names of the
+     * named containers of the element, outermost first, and the name of the element itself if it
+     * has one. Instances are immutable.
+     */
+    public static final class QualifiedName {
+
+        private final String name;
+
+        private final String[] segments;
+
+        private final int[] segmentIds;
+
+        private QualifiedName(final String name, final String[] segments, final int[] segmentIds) {
+            this.name = name;
+            this.segments = segments;
+            this.segmentIds = segmentIds;
+        }
+
+        /**
+         * @return The full qualified name as returned by
+         *         {@link KDMHelper#computeFullQualifiedName}.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return The number of segments.
+         */
+        public int getSegmentCount() {
+            return this.segments.length;
+        }
+
+        /**
+         * @return The segment at the given position.
+         */
+        public String getSegment(final int index) {
+            return this.segments[index];
+        }
+
+        /**
+         * @return The ID of the segment at the given position.
+         */
+        public int getSegmentId(final int index) {
+            return this.segmentIds[index];
+        }
+
+        /**
+         * Compares whole segments by their IDs, so <code>a.bc</code> does not start with
+         * <code>a.b</code>. Both names have to be obtained from the same service.
+         *
+         * @param prefix
+         *            A possible prefix.
+         * @return true if the segments of the given name are the first segments of this name.
+         */
+        public boolean startsWith(final QualifiedName prefix) {
+            if (prefix.segmentIds.length > this.segmentIds.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.segmentIds.length; i++) {
+                if (this.segmentIds[i] != prefix.segmentIds[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return this.name;
+        }
+    }
+}
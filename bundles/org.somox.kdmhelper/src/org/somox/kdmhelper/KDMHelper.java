@@ -140,32 +140,16 @@ public class KDMHelper {
     }
 
     /**
-     * Returns the qualified name for a type.
+     * Returns the qualified name for a type: the names of the named containers of the object and
+     * the name of the object itself, separated by points. Names are cached by
+     * {@link FullQualifiedNames}.
      *
      * @param astClass
      *            the {@link ASTNode} object
      * @return the full qualified name of the input object
      */
     public static String computeFullQualifiedName(final Commentable astClass) {
-        EObject pack = astClass;
-
-        String result = "";
-
-        if (pack instanceof NamedElement) {
-            result = getNameOfNamedElement((NamedElement) pack);
-        }
-
-        while (pack != null) {
-
-            if (pack.eContainer() != null && pack.eContainer() instanceof NamedElement) {
-                pack = pack.eContainer();
-                result = getNameOfNamedElement((NamedElement) pack) + "." + result;
-            } else {
-                pack = pack.eContainer();
-            }
-        }
-        result = removeLastPoint(result);
-        return result;
+        return FullQualifiedNames.getInstance().getFullQualifiedName(astClass);
     }
 
     public static Method getMethod(final MethodCall methodCall) {
@@ -187,16 +171,6 @@ public class KDMHelper {
         return result;
     }
 
-    private static String getNameOfNamedElement(final NamedElement input) {
-        String result = "";
-        if (input instanceof Method) {
-            result = input.getName() + "()";
-        } else {
-            result = input.getName();
-        }
-        return result;
-    }
-
     // TODO refactor with
     /**
      * For an access, returns the accessed types. <b>The result set does not contain null
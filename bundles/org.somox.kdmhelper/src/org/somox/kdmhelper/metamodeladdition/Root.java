@@ -13,19 +13,37 @@ import org.emftext.language.java.classifiers.ConcreteClassifier;
 import org.emftext.language.java.classifiers.Enumeration;
 import org.emftext.language.java.commons.Commentable;
 import org.emftext.language.java.containers.CompilationUnit;
+import org.somox.kdmhelper.AccessSummaryIndex;
 import org.somox.kdmhelper.KDMHelper;
 
 public class Root {
 
     private final List<CompilationUnit> models = new ArrayList<CompilationUnit>();
 
+    private final AccessSummaryIndex accessSummaryIndex = new AccessSummaryIndex();
+
     public List<CompilationUnit> getCompilationUnits() {
         return this.models;
     }
 
+    /**
+     * Adds models to the root. The access summaries computed so far are invalidated, since proxies
+     * may resolve to the added models.
+     *
+     * @param modelsFromResource
+     *            The models to add
+     */
     public void addModels(final Collection<CompilationUnit> modelsFromResource) {
         this.models.addAll(modelsFromResource);
         this.addPackagesToIDMapping(modelsFromResource);
+        this.accessSummaryIndex.invalidateAll();
+    }
+
+    /**
+     * @return The access summaries of the classifiers of the models of this root
+     */
+    public AccessSummaryIndex getAccessSummaryIndex() {
+        return this.accessSummaryIndex;
     }
 
     private static HashMap<Commentable, String> nodeToIDMap = new HashMap<Commentable, String>();
@@ -68,6 +86,24 @@ public class Root {
         return result;
     }
 
+    /**
+     * Returns all concrete classifiers of the models, including inner classes and interfaces
+     *
+     * @return
+     */
+    public List<ConcreteClassifier> getConcreteClassifiers() {
+        final List<ConcreteClassifier> result = new ArrayList<ConcreteClassifier>();
+        for (final CompilationUnit model : this.models) {
+            for (final Iterator<EObject> it = model.eAllContents(); it.hasNext();) {
+                final EObject element = it.next();
+                if (element instanceof ConcreteClassifier) {
+                    result.add((ConcreteClassifier) element);
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns ClassDeclaration, EnumDeclaration
      *
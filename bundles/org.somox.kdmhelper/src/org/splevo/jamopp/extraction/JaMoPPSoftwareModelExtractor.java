@@ -141,6 +141,14 @@ public class JaMoPPSoftwareModelExtractor {
 
         // trigger the resource resolving as soon as all resources are parsed.
         final ReferenceCache cache = this.getReferenceCache(targetResourceSet);
+        cache.validate(resources);
+        if (cache.getInvalidatedResourceCounter() > 0) {
+            LOGGER.info("Cached references of " + cache.getInvalidatedResourceCounter()
+                    + " changed resources are resolved again");
+        }
+        // DesignDecision Resources are resolved one after the other. Resolving a proxy loads and
+        // modifies other resources, the JavaClasspath singleton and the cache, none of which is
+        // thread-safe, and the resources a resource depends on are only known once it is resolved.
         int resourceCount = 0;
         for (final Resource resource : resources) {
             LOGGER.info("Resolving resource: " + (++resourceCount) + "/" + resources.size() + " resourceName: "
@@ -0,0 +1,55 @@
+package org.splevo.jamopp.extraction.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The cached references of one resource together with the content hashes they are valid for.
+ *
+ * The references are valid as long as the content of the resource and of all resources the
+ * references point into is unchanged.
+ */
+final class CachedReferences {
+
+    private final String resourceURI;
+
+    private final long contentHash;
+
+    private final Map<String, Long> dependencyHashes;
+
+    private final LinkedHashMap<String, String> targetURIs;
+
+    /**
+     * @param resourceURI
+     *            The URI of the resource containing the references.
+     * @param contentHash
+     *            The content hash of the resource.
+     * @param dependencyHashes
+     *            The content hashes of the resources the references point into, by their URIs.
+     * @param targetURIs
+     *            The URIs of the targets of the references, by the fragments of the references.
+     */
+    CachedReferences(final String resourceURI, final long contentHash, final Map<String, Long> dependencyHashes,
+            final LinkedHashMap<String, String> targetURIs) {
+        this.resourceURI = resourceURI;
+        this.contentHash = contentHash;
+        this.dependencyHashes = dependencyHashes;
+        this.targetURIs = targetURIs;
+    }
+
+    String getResourceURI() {
+        return this.resourceURI;
+    }
+
+    long getContentHash() {
+        return this.contentHash;
+    }
+
+    Map<String, Long> getDependencyHashes() {
+        return this.dependencyHashes;
+    }
+
+    LinkedHashMap<String, String> getTargetURIs() {
+        return this.targetURIs;
+    }
+}
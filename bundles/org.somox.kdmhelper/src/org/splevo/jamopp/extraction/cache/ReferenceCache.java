@@ -12,18 +12,19 @@
 package org.splevo.jamopp.extraction.cache;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
@@ -31,7 +32,7 @@ import org.eclipse.emf.ecore.InternalEObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.util.EcoreUtil;
-import org.emftext.language.java.JavaClasspath;
+import org.splevo.jamopp.extraction.FileResourceHandling;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -39,25 +40,41 @@ import com.google.common.collect.Sets;
 
 /**
  * A file based cache to reuse the proxy resolutions already performed.
- * 
+ *
  * The cache was designed to work with one or more cache files to use it with resource sets
  * containing the resources of one or more software models. For example, during extraction a
  * separate resource set is used per software, but for differencing several software models must be
  * accessed in one resource set.
- * 
- * Cache files are always named according to {@link #CACHE_FILE_NAME}.
- * 
- * During initialization, cache files existing in the provided directories are loaded.
- * Subdirectories are not considered.
- * 
- * When proxies in new resources are resolved and {@link #save()} is triggered, they are stored in a
- * cache file of the first directory provided in the list. If a cache file already exists in the
- * first cache directory, the existing cache is loaded and enhanced with the new cached references.
+ *
+ * Cache files are always named according to {@link #CACHE_FILE_NAME} and are stored in the binary
+ * format of {@link ReferenceCacheStore}.
+ *
+ * During initialization, cache files existing in the provided directories are indexed.
+ * Subdirectories are not considered. If several files contain references of the same resource, the
+ * ones of the first directory are used, as new references are saved to this directory as well.
+ * Cache files of the former serialized format ({@value #LEGACY_CACHE_FILE_NAME}) cannot be
+ * validated against the content of the resources and are deleted.
+ *
+ * The cached references of a resource are keyed by the content hash of the resource and the
+ * content hashes of all resources they point into, i.e. of the part of its import closure the
+ * resource actually uses. When a resource is validated, its references are only taken from the
+ * cache if none of these hashes changed; otherwise the resource is resolved without the cache and
+ * its new references replace the old ones.
+ *
+ * When proxies in new resources are resolved and {@link #save()} is triggered, the references of
+ * all changed resources are appended to the cache file of the first directory provided in the
+ * list.
  */
 public class ReferenceCache {
 
     /** The name of the cache files to be used. */
-    public static final String CACHE_FILE_NAME = "jamopp.cache";
+    public static final String CACHE_FILE_NAME = ReferenceCacheStore.FILE_NAME;
+
+    /** The name of the cache files of the former serialized format. */
+    static final String LEGACY_CACHE_FILE_NAME = "jamopp.cache";
+
+    /** Content hash of resources without a readable file. */
+    private static final long NO_CONTENT_HASH = 0L;
 
     private static Logger logger = Logger.getLogger(ReferenceCache.class);
 
@@ -65,26 +82,47 @@ public class ReferenceCache {
      * Internal counter how many references have not been resolved from cache, while their resources
      * have. This is an indicator for failed proxy resolutions or that the cache was not involved in
      * the resolution.
-     * 
+     *
      */
     private int notResolvedFromCacheCounterReference = 0;
 
-    private final Set<URI> blacklistedResourceURIs = Sets.newHashSet(); 
-    
+    /** Internal counter how many resources had cached references which were out of date. */
+    private int invalidatedResourceCounter = 0;
+
+    private final Set<URI> blacklistedResourceURIs = Sets.newHashSet();
+
     /**
-     * The file the cache will be serialized into.
+     * The directories containing the cache files.
      */
     private final List<String> cacheFileDirectories;
 
-    /** The cache data object to work with. */
-    private ReferenceCacheData cacheData = new ReferenceCacheData();
+    /** The stores of the cache files, in the order of their directories. */
+    private final List<ReferenceCacheStore> stores = Lists.newArrayList();
+
+    /** The valid references of all validated resources by their URIs. */
+    private final Map<String, LinkedHashMap<String, String>> resourceToTargetURIListMap = Maps.newHashMap();
+
+    /** The URIs of the resources the references of a resource point into. */
+    private final Map<String, Set<String>> dependencies = Maps.newHashMap();
+
+    /** The URIs of the resources with references pointing into a resource. */
+    private final Map<String, Set<String>> dependents = Maps.newHashMap();
+
+    /** The URIs of the resources for which the cache files have been consulted. */
+    private final Set<String> validatedResourceURIs = Sets.newHashSet();
+
+    /** The URIs of the resources with references not yet saved. */
+    private final Set<String> modifiedResourceURIs = Sets.newLinkedHashSet();
+
+    /** The content hashes computed so far. */
+    private final Map<String, Long> contentHashes = Maps.newHashMap();
 
     /**
      * Constructor to set a list of directories containing cache files. Within these directories,
      * files with the name {@link #CACHE_FILE_NAME} are searched.
-     * 
+     *
      * If a new file must be created, this will be done in the first directory of the list.
-     * 
+     *
      * @param cacheFileDirectories
      *            A list of absolute paths to the directories containing cache files.
      */
@@ -94,30 +132,35 @@ public class ReferenceCache {
     }
 
     /**
-     * Initialize the cache by loading all cache files available in the configured directory.
-     * 
-     * In addition, register the jar files in the {@link JavaClasspath}.
+     * Initialize the cache by indexing all cache files available in the configured directories.
      */
     private void init() {
         for (String cacheDirectory : this.cacheFileDirectories) {
-            File cacheFile = new File(cacheDirectory + File.separator + CACHE_FILE_NAME);
-            if (cacheFile.exists() && cacheFile.canRead()) {
-                ReferenceCacheData loadedCacheData = load(cacheFile);
-                if (loadedCacheData != null) {
-                    cacheData.merge(loadedCacheData);
-                }
+            if (cacheDirectory != null) {
+                deleteLegacyCacheFile(new File(cacheDirectory + File.separator + LEGACY_CACHE_FILE_NAME));
+                stores.add(new ReferenceCacheStore(new File(cacheDirectory + File.separator + CACHE_FILE_NAME)));
             }
         }
     }
 
+    private void deleteLegacyCacheFile(File legacyCacheFile) {
+        try {
+            if (Files.deleteIfExists(legacyCacheFile.toPath())) {
+                logger.info("Deleted cache file of a former format: " + legacyCacheFile);
+            }
+        } catch (IOException e) {
+            logger.warn("Cache file of a former format could not be deleted: " + legacyCacheFile, e);
+        }
+    }
+
     /**
      * Forces the complete resolving of the resource.
-     * 
+     *
      * <p>
      * <strong>Note:</strong> This should be used for loading the cache only. It is also recommended
      * to call this method not before all resources are present in the ResourceSet.
      * </p>
-     * 
+     *
      * @param resource
      *            Resource to be resolved.
      */
@@ -125,16 +168,32 @@ public class ReferenceCache {
         EcoreUtil.resolveAll(resource);
     }
 
+    /**
+     * Checks the cached references of the given resources against their current content. Resources
+     * are validated on their first lookup anyway, validating them in advance allows to report the
+     * invalidated resources before the resolution.
+     *
+     * @param resources
+     *            The resources to validate.
+     */
+    public void validate(Collection<Resource> resources) {
+        for (Resource resource : resources) {
+            if (resource.getURI() != null) {
+                validate(resource.getURI().toString());
+            }
+        }
+    }
+
     /**
      * Trigger to save all non yet persisted cache entries.<br>
-     * These are the entries created for resources that could not be loaded from any existing cache
-     * file.
-     * 
+     * These are the entries of resources that were resolved without a valid cache entry or that
+     * have been reset.
+     *
      * If more than one cache file directory was created, the first entry in the list will be used.
-     * 
-     * If the cache file already exists, it will not be overridden, but loaded and the new entries
-     * will be added to it.
-     * 
+     *
+     * The entries are appended to an existing cache file, replacing former entries of the same
+     * resources.
+     *
      */
     public void save() {
 
@@ -143,87 +202,28 @@ public class ReferenceCache {
             return;
         }
 
-        File cacheFile = new File(cacheFileDirectories.get(0) + File.separator + CACHE_FILE_NAME);
-        ReferenceCacheData cacheDataExisting = load(cacheFile);
-        if (cacheDataExisting == null) {
-            cacheDataExisting = new ReferenceCacheData();
-            cacheData.merge(cacheDataExisting);
-        }
-
-        save(cacheFile, cacheData);
-    }
-
-    /**
-     * Persist the cache in the file system.
-     * 
-     * @param cacheFile
-     *            The file to save to.
-     * @param cacheData
-     *            The cache data to save.
-     */
-    public synchronized void save(File cacheFile, ReferenceCacheData cacheData) {
-        ObjectOutputStream oos = null;
-        try {
-            FileUtils.forceMkdir(cacheFile.getParentFile());
-            oos = new ObjectOutputStream(new FileOutputStream(cacheFile));
-            oos.writeObject(cacheData);
-        } catch (FileNotFoundException e) {
-            logger.info("cache file does not exist yet" + cacheFile);
-        } catch (IOException e) {
-            logger.warn("cache file could not be accessed: " + cacheFile);
-        } finally {
-            if (oos != null) {
-                try {
-                    oos.close();
-                } catch (IOException e) {
-                    logger.warn("Failed to close cache file output stream", e);
-                }
+        List<CachedReferences> references = Lists.newArrayList();
+        List<String> removedResourceURIs = Lists.newArrayList();
+        for (String resourceUri : modifiedResourceURIs) {
+            LinkedHashMap<String, String> targetURIMap = resourceToTargetURIListMap.get(resourceUri);
+            if (targetURIMap == null || targetURIMap.isEmpty()) {
+                removedResourceURIs.add(resourceUri);
+            } else {
+                references.add(createCachedReferences(resourceUri, targetURIMap));
             }
         }
-    }
-
-    /**
-     * Load the cache from a file.
-     * 
-     * @param cacheFile
-     *            The file to load.
-     * @return The cache map loaded from this file.
-     */
-    private ReferenceCacheData load(File cacheFile) {
 
-        if (!cacheFile.exists() && !cacheFile.canRead()) {
-            return null;
-        }
-
-        logger.debug("Load reference cache file: " + cacheFile.getAbsolutePath());
-
-        ReferenceCacheData cacheDataLoad = null;
-        ObjectInputStream oos = null;
         try {
-            oos = new ObjectInputStream(new FileInputStream(cacheFile));
-            cacheDataLoad = (ReferenceCacheData) oos.readObject();
-        } catch (FileNotFoundException e) {
-            logger.error("Cache file can not be found", e);
+            stores.get(0).append(references, removedResourceURIs);
+            modifiedResourceURIs.clear();
         } catch (IOException e) {
-            logger.error("Cache file could not be accessed correctly", e);
-        } catch (ClassNotFoundException e) {
-            logger.error("An object persisted in the cache file could not be loaded", e);
-        } finally {
-            if (oos != null) {
-                try {
-                    oos.close();
-                } catch (IOException e) {
-                    logger.warn("Failed to close cache file output stream", e);
-                }
-            }
+            logger.warn("cache file could not be written in " + cacheFileDirectories.get(0), e);
         }
-
-        return cacheDataLoad;
     }
 
     /**
      * Get the target object for a specified URI.
-     * 
+     *
      * @param resource
      *            The resource to use for EObject resolution.
      * @param targetURI
@@ -241,16 +241,26 @@ public class ReferenceCache {
      * Get the internal counter how many references have not been resolved from cache, while their
      * resources have. This is an indicator for failed proxy resolutions or that the cache was not
      * involved in the resolution.
-     * 
+     *
      * @return The counter value.
      */
     public int getNotResolvedFromCacheCounterReference() {
         return notResolvedFromCacheCounterReference;
     }
 
+    /**
+     * Get the internal counter how many resources had cached references which did not match the
+     * current content of the resource or of the resources referenced.
+     *
+     * @return The counter value.
+     */
+    public int getInvalidatedResourceCounter() {
+        return invalidatedResourceCounter;
+    }
+
     /**
      * Resolve a specific proxy referenced in resource.
-     * 
+     *
      * @param resource
      *            The resource containing the proxy.
      * @param id
@@ -260,7 +270,8 @@ public class ReferenceCache {
     public EObject getEObject(Resource resource, String id) {
 
         String resourceUri = resource.getURI().toString();
-        LinkedHashMap<String, String> targetUriMap = cacheData.getResourceToTargetURIListMap().get(resourceUri);
+        validate(resourceUri);
+        LinkedHashMap<String, String> targetUriMap = resourceToTargetURIListMap.get(resourceUri);
         if (targetUriMap == null) {
             return null;
         }
@@ -274,19 +285,21 @@ public class ReferenceCache {
 
     /**
      * Check is already present in the cached.
-     * 
+     *
      * @param resource
      *            The resource to check for.
      * @return True/ False if it is cached or not.
      */
     public boolean isCached(Resource resource) {
-        return cacheData.getResourceToTargetURIListMap().containsKey(resource.getURI().toString());
+        String resourceUri = resource.getURI().toString();
+        validate(resourceUri);
+        return resourceToTargetURIListMap.containsKey(resourceUri);
     }
 
     /**
      * Register a resolved {@link EObject} to the cache which has been resolved by EMF without
      * involving the cache. E.g. by indirectly resolving it without participating the cache.
-     * 
+     *
      * @param resource
      *            The resource containing the proxy / reference
      * @param fragmentURI
@@ -301,7 +314,7 @@ public class ReferenceCache {
                 && blacklistedResourceURIs.contains(resolvedElement.eResource().getURI())) {
             return;
         }
-        
+
         String resourceUri = resource.getURI().toString();
 
         if (resolvedElement == null) {
@@ -328,13 +341,19 @@ public class ReferenceCache {
             return;
         }
 
-        LinkedHashMap<String, String> targetURIMap = cacheData.getResourceToTargetURIListMap().get(resourceUri);
+        validate(resourceUri);
+        LinkedHashMap<String, String> targetURIMap = resourceToTargetURIListMap.get(resourceUri);
         if (targetURIMap == null) {
             targetURIMap = Maps.newLinkedHashMap();
-            cacheData.getResourceToTargetURIListMap().put(resourceUri, targetURIMap);
+            resourceToTargetURIListMap.put(resourceUri, targetURIMap);
         }
 
         targetURIMap.put(fragmentURI, targetURI);
+        if (targetResource != null && targetResource != resource
+                && (targetResource.getURI().isFile() || targetResource.getURI().isPlatform())) {
+            addDependency(resourceUri, targetResource.getURI().toString());
+        }
+        modifiedResourceURIs.add(resourceUri);
         notResolvedFromCacheCounterReference++;
     }
 
@@ -344,8 +363,9 @@ public class ReferenceCache {
 
     /**
      * Resets the cache for the given resource and saves the cache afterwards to prevent old entries
-     * from appearing after loading the resource again.
-     * 
+     * from appearing after loading the resource again. The entries of other resources pointing into
+     * the given resource are removed as well.
+     *
      * @param resource
      *            The resource for which the cache shall be reset.
      */
@@ -353,16 +373,33 @@ public class ReferenceCache {
         if (!isCached(resource)) {
             return;
         }
-        final String uriToRemovePrefix = resource.getURI().toString() + "#";
-        cacheData.getResourceToTargetURIListMap().remove(resource.getURI().toString());
-        for (LinkedHashMap<String, String> map : cacheData.getResourceToTargetURIListMap().values()) {
-            List<String> toRemove = Lists.newArrayList();
-            for (Entry<String, String> entry : map.entrySet()) {
-                if (entry.getValue().startsWith(uriToRemovePrefix)) {
-                    toRemove.add(entry.getKey());
+        final String resourceUri = resource.getURI().toString();
+        final String uriToRemovePrefix = resourceUri + "#";
+        resourceToTargetURIListMap.remove(resourceUri);
+        removeDependencies(resourceUri);
+        modifiedResourceURIs.add(resourceUri);
+        contentHashes.remove(resourceUri);
+
+        Set<String> dependentResourceURIs = dependents.remove(resourceUri);
+        if (dependentResourceURIs != null) {
+            for (String dependentResourceUri : dependentResourceURIs) {
+                LinkedHashMap<String, String> map = resourceToTargetURIListMap.get(dependentResourceUri);
+                if (map == null) {
+                    continue;
+                }
+                List<String> toRemove = Lists.newArrayList();
+                for (Entry<String, String> entry : map.entrySet()) {
+                    if (entry.getValue().startsWith(uriToRemovePrefix)) {
+                        toRemove.add(entry.getKey());
+                    }
+                }
+                map.keySet().removeAll(toRemove);
+                Set<String> dependencyURIs = dependencies.get(dependentResourceUri);
+                if (dependencyURIs != null) {
+                    dependencyURIs.remove(resourceUri);
                 }
+                modifiedResourceURIs.add(dependentResourceUri);
             }
-            map.keySet().removeAll(toRemove);
         }
         save();
     }
@@ -370,7 +407,7 @@ public class ReferenceCache {
     /**
      * Blacklists the given resource by its URI. The cache will ignore any attempts to set a cache
      * line involving the given resource.
-     * 
+     *
      * @param resource
      *            The resource to be blacklisted.
      */
@@ -378,4 +415,131 @@ public class ReferenceCache {
         reset(resource);
         blacklistedResourceURIs.add(resource.getURI());
     }
+
+    /**
+     * Takes the references of a resource from the cache files if they are up to date. Does nothing
+     * if the resource has been validated before.
+     */
+    private void validate(String resourceUri) {
+        if (!validatedResourceURIs.add(resourceUri)) {
+            return;
+        }
+        CachedReferences cachedReferences = null;
+        for (ReferenceCacheStore store : stores) {
+            cachedReferences = store.get(resourceUri);
+            if (cachedReferences != null) {
+                break;
+            }
+        }
+        if (cachedReferences == null) {
+            return;
+        }
+        if (!isUpToDate(cachedReferences)) {
+            invalidatedResourceCounter++;
+            // replace the outdated entry on the next save
+            modifiedResourceURIs.add(resourceUri);
+            return;
+        }
+        resourceToTargetURIListMap.put(resourceUri, cachedReferences.getTargetURIs());
+        for (String dependencyUri : cachedReferences.getDependencyHashes().keySet()) {
+            addDependency(resourceUri, dependencyUri);
+        }
+    }
+
+    private boolean isUpToDate(CachedReferences cachedReferences) {
+        if (getContentHash(cachedReferences.getResourceURI()) != cachedReferences.getContentHash()) {
+            return false;
+        }
+        for (Entry<String, Long> dependency : cachedReferences.getDependencyHashes().entrySet()) {
+            if (getContentHash(dependency.getKey()) != dependency.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private CachedReferences createCachedReferences(String resourceUri,
+            LinkedHashMap<String, String> targetURIMap) {
+        Map<String, Long> dependencyHashes = new LinkedHashMap<String, Long>();
+        Set<String> dependencyURIs = dependencies.get(resourceUri);
+        if (dependencyURIs != null) {
+            for (String dependencyUri : dependencyURIs) {
+                dependencyHashes.put(dependencyUri, getContentHash(dependencyUri));
+            }
+        }
+        return new CachedReferences(resourceUri, getContentHash(resourceUri), dependencyHashes,
+                new LinkedHashMap<String, String>(targetURIMap));
+    }
+
+    private void addDependency(String resourceUri, String dependencyUri) {
+        Set<String> dependencyURIs = dependencies.get(resourceUri);
+        if (dependencyURIs == null) {
+            dependencyURIs = new LinkedHashSet<String>();
+            dependencies.put(resourceUri, dependencyURIs);
+        }
+        dependencyURIs.add(dependencyUri);
+        Set<String> dependentURIs = dependents.get(dependencyUri);
+        if (dependentURIs == null) {
+            dependentURIs = Sets.newHashSet();
+            dependents.put(dependencyUri, dependentURIs);
+        }
+        dependentURIs.add(resourceUri);
+    }
+
+    private void removeDependencies(String resourceUri) {
+        Set<String> dependencyURIs = dependencies.remove(resourceUri);
+        if (dependencyURIs != null) {
+            for (String dependencyUri : dependencyURIs) {
+                Set<String> dependentURIs = dependents.get(dependencyUri);
+                if (dependentURIs != null) {
+                    dependentURIs.remove(resourceUri);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The hash of the content of the file of the given resource or
+     *         {@link #NO_CONTENT_HASH} if it has no readable file.
+     */
+    private long getContentHash(String resourceUri) {
+        Long hash = contentHashes.get(resourceUri);
+        if (hash == null) {
+            hash = computeContentHash(resourceUri);
+            contentHashes.put(resourceUri, hash);
+        }
+        return hash;
+    }
+
+    private static long computeContentHash(String resourceUri) {
+        File file;
+        try {
+            file = FileResourceHandling.getPhysicalFilePath(URI.createURI(resourceUri), null);
+        } catch (RuntimeException e) {
+            // platform resources cannot be located without a workspace
+            return NO_CONTENT_HASH;
+        }
+        if (file == null || !file.isFile()) {
+            return NO_CONTENT_HASH;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(Files.readAllBytes(file.toPath()));
+            return ByteBuffer.wrap(hash).getLong();
+        } catch (IOException e) {
+            logger.warn("Content of resource could not be read: " + file, e);
+            return NO_CONTENT_HASH;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Waits until the compaction of the cache files running in the background has finished.
+     */
+    void awaitCompaction() {
+        for (ReferenceCacheStore store : stores) {
+            store.awaitCompaction();
+        }
+    }
 }
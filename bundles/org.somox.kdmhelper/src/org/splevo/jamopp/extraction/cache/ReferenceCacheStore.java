@@ -0,0 +1,452 @@
+package org.splevo.jamopp.extraction.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Append only binary file storing the {@link CachedReferences} of resources.
+ *
+ * The file starts with a magic number and a format version followed by records. Each record
+ * consists of the length of its payload, the CRC32 checksum of the payload and the payload itself.
+ * The payload either holds the cached references of a resource or marks the references of a
+ * resource as removed. A later record of a resource replaces all earlier ones.
+ *
+ * When the file is opened, the record headers and resource URIs are scanned to build an index of
+ * the latest record of each resource. The records are read from the file and decoded when they are
+ * requested. The file is not kept open or mapped between operations, so it can be replaced or
+ * truncated on all platforms. If a record is truncated or does not match its checksum, it
+ * and all following records are ignored and overwritten by the next append. A file with an unknown
+ * header is replaced completely.
+ *
+ * Once the replaced records take more space than the current ones, the file is compacted on a
+ * background thread. All operations of a store are synchronized, so operations issued during a
+ * compaction wait for it to finish.
+ */
+final class ReferenceCacheStore {
+
+    /** The name of the cache files. */
+    static final String FILE_NAME = "jamopp.refcache";
+
+    private static final Logger LOGGER = Logger.getLogger(ReferenceCacheStore.class);
+
+    private static final int MAGIC = 0x4A524331;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 8;
+
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final byte KIND_REMOVED = 0;
+
+    private static final byte KIND_REFERENCES = 1;
+
+    /** Minimum number of bytes of replaced records before a compaction is considered. */
+    private static final long MIN_COMPACTION_BYTES = 64 * 1024;
+
+    private static final ExecutorService COMPACTION_EXECUTOR = Executors
+            .newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "JaMoPP reference cache compaction");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final File file;
+
+    /** The latest records of all resources with cached references. */
+    private final Map<String, RecordLocation> index = new HashMap<String, RecordLocation>();
+
+    /** The number of bytes of the file holding a valid header and valid records. */
+    private long validLength = 0;
+
+    /** The number of bytes of records which have been replaced by later records. */
+    private long replacedBytes = 0;
+
+    private Future<?> compaction = null;
+
+    /**
+     * Opens the store and indexes its records. A missing file is treated as an empty store.
+     *
+     * @param file
+     *            The cache file.
+     */
+    ReferenceCacheStore(final File file) {
+        this.file = file;
+        if (file.isFile()) {
+            try {
+                this.scan();
+            } catch (final IOException e) {
+                LOGGER.warn("Cache file could not be read and will be replaced: " + file, e);
+                this.clearIndex();
+            }
+        }
+    }
+
+    /**
+     * @param resourceURI
+     *            The URI of a resource.
+     * @return The cached references of the resource or <code>null</code> if there are none.
+     */
+    synchronized CachedReferences get(final String resourceURI) {
+        final RecordLocation location = this.index.get(resourceURI);
+        if (location == null) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer record = read(channel, location.offset + RECORD_HEADER_SIZE,
+                    location.length - RECORD_HEADER_SIZE);
+            // skip the kind, only records with references are indexed
+            record.get();
+            return decodeReferences(record);
+        } catch (final IOException e) {
+            LOGGER.warn("Cache file could not be read: " + this.file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Appends the given references and removals to the file.
+     *
+     * @param references
+     *            The references to store.
+     * @param removedResourceURIs
+     *            The URIs of resources which have no cached references anymore.
+     * @throws IOException
+     *             If the file cannot be written.
+     */
+    synchronized void append(final List<CachedReferences> references, final List<String> removedResourceURIs)
+            throws IOException {
+        final List<String> removals = new ArrayList<String>();
+        for (final String resourceURI : removedResourceURIs) {
+            if (this.index.containsKey(resourceURI)) {
+                removals.add(resourceURI);
+            }
+        }
+        if (references.isEmpty() && removals.isEmpty()) {
+            return;
+        }
+
+        final File parent = this.file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            if (this.validLength < HEADER_SIZE) {
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                this.validLength = HEADER_SIZE;
+            } else if (channel.size() > this.validLength) {
+                // drop a corrupted tail
+                channel.truncate(this.validLength);
+            }
+            long position = this.validLength;
+            for (final CachedReferences cachedReferences : references) {
+                final byte[] record = encodeRecord(encodeReferences(cachedReferences));
+                channel.write(ByteBuffer.wrap(record), position);
+                this.replace(cachedReferences.getResourceURI(), new RecordLocation(position, record.length));
+                position += record.length;
+            }
+            for (final String resourceURI : removals) {
+                final byte[] record = encodeRecord(encodeRemoval(resourceURI));
+                channel.write(ByteBuffer.wrap(record), position);
+                this.replace(resourceURI, null);
+                this.replacedBytes += record.length;
+                position += record.length;
+            }
+            channel.force(false);
+            this.validLength = position;
+        }
+
+        if (this.replacedBytes >= MIN_COMPACTION_BYTES && this.replacedBytes > this.validLength / 2
+                && (this.compaction == null || this.compaction.isDone())) {
+            this.compaction = COMPACTION_EXECUTOR.submit(new Runnable() {
+                @Override
+                public void run() {
+                    ReferenceCacheStore.this.compact();
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits until a running compaction has finished.
+     */
+    void awaitCompaction() {
+        final Future<?> runningCompaction;
+        synchronized (this) {
+            runningCompaction = this.compaction;
+        }
+        if (runningCompaction != null) {
+            try {
+                runningCompaction.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final ExecutionException e) {
+                LOGGER.warn("Compaction of cache file failed: " + this.file, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Rewrites the file with the latest records of all resources only.
+     */
+    synchronized void compact() {
+        if (this.validLength < HEADER_SIZE) {
+            return;
+        }
+        final File compactedFile = new File(this.file.getPath() + ".compact");
+        try {
+            final Map<String, RecordLocation> compactedIndex = new HashMap<String, RecordLocation>();
+            long position = HEADER_SIZE;
+            try (FileChannel source = FileChannel.open(this.file.toPath(), StandardOpenOption.READ);
+                    FileChannel channel = FileChannel.open(compactedFile.toPath(), StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                channel.write(header, 0);
+                for (final Map.Entry<String, RecordLocation> entry : this.index.entrySet()) {
+                    final RecordLocation location = entry.getValue();
+                    channel.write(read(source, location.offset, location.length), position);
+                    compactedIndex.put(entry.getKey(), new RecordLocation(position, location.length));
+                    position += location.length;
+                }
+                channel.force(false);
+            }
+            Files.move(compactedFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.debug("Compacted cache file " + this.file + " from " + this.validLength + " to " + position
+                    + " bytes");
+            this.index.clear();
+            this.index.putAll(compactedIndex);
+            this.validLength = position;
+            this.replacedBytes = 0;
+        } catch (final IOException e) {
+            LOGGER.warn("Cache file could not be compacted: " + this.file, e);
+            compactedFile.delete();
+        }
+    }
+
+    /**
+     * @return The number of bytes of valid records and header.
+     */
+    synchronized long getValidLength() {
+        return this.validLength;
+    }
+
+    /**
+     * @return The URIs of all resources with cached references.
+     */
+    synchronized List<String> getResourceURIs() {
+        return Collections.unmodifiableList(new ArrayList<String>(this.index.keySet()));
+    }
+
+    /**
+     * @param location
+     *            The new latest record of the resource or <code>null</code> if the resource has no
+     *            cached references anymore.
+     */
+    private void replace(final String resourceURI, final RecordLocation location) {
+        final RecordLocation previous = location == null ? this.index.remove(resourceURI)
+                : this.index.put(resourceURI, location);
+        if (previous != null) {
+            this.replacedBytes += previous.length;
+        }
+    }
+
+    private void clearIndex() {
+        this.index.clear();
+        this.validLength = 0;
+        this.replacedBytes = 0;
+    }
+
+    private void scan() throws IOException {
+        final long size = this.file.length();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Cache file is too large");
+        }
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+            buffer = read(channel, 0, (int) size);
+        }
+        this.validLength = size;
+        if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            LOGGER.warn("Cache file has an unknown format and will be replaced: " + this.file);
+            this.clearIndex();
+            return;
+        }
+
+        int position = HEADER_SIZE;
+        final CRC32 checksum = new CRC32();
+        while (position < size) {
+            if (size - position < RECORD_HEADER_SIZE) {
+                break;
+            }
+            final int length = buffer.getInt(position);
+            if (length <= 0 || length > size - position - RECORD_HEADER_SIZE) {
+                break;
+            }
+            final ByteBuffer payload = buffer.duplicate();
+            payload.position(position + RECORD_HEADER_SIZE).limit(position + RECORD_HEADER_SIZE + length);
+            checksum.reset();
+            checksum.update(payload.duplicate());
+            if ((int) checksum.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            final byte kind = payload.get();
+            final String resourceURI;
+            try {
+                resourceURI = readString(payload);
+            } catch (final RuntimeException e) {
+                break;
+            }
+            final long offset = position;
+            position += RECORD_HEADER_SIZE + length;
+            this.validLength = position;
+            if (kind == KIND_REFERENCES) {
+                this.replace(resourceURI, new RecordLocation(offset, RECORD_HEADER_SIZE + length));
+            } else {
+                this.replace(resourceURI, null);
+                this.replacedBytes += RECORD_HEADER_SIZE + length;
+            }
+        }
+        if (this.validLength < size) {
+            LOGGER.warn("Ignoring " + (size - this.validLength) + " corrupted bytes at the end of cache file "
+                    + this.file);
+        }
+    }
+
+    /**
+     * Reads the given number of bytes into a new heap buffer.
+     *
+     * @return The buffer, ready to be read from.
+     * @throws EOFException
+     *             If the file ends before.
+     */
+    private static ByteBuffer read(final FileChannel channel, final long position, final int length)
+            throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of cache file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] encodeRecord(final byte[] payload) {
+        final CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.putInt(payload.length).putInt((int) checksum.getValue()).put(payload);
+        return record.array();
+    }
+
+    private static byte[] encodeRemoval(final String resourceURI) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(KIND_REMOVED);
+        writeString(out, resourceURI);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeReferences(final CachedReferences references) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(KIND_REFERENCES);
+        writeString(out, references.getResourceURI());
+        out.writeLong(references.getContentHash());
+        out.writeInt(references.getDependencyHashes().size());
+        for (final Map.Entry<String, Long> dependency : references.getDependencyHashes().entrySet()) {
+            writeString(out, dependency.getKey());
+            out.writeLong(dependency.getValue());
+        }
+        out.writeInt(references.getTargetURIs().size());
+        for (final Map.Entry<String, String> target : references.getTargetURIs().entrySet()) {
+            writeString(out, target.getKey());
+            writeString(out, target.getValue());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static CachedReferences decodeReferences(final ByteBuffer record) {
+        final String resourceURI = readString(record);
+        final long contentHash = record.getLong();
+        final int dependencyCount = record.getInt();
+        final Map<String, Long> dependencyHashes = new LinkedHashMap<String, Long>(dependencyCount * 2);
+        for (int i = 0; i < dependencyCount; i++) {
+            final String dependency = readString(record);
+            dependencyHashes.put(dependency, record.getLong());
+        }
+        final int targetCount = record.getInt();
+        final LinkedHashMap<String, String> targetURIs = new LinkedHashMap<String, String>(targetCount * 2);
+        for (int i = 0; i < targetCount; i++) {
+            final String fragment = readString(record);
+            targetURIs.put(fragment, readString(record));
+        }
+        return new CachedReferences(resourceURI, contentHash, dependencyHashes, targetURIs);
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalStateException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The position of a record in the file.
+     */
+    private static final class RecordLocation {
+
+        private final long offset;
+
+        /** The number of bytes of the record including its header. */
+        private final int length;
+
+        private RecordLocation(final long offset, final int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.somox.metrics.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.emftext.language.java.classifiers.ClassifiersFactory;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.emftext.language.java.types.Type;
+import org.junit.Before;
+import org.junit.Test;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+
+/**
+ * Compares the implementing classes read concurrently from attached and memoized sets with the
+ * classes collected sequentially into hash sets.
+ */
+public class ComponentToImplementingClassesHelperTest {
+
+    private static final int THREADS = 16;
+
+    private static final int ROUNDS = 50;
+
+    private Random random;
+
+    private List<ConcreteClassifier> classes;
+
+    private List<ComponentImplementingClassesLink> components;
+
+    @Before
+    public void setUp() {
+        this.random = new Random(42);
+        this.classes = new ArrayList<ConcreteClassifier>();
+        for (int i = 0; i < 200; i++) {
+            this.classes.add(ClassifiersFactory.eINSTANCE.createClass());
+        }
+        this.components = new ArrayList<ComponentImplementingClassesLink>();
+        for (int i = 0; i < 300; i++) {
+            final ComponentImplementingClassesLink component = SourcecodedecoratorFactory.eINSTANCE
+                    .createComponentImplementingClassesLink();
+            final int classCount = this.components.isEmpty() ? 1 + this.random.nextInt(6) : this.random.nextInt(6);
+            for (int j = 0; j < classCount; j++) {
+                component.getImplementingClasses().add(this.classes.get(this.random.nextInt(this.classes.size())));
+            }
+            if (classCount == 0 || this.random.nextInt(3) == 0) {
+                for (int j = 0; j < 1 + this.random.nextInt(3); j++) {
+                    component.getSubComponents()
+                            .add(this.components.get(this.random.nextInt(this.components.size())));
+                }
+            }
+            this.components.add(component);
+        }
+    }
+
+    @Test
+    public void testConcurrentReadsEqualSequentialDerivation() throws Exception {
+        final ComponentToImplementingClassesHelper helper = new ComponentToImplementingClassesHelper();
+        // sub-components are created first, as by the component builder
+        for (final ComponentImplementingClassesLink component : this.components) {
+            if (this.random.nextBoolean()) {
+                helper.attachImplementingClasses(component);
+            }
+        }
+
+        final List<Set<ConcreteClassifier>> expected = new ArrayList<Set<ConcreteClassifier>>();
+        for (final ComponentImplementingClassesLink component : this.components) {
+            expected.add(deriveSequentially(component));
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<List<Set<ConcreteClassifier>>>> futures = new ArrayList<Future<List<Set<ConcreteClassifier>>>>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                final List<ComponentImplementingClassesLink> order = new ArrayList<ComponentImplementingClassesLink>(
+                        this.components);
+                Collections.shuffle(order, new Random(thread));
+                futures.add(pool.submit(new Callable<List<Set<ConcreteClassifier>>>() {
+                    @Override
+                    public List<Set<ConcreteClassifier>> call() throws InterruptedException {
+                        start.await();
+                        for (int round = 0; round < ROUNDS; round++) {
+                            for (final ComponentImplementingClassesLink component : order) {
+                                helper.deriveImplementingClasses(component);
+                            }
+                        }
+                        final List<Set<ConcreteClassifier>> result = new ArrayList<Set<ConcreteClassifier>>();
+                        for (final ComponentImplementingClassesLink component : ComponentToImplementingClassesHelperTest.this.components) {
+                            result.add(helper.deriveImplementingClasses(component));
+                        }
+                        return result;
+                    }
+                }));
+            }
+            start.countDown();
+
+            final List<Set<ConcreteClassifier>> firstResult = futures.get(0).get();
+            for (final Future<List<Set<ConcreteClassifier>>> future : futures) {
+                final List<Set<ConcreteClassifier>> result = future.get();
+                for (int i = 0; i < this.components.size(); i++) {
+                    assertEquals(expected.get(i), result.get(i));
+                    assertEquals(expected.get(i).size(), result.get(i).size());
+                    // each candidate is derived once, all threads see the same set
+                    assertSame(firstResult.get(i), result.get(i));
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSetOperations() {
+        final ComponentToImplementingClassesHelper helper = new ComponentToImplementingClassesHelper();
+        final ComponentImplementingClassesLink component = this.components.get(0);
+        final Set<ConcreteClassifier> expected = deriveSequentially(component);
+        final Set<ConcreteClassifier> classes = helper.deriveImplementingClasses(component);
+
+        for (final ConcreteClassifier clazz : this.classes) {
+            assertEquals(expected.contains(clazz), classes.contains(clazz));
+        }
+        assertFalse(classes.contains(null));
+        assertFalse(classes.contains(ClassifiersFactory.eINSTANCE.createClass()));
+        assertFalse(classes.contains("no classifier"));
+        assertEquals(expected, new HashSet<ConcreteClassifier>(classes));
+        assertEquals(expected.hashCode(), classes.hashCode());
+
+        for (final ComponentImplementingClassesLink other : this.components) {
+            final Set<ConcreteClassifier> otherClasses = helper.deriveImplementingClasses(other);
+            assertEquals(classes.containsAll(new HashSet<ConcreteClassifier>(otherClasses)),
+                    classes.containsAll(otherClasses));
+        }
+    }
+
+    @Test
+    public void testSetsOfDistantIDs() {
+        final ClassifierIDs ids = new ClassifierIDs();
+        final List<ConcreteClassifier> classifiers = new ArrayList<ConcreteClassifier>();
+        for (int i = 0; i < 300; i++) {
+            final ConcreteClassifier clazz = ClassifiersFactory.eINSTANCE.createClass();
+            classifiers.add(clazz);
+            ids.getID(clazz);
+        }
+        final List<ConcreteClassifier> low = classifiers.subList(3, 5);
+        final List<ConcreteClassifier> high = new ArrayList<ConcreteClassifier>();
+        high.add(classifiers.get(299));
+        high.add(classifiers.get(130));
+        high.add(classifiers.get(299));
+        final List<ConcreteClassifier> all = new ArrayList<ConcreteClassifier>(low);
+        all.addAll(high);
+
+        final ImplementingClasses lowClasses = new ImplementingClasses(ids, low);
+        final ImplementingClasses highClasses = new ImplementingClasses(ids, high);
+        final ImplementingClasses allClasses = new ImplementingClasses(ids, all);
+
+        assertEquals(2, highClasses.size());
+        assertEquals(classifiers.get(130), highClasses.iterator().next());
+        for (final ConcreteClassifier clazz : classifiers) {
+            assertEquals(low.contains(clazz), lowClasses.contains(clazz));
+            assertEquals(high.contains(clazz), highClasses.contains(clazz));
+        }
+        assertTrue(allClasses.containsAll(lowClasses));
+        assertTrue(allClasses.containsAll(highClasses));
+        assertFalse(highClasses.containsAll(lowClasses));
+        assertFalse(lowClasses.containsAll(allClasses));
+        assertTrue(new ImplementingClasses(ids, Collections.<ConcreteClassifier> emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testAttachReplacesDerivedClasses() {
+        final ComponentToImplementingClassesHelper helper = new ComponentToImplementingClassesHelper();
+        final ComponentImplementingClassesLink component = this.components.get(0);
+        assertNull(ImplementingClasses.getAttached(component));
+        final Set<ConcreteClassifier> memoized = helper.deriveImplementingClasses(component);
+        assertNull(ImplementingClasses.getAttached(component));
+
+        final ConcreteClassifier newClass = ClassifiersFactory.eINSTANCE.createClass();
+        component.getImplementingClasses().add(newClass);
+        assertFalse(helper.deriveImplementingClasses(component).contains(newClass));
+
+        final Set<ConcreteClassifier> attached = helper.attachImplementingClasses(component);
+        assertSame(attached, helper.deriveImplementingClasses(component));
+        assertSame(attached, new ComponentToImplementingClassesHelper().deriveImplementingClasses(component));
+        assertTrue(attached.contains(newClass));
+        assertEquals(memoized.size() + 1, attached.size());
+
+        final ComponentImplementingClassesLink composite = SourcecodedecoratorFactory.eINSTANCE
+                .createComponentImplementingClassesLink();
+        composite.getSubComponents().add(component);
+        helper.attachImplementingClasses(composite);
+        composite.getSubComponents().add(this.components.get(1));
+        final Set<ConcreteClassifier> reattached = helper.attachImplementingClasses(composite);
+        assertEquals(deriveSequentially(composite), reattached);
+        assertSame(reattached, helper.deriveImplementingClasses(composite));
+        assertEquals(1, composite.eAdapters().size());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testComponentWithoutClasses() {
+        new ComponentToImplementingClassesHelper().deriveImplementingClasses(SourcecodedecoratorFactory.eINSTANCE
+                .createComponentImplementingClassesLink());
+    }
+
+    /**
+     * The derivation {@link ComponentToImplementingClassesHelper} used to do under a global lock.
+     */
+    private static Set<ConcreteClassifier> deriveSequentially(final ComponentImplementingClassesLink component) {
+        final Set<ConcreteClassifier> classSet = new HashSet<ConcreteClassifier>();
+        for (final Type type : component.getImplementingClasses()) {
+            if (type instanceof ConcreteClassifier) {
+                classSet.add((ConcreteClassifier) type);
+            }
+        }
+        for (final ComponentImplementingClassesLink subComponent : component.getSubComponents()) {
+            classSet.addAll(deriveSequentially(subComponent));
+        }
+        return classSet;
+    }
+}
@@ -0,0 +1,295 @@
+package org.somox.metrics.hierarchy;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.emftext.language.java.classifiers.ClassifiersFactory;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.emftext.language.java.containers.ContainersFactory;
+import org.emftext.language.java.containers.Package;
+import org.emftext.language.java.types.Type;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.SimpleDirectedGraph;
+import org.junit.Before;
+import org.junit.Test;
+import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.MetricResultStore;
+import org.somox.metrics.helper.ClassAccessGraphEdge;
+import org.somox.metrics.helper.ComponentToImplementingClassesHelper;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+
+/**
+ * Compares the values of the hierarchy mapping metrics with the values of the former
+ * implementation, which built a prefix tree of the hierarchy for both components of each pair, on
+ * random hierarchies.
+ */
+public class HierarchyMappingTest {
+
+    private static final int HIERARCHIES = 30;
+
+    private static final int COMPONENTS = 25;
+
+    private Random random;
+
+    private final Map<Type, Package> classPackages = new HashMap<Type, Package>();
+
+    private final Map<Package, Package> parentPackages = new HashMap<Package, Package>();
+
+    @Before
+    public void setUp() {
+        this.random = new Random(42);
+    }
+
+    @Test
+    public void testPackageMappingEqualsPrefixTrees() {
+        for (int hierarchy = 0; hierarchy < HIERARCHIES; hierarchy++) {
+            this.assertMetricEqualsPrefixTrees(new TestPackageMapping());
+        }
+    }
+
+    @Test
+    public void testDirectoryMappingEqualsPrefixTrees() {
+        for (int hierarchy = 0; hierarchy < HIERARCHIES; hierarchy++) {
+            this.assertMetricEqualsPrefixTrees(new TestDirectoryMapping());
+        }
+    }
+
+    @Test
+    public void testCommonHeights() {
+        final List<Package> a = this.createChain(null, 3); // a.b.c
+        final Package g = this.createPackage(a.get(1));
+        final Package h = this.createPackage(a.get(1));
+        final Package z = this.createPackage(h);
+        final Package d = this.createPackage(a.get(2));
+
+        final HierarchyTrie<Package> trie = new HierarchyTrie<Package>(new TestPackageMapping(),
+                new ArrayList<ConcreteClassifier>());
+        final HierarchyTrie.Coverage abc = trie.computeCoverage(this.createClasses(a.get(2)));
+        final HierarchyTrie.Coverage ab = trie.computeCoverage(this.createClasses(a.get(1)));
+        final HierarchyTrie.Coverage abcd = trie.computeCoverage(this.createClasses(d));
+        final HierarchyTrie.Coverage abg = trie.computeCoverage(this.createClasses(g));
+        final HierarchyTrie.Coverage abgAndAbhz = trie.computeCoverage(this.createClasses(g, z));
+        assertEquals(3, abc.getHeight());
+        assertEquals(4, abgAndAbhz.getHeight());
+        assertEquals(2, HierarchyTrie.getMaxCommonHeight(abcd, abg));
+        assertEquals(2, HierarchyTrie.getMaxCommonHeight(abc, ab));
+        assertEquals(3, HierarchyTrie.getMaxCommonHeight(abc, abcd));
+        assertEquals(1, HierarchyTrie.getMaxCommonHeight(abc, abgAndAbhz));
+        assertEquals(1, HierarchyTrie.getMaxCommonHeight(abgAndAbhz, abgAndAbhz));
+        assertEquals(7, trie.getNodeCount());
+    }
+
+    private void assertMetricEqualsPrefixTrees(final AbstractHierarchyMapping<Package> metric) {
+        this.classPackages.clear();
+        this.parentPackages.clear();
+        final List<ConcreteClassifier> classes = this.createRandomHierarchy();
+
+        final ComponentToImplementingClassesHelper componentToClassHelper = new ComponentToImplementingClassesHelper();
+        final List<ComponentImplementingClassesLink> components = new ArrayList<ComponentImplementingClassesLink>();
+        for (int i = 0; i < COMPONENTS; i++) {
+            final ComponentImplementingClassesLink component = SourcecodedecoratorFactory.eINSTANCE
+                    .createComponentImplementingClassesLink();
+            final int classCount = 1 + this.random.nextInt(5);
+            for (int j = 0; j < classCount; j++) {
+                component.getImplementingClasses().add(classes.get(this.random.nextInt(classes.size())));
+            }
+            if (!components.isEmpty() && this.random.nextInt(4) == 0) {
+                component.getSubComponents().add(components.get(this.random.nextInt(components.size())));
+            }
+            components.add(component);
+        }
+
+        // only some classes are known in advance, the others are added on demand
+        final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph = new SimpleDirectedGraph<ConcreteClassifier, ClassAccessGraphEdge>(
+                ClassAccessGraphEdge.class);
+        for (final ConcreteClassifier clazz : classes.subList(0, classes.size() / 2)) {
+            accessGraph.addVertex(clazz);
+        }
+        metric.initialize(null, null, null, accessGraph, componentToClassHelper);
+
+        final MetricResultStore store = new MetricResultStore(Arrays.asList(metric.getMID()), 16);
+        for (final ComponentImplementingClassesLink source : components) {
+            for (final ComponentImplementingClassesLink target : components) {
+                if (source == target) {
+                    continue;
+                }
+                final ClusteringRelation relation = new ClusteringRelation(source, target, store);
+                metric.computeDirected(relation);
+                final double expected = this.computeWithPrefixTrees(metric instanceof DirectoryMapping,
+                        componentToClassHelper.deriveImplementingClasses(source),
+                        componentToClassHelper.deriveImplementingClasses(target));
+                assertEquals(Double.doubleToLongBits(expected),
+                        Double.doubleToLongBits(relation.getResultMetric(metric.getMID())));
+                relation.release();
+            }
+        }
+    }
+
+    /**
+     * Creates up to three top-level packages with random sub-package trees and classes in random
+     * packages. Some classes are attached to no package.
+     */
+    private List<ConcreteClassifier> createRandomHierarchy() {
+        final List<Package> packages = new ArrayList<Package>();
+        final int topLevelCount = 1 + this.random.nextInt(3);
+        for (int i = 0; i < topLevelCount; i++) {
+            packages.add(this.createPackage(null));
+        }
+        final int packageCount = this.random.nextInt(15);
+        for (int i = 0; i < packageCount; i++) {
+            packages.add(this.createPackage(packages.get(this.random.nextInt(packages.size()))));
+        }
+        final List<ConcreteClassifier> classes = new ArrayList<ConcreteClassifier>();
+        final int classCount = 1 + this.random.nextInt(20);
+        for (int i = 0; i < classCount; i++) {
+            final ConcreteClassifier clazz = ClassifiersFactory.eINSTANCE.createClass();
+            if (this.random.nextInt(8) != 0) {
+                // deep packages are more likely to contain classes
+                this.classPackages.put(clazz, packages.get(packages.size() - 1
+                        - Math.min(this.random.nextInt(packages.size()), this.random.nextInt(packages.size()))));
+            }
+            classes.add(clazz);
+        }
+        return classes;
+    }
+
+    private List<Package> createChain(final Package parent, final int length) {
+        final List<Package> chain = new ArrayList<Package>();
+        Package current = parent;
+        for (int i = 0; i < length; i++) {
+            current = this.createPackage(current);
+            chain.add(current);
+        }
+        return chain;
+    }
+
+    private Package createPackage(final Package parent) {
+        final Package result = ContainersFactory.eINSTANCE.createPackage();
+        this.parentPackages.put(result, parent);
+        return result;
+    }
+
+    private List<ConcreteClassifier> createClasses(final Package... packages) {
+        final List<ConcreteClassifier> classes = new ArrayList<ConcreteClassifier>();
+        for (final Package currentPackage : packages) {
+            final ConcreteClassifier clazz = ClassifiersFactory.eINSTANCE.createClass();
+            this.classPackages.put(clazz, currentPackage);
+            classes.add(clazz);
+        }
+        return classes;
+    }
+
+    /**
+     * The computation {@link AbstractHierarchyMapping} used to do for each pair.
+     */
+    private double computeWithPrefixTrees(final boolean directoryMapping, final Set<ConcreteClassifier> classes1,
+            final Set<ConcreteClassifier> classes2) {
+        final TreeNode tree1 = this.collectPaths(classes1);
+        final TreeNode tree2 = this.collectPaths(classes2);
+        final int maxCommon = getMaxCommonPackageDirectory(tree1, tree2);
+        final int maxHeight = Math.max(tree1.getHeight(), tree2.getHeight());
+        if (maxHeight == 0) {
+            return 0.0;
+        }
+        double rawMeasure;
+        if (directoryMapping) {
+            rawMeasure = (double) (maxCommon + 3) / (double) (maxHeight + 3);
+        } else {
+            rawMeasure = (double) maxCommon / (double) maxHeight;
+        }
+        return rawMeasure < 0.2 ? 0.0 : rawMeasure;
+    }
+
+    private static int getMaxCommonPackageDirectory(final TreeNode tree1, final TreeNode tree2) {
+        if (tree1.element == null && tree2.element == null) {
+            if (tree1.children.size() == 0 || tree2.children.size() == 0) {
+                return 0;
+            }
+            return getMaxCommonPackageDirectory(tree1.children.get(0), tree2.children.get(0));
+        }
+        if (tree1.children.size() > 1 || tree2.children.size() > 1) {
+            return 0;
+        }
+        if (tree1.element != tree2.element) {
+            return 0;
+        }
+        if (tree1.children.size() == 0 || tree2.children.size() == 0) {
+            return 1;
+        }
+        return 1 + getMaxCommonPackageDirectory(tree1.children.get(0), tree2.children.get(0));
+    }
+
+    private TreeNode collectPaths(final Set<ConcreteClassifier> elements) {
+        final TreeNode root = new TreeNode(null);
+        for (final ConcreteClassifier currentClass : elements) {
+            this.addToTree(root, this.classPackages.get(currentClass));
+        }
+        return root;
+    }
+
+    private TreeNode addToTree(final TreeNode root, final Package element) {
+        if (element == null) {
+            return root;
+        }
+        final TreeNode parent = this.addToTree(root, this.parentPackages.get(element));
+        for (final TreeNode child : parent.children) {
+            if (child.element == element) {
+                return child;
+            }
+        }
+        final TreeNode newChild = new TreeNode(element);
+        parent.children.add(newChild);
+        return newChild;
+    }
+
+    private static class TreeNode {
+        private final Package element;
+
+        private final List<TreeNode> children = new LinkedList<TreeNode>();
+
+        TreeNode(final Package element) {
+            this.element = element;
+        }
+
+        int getHeight() {
+            int result = 0;
+            for (final TreeNode child : this.children) {
+                result = Math.max(result, child.getHeight());
+            }
+            return result + (this.element == null ? 0 : 1);
+        }
+    }
+
+    private class TestPackageMapping extends PackageMapping {
+        @Override
+        protected Package getPath(final Type clazz) {
+            return HierarchyMappingTest.this.classPackages.get(clazz);
+        }
+
+        @Override
+        protected Package getPath(final Package element) {
+            return HierarchyMappingTest.this.parentPackages.get(element);
+        }
+    }
+
+    private class TestDirectoryMapping extends DirectoryMapping {
+        @Override
+        protected Package getPath(final Type clazz) {
+            return HierarchyMappingTest.this.classPackages.get(clazz);
+        }
+
+        @Override
+        protected Package getPath(final Package element) {
+            return HierarchyMappingTest.this.parentPackages.get(element);
+        }
+    }
+}
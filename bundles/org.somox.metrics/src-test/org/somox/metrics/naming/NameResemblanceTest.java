@@ -0,0 +1,86 @@
+package org.somox.metrics.naming;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.wcohen.ss.JaroWinkler;
+import com.wcohen.ss.api.StringDistance;
+
+/**
+ * Tests the name trimming, the character signatures and the resemblance cache of
+ * {@link NameResemblance}.
+ */
+public class NameResemblanceTest {
+
+    private static final StringDistance JARO_WINKLER = new JaroWinkler();
+
+    @Test
+    public void testTrimRemovesPrefixesAndSuffixes() {
+        final Set<String> prefixes = new HashSet<String>(Arrays.asList("I", "Abstract"));
+        final Set<String> suffixes = new HashSet<String>(Arrays.asList("Impl", "Test"));
+        assertEquals("Parser", NameResemblance.trimString("AbstractParserImpl", prefixes, suffixes));
+        assertEquals("Parser", NameResemblance.trimString("IAbstractParserTestImpl", prefixes, suffixes));
+        assertEquals("Parser", NameResemblance.trimString("Parser", prefixes, suffixes));
+        assertEquals("Parser", NameResemblance.trimString("IIParserImplTest", prefixes, suffixes));
+    }
+
+    @Test
+    public void testDisjointSignaturesHaveNoResemblance() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            final String name1 = JARO_WINKLER.prepare(randomName(random)).unwrap();
+            final String name2 = JARO_WINKLER.prepare(randomName(random)).unwrap();
+            if ((NameResemblance.computeCharacterSignature(name1)
+                    & NameResemblance.computeCharacterSignature(name2)) == 0) {
+                assertEquals(0.0, JARO_WINKLER.score(name1, name2), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testCacheIsSymmetric() {
+        final NameResemblanceCache cache = new NameResemblanceCache(1024);
+        assertTrue(Double.isNaN(cache.get(3, 7)));
+        cache.put(7, 3, 0.5);
+        assertEquals(0.5, cache.get(3, 7), 0.0);
+        assertEquals(0.5, cache.get(7, 3), 0.0);
+        cache.put(3, 7, 0.25);
+        assertEquals(0.25, cache.get(7, 3), 0.0);
+    }
+
+    @Test
+    public void testCacheNeverReturnsWrongValues() {
+        final NameResemblanceCache cache = new NameResemblanceCache(100);
+        final Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            final int id1 = random.nextInt(200);
+            final int id2 = random.nextInt(200);
+            final double cached = cache.get(id1, id2);
+            if (Double.isNaN(cached)) {
+                cache.put(id1, id2, expectedValue(id1, id2));
+            } else {
+                assertEquals(expectedValue(id1, id2), cached, 0.0);
+            }
+        }
+    }
+
+    private static double expectedValue(final int id1, final int id2) {
+        return (Math.min(id1, id2) * 1000 + Math.max(id1, id2)) / 1e6;
+    }
+
+    private static String randomName(final Random random) {
+        final String alphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_$";
+        final char[] name = new char[random.nextInt(6)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return new String(name);
+    }
+}
@@ -0,0 +1,284 @@
+package org.somox.metrics.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.emftext.language.java.classifiers.ClassifiersFactory;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.SimpleDirectedGraph;
+import org.junit.Test;
+import org.somox.configuration.SoMoXConfiguration;
+import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.ICompositionFunction;
+import org.somox.metrics.IMetric;
+import org.somox.metrics.MetricID;
+import org.somox.metrics.MetricResultStore;
+import org.somox.metrics.abstractmetrics.AbstractComposedMetric;
+import org.somox.metrics.basic.AbstractTypesCount;
+import org.somox.metrics.basic.AfferentCoupling;
+import org.somox.metrics.basic.EfferentCoupling;
+import org.somox.metrics.basic.ExternalAccessesCount;
+import org.somox.metrics.basic.InterfaceAccessesCount;
+import org.somox.metrics.basic.InternalAccessesCount;
+import org.somox.metrics.basic.TotalTypesCount;
+import org.somox.metrics.helper.ClassAccessGraphEdge;
+import org.somox.metrics.helper.ComponentToImplementingClassesHelper;
+import org.somox.metrics.hierarchy.DirectoryMapping;
+import org.somox.metrics.hierarchy.PackageMapping;
+import org.somox.metrics.naming.NameResemblance;
+import org.somox.metrics.ratio.Abstractness;
+import org.somox.metrics.ratio.AdherenceToInterfaceCommunication;
+import org.somox.metrics.ratio.Coupling;
+import org.somox.metrics.ratio.DMS;
+import org.somox.metrics.ratio.Instability;
+import org.somox.metrics.structure.SliceLayerArchitectureQuality;
+import org.somox.metrics.structure.SubsystemComponent;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+
+/**
+ * Tests the discovery and the dependency order of metrics and computes the full metric set without
+ * the Eclipse runtime.
+ */
+public class MetricsRegistryTest {
+
+    private static final List<Class<?>> METRIC_CLASSES = Arrays.<Class<?>> asList(Instability.class,
+            NameResemblance.class, SubsystemComponent.class, PackageMapping.class, DMS.class,
+            SliceLayerArchitectureQuality.class, Coupling.class, AdherenceToInterfaceCommunication.class,
+            Abstractness.class, DirectoryMapping.class, AbstractTypesCount.class, ExternalAccessesCount.class,
+            InterfaceAccessesCount.class, InternalAccessesCount.class, TotalTypesCount.class,
+            EfferentCoupling.class, AfferentCoupling.class);
+
+    @Test
+    public void testProviderFilesListAllMetrics() {
+        final Map<MetricID, IMetric> metrics = MetricsRegistry
+                .loadMetricsFromServiceLoader(MetricsRegistryTest.class.getClassLoader());
+        for (final Class<?> metricClass : METRIC_CLASSES) {
+            assertTrue(metricClass.getName(), containsInstanceOf(metrics, metricClass));
+        }
+        for (final Map.Entry<MetricID, IMetric> entry : metrics.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue().getMID());
+        }
+    }
+
+    @Test
+    public void testRegisteredMetricsAreOrderedByDependencies() {
+        final Map<MetricID, IMetric> metrics = MetricsRegistry.getRegisteredMetrics();
+        for (final Class<?> metricClass : METRIC_CLASSES) {
+            assertTrue(metricClass.getName(), containsInstanceOf(metrics, metricClass));
+        }
+        assertChildMetricsFirst(metrics);
+        assertSame(metrics, MetricsRegistry.getRegisteredMetrics());
+    }
+
+    @Test
+    public void testOrderKeepsIndependentMetrics() {
+        final Map<MetricID, IMetric> metrics = new LinkedHashMap<MetricID, IMetric>();
+        add(metrics, new TestComposedMetric("c", "b", "a"));
+        add(metrics, new TestComposedMetric("a"));
+        add(metrics, new TestComposedMetric("d"));
+        add(metrics, new TestComposedMetric("b", "a"));
+        final Map<MetricID, IMetric> ordered = MetricsRegistry.orderByDependencies(metrics);
+        assertEquals(Arrays.asList(new MetricID("a"), new MetricID("b"), new MetricID("c"), new MetricID("d")),
+                new ArrayList<MetricID>(ordered.keySet()));
+        assertChildMetricsFirst(ordered);
+    }
+
+    @Test
+    public void testCyclesAreDetected() {
+        final Map<MetricID, IMetric> metrics = new LinkedHashMap<MetricID, IMetric>();
+        add(metrics, new TestComposedMetric("a", "b"));
+        add(metrics, new TestComposedMetric("b", "c"));
+        add(metrics, new TestComposedMetric("c", "d", "b"));
+        add(metrics, new TestComposedMetric("d"));
+        try {
+            MetricsRegistry.orderByDependencies(metrics);
+            fail("Cycle not detected");
+        } catch (final IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("b -> c -> b"));
+        }
+
+        metrics.clear();
+        add(metrics, new TestComposedMetric("a", "a"));
+        try {
+            MetricsRegistry.orderByDependencies(metrics);
+            fail("Cycle not detected");
+        } catch (final IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("a -> a"));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMissingChildMetric() {
+        final Map<MetricID, IMetric> metrics = new LinkedHashMap<MetricID, IMetric>();
+        add(metrics, new TestComposedMetric("a", "missing"));
+        MetricsRegistry.orderByDependencies(metrics);
+    }
+
+    @Test
+    public void testProgrammaticRegistration() {
+        final IMetric discoveredCoupling = MetricsRegistry.getRegisteredMetrics().get(Coupling.METRIC_ID);
+        final TestComposedMetric composed = new TestComposedMetric("test.composed",
+                Coupling.METRIC_ID.getMetricID());
+        final TestComposedMetric coupling = new TestComposedMetric(Coupling.METRIC_ID.getMetricID());
+        try {
+            MetricsRegistry.registerMetric(composed);
+            MetricsRegistry.registerMetric(coupling);
+            final Map<MetricID, IMetric> metrics = MetricsRegistry.getRegisteredMetrics();
+            assertSame(composed, metrics.get(composed.getMID()));
+            assertSame(coupling, metrics.get(Coupling.METRIC_ID));
+            assertChildMetricsFirst(metrics);
+        } finally {
+            MetricsRegistry.unregisterMetric(composed.getMID());
+            MetricsRegistry.unregisterMetric(coupling.getMID());
+        }
+        assertFalse(MetricsRegistry.getRegisteredMetrics().containsKey(composed.getMID()));
+        assertSame(discoveredCoupling, MetricsRegistry.getRegisteredMetrics().get(Coupling.METRIC_ID));
+    }
+
+    @Test
+    public void testFullMetricSetWithoutEclipseRuntime() {
+        final Map<MetricID, IMetric> metrics = MetricsRegistry.orderByDependencies(
+                MetricsRegistry.loadMetricsFromServiceLoader(MetricsRegistryTest.class.getClassLoader()));
+
+        final List<ConcreteClassifier> classes = new ArrayList<ConcreteClassifier>();
+        for (final String name : Arrays.asList("OrderStore", "OrderStoreImpl", "OrderView", "OrderViewImpl",
+                "Customer", "CustomerStore")) {
+            final ConcreteClassifier clazz = name.endsWith("Impl") || name.equals("Customer")
+                    ? ClassifiersFactory.eINSTANCE.createClass() : ClassifiersFactory.eINSTANCE.createInterface();
+            clazz.setName(name);
+            classes.add(clazz);
+        }
+        final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph = new SimpleDirectedGraph<ConcreteClassifier, ClassAccessGraphEdge>(
+                ClassAccessGraphEdge.class);
+        for (final ConcreteClassifier clazz : classes) {
+            accessGraph.addVertex(clazz);
+        }
+        final int[][] accesses = { { 1, 0, 3 }, { 3, 1, 2 }, { 3, 2, 1 }, { 1, 4, 5 }, { 5, 4, 1 }, { 3, 5, 2 } };
+        for (final int[] access : accesses) {
+            final ConcreteClassifier source = classes.get(access[0]);
+            final ConcreteClassifier target = classes.get(access[1]);
+            accessGraph.addEdge(source, target, new ClassAccessGraphEdge(source, target, access[2]));
+        }
+
+        final ComponentToImplementingClassesHelper helper = new ComponentToImplementingClassesHelper();
+        final List<ComponentImplementingClassesLink> components = new ArrayList<ComponentImplementingClassesLink>();
+        for (int i = 0; i < classes.size(); i += 2) {
+            final ComponentImplementingClassesLink component = SourcecodedecoratorFactory.eINSTANCE
+                    .createComponentImplementingClassesLink();
+            component.getImplementingClasses().add(classes.get(i));
+            component.getImplementingClasses().add(classes.get(i + 1));
+            helper.attachImplementingClasses(component);
+            components.add(component);
+        }
+
+        final SoMoXConfiguration configuration = new SoMoXConfiguration();
+        for (final IMetric metric : metrics.values()) {
+            metric.initialize(null, configuration, metrics, accessGraph, helper);
+        }
+        final MetricResultStore store = new MetricResultStore(metrics.keySet(), 16);
+        for (final ComponentImplementingClassesLink source : components) {
+            for (final ComponentImplementingClassesLink target : components) {
+                if (source == target) {
+                    continue;
+                }
+                final ClusteringRelation relation = new ClusteringRelation(source, target, store);
+                for (final IMetric metric : metrics.values()) {
+                    metric.computeDirected(relation);
+                }
+                for (final IMetric metric : metrics.values()) {
+                    assertTrue(metric.getMID().toString(), relation.hasResultMetric(metric.getMID()));
+                    final double value = relation.getResultMetric(metric.getMID());
+                    assertFalse(metric.getMID().toString(), Double.isNaN(value));
+                    if (metric.isNormalised()) {
+                        assertTrue(metric.getMID() + " = " + value, value >= 0.0 && value <= 1.0);
+                    }
+                }
+                relation.release();
+            }
+        }
+    }
+
+    private static void assertChildMetricsFirst(final Map<MetricID, IMetric> metrics) {
+        final List<MetricID> order = new ArrayList<MetricID>(metrics.keySet());
+        for (final IMetric metric : metrics.values()) {
+            if (metric instanceof AbstractComposedMetric) {
+                for (final IMetric childMetric : ((AbstractComposedMetric) metric).resolveChildMetrics(metrics)) {
+                    assertTrue(metric.getMID() + " before " + childMetric.getMID(),
+                            order.indexOf(childMetric.getMID()) < order.indexOf(metric.getMID()));
+                }
+            }
+        }
+    }
+
+    private static boolean containsInstanceOf(final Map<MetricID, IMetric> metrics, final Class<?> metricClass) {
+        for (final IMetric metric : metrics.values()) {
+            if (metricClass.isInstance(metric)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void add(final Map<MetricID, IMetric> metrics, final IMetric metric) {
+        metrics.put(metric.getMID(), metric);
+    }
+
+    /**
+     * Composed metric with the given child metrics, which averages their values.
+     */
+    private static class TestComposedMetric extends AbstractComposedMetric {
+
+        private final MetricID metricID;
+
+        private final MetricID[] childMetricIDs;
+
+        TestComposedMetric(final String id, final String... childIDs) {
+            this.metricID = new MetricID(id);
+            this.childMetricIDs = new MetricID[childIDs.length];
+            for (int i = 0; i < childIDs.length; i++) {
+                this.childMetricIDs[i] = new MetricID(childIDs[i]);
+            }
+        }
+
+        @Override
+        public MetricID getMID() {
+            return this.metricID;
+        }
+
+        @Override
+        public boolean isNormalised() {
+            return true;
+        }
+
+        @Override
+        protected IMetric[] getChildMetrics(final Map<MetricID, IMetric> allMetrics) {
+            return this.metricIDToIMetric(this.childMetricIDs, allMetrics);
+        }
+
+        @Override
+        protected ICompositionFunction getCompositionFunction(final SoMoXConfiguration somoxConfiguration) {
+            return new ICompositionFunction() {
+                @Override
+                public double computeOverallDirectedMetricValue(final Map<MetricID, Double> metricValues) {
+                    double sum = 0.0;
+                    for (final MetricID childMetricID : TestComposedMetric.this.childMetricIDs) {
+                        sum += metricValues.get(childMetricID);
+                    }
+                    return TestComposedMetric.this.childMetricIDs.length == 0 ? 0.0
+                            : sum / TestComposedMetric.this.childMetricIDs.length;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.somox.metrics.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.emftext.language.java.classifiers.ClassifiersFactory;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.SimpleDirectedGraph;
+import org.junit.Before;
+import org.junit.Test;
+import org.somox.metrics.helper.ClassAccessGraphEdge;
+
+/**
+ * Compares the access counts of {@link AccessCacheGraph} with counts computed directly on the edges
+ * of random access graphs.
+ */
+public class AccessCacheGraphTest {
+
+    private static final int GRAPHS = 50;
+
+    private static final int QUERIES_PER_GRAPH = 200;
+
+    private Random random;
+
+    @Before
+    public void setUp() {
+        this.random = new Random(42);
+    }
+
+    @Test
+    public void testAccessesToClassesInSet() {
+        for (int graph = 0; graph < GRAPHS; graph++) {
+            final List<ConcreteClassifier> classes = this.createClasses();
+            final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph = this
+                    .createAccessGraph(classes);
+            final AccessCacheGraph cache = new AccessCacheGraph(accessGraph);
+            for (int query = 0; query < QUERIES_PER_GRAPH; query++) {
+                final Set<ConcreteClassifier> sources = this.randomSubset(classes);
+                final Set<ConcreteClassifier> targets = this.randomSubset(classes);
+                assertEquals(countAccesses(accessGraph, sources, targets, true),
+                        cache.calculateNumberOfAccessesToClassesInSet(sources, targets));
+            }
+        }
+    }
+
+    @Test
+    public void testInternalExternalAndIncomingAccesses() {
+        for (int graph = 0; graph < GRAPHS; graph++) {
+            final List<ConcreteClassifier> classes = this.createClasses();
+            final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph = this
+                    .createAccessGraph(classes);
+            final AccessCacheGraph cache = new AccessCacheGraph(accessGraph);
+            for (int query = 0; query < QUERIES_PER_GRAPH; query++) {
+                final Set<ConcreteClassifier> component = this.randomSubset(classes);
+                assertEquals(countAccesses(accessGraph, component, component, true),
+                        cache.calculateNumberOfInternalAccesses(component));
+                assertEquals(countAccesses(accessGraph, component, component, false),
+                        cache.calculateNumberOfExternalAccesses(component));
+                assertEquals(countIncomingAccesses(accessGraph, component),
+                        cache.calculateNumberOfIncommingAccesses(component));
+            }
+        }
+    }
+
+    @Test
+    public void testTargetsOutsideOfGraphAreIgnored() {
+        final List<ConcreteClassifier> classes = this.createClasses();
+        final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph = this.createAccessGraph(classes);
+        final AccessCacheGraph cache = new AccessCacheGraph(accessGraph);
+        final Set<ConcreteClassifier> targets = new HashSet<ConcreteClassifier>(classes);
+        targets.add(ClassifiersFactory.eINSTANCE.createClass());
+        final Set<ConcreteClassifier> sources = new HashSet<ConcreteClassifier>(classes);
+        assertEquals(countAccesses(accessGraph, sources, sources, true),
+                cache.calculateNumberOfAccessesToClassesInSet(sources, targets));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSourceOutsideOfGraph() {
+        final AccessCacheGraph cache = new AccessCacheGraph(this.createAccessGraph(this.createClasses()));
+        final Set<ConcreteClassifier> sources = new HashSet<ConcreteClassifier>();
+        sources.add(ClassifiersFactory.eINSTANCE.createClass());
+        cache.calculateNumberOfExternalAccesses(sources);
+    }
+
+    private List<ConcreteClassifier> createClasses() {
+        final int classCount = 1 + this.random.nextInt(40);
+        final List<ConcreteClassifier> classes = new ArrayList<ConcreteClassifier>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            classes.add(ClassifiersFactory.eINSTANCE.createClass());
+        }
+        return classes;
+    }
+
+    private DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> createAccessGraph(
+            final List<ConcreteClassifier> classes) {
+        final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph = new SimpleDirectedGraph<ConcreteClassifier, ClassAccessGraphEdge>(
+                ClassAccessGraphEdge.class);
+        for (final ConcreteClassifier clazz : classes) {
+            accessGraph.addVertex(clazz);
+        }
+        final int edgeCount = this.random.nextInt(classes.size() * 3 + 1);
+        for (int i = 0; i < edgeCount; i++) {
+            final ConcreteClassifier source = classes.get(this.random.nextInt(classes.size()));
+            final ConcreteClassifier target = classes.get(this.random.nextInt(classes.size()));
+            if (source != target && !accessGraph.containsEdge(source, target)) {
+                accessGraph.addEdge(source, target,
+                        new ClassAccessGraphEdge(source, target, 1 + this.random.nextInt(10)));
+            }
+        }
+        return accessGraph;
+    }
+
+    private Set<ConcreteClassifier> randomSubset(final List<ConcreteClassifier> classes) {
+        final Set<ConcreteClassifier> result = new HashSet<ConcreteClassifier>();
+        final double probability = this.random.nextDouble();
+        for (final ConcreteClassifier clazz : classes) {
+            if (this.random.nextDouble() < probability) {
+                result.add(clazz);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sums the counts of the edges from the sources to classes which are (or are not) targets.
+     */
+    private static long countAccesses(final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph,
+            final Set<ConcreteClassifier> sources, final Set<ConcreteClassifier> targets, final boolean toTargets) {
+        long result = 0;
+        for (final ClassAccessGraphEdge edge : accessGraph.edgeSet()) {
+            if (sources.contains(accessGraph.getEdgeSource(edge))
+                    && targets.contains(accessGraph.getEdgeTarget(edge)) == toTargets) {
+                result += edge.getCount();
+            }
+        }
+        return result;
+    }
+
+    private static long countIncomingAccesses(
+            final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph,
+            final Set<ConcreteClassifier> classes) {
+        long result = 0;
+        for (final ClassAccessGraphEdge edge : accessGraph.edgeSet()) {
+            if (!classes.contains(accessGraph.getEdgeSource(edge))
+                    && classes.contains(accessGraph.getEdgeTarget(edge))) {
+                result += edge.getCount();
+            }
+        }
+        return result;
+    }
+}
@@ -1,17 +1,23 @@
 package org.somox.metrics;
 
 import java.text.DecimalFormat;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
+import org.somox.metrics.registry.MetricsRegistry;
 import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
 
 /**
  * This class stores the computed metric of the relationship between a source and a target
- * component.
+ * component. The metric values themselves are kept in a {@link MetricResultStore}, this class is a
+ * view on the values of a single pair of the store.
  *
  * @author Klaus Krogmann, Steffen Becker
  */
@@ -21,20 +27,64 @@ public class ClusteringRelation {
 
     private final ComponentImplementingClassesLink targetComponent;
 
-    private final Map<MetricID, Double> result = new HashMap<MetricID, Double>();
+    private final MetricResultStore store;
 
-    private final Map<MetricID, Double> unmodifiableResult = Collections.unmodifiableMap(this.result);
+    private final int pairIndex;
+
+    /**
+     * Value chunk of the store containing this relation's pair
+     */
+    private final double[] values;
+
+    /**
+     * Set flags of the store chunk containing this relation's pair
+     */
+    private final long[] setFlags;
+
+    private final int offset;
+
+    private final int chunkSize;
+
+    /**
+     * Index of the first flag word of this relation's pair
+     */
+    private final int firstFlagWord;
+
+    private boolean released = false;
+
+    private final Map<MetricID, Double> unmodifiableResult = new ResultView();
 
     private static DecimalFormat format = new DecimalFormat(".00");
 
+    /**
+     * Creates a relation whose values are stored in a store of its own covering all registered
+     * metrics. Use {@link #ClusteringRelation(ComponentImplementingClassesLink, ComponentImplementingClassesLink, MetricResultStore)}
+     * when creating many relations.
+     */
     public ClusteringRelation(final ComponentImplementingClassesLink sourceComponent,
             final ComponentImplementingClassesLink targetComponent) {
+        this(sourceComponent, targetComponent,
+                new MetricResultStore(MetricsRegistry.getRegisteredMetrics().keySet(), 1));
+    }
+
+    public ClusteringRelation(final ComponentImplementingClassesLink sourceComponent,
+            final ComponentImplementingClassesLink targetComponent, final MetricResultStore store) {
         if (sourceComponent == null || targetComponent == null || sourceComponent == targetComponent) {
             throw new IllegalArgumentException("Components must not be null or the same in a clustering relation");
         }
+        if (store == null) {
+            throw new IllegalArgumentException("Metric result store must not be null");
+        }
 
         this.sourceComponent = sourceComponent;
         this.targetComponent = targetComponent;
+        this.store = store;
+        this.pairIndex = store.allocatePair();
+        this.values = store.getValueChunk(this.pairIndex);
+        this.setFlags = store.getSetFlagChunk(this.pairIndex);
+        this.chunkSize = store.getChunkSize();
+        this.offset = this.pairIndex % this.chunkSize;
+        this.firstFlagWord = this.offset * store.getFlagWordsPerPair();
     }
 
     // TODO: Move to somewhere else
@@ -56,19 +106,73 @@ public class ClusteringRelation {
     }
 
     public void setResultMetric(final MetricID metric, final double value) {
-        if (this.result.containsKey(metric)) {
+        final int metricIndex = this.store.indexOf(metric);
+        if (metricIndex < 0) {
+            throw new IllegalArgumentException("Metric " + metric + " is not contained in the metric result store");
+        }
+        if (this.isSet(metricIndex)) {
             throw new IllegalArgumentException("Metric added to clustering relation is already set");
         }
         if (Double.isNaN(value) || Double.isInfinite(value)) {
             throw new IllegalArgumentException("Metric value is not a valid number. Some computations went wrong");
         }
-        this.result.put(metric, value);
+        this.values[metricIndex * this.chunkSize + this.offset] = value;
+        this.setFlags[this.firstFlagWord + (metricIndex >>> 6)] |= 1L << metricIndex;
+    }
+
+    /**
+     * @param metric
+     *            The ID of a metric
+     * @return true if the value of the given metric has been computed for this relation
+     */
+    public boolean hasResultMetric(final MetricID metric) {
+        final int metricIndex = this.store.indexOf(metric);
+        return metricIndex >= 0 && this.isSet(metricIndex);
+    }
+
+    /**
+     * Returns the value of a metric without boxing it.
+     *
+     * @param metric
+     *            The ID of a metric
+     * @return The value of the metric computed for this relation
+     * @throws IllegalArgumentException
+     *             if the value has not been computed
+     */
+    public double getResultMetric(final MetricID metric) {
+        final int metricIndex = this.store.indexOf(metric);
+        if (metricIndex < 0 || !this.isSet(metricIndex)) {
+            throw new IllegalArgumentException("Metric " + metric + " has not been computed for this relation");
+        }
+        return this.values[metricIndex * this.chunkSize + this.offset];
+    }
+
+    /**
+     * Returns the storage of this relation to its {@link MetricResultStore}. The relation must not
+     * be used afterwards.
+     */
+    public void release() {
+        if (!this.released) {
+            this.released = true;
+            this.store.releasePair(this.pairIndex);
+        }
+    }
+
+    /**
+     * @return The pair index of this relation in its {@link MetricResultStore}
+     */
+    public int getPairIndex() {
+        return this.pairIndex;
+    }
+
+    private boolean isSet(final int metricIndex) {
+        return (this.setFlags[this.firstFlagWord + (metricIndex >>> 6)] & (1L << metricIndex)) != 0;
     }
 
     @Override
     public String toString() {
         final StringBuilder stringBuilder = new StringBuilder();
-        for (final Map.Entry<MetricID, Double> metricResult : this.result.entrySet()) {
+        for (final Map.Entry<MetricID, Double> metricResult : this.unmodifiableResult.entrySet()) {
             final String metricFullName = metricResult.getKey().getMetricID();
             stringBuilder.append(metricFullName.substring(metricFullName.lastIndexOf(".") + 1));
             stringBuilder.append(" = ");
@@ -78,7 +182,83 @@ public class ClusteringRelation {
         return stringBuilder.toString();
     }
 
+    /**
+     * @return An unmodifiable map view on the metric values computed for this relation
+     */
     public Map<MetricID, Double> getResult() {
         return this.unmodifiableResult;
     }
+
+    /**
+     * Read-only map view on the set values of this relation.
+     */
+    private class ResultView extends AbstractMap<MetricID, Double> {
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return key instanceof MetricID && ClusteringRelation.this.hasResultMetric((MetricID) key);
+        }
+
+        @Override
+        public Double get(final Object key) {
+            return this.containsKey(key) ? ClusteringRelation.this.getResultMetric((MetricID) key) : null;
+        }
+
+        @Override
+        public Set<Map.Entry<MetricID, Double>> entrySet() {
+            return new AbstractSet<Map.Entry<MetricID, Double>>() {
+
+                @Override
+                public Iterator<Map.Entry<MetricID, Double>> iterator() {
+                    return new ResultIterator();
+                }
+
+                @Override
+                public int size() {
+                    int size = 0;
+                    for (int i = 0; i < ClusteringRelation.this.store.getMetricCount(); i++) {
+                        if (ClusteringRelation.this.isSet(i)) {
+                            size++;
+                        }
+                    }
+                    return size;
+                }
+            };
+        }
+    }
+
+    /**
+     * Iterates over the set values of this relation in the order of the metric indices.
+     */
+    private class ResultIterator implements Iterator<Map.Entry<MetricID, Double>> {
+
+        private int nextMetricIndex = this.findNext(0);
+
+        private int findNext(final int start) {
+            int metricIndex = start;
+            while (metricIndex < ClusteringRelation.this.store.getMetricCount()
+                    && !ClusteringRelation.this.isSet(metricIndex)) {
+                metricIndex++;
+            }
+            return metricIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextMetricIndex < ClusteringRelation.this.store.getMetricCount();
+        }
+
+        @Override
+        public Map.Entry<MetricID, Double> next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final int metricIndex = this.nextMetricIndex;
+            this.nextMetricIndex = this.findNext(metricIndex + 1);
+            return new AbstractMap.SimpleImmutableEntry<MetricID, Double>(
+                    ClusteringRelation.this.store.getMetric(metricIndex),
+                    ClusteringRelation.this.values[metricIndex * ClusteringRelation.this.chunkSize
+                            + ClusteringRelation.this.offset]);
+        }
+    }
 }
@@ -0,0 +1,23 @@
+package org.somox.metrics;
+
+import java.util.Map;
+
+/**
+ * A composition function which can bound its overall value when only some of the child metric
+ * values are known. Used to skip the computation of component candidate pairs which cannot reach
+ * a clustering threshold.
+ */
+public interface IBoundedCompositionFunction extends ICompositionFunction {
+
+    /**
+     * Computes an upper bound of {@link #computeOverallDirectedMetricValue(Map)} over all child
+     * metric values consistent with the given ones. Child metrics not contained in the map may take
+     * any value in [0, 1].
+     *
+     * @param knownMetricValues
+     *            The ID and the exact value of every child metric known in advance
+     * @return An upper bound of the overall metric score or {@link Double#POSITIVE_INFINITY} if no
+     *         bound can be given, e.g., because the configured weights allow a negative sum
+     */
+    public double computeUpperBound(Map<MetricID, Double> knownMetricValues);
+}
@@ -0,0 +1,187 @@
+package org.somox.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar storage for the metric values of many {@link ClusteringRelation}s. Each
+ * {@link MetricID} is interned to a dense index and each relation is assigned a pair index. The
+ * values are kept in primitive <code>double</code> columns, one column per metric, which are
+ * allocated in chunks of a fixed number of pairs. Within a chunk the value of metric
+ * <code>m</code> for the pair at offset <code>o</code> is stored at
+ * <code>m * chunkSize + o</code>. A bit set per chunk records which values have been set; the
+ * flag words of different pairs never overlap so that different pairs can be written concurrently.
+ *
+ * Pair indices are allocated by the thread creating the relations. Each relation is written by
+ * a single thread at a time; publishing the relation to other threads (e.g. through a
+ * {@link java.util.concurrent.Future}) has to establish the happens-before relationship as it
+ * did for the former map based storage.
+ */
+public class MetricResultStore {
+
+    /**
+     * Default number of pairs stored in one chunk of the columns
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final Map<MetricID, Integer> metricIndices;
+
+    private final MetricID[] metrics;
+
+    private final int chunkSize;
+
+    /**
+     * Number of <code>long</code> flag words used per pair
+     */
+    private final int flagWordsPerPair;
+
+    private final List<double[]> valueChunks = new ArrayList<double[]>();
+
+    private final List<long[]> setFlagChunks = new ArrayList<long[]>();
+
+    /**
+     * Released pair indices available for reuse, used as stack
+     */
+    private int[] freeIndices = new int[16];
+
+    private int freeIndexCount = 0;
+
+    private int nextPairIndex = 0;
+
+    /**
+     * Creates a store for the given metrics using {@link #DEFAULT_CHUNK_SIZE}.
+     *
+     * @param metricIDs
+     *            The IDs of all metrics whose values are stored
+     */
+    public MetricResultStore(final Collection<MetricID> metricIDs) {
+        this(metricIDs, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a store for the given metrics.
+     *
+     * @param metricIDs
+     *            The IDs of all metrics whose values are stored
+     * @param chunkSize
+     *            The number of pairs stored in one chunk, has to be positive
+     */
+    public MetricResultStore(final Collection<MetricID> metricIDs, final int chunkSize) {
+        super();
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.metrics = metricIDs.toArray(new MetricID[metricIDs.size()]);
+        this.flagWordsPerPair = Math.max(1, (this.metrics.length + 63) >>> 6);
+        this.metricIndices = new HashMap<MetricID, Integer>(this.metrics.length * 2);
+        for (int i = 0; i < this.metrics.length; i++) {
+            if (this.metricIndices.put(this.metrics[i], i) != null) {
+                throw new IllegalArgumentException("Metric " + this.metrics[i] + " passed twice");
+            }
+        }
+    }
+
+    /**
+     * @return The number of metrics interned in this store
+     */
+    public int getMetricCount() {
+        return this.metrics.length;
+    }
+
+    /**
+     * @param index
+     *            The dense index of a metric
+     * @return The metric ID interned with the given index
+     */
+    public MetricID getMetric(final int index) {
+        return this.metrics[index];
+    }
+
+    /**
+     * @param metric
+     *            A metric ID
+     * @return The dense index of the given metric or -1 if the metric is not stored
+     */
+    public int indexOf(final MetricID metric) {
+        final Integer index = this.metricIndices.get(metric);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Allocates a new pair index, reusing released indices first.
+     *
+     * @return The allocated pair index
+     */
+    public synchronized int allocatePair() {
+        if (this.freeIndexCount > 0) {
+            return this.freeIndices[--this.freeIndexCount];
+        }
+        final int pairIndex = this.nextPairIndex++;
+        if (pairIndex / this.chunkSize == this.valueChunks.size()) {
+            this.valueChunks.add(new double[this.metrics.length * this.chunkSize]);
+            this.setFlagChunks.add(new long[this.flagWordsPerPair * this.chunkSize]);
+        }
+        return pairIndex;
+    }
+
+    /**
+     * Releases the given pair index. All values of the pair are cleared and the index may be handed
+     * out again. The relation using the index must not be used afterwards.
+     *
+     * @param pairIndex
+     *            The pair index to release
+     */
+    public synchronized void releasePair(final int pairIndex) {
+        final long[] flags = this.setFlagChunks.get(pairIndex / this.chunkSize);
+        final int firstWord = (pairIndex % this.chunkSize) * this.flagWordsPerPair;
+        for (int word = firstWord; word < firstWord + this.flagWordsPerPair; word++) {
+            flags[word] = 0L;
+        }
+        if (this.freeIndexCount == this.freeIndices.length) {
+            final int[] newFreeIndices = new int[this.freeIndices.length * 2];
+            System.arraycopy(this.freeIndices, 0, newFreeIndices, 0, this.freeIndexCount);
+            this.freeIndices = newFreeIndices;
+        }
+        this.freeIndices[this.freeIndexCount++] = pairIndex;
+    }
+
+    /**
+     * @return The number of pairs currently allocated and not released
+     */
+    public synchronized int getPairCount() {
+        return this.nextPairIndex - this.freeIndexCount;
+    }
+
+    /**
+     * Returns the value chunk holding the given pair. Relations keep the chunk to avoid lookups on
+     * each access.
+     */
+    synchronized double[] getValueChunk(final int pairIndex) {
+        return this.valueChunks.get(pairIndex / this.chunkSize);
+    }
+
+    /**
+     * Returns the set flag chunk holding the given pair.
+     */
+    synchronized long[] getSetFlagChunk(final int pairIndex) {
+        return this.setFlagChunks.get(pairIndex / this.chunkSize);
+    }
+
+    /**
+     * @return The number of pairs stored in one chunk
+     */
+    int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * @return The number of flag words used per pair
+     */
+    int getFlagWordsPerPair() {
+        return this.flagWordsPerPair;
+    }
+}
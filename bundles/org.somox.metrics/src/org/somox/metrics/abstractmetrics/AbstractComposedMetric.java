@@ -8,6 +8,7 @@ import org.jgrapht.DirectedGraph;
 import org.somox.configuration.SoMoXConfiguration;
 import org.somox.kdmhelper.metamodeladdition.Root;
 import org.somox.metrics.ClusteringRelation;
+import org.somox.metrics.IBoundedCompositionFunction;
 import org.somox.metrics.ICompositionFunction;
 import org.somox.metrics.IMetric;
 import org.somox.metrics.MetricID;
@@ -67,14 +68,13 @@ public abstract class AbstractComposedMetric extends AbstractMetric {
     protected void internalComputeDirected(final ClusteringRelation relationToCompute) {
 
         for (final IMetric m : this.allChildMetrics) {
-            if (!relationToCompute.getResult().containsKey(m.getMID())) {
+            if (!relationToCompute.hasResultMetric(m.getMID())) {
                 m.computeDirected(relationToCompute);
             }
         }
         if (logger.isDebugEnabled()) {
             for (final IMetric m : this.allChildMetrics) {
-                assert relationToCompute.getResult().containsKey(m.getMID());
-                assert relationToCompute.getResult().get(m.getMID()) != null;
+                assert relationToCompute.hasResultMetric(m.getMID());
             }
         }
         relationToCompute.setResultMetric(this.getMID(),
@@ -95,6 +95,35 @@ public abstract class AbstractComposedMetric extends AbstractMetric {
         return result;
     }
 
+    /**
+     * Computes an upper bound of the value of this metric if only some of the child metric values
+     * are known. See {@link IBoundedCompositionFunction#computeUpperBound(Map)}.
+     *
+     * @param knownChildMetricValues
+     *            The ID and the exact value of every child metric known in advance
+     * @return An upper bound of the value of this metric or {@link Double#POSITIVE_INFINITY} if the
+     *         composition function of this metric cannot bound its value
+     */
+    public double computeUpperBound(final Map<MetricID, Double> knownChildMetricValues) {
+        if (this.compositionFunction instanceof IBoundedCompositionFunction) {
+            return ((IBoundedCompositionFunction) this.compositionFunction).computeUpperBound(knownChildMetricValues);
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Looks up the metrics needed in this composed metric. Unlike {@link #getAllChildMetrics()},
+     * this does not require the metric to be initialized, so the dependencies of all metrics can
+     * be resolved before any of them is initialized.
+     *
+     * @param allMetrics
+     *            The set of all registered metrics
+     * @return The subset of all metrics needed in this composed metric
+     */
+    public IMetric[] resolveChildMetrics(final Map<MetricID, IMetric> allMetrics) {
+        return this.getChildMetrics(allMetrics);
+    }
+
     /**
      * In a subclass override this method and return the subset of metrics in allMetrics which are
      * needed in this composed metric.
@@ -124,7 +124,7 @@ public abstract class AbstractMetric implements IMetric {
      * @return true if the postcondition holds
      */
     protected boolean checkMetricPostCondition(final ClusteringRelation relationToCompute) {
-        return relationToCompute.getResult().containsKey(this.getMID());
+        return relationToCompute.hasResultMetric(this.getMID());
     }
 
     /**
@@ -136,7 +136,7 @@ public abstract class AbstractMetric implements IMetric {
      * @return true if the precondition holds
      */
     protected boolean checkMetricPreCondition(final ClusteringRelation relationToCompute) {
-        return !relationToCompute.getResult().containsKey(this.getMID());
+        return !relationToCompute.hasResultMetric(this.getMID());
     }
 
     /**
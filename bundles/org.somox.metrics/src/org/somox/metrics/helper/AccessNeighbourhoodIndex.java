@@ -0,0 +1,173 @@
+package org.somox.metrics.helper;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.jgrapht.DirectedGraph;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+
+/**
+ * Index of the undirected neighbourhoods of component candidates in a class access graph. Each
+ * class of the graph gets a dense ID, the neighbourhood of a component is the bit set of all
+ * classes reachable from its implementing classes in at most the given number of hops, ignoring
+ * the direction of the accesses. Two components are neighbours if the neighbourhood of one of them
+ * contains a class of the other one. With one hop, components which are no neighbours have no
+ * accesses in either direction and no common classes.
+ *
+ * The index itself is immutable after construction and may be shared between threads. The bit
+ * sets of the components are computed by {@link Neighbourhoods}, which caches them for the
+ * candidates of one clustering iteration and is dropped afterwards.
+ */
+public class AccessNeighbourhoodIndex {
+
+    private final Map<ConcreteClassifier, Integer> classIDs = new HashMap<ConcreteClassifier, Integer>();
+
+    /**
+     * Undirected adjacency lists of the classes, indexed by class ID
+     */
+    private final int[][] adjacency;
+
+    private final int hops;
+
+    private final ComponentToImplementingClassesHelper componentToClassHelper;
+
+    /**
+     * @param accessGraph
+     *            The class access graph, see
+     *            {@link Class2ClassAccessGraphHelper#computeFilteredClass2ClassAccessGraph}
+     * @param hops
+     *            The maximum number of accesses between a class of a component and a class in its
+     *            neighbourhood, has to be positive
+     * @param componentToClassHelper
+     *            Helper deriving the classes of a component as used by the metrics
+     */
+    public AccessNeighbourhoodIndex(final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph,
+            final int hops, final ComponentToImplementingClassesHelper componentToClassHelper) {
+        super();
+        if (hops <= 0) {
+            throw new IllegalArgumentException("The number of hops has to be positive");
+        }
+        this.hops = hops;
+        this.componentToClassHelper = componentToClassHelper;
+
+        for (final ConcreteClassifier clazz : accessGraph.vertexSet()) {
+            this.classIDs.put(clazz, this.classIDs.size());
+        }
+        final int[] degrees = new int[this.classIDs.size()];
+        for (final ClassAccessGraphEdge edge : accessGraph.edgeSet()) {
+            degrees[this.classIDs.get(accessGraph.getEdgeSource(edge))]++;
+            degrees[this.classIDs.get(accessGraph.getEdgeTarget(edge))]++;
+        }
+        this.adjacency = new int[degrees.length][];
+        for (int i = 0; i < degrees.length; i++) {
+            this.adjacency[i] = new int[degrees[i]];
+            degrees[i] = 0;
+        }
+        for (final ClassAccessGraphEdge edge : accessGraph.edgeSet()) {
+            final int source = this.classIDs.get(accessGraph.getEdgeSource(edge));
+            final int target = this.classIDs.get(accessGraph.getEdgeTarget(edge));
+            this.adjacency[source][degrees[source]++] = target;
+            this.adjacency[target][degrees[target]++] = source;
+        }
+    }
+
+    /**
+     * @return A new, empty cache of the neighbourhoods of component candidates. Meant to be used
+     *         for the candidates of one clustering iteration by one thread.
+     */
+    public Neighbourhoods createNeighbourhoods() {
+        return new Neighbourhoods();
+    }
+
+    /**
+     * @return The number of classes in the index
+     */
+    public int getClassCount() {
+        return this.adjacency.length;
+    }
+
+    /**
+     * Computes and caches the classes and neighbourhoods of component candidates as bit sets. Not
+     * thread-safe.
+     */
+    public final class Neighbourhoods {
+
+        /**
+         * IDs of classes which are not part of the access graph, following the IDs of the graph
+         */
+        private final Map<ConcreteClassifier, Integer> filteredClassIDs = new HashMap<ConcreteClassifier, Integer>();
+
+        private final Map<ComponentImplementingClassesLink, BitSet> componentClasses = new HashMap<ComponentImplementingClassesLink, BitSet>();
+
+        private final Map<ComponentImplementingClassesLink, BitSet> componentNeighbourhoods = new HashMap<ComponentImplementingClassesLink, BitSet>();
+
+        private Neighbourhoods() {
+        }
+
+        /**
+         * @param first
+         *            A component candidate
+         * @param second
+         *            Another component candidate
+         * @return true if a class of the second component is in the neighbourhood of the first
+         *         one. The relation is symmetric.
+         */
+        public boolean areNeighbours(final ComponentImplementingClassesLink first,
+                final ComponentImplementingClassesLink second) {
+            return this.getNeighbourhood(first).intersects(this.getClasses(second));
+        }
+
+        private BitSet getClasses(final ComponentImplementingClassesLink component) {
+            BitSet result = this.componentClasses.get(component);
+            if (result == null) {
+                result = new BitSet(AccessNeighbourhoodIndex.this.adjacency.length);
+                final Set<ConcreteClassifier> classes = AccessNeighbourhoodIndex.this.componentToClassHelper
+                        .deriveImplementingClasses(component);
+                for (final ConcreteClassifier clazz : classes) {
+                    Integer id = AccessNeighbourhoodIndex.this.classIDs.get(clazz);
+                    if (id == null) {
+                        // filtered classes are not part of the access graph and have no accesses,
+                        // but they still have to be shared to make two components neighbours
+                        id = this.filteredClassIDs.get(clazz);
+                        if (id == null) {
+                            id = AccessNeighbourhoodIndex.this.adjacency.length + this.filteredClassIDs.size();
+                            this.filteredClassIDs.put(clazz, id);
+                        }
+                    }
+                    result.set(id);
+                }
+                this.componentClasses.put(component, result);
+            }
+            return result;
+        }
+
+        private BitSet getNeighbourhood(final ComponentImplementingClassesLink component) {
+            BitSet result = this.componentNeighbourhoods.get(component);
+            if (result == null) {
+                final int[][] adjacency = AccessNeighbourhoodIndex.this.adjacency;
+                result = (BitSet) this.getClasses(component).clone();
+                BitSet frontier = result;
+                for (int hop = 0; hop < AccessNeighbourhoodIndex.this.hops && !frontier.isEmpty(); hop++) {
+                    final BitSet next = new BitSet(adjacency.length);
+                    // IDs of classes outside of the access graph are the highest ones and have no
+                    // accesses
+                    for (int id = frontier.nextSetBit(0); id >= 0 && id < adjacency.length; id = frontier
+                            .nextSetBit(id + 1)) {
+                        for (final int neighbour : adjacency[id]) {
+                            if (!result.get(neighbour)) {
+                                next.set(neighbour);
+                            }
+                        }
+                    }
+                    result.or(next);
+                    frontier = next;
+                }
+                this.componentNeighbourhoods.put(component, result);
+            }
+            return result;
+        }
+    }
+}
@@ -3,18 +3,17 @@ package org.somox.metrics.helper;
 import java.util.Set;
 
 import org.apache.log4j.Logger;
-import org.eclipse.emf.ecore.EObject;
 import org.emftext.language.java.classifiers.ConcreteClassifier;
 import org.emftext.language.java.types.Type;
-import org.emftext.language.java.types.TypeReference;
 import org.jgrapht.DirectedGraph;
 import org.jgrapht.EdgeFactory;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.SimpleDirectedGraph;
 import org.somox.configuration.SoMoXConfiguration;
 import org.somox.filter.AccessedTargetBlacklistFilter;
-import org.somox.filter.EClassBasedFilter;
-import org.somox.kdmhelper.GetAccessedType;
+import org.somox.kdmhelper.AccessSummary;
+import org.somox.kdmhelper.AccessSummary.AccessKind;
+import org.somox.kdmhelper.AccessSummaryIndex;
 import org.somox.kdmhelper.KDMHelper;
 import org.somox.metrics.util.GraphPrinter;
 
@@ -58,6 +57,23 @@ public class Class2ClassAccessGraphHelper {
      */
     public static DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> computeFilteredClass2ClassAccessGraph(
             final SoMoXConfiguration somoxConfiguration, final Set<ConcreteClassifier> componentsImplementingClasses) {
+        return computeFilteredClass2ClassAccessGraph(somoxConfiguration, componentsImplementingClasses,
+                new AccessSummaryIndex());
+    }
+
+    /**
+     * Computes the graph described in
+     * {@link #computeFilteredClass2ClassAccessGraph(SoMoXConfiguration, Set)} from the access
+     * summaries of the given index.
+     *
+     * @param accessSummaryIndex
+     *            The access summaries of the classes, usually the index of the analysed
+     *            {@link org.somox.kdmhelper.metamodeladdition.Root}
+     * @return A "graph" giving the connections of GAST classes and their number of accesses
+     */
+    public static DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> computeFilteredClass2ClassAccessGraph(
+            final SoMoXConfiguration somoxConfiguration, final Set<ConcreteClassifier> componentsImplementingClasses,
+            final AccessSummaryIndex accessSummaryIndex) {
 
         final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph = new SimpleDirectedGraph<ConcreteClassifier, ClassAccessGraphEdge>(
                 edgeFactory);
@@ -71,7 +87,7 @@ public class Class2ClassAccessGraphHelper {
                 somoxConfiguration.getClassifierFilter());
 
         for (final ConcreteClassifier clazz : componentsImplementingClasses) {
-            addAccessesToGraph(accessGraph, filter, clazz);
+            addAccessesToGraph(accessGraph, filter, clazz, accessSummaryIndex);
         }
 
         assert noPrimitiveTypesAsVertexes(accessGraph);
@@ -92,21 +108,6 @@ public class Class2ClassAccessGraphHelper {
         return result;
     }
 
-    private static final EClassBasedFilter<TypeReference> accessFilter = new EClassBasedFilter<TypeReference>() {
-        // new
-        // EClass[]{/**accessesPackage.eINSTANCE.getInheritanceTypeAccess()**/});//SOMOXTODOCHANGE
-        @Override
-        // REALLYADDED
-        public boolean passes(final EObject object) {// REALLYADDED
-            if (object != null && object instanceof TypeReference) {// REALLYADDED
-                if (KDMHelper.isInheritanceTypeAccess((TypeReference) object)) {// REALLYADDED
-                    return false;// REALLYADDED
-                } // REALLYADDED
-            } // REALLYADDED
-            return true;// REALLYADDED
-        }// REALLYADDED
-    };
-
     /**
      * Compute the outgoing links for the node containing class "clazz". Links pointing to classes
      * which match the blacklist pattern are not created
@@ -119,24 +120,16 @@ public class Class2ClassAccessGraphHelper {
      *         between clazz and its respective target
      */
     private static void addAccessesToGraph(final Graph<ConcreteClassifier, ClassAccessGraphEdge> graph,
-            final AccessedTargetBlacklistFilter filter, final ConcreteClassifier clazz) {
-
-        for (final TypeReference singleAccess : accessFilter.filter(KDMHelper.getAllAccesses(clazz))) {// TODO
-            // Check
-
-            // if(singleAccess != null & singleAccess instanceof TypeAccess){ //SOMOXTODOCHANGE was
-            // added here because removed in accessFilter creation
-            // if(GASTClassHelper.isInheritanceTypeAccess((TypeAccess) singleAccess)){
-            // System.out.println("was ita");
-            // continue;
-            // }
-            // }
+            final AccessedTargetBlacklistFilter filter, final ConcreteClassifier clazz,
+            final AccessSummaryIndex accessSummaryIndex) {
 
-            final Type accessedType = GetAccessedType.getAccessedType(singleAccess);
-            if (!(accessedType instanceof ConcreteClassifier)) {
+        // inheritance type accesses are not considered
+        final AccessSummary summary = accessSummaryIndex.getSummary(clazz);
+        for (int entry = 0; entry < summary.getEntryCount(); entry++) {
+            if (summary.getKind(entry) != AccessKind.REFERENCE) {
                 continue;
             }
-            final ConcreteClassifier accessedClass = (ConcreteClassifier) accessedType;
+            final ConcreteClassifier accessedClass = summary.getTarget(entry);
             // Relations between the class itself are not interesting...
             if (clazz == accessedClass) {
                 continue;
@@ -151,7 +144,7 @@ public class Class2ClassAccessGraphHelper {
                 }
             }
             if (edge != null) {
-                edge.incrementCount();
+                edge.incrementCount(summary.getCount(entry));
             }
         }
     }
@@ -51,6 +51,14 @@ public class ClassAccessGraphEdge {
         this.count++;
     }
 
+    /**
+     * @param accesses
+     *            the number of accesses to add to the count
+     */
+    public void incrementCount(final int accesses) {
+        this.count += accesses;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -0,0 +1,52 @@
+package org.somox.metrics.helper;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+
+/**
+ * Dense IDs of classifiers, assigned on the first request. Used to store sets of classifiers as bit
+ * sets, see {@link ImplementingClasses}. Safe for concurrent use, lookups of assigned IDs are
+ * lock-free.
+ */
+public class ClassifierIDs {
+
+    private final ConcurrentMap<ConcreteClassifier, Integer> ids = new ConcurrentHashMap<ConcreteClassifier, Integer>();
+
+    private int nextID = 0;
+
+    /**
+     * @param classifier
+     *            A classifier.
+     * @return The ID of the classifier, assigned if it has none yet.
+     */
+    public int getID(final ConcreteClassifier classifier) {
+        final Integer id = this.ids.get(classifier);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            final Integer existingID = this.ids.get(classifier);
+            if (existingID != null) {
+                return existingID;
+            }
+            final int newID = this.nextID++;
+            this.ids.put(classifier, newID);
+            return newID;
+        }
+    }
+
+    /**
+     * @param classifier
+     *            Any object.
+     * @return The ID of the object if it is a classifier with an ID, -1 otherwise.
+     */
+    public int lookupID(final Object classifier) {
+        if (classifier == null) {
+            return -1;
+        }
+        final Integer id = this.ids.get(classifier);
+        return id == null ? -1 : id;
+    }
+}
@@ -1,10 +1,11 @@
 package org.somox.metrics.helper;
 
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.emftext.language.java.classifiers.ConcreteClassifier;
 import org.emftext.language.java.types.Type;
@@ -15,21 +16,39 @@ import org.somox.sourcecodedecorator.InterfaceSourceCodeLink;
 /**
  * Helper for calculating recursively associated classes for a component.
  *
+ * The classes of component candidates created by the component builder are derived once when the
+ * candidate is created and attached to it, see {@link #attachImplementingClasses}. Reading them
+ * does not lock. The classes of other candidates are derived on the first request and memoized in
+ * a concurrent map.
+ *
  * @author Steffen Becker, Klaus Krogmann
  */
 public class ComponentToImplementingClassesHelper {
 
     /**
      * collects all implementing GAST classes (recursively derived) for a
-     * {@link ComponentImplementingClassesLink}.
+     * {@link ComponentImplementingClassesLink} which has no attached classes.
      */
-    private final Map<ComponentImplementingClassesLink, Set<ConcreteClassifier>> mapOfImplementingClasses;
+    private final ConcurrentMap<ComponentImplementingClassesLink, ImplementingClasses> mapOfImplementingClasses;
+
+    private final ClassifierIDs classifierIDs;
 
     /**
      * Constructs a new helper
      */
     public ComponentToImplementingClassesHelper() {
-        this.mapOfImplementingClasses = new HashMap<ComponentImplementingClassesLink, Set<ConcreteClassifier>>();
+        this(new ClassifierIDs());
+    }
+
+    /**
+     * Constructs a new helper
+     *
+     * @param classifierIDs
+     *            The IDs used for the sets of implementing classes
+     */
+    public ComponentToImplementingClassesHelper(final ClassifierIDs classifierIDs) {
+        this.mapOfImplementingClasses = new ConcurrentHashMap<ComponentImplementingClassesLink, ImplementingClasses>();
+        this.classifierIDs = classifierIDs;
     }
 
     /**
@@ -43,48 +62,38 @@ public class ComponentToImplementingClassesHelper {
      *
      * @param componentCandidate
      *            The component for which to return its implementing classes
-     * @return Implementing classes of this and all sub-components.
+     * @return Implementing classes of this and all sub-components. The set is immutable.
      */
-    public synchronized Set<ConcreteClassifier> deriveImplementingClasses(
+    public Set<ConcreteClassifier> deriveImplementingClasses(
             final ComponentImplementingClassesLink componentCandidate) {
-        if (!this.mapOfImplementingClasses.containsKey(componentCandidate)) {
-
-            // removelater
-            // if(componentCandidate.getImplementingClasses().get(0).getName().equals("ProductStockItemTableModel")){
-            // int i =0;
-            // }
-
-            final Set<ConcreteClassifier> classSet = new HashSet<ConcreteClassifier>();
-            // Collect our own classes
-            for (final Type type : componentCandidate.getImplementingClasses()) {
-                if (type instanceof ConcreteClassifier) {
-                    classSet.add((ConcreteClassifier) type);
-                }
-            }
-            // Collect all implementing classes of all sub components
-            for (final ComponentImplementingClassesLink subComponent : componentCandidate.getSubComponents()) {
-                classSet.addAll(this.deriveImplementingClasses(subComponent));
-            }
-            // Add the components provided interfaces class sources to the component, needed for
-            // metrics like coupling, etc.
-            for (final InterfaceSourceCodeLink providedIfLink : componentCandidate.getProvidedInterfaces()) {
-                if (!classSet.contains(providedIfLink.getGastClass())
-                        && providedIfLink.getGastClass() instanceof ConcreteClassifier) {
-                    classSet.add(providedIfLink.getGastClass());
-                }
-            }
-            if (classSet.size() == 0) {
-                throw new RuntimeException("Component must have associated classes");
-            }
-            this.mapOfImplementingClasses.put(componentCandidate, classSet);
+        final ImplementingClasses attachedClasses = ImplementingClasses.getAttached(componentCandidate);
+        if (attachedClasses != null) {
+            return attachedClasses;
         }
-        final Set<ConcreteClassifier> result = this.mapOfImplementingClasses.get(componentCandidate);
-        if (result == null) {
-            throw new IllegalStateException(
-                    "The component to class cache did not contain a value which has been asserted to be there. "
-                            + "There might be a concurrency issue here");
+        final ImplementingClasses result = this.mapOfImplementingClasses.get(componentCandidate);
+        if (result != null) {
+            return result;
         }
-        return result;
+        final ImplementingClasses derivedClasses = this.derive(componentCandidate);
+        final ImplementingClasses existingClasses = this.mapOfImplementingClasses.putIfAbsent(componentCandidate,
+                derivedClasses);
+        return existingClasses == null ? derivedClasses : existingClasses;
+    }
+
+    /**
+     * Derives the implementing classes of the component candidate and attaches them to it. Has to
+     * be called again whenever the classes, sub-components or provided interfaces of the candidate
+     * change, and must not be called while other threads read the classes of the candidate.
+     *
+     * @param componentCandidate
+     *            A new or changed component candidate
+     * @return Implementing classes of this and all sub-components.
+     */
+    public Set<ConcreteClassifier> attachImplementingClasses(final ComponentImplementingClassesLink componentCandidate) {
+        final ImplementingClasses implementingClasses = this.derive(componentCandidate);
+        ImplementingClasses.attach(componentCandidate, implementingClasses);
+        this.mapOfImplementingClasses.remove(componentCandidate);
+        return implementingClasses;
     }
 
     /**
@@ -101,4 +110,29 @@ public class ComponentToImplementingClassesHelper {
         }
         return allOtherComponentClasses;
     }
+
+    private ImplementingClasses derive(final ComponentImplementingClassesLink componentCandidate) {
+        final Set<ConcreteClassifier> classSet = new LinkedHashSet<ConcreteClassifier>();
+        // Collect our own classes
+        for (final Type type : componentCandidate.getImplementingClasses()) {
+            if (type instanceof ConcreteClassifier) {
+                classSet.add((ConcreteClassifier) type);
+            }
+        }
+        // Collect all implementing classes of all sub components
+        for (final ComponentImplementingClassesLink subComponent : componentCandidate.getSubComponents()) {
+            classSet.addAll(this.deriveImplementingClasses(subComponent));
+        }
+        // Add the components provided interfaces class sources to the component, needed for
+        // metrics like coupling, etc.
+        for (final InterfaceSourceCodeLink providedIfLink : componentCandidate.getProvidedInterfaces()) {
+            if (providedIfLink.getGastClass() instanceof ConcreteClassifier) {
+                classSet.add(providedIfLink.getGastClass());
+            }
+        }
+        if (classSet.size() == 0) {
+            throw new RuntimeException("Component must have associated classes");
+        }
+        return new ImplementingClasses(this.classifierIDs, classSet);
+    }
 }
@@ -0,0 +1,174 @@
+package org.somox.metrics.helper;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+
+/**
+ * The implementing classes of a component candidate, stored as a bit set over the dense IDs of a
+ * {@link ClassifierIDs} instance. The bit set only spans the words from the lowest to the highest ID
+ * of the set, so the memory of a set depends on the range of its IDs rather than on the number of
+ * classifiers with an ID. Immutable, so it can be read by any number of threads without locking.
+ * The classes are iterated in the order of their IDs.
+ *
+ * A set is attached to its component candidate with {@link #attach} when the candidate is created
+ * and found again with {@link #getAttached}.
+ */
+public final class ImplementingClasses extends AbstractSet<ConcreteClassifier> {
+
+    private final ClassifierIDs ids;
+
+    /**
+     * The index of the word of the lowest ID, i.e. of the first word of {@link #bits}
+     */
+    private final int wordOffset;
+
+    private final long[] bits;
+
+    /**
+     * The classes of this set, ordered by their IDs
+     */
+    private final ConcreteClassifier[] classes;
+
+    /**
+     * @param ids
+     *            The IDs used for the bit set.
+     * @param classes
+     *            The classes of the set. Duplicates are ignored.
+     */
+    public ImplementingClasses(final ClassifierIDs ids, final Collection<ConcreteClassifier> classes) {
+        this.ids = ids;
+        final ConcreteClassifier[] givenClasses = classes.toArray(new ConcreteClassifier[classes.size()]);
+        // the ID in the upper and the position of the class in the lower half, sorted by ID
+        final long[] idsAndPositions = new long[givenClasses.length];
+        for (int i = 0; i < givenClasses.length; i++) {
+            idsAndPositions[i] = (long) ids.getID(givenClasses[i]) << 32 | i;
+        }
+        Arrays.sort(idsAndPositions);
+
+        final int minID = givenClasses.length == 0 ? 0 : (int) (idsAndPositions[0] >>> 32);
+        final int maxID = givenClasses.length == 0 ? -1 : (int) (idsAndPositions[givenClasses.length - 1] >>> 32);
+        this.wordOffset = minID >> 6;
+        this.bits = new long[(maxID >> 6) - this.wordOffset + 1];
+        final ConcreteClassifier[] uniqueClasses = new ConcreteClassifier[givenClasses.length];
+        int size = 0;
+        for (final long idAndPosition : idsAndPositions) {
+            final int id = (int) (idAndPosition >>> 32);
+            final int word = (id >> 6) - this.wordOffset;
+            if ((this.bits[word] & 1L << id) == 0) {
+                this.bits[word] |= 1L << id;
+                uniqueClasses[size++] = givenClasses[(int) idAndPosition];
+            }
+        }
+        this.classes = size == uniqueClasses.length ? uniqueClasses : Arrays.copyOf(uniqueClasses, size);
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        final int id = this.ids.lookupID(o);
+        if (id < 0) {
+            return false;
+        }
+        final int word = (id >> 6) - this.wordOffset;
+        return word >= 0 && word < this.bits.length && (this.bits[word] & 1L << id) != 0;
+    }
+
+    @Override
+    public boolean containsAll(final Collection<?> c) {
+        if (c instanceof ImplementingClasses && ((ImplementingClasses) c).ids == this.ids) {
+            final ImplementingClasses other = (ImplementingClasses) c;
+            for (int i = 0; i < other.bits.length; i++) {
+                final int word = i + other.wordOffset - this.wordOffset;
+                final long ownBits = word >= 0 && word < this.bits.length ? this.bits[word] : 0L;
+                if ((other.bits[i] & ~ownBits) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.containsAll(c);
+    }
+
+    @Override
+    public int size() {
+        return this.classes.length;
+    }
+
+    @Override
+    public Iterator<ConcreteClassifier> iterator() {
+        return new Iterator<ConcreteClassifier>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < ImplementingClasses.this.classes.length;
+            }
+
+            @Override
+            public ConcreteClassifier next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return ImplementingClasses.this.classes[this.next++];
+            }
+        };
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOf(this.classes, this.classes.length, Object[].class);
+    }
+
+    /**
+     * Attaches the given set to the component candidate, replacing a set attached before.
+     *
+     * @param componentCandidate
+     *            The component candidate.
+     * @param implementingClasses
+     *            All implementing classes of the candidate, see
+     *            {@link ComponentToImplementingClassesHelper#deriveImplementingClasses}.
+     */
+    public static void attach(final ComponentImplementingClassesLink componentCandidate,
+            final ImplementingClasses implementingClasses) {
+        final Adapter existingAdapter = EcoreUtil.getExistingAdapter(componentCandidate, ImplementingClasses.class);
+        if (existingAdapter != null) {
+            componentCandidate.eAdapters().remove(existingAdapter);
+        }
+        componentCandidate.eAdapters().add(new ImplementingClassesAdapter(implementingClasses));
+    }
+
+    /**
+     * @param componentCandidate
+     *            The component candidate.
+     * @return The set attached to the candidate, or null if there is none.
+     */
+    public static ImplementingClasses getAttached(final ComponentImplementingClassesLink componentCandidate) {
+        final Adapter adapter = EcoreUtil.getExistingAdapter(componentCandidate, ImplementingClasses.class);
+        return adapter == null ? null : ((ImplementingClassesAdapter) adapter).implementingClasses;
+    }
+
+    /**
+     * Holds the set on the component candidate. Ignores notifications.
+     */
+    private static final class ImplementingClassesAdapter extends AdapterImpl {
+
+        private final ImplementingClasses implementingClasses;
+
+        private ImplementingClassesAdapter(final ImplementingClasses implementingClasses) {
+            this.implementingClasses = implementingClasses;
+        }
+
+        @Override
+        public boolean isAdapterForType(final Object type) {
+            return type == ImplementingClasses.class;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.somox.metrics.hierarchy;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.emftext.language.java.classifiers.ConcreteClassifier;
+
+/**
+ * Prefix tree of the package or directory hierarchy of all classes of an analysis run, as defined
+ * by the path methods of an {@link AbstractHierarchyMapping}. Each hierarchy element gets a node
+ * with a dense ID, each class the node of the element it is directly attached to. Hierarchy
+ * elements are distinguished by identity, as model elements are.
+ *
+ * The trie is built once for the classes of the initial component candidates and grows on demand
+ * for classes not seen before. Lookups of known classes are lock-free.
+ *
+ * @param <T>
+ *            Type of the hierarchy elements
+ */
+class HierarchyTrie<T> {
+
+    /**
+     * A hierarchy element in the trie. Immutable.
+     */
+    private static final class Node {
+
+        /**
+         * IDs of the nodes from the top-level element down to this node
+         */
+        private final int[] path;
+
+        private Node(final int[] path) {
+            this.path = path;
+        }
+    }
+
+    /**
+     * The part of the hierarchy covered by the classes of a component which matters for the
+     * mapping metrics. Starting at the top-level element of the first class, the covered subtree is
+     * followed down as long as each element has exactly one covered child. Immutable.
+     */
+    static final class Coverage {
+
+        /**
+         * IDs of the followed nodes, top-level node first
+         */
+        private final int[] chain;
+
+        /**
+         * Whether the last node of the chain has several covered children or none
+         */
+        private final boolean forkAtEnd;
+
+        /**
+         * Depth of the deepest covered node, i.e. the height of the covered subtree
+         */
+        private final int height;
+
+        private Coverage(final int[] chain, final boolean forkAtEnd, final int height) {
+            this.chain = chain;
+            this.forkAtEnd = forkAtEnd;
+            this.height = height;
+        }
+
+        int getHeight() {
+            return this.height;
+        }
+    }
+
+    private static final Node ROOT = new Node(new int[0]);
+
+    private final AbstractHierarchyMapping<T> hierarchy;
+
+    private final ConcurrentMap<T, Node> elementNodes = new ConcurrentHashMap<T, Node>();
+
+    private final ConcurrentMap<ConcreteClassifier, Node> classNodes = new ConcurrentHashMap<ConcreteClassifier, Node>();
+
+    private int nodeCount = 0;
+
+    /**
+     * @param hierarchy
+     *            The metric defining the hierarchy.
+     * @param classes
+     *            The classes whose hierarchy elements are added to the trie right away.
+     */
+    HierarchyTrie(final AbstractHierarchyMapping<T> hierarchy, final Collection<ConcreteClassifier> classes) {
+        this.hierarchy = hierarchy;
+        for (final ConcreteClassifier clazz : classes) {
+            this.getClassNode(clazz);
+        }
+    }
+
+    /**
+     * @return The number of hierarchy elements in the trie.
+     */
+    synchronized int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * Computes the coverage of the given classes. The first class attached to the hierarchy
+     * determines the top-level element which is followed, as the set of classes is iterated.
+     *
+     * @param classes
+     *            The classes of a component.
+     * @return The coverage of the classes.
+     */
+    Coverage computeCoverage(final Iterable<ConcreteClassifier> classes) {
+        int[] chain = null;
+        int chainLength = 0;
+        boolean forkAtEnd = false;
+        int height = 0;
+        for (final ConcreteClassifier clazz : classes) {
+            final int[] path = this.getClassNode(clazz).path;
+            if (path.length == 0) {
+                continue;
+            }
+            height = Math.max(height, path.length);
+            if (chain == null) {
+                chain = path;
+                chainLength = path.length;
+                continue;
+            }
+            if (path[0] != chain[0]) {
+                // only the first top-level element is followed
+                continue;
+            }
+            int commonLength = 1;
+            while (commonLength < chainLength && commonLength < path.length
+                    && chain[commonLength] == path[commonLength]) {
+                commonLength++;
+            }
+            if (commonLength < chainLength && commonLength < path.length) {
+                // the paths split below the last common element
+                chainLength = commonLength;
+                forkAtEnd = true;
+            } else if (commonLength == chainLength && path.length > chainLength && !forkAtEnd) {
+                // all paths so far end on this path, which goes on
+                chain = path;
+                chainLength = path.length;
+            }
+        }
+        return new Coverage(chain == null ? new int[0] : Arrays.copyOf(chain, chainLength), forkAtEnd, height);
+    }
+
+    /**
+     * Calculates the maximum number of hierarchy levels the covered subtrees have in common,
+     * starting from the top. Levels where one of the subtrees forks or where they differ do not
+     * count, descending stops there or below a level where one of them ends. For example, the
+     * result for the sets {a.b.c.d} and {a.b.g} is 2, for {a.b.c} and {a.b} it is 2, and for {a.b.c}
+     * and {a.b.g, a.b.h.z} it is 1.
+     *
+     * @param coverage1
+     *            The coverage of the first component.
+     * @param coverage2
+     *            The coverage of the second component.
+     * @return The maximum number of common hierarchy levels.
+     */
+    static int getMaxCommonHeight(final Coverage coverage1, final Coverage coverage2) {
+        final int[] chain1 = coverage1.chain;
+        final int[] chain2 = coverage2.chain;
+        final int length = Math.min(chain1.length, chain2.length);
+        if (length == 0) {
+            return 0;
+        }
+        // nodes are equal if and only if their paths are
+        if (chain1[length - 1] != chain2[length - 1]) {
+            int commonLength = 0;
+            while (chain1[commonLength] == chain2[commonLength]) {
+                commonLength++;
+            }
+            return commonLength;
+        }
+        // a fork at the last common level does not count, an end does
+        if (chain1.length == length && coverage1.forkAtEnd || chain2.length == length && coverage2.forkAtEnd) {
+            return length - 1;
+        }
+        return length;
+    }
+
+    private Node getClassNode(final ConcreteClassifier clazz) {
+        Node node = this.classNodes.get(clazz);
+        if (node == null) {
+            final T element = this.hierarchy.getPath(clazz);
+            node = element == null ? ROOT : this.getElementNode(element);
+            this.classNodes.putIfAbsent(clazz, node);
+        }
+        return node;
+    }
+
+    private Node getElementNode(final T element) {
+        final Node node = this.elementNodes.get(element);
+        if (node != null) {
+            return node;
+        }
+        final T parent = this.hierarchy.getPath(element);
+        if (parent == element) {
+            throw new IllegalStateException("Hierarchy element " + element + " is its own parent");
+        }
+        final Node parentNode = parent == null ? ROOT : this.getElementNode(parent);
+        return this.addNode(element, parentNode);
+    }
+
+    private synchronized Node addNode(final T element, final Node parentNode) {
+        final Node existingNode = this.elementNodes.get(element);
+        if (existingNode != null) {
+            return existingNode;
+        }
+        final int[] path = Arrays.copyOf(parentNode.path, parentNode.path.length + 1);
+        path[path.length - 1] = this.nodeCount;
+        final Node node = new Node(path);
+        this.nodeCount++;
+        this.elementNodes.put(element, node);
+        return node;
+    }
+}
@@ -25,52 +25,7 @@ import org.somox.metrics.tabs.NameResemblanceTab;
 
 import com.wcohen.ss.JaroWinkler;
 import com.wcohen.ss.api.StringDistance;
-
-class NamePair {
-    private final Type class1;
-    private final Type class2;
-
-    public NamePair(final Type class1, final Type class2) {
-        super();
-
-        if (class1 == null || class2 == null) {
-            throw new IllegalArgumentException("Names must not be null");
-        }
-        this.class1 = class1;
-        this.class2 = class2;
-    }
-
-    /*
-     * (non-Javadoc)
-     *
-     * @see java.lang.Object#hashCode()
-     */
-    @Override
-    public int hashCode() {
-        return this.class1.hashCode() ^ this.class2.hashCode();
-    }
-
-    /*
-     * (non-Javadoc)
-     *
-     * @see java.lang.Object#equals(java.lang.Object)
-     */
-    @Override
-    public boolean equals(final Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null) {
-            return false;
-        }
-        if (this.getClass() != obj.getClass()) {
-            return false;
-        }
-        final NamePair other = (NamePair) obj;
-        return this.class1 == other.class1 && this.class2 == other.class2
-                || this.class2 == other.class1 && this.class1 == other.class2;
-    }
-}
+import com.wcohen.ss.api.StringWrapper;
 
 /**
  * NameResemblance metric. Counts for all {@link Type}s in any of the two component candidates the
@@ -78,6 +33,10 @@ class NamePair {
  * compared, i.e., their prefixes and suffixes are removed as configured on this metric's
  * configuration tab.
  *
+ * The resemblance of two classes is computed when it is needed first and kept in a
+ * {@link NameResemblanceCache} of limited size. Pairs of names without a common character have a
+ * resemblance of 0 and are skipped using a bit signature of the characters of each name.
+ *
  * @author Grischa Liebel, Steffen Becker
  *
  */
@@ -91,9 +50,29 @@ public class NameResemblance extends AbstractMetric {
     private static final StringDistance resemblanceMetric = new JaroWinkler();
 
     /**
-     * Cache the pairwise computed name resemblances for a given pair of strings
+     * Maximum number of pairwise name resemblances kept in the cache
+     */
+    private static final int MAX_CACHE_CAPACITY = 1 << 21;
+
+    /**
+     * Dense IDs of the classes in the access graph
+     */
+    private Map<ConcreteClassifier, Integer> classIDs;
+
+    /**
+     * Trimmed names of the classes prepared for the resemblance metric, indexed by class ID
+     */
+    private StringWrapper[] preparedNames;
+
+    /**
+     * Signatures of the characters of the prepared names, indexed by class ID
+     */
+    private long[] characterSignatures;
+
+    /**
+     * Cache of the pairwise computed name resemblances of the classes
      */
-    private Map<NamePair, Double> nameResemblanceMap;
+    private NameResemblanceCache nameResemblanceCache;
 
     /**
      * Set with prefix Strings that will be excluded in every metric-computation
@@ -117,22 +96,25 @@ public class NameResemblance extends AbstractMetric {
             final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph,
             final ComponentToImplementingClassesHelper componentToImplementingClassesHelper) {
         super.initialize(gastModel, somoxConfiguration, allMetrics, accessGraph, componentToImplementingClassesHelper);
-        this.nameResemblanceMap = new HashMap<NamePair, Double>();
 
         this.excludedPrefixes = this.tokenizeString(somoxConfiguration.getExcludedPrefixesForNameResemblance());
         this.excludedSuffixes = this.tokenizeString(somoxConfiguration.getExcludedSuffixesForNameResemblance());
 
-        for (final Type class1 : accessGraph.vertexSet()) {
-            for (final Type class2 : accessGraph.vertexSet()) {
-                Double resemblance = this.nameResemblanceMap.get(new NamePair(class1, class2));
-                if (resemblance == null) {
-                    resemblance = resemblanceMetric.score(this.trimString(KDMHelper.getName(class1)),
-                            this.trimString(KDMHelper.getName(class2)));
-                    this.nameResemblanceMap.put(new NamePair(class1, class2), resemblance);
-                }
-            }
+        final int classCount = accessGraph.vertexSet().size();
+        this.classIDs = new HashMap<ConcreteClassifier, Integer>(classCount * 2);
+        this.preparedNames = new StringWrapper[classCount];
+        this.characterSignatures = new long[classCount];
+        for (final ConcreteClassifier clazz : accessGraph.vertexSet()) {
+            final int id = this.classIDs.size();
+            this.classIDs.put(clazz, id);
+            this.preparedNames[id] = resemblanceMetric
+                    .prepare(trimString(KDMHelper.getName(clazz), this.excludedPrefixes, this.excludedSuffixes));
+            this.characterSignatures[id] = computeCharacterSignature(this.preparedNames[id].unwrap());
         }
-        this.nameResemblanceMap = Collections.unmodifiableMap(this.nameResemblanceMap);
+        // the cache never holds more than all unordered pairs of classes
+        final long pairCount = (long) classCount * (classCount + 1) / 2;
+        this.nameResemblanceCache = new NameResemblanceCache(
+                (int) Math.max(1, Math.min(MAX_CACHE_CAPACITY, pairCount)));
     }
 
     /**
@@ -157,14 +139,14 @@ public class NameResemblance extends AbstractMetric {
 
         final int totalCompares = classes1.size() * classes2.size();
 
+        final int[] ids1 = this.getIDs(classes1);
+        final int[] ids2 = this.getIDs(classes2);
         double nameResemblance = 0.0;
-        for (final Type class1 : classes1) {
-            for (final Type class2 : classes2) {
-                final Double resemblance = this.nameResemblanceMap.get(new NamePair(class1, class2));
-                if (resemblance == null) {
-                    throw new RuntimeException("This should not happen as all classes are precomputed");
+        if ((this.getCharacterSignature(ids1) & this.getCharacterSignature(ids2)) != 0) {
+            for (final int id1 : ids1) {
+                for (final int id2 : ids2) {
+                    nameResemblance += this.getResemblance(id1, id2);
                 }
-                nameResemblance += resemblance;
             }
         }
         if (totalCompares == 0) {
@@ -176,6 +158,57 @@ public class NameResemblance extends AbstractMetric {
         relationToCompute.setResultMetric(this.getMID(), nameResemblance / totalCompares);
     }
 
+    private int[] getIDs(final Set<ConcreteClassifier> classes) {
+        final int[] result = new int[classes.size()];
+        int i = 0;
+        for (final ConcreteClassifier clazz : classes) {
+            final Integer id = this.classIDs.get(clazz);
+            if (id == null) {
+                throw new RuntimeException("This should not happen as all classes are contained in the access graph");
+            }
+            result[i++] = id;
+        }
+        return result;
+    }
+
+    private long getCharacterSignature(final int[] ids) {
+        long result = 0;
+        for (final int id : ids) {
+            result |= this.characterSignatures[id];
+        }
+        return result;
+    }
+
+    private double getResemblance(final int id1, final int id2) {
+        if ((this.characterSignatures[id1] & this.characterSignatures[id2]) == 0) {
+            // no common character, the resemblance is 0
+            return 0.0;
+        }
+        double result = this.nameResemblanceCache.get(id1, id2);
+        if (Double.isNaN(result)) {
+            result = id1 < id2 ? resemblanceMetric.score(this.preparedNames[id1], this.preparedNames[id2])
+                    : resemblanceMetric.score(this.preparedNames[id2], this.preparedNames[id1]);
+            this.nameResemblanceCache.put(id1, id2, result);
+        }
+        return result;
+    }
+
+    /**
+     * Computes a bit signature of the characters of a name. Two names without a common character
+     * have signatures without a common bit.
+     *
+     * @param name
+     *            A name prepared for the resemblance metric
+     * @return The signature
+     */
+    static long computeCharacterSignature(final String name) {
+        long result = 0;
+        for (int i = 0; i < name.length(); i++) {
+            result |= 1L << (name.charAt(i) & 63);
+        }
+        return result;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -256,28 +289,24 @@ public class NameResemblance extends AbstractMetric {
         }
     };
 
-    private Set<String> collectAllSimpleNames(final Set<Type> classes) {
-        final Set<String> allSimpleTrimmedNames = new HashSet<String>();
-        for (final Type clazz : classes) {
-            allSimpleTrimmedNames.add(this.trimString(KDMHelper.getName(clazz)));
-        }
-        return allSimpleTrimmedNames;
-    }
-
     /**
      * Helper method to remove all prefixes and all suffixes from a string
      *
      * @param name
      *            string to trim
+     * @param prefixes
+     *            prefixes to remove repeatedly from the start of the string
+     * @param suffixes
+     *            suffixes to remove repeatedly from the end of the string after the prefixes
      * @return trimmed string
      */
-    private String trimString(final String name) {
-        String result = this.modifyString(name, this.excludedPrefixes, prefixRemover);
-        result = this.modifyString(name, this.excludedSuffixes, suffixRemover);
-        return result;
+    static String trimString(final String name, final Set<String> prefixes, final Set<String> suffixes) {
+        final String result = modifyString(name, prefixes, prefixRemover);
+        return modifyString(result, suffixes, suffixRemover);
     }
 
-    private String modifyString(String name, final Set<String> parameters, final IStringChangerStrategy strategy) {
+    private static String modifyString(String name, final Set<String> parameters,
+            final IStringChangerStrategy strategy) {
         boolean changed = true;
         while (changed) {
             changed = false;
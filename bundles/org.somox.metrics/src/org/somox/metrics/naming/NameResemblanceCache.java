@@ -0,0 +1,119 @@
+package org.somox.metrics.naming;
+
+import java.util.Arrays;
+
+/**
+ * Memory bounded cache of the name resemblance of unordered pairs of class IDs. The entries are
+ * stored in primitive open addressing tables which are split into segments locked independently,
+ * so the cache can be used by concurrent metric computations. The table of a segment is allocated
+ * when the first pair is put into it. A segment which reaches its share of the capacity is cleared
+ * completely; evicted values are simply computed again.
+ */
+final class NameResemblanceCache {
+
+    private static final int SEGMENT_COUNT = 64;
+
+    private static final long EMPTY_KEY = -1L;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    /**
+     * @param capacity
+     *            The maximum number of cached pairs
+     */
+    NameResemblanceCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        final int segmentCapacity = Math.max(1, capacity / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            this.segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * @return The cached resemblance of the given classes or {@link Double#NaN} if it is not cached
+     */
+    double get(final int id1, final int id2) {
+        final long key = toKey(id1, id2);
+        final int hash = hash(key);
+        return this.segments[hash & (SEGMENT_COUNT - 1)].get(key, hash >>> 6);
+    }
+
+    /**
+     * Caches the resemblance of the given classes.
+     */
+    void put(final int id1, final int id2, final double resemblance) {
+        final long key = toKey(id1, id2);
+        final int hash = hash(key);
+        this.segments[hash & (SEGMENT_COUNT - 1)].put(key, hash >>> 6, resemblance);
+    }
+
+    private static long toKey(final int id1, final int id2) {
+        if (id1 < 0 || id2 < 0) {
+            throw new IllegalArgumentException("Class IDs must not be negative");
+        }
+        return id1 < id2 ? (long) id1 << 32 | id2 : (long) id2 << 32 | id1;
+    }
+
+    private static int hash(final long key) {
+        final long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32);
+    }
+
+    private static final class Segment {
+
+        private final int capacity;
+
+        /**
+         * The table, null until the first pair is put
+         */
+        private long[] keys;
+
+        private double[] values;
+
+        private int size = 0;
+
+        private Segment(final int capacity) {
+            this.capacity = capacity;
+        }
+
+        private synchronized double get(final long key, final int hash) {
+            if (this.keys == null) {
+                return Double.NaN;
+            }
+            final int mask = this.keys.length - 1;
+            for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+                if (this.keys[slot] == key) {
+                    return this.values[slot];
+                }
+                if (this.keys[slot] == EMPTY_KEY) {
+                    return Double.NaN;
+                }
+            }
+        }
+
+        private synchronized void put(final long key, final int hash, final double value) {
+            if (this.keys == null) {
+                // keep the load factor of the table at most 0.5
+                final int tableSize = Integer.highestOneBit(this.capacity * 2 - 1) << 1;
+                this.keys = new long[tableSize];
+                this.values = new double[tableSize];
+                Arrays.fill(this.keys, EMPTY_KEY);
+            } else if (this.size >= this.capacity) {
+                Arrays.fill(this.keys, EMPTY_KEY);
+                this.size = 0;
+            }
+            final int mask = this.keys.length - 1;
+            int slot = hash & mask;
+            while (this.keys[slot] != EMPTY_KEY && this.keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (this.keys[slot] == EMPTY_KEY) {
+                this.keys[slot] = key;
+                this.size++;
+            }
+            this.values[slot] = value;
+        }
+    }
+}
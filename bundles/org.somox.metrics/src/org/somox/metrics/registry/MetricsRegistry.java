@@ -1,8 +1,13 @@
 package org.somox.metrics.registry;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 
 import org.apache.log4j.Logger;
 import org.eclipse.core.runtime.CoreException;
@@ -13,13 +18,23 @@ import org.eclipse.core.runtime.Status;
 import org.somox.metrics.Activator;
 import org.somox.metrics.IMetric;
 import org.somox.metrics.MetricID;
+import org.somox.metrics.abstractmetrics.AbstractComposedMetric;
 //import org.somox.metrics.dsl.metricDSL.Metric;
 //import org.somox.metrics.dsl.metricDSL.MetricModel;
 //import org.somox.metrics.dslvisitor.DSLConfigurationVisitor;
 
 /**
- * A registry storing all registered metrics in the running Eclipse instance. Note that this assumes
- * a reboot of Eclipse on configuration changes.
+ * A registry storing all registered metrics. Metrics are discovered from one of two sources:
+ * <ul>
+ * <li>the extension point <code>org.somox.core.metric</code>, if the Eclipse runtime is running,</li>
+ * <li>otherwise {@link ServiceLoader} provider files
+ * <code>META-INF/services/org.somox.metrics.IMetric</code>, which makes the metrics available
+ * without the Eclipse runtime, e.g. in plain JUnit tests and benchmarks.</li>
+ * </ul>
+ * The provider files list the same metrics as the extension point, so they are not read if the
+ * extension registry is available; otherwise each metric would be instantiated twice. Metrics
+ * registered with {@link #registerMetric(IMetric)} take precedence over discovered metrics with the
+ * same ID. Note that discovery assumes a reboot of Eclipse on configuration changes.
  *
  * @author Steffen Becker
  */
@@ -31,21 +46,74 @@ public class MetricsRegistry {
     private static final String METRIC_DEFINITION_ATTRIBUTE_NAME = "metric_definition";
     private static final String ORG_SOMOX_CORE_METRIC_EXTENSION_ID = "org.somox.core.metric";
     private static final Logger LOG = Logger.getLogger(MetricsRegistry.class);
-    private static final Map<MetricID, IMetric> registeredMetrics;
 
-    static {
-        registeredMetrics = Collections.unmodifiableMap(internalGetRegisteredMetrics());
-    }
+    /**
+     * Metrics registered with {@link #registerMetric(IMetric)}
+     */
+    private static final Map<MetricID, IMetric> programmaticMetrics = new LinkedHashMap<MetricID, IMetric>();
+
+    /**
+     * Metrics of the extension point and the provider files, discovered on the first request
+     */
+    private static Map<MetricID, IMetric> discoveredMetrics = null;
+
+    private static volatile Map<MetricID, IMetric> registeredMetrics = null;
 
     /**
-     * @return All registered metrics in the running Eclipse instance
+     * @return All registered metrics, ordered such that the child metrics of each
+     *         {@link AbstractComposedMetric} precede it
+     * @throws IllegalStateException
+     *             If the child metrics of a composed metric depend on the composed metric or are
+     *             not registered
      */
     public final static Map<MetricID, IMetric> getRegisteredMetrics() {
-        return registeredMetrics;
+        final Map<MetricID, IMetric> result = registeredMetrics;
+        if (result != null) {
+            return result;
+        }
+        synchronized (MetricsRegistry.class) {
+            if (registeredMetrics == null) {
+                updateRegisteredMetrics();
+            }
+            return registeredMetrics;
+        }
+    }
+
+    /**
+     * Registers a metric in addition to the discovered metrics, replacing a metric with the same
+     * ID.
+     *
+     * @param metric
+     *            The metric to register
+     */
+    public static synchronized void registerMetric(final IMetric metric) {
+        programmaticMetrics.put(metric.getMID(), metric);
+        updateRegisteredMetrics();
     }
 
-    private static Map<MetricID, IMetric> internalGetRegisteredMetrics() {
-        final Map<MetricID, IMetric> allMetrics = new HashMap<MetricID, IMetric>();
+    /**
+     * Removes a metric registered with {@link #registerMetric(IMetric)}. A discovered metric with
+     * the same ID becomes available again.
+     *
+     * @param metricID
+     *            The ID of the registered metric
+     */
+    public static synchronized void unregisterMetric(final MetricID metricID) {
+        if (programmaticMetrics.remove(metricID) != null) {
+            updateRegisteredMetrics();
+        }
+    }
+
+    /**
+     * Instantiates the metrics of the extension point <code>org.somox.core.metric</code>.
+     *
+     * @return The metrics mapped on their IDs, empty if the Eclipse runtime is not running
+     */
+    public static Map<MetricID, IMetric> loadMetricsFromExtensionRegistry() {
+        final Map<MetricID, IMetric> allMetrics = new LinkedHashMap<MetricID, IMetric>();
+        if (!isExtensionRegistryAvailable()) {
+            return allMetrics;
+        }
         final IConfigurationElement[] metricExtensions = Platform.getExtensionRegistry()
                 .getConfigurationElementsFor(ORG_SOMOX_CORE_METRIC_EXTENSION_ID);
         for (final IConfigurationElement metricExtension : metricExtensions) {
@@ -61,6 +129,101 @@ public class MetricsRegistry {
         return allMetrics;
     }
 
+    /**
+     * Instantiates the metrics listed in the provider files
+     * <code>META-INF/services/org.somox.metrics.IMetric</code> visible to the given class loader.
+     *
+     * @param classLoader
+     *            The class loader used to find the provider files and load the metrics
+     * @return The metrics mapped on their IDs
+     */
+    public static Map<MetricID, IMetric> loadMetricsFromServiceLoader(final ClassLoader classLoader) {
+        final Map<MetricID, IMetric> allMetrics = new LinkedHashMap<MetricID, IMetric>();
+        final Iterator<IMetric> metrics = ServiceLoader.load(IMetric.class, classLoader).iterator();
+        try {
+            while (metrics.hasNext()) {
+                final IMetric metric = metrics.next();
+                if (!allMetrics.containsKey(metric.getMID())) {
+                    allMetrics.put(metric.getMID(), metric);
+                }
+            }
+        } catch (final ServiceConfigurationError e) {
+            LOG.error("Specified Analyzer Metric cannot be loaded.", e);
+            throw new RuntimeException("Could not instanciate metric", e);
+        }
+        return allMetrics;
+    }
+
+    /**
+     * Orders the given metrics such that the child metrics of each {@link AbstractComposedMetric}
+     * precede it. Metrics without dependencies between them keep their order.
+     *
+     * @param allMetrics
+     *            The metrics mapped on their IDs. Must contain all child metrics.
+     * @return The same metrics in dependency order
+     * @throws IllegalStateException
+     *             If a metric depends on itself, directly or via other metrics, or if a child
+     *             metric is missing
+     */
+    public static Map<MetricID, IMetric> orderByDependencies(final Map<MetricID, IMetric> allMetrics) {
+        final Map<MetricID, IMetric> result = new LinkedHashMap<MetricID, IMetric>();
+        final List<MetricID> path = new ArrayList<MetricID>();
+        for (final IMetric metric : allMetrics.values()) {
+            addWithChildMetrics(metric, allMetrics, result, path);
+        }
+        return result;
+    }
+
+    private static void addWithChildMetrics(final IMetric metric, final Map<MetricID, IMetric> allMetrics,
+            final Map<MetricID, IMetric> result, final List<MetricID> path) {
+        final MetricID metricID = metric.getMID();
+        if (result.containsKey(metricID)) {
+            return;
+        }
+        final int cycleStart = path.indexOf(metricID);
+        if (cycleStart >= 0) {
+            final StringBuilder cycle = new StringBuilder();
+            for (final MetricID current : path.subList(cycleStart, path.size())) {
+                cycle.append(current).append(" -> ");
+            }
+            throw new IllegalStateException("Cyclic dependency between metrics: " + cycle.append(metricID));
+        }
+        path.add(metricID);
+        if (metric instanceof AbstractComposedMetric) {
+            for (final IMetric childMetric : ((AbstractComposedMetric) metric).resolveChildMetrics(allMetrics)) {
+                if (childMetric == null) {
+                    throw new IllegalStateException("Metric " + metricID + " needs a metric which is not registered");
+                }
+                addWithChildMetrics(childMetric, allMetrics, result, path);
+            }
+        }
+        path.remove(path.size() - 1);
+        result.put(metricID, metric);
+    }
+
+    private static void updateRegisteredMetrics() {
+        if (discoveredMetrics == null) {
+            if (isExtensionRegistryAvailable()) {
+                discoveredMetrics = loadMetricsFromExtensionRegistry();
+            } else {
+                discoveredMetrics = loadMetricsFromServiceLoader(MetricsRegistry.class.getClassLoader());
+            }
+            LOG.debug("Discovered " + discoveredMetrics.size() + " metrics");
+        }
+        final Map<MetricID, IMetric> allMetrics = new LinkedHashMap<MetricID, IMetric>(discoveredMetrics);
+        allMetrics.putAll(programmaticMetrics);
+        registeredMetrics = Collections.unmodifiableMap(orderByDependencies(allMetrics));
+    }
+
+    private static boolean isExtensionRegistryAvailable() {
+        try {
+            return Platform.isRunning() && Platform.getExtensionRegistry() != null;
+        } catch (final LinkageError e) {
+            // the Eclipse runtime is not on the class path
+            return false;
+        }
+    }
+
     /**
      * @param allMetrics
      * @param metricExtension
@@ -161,8 +161,8 @@ public class SubsystemComponent extends AbstractMetric {
 
         }
         this.sliceArchitectureMetric.computeDirected(relationToCompute);
-        assert relationToCompute.getResult().containsKey(this.sliceArchitectureMetric.getMID());
-        final double slaq = relationToCompute.getResult().get(this.sliceArchitectureMetric.getMID());
+        assert relationToCompute.hasResultMetric(this.sliceArchitectureMetric.getMID());
+        final double slaq = relationToCompute.getResultMetric(this.sliceArchitectureMetric.getMID());
         relationToCompute.setResultMetric(this.getMID(), slaq);
     }
 
@@ -1,16 +1,13 @@
 package org.somox.metrics.util;
 
-import java.util.HashSet;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
-import org.apache.log4j.Logger;
 import org.emftext.language.java.classifiers.ConcreteClassifier;
 import org.jgrapht.DirectedGraph;
-import org.somox.filter.BaseFilter;
-import org.somox.filter.NotFilter;
 import org.somox.metrics.helper.ClassAccessGraphEdge;
-import org.somox.metrics.helper.SourceClassEdgeFilter;
-import org.somox.metrics.helper.TargetClassEdgeFilter;
 
 //import de.fzi.gast.types.GASTClass;
 
@@ -18,21 +15,29 @@ import org.somox.metrics.helper.TargetClassEdgeFilter;
  * Class used to encapsulate all computations based on the number of accesses between two pairwise
  * GASTClasses
  *
+ * The access graph is copied into a compressed sparse row structure on the first query: each class
+ * gets a dense integer ID, the targets and counts of the outgoing accesses of all classes are kept
+ * in primitive arrays, and the total outgoing and incoming counts of each class are precomputed.
+ * Sets of classes are converted into bit sets, so each query only walks the outgoing rows of the
+ * source classes. Internal, external and incoming access counts are derived from the row totals
+ * and the accesses within the set. The access graph must not be changed after the first query.
+ * Queries may be issued concurrently.
+ *
  * @author Steffen Becker
  */
 public class AccessCacheGraph {
 
-    /**
-     * Logger of this class
-     */
-    private final Logger logger = Logger.getLogger(AccessCacheGraph.class);
-
     /**
      * A graph serving as cache for the number of accesses from each GASTClass to each other
      * GASTClass
      */
     private final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph;
 
+    /**
+     * The compressed copy of the access graph, created on the first query
+     */
+    private volatile Index index = null;
+
     /**
      * Constructor of the access cache
      *
@@ -62,8 +67,8 @@ public class AccessCacheGraph {
             throw new IllegalArgumentException("Source or target classes must not be null");
         }
 
-        final TargetClassEdgeFilter filter = new TargetClassEdgeFilter(targetClasses);
-        return this.getNumberOfFilteredOutgoingAccesses(sourceClasses, filter);
+        final Index index = this.getIndex();
+        return index.countAccesses(index.getIDs(sourceClasses), index.toBitSet(targetClasses));
     }
 
     /**
@@ -75,13 +80,17 @@ public class AccessCacheGraph {
      * @return The total number of incoming accesses to the set of classes
      */
     public long calculateNumberOfIncommingAccesses(final Set<ConcreteClassifier> sourceClasses) {
+        if (sourceClasses == null) {
+            throw new IllegalArgumentException("Source classes must not be null.");
+        }
 
-        final BaseFilter<ClassAccessGraphEdge> filter = new NotFilter<ClassAccessGraphEdge>(
-                new SourceClassEdgeFilter(sourceClasses));
-
-        final long result = this.getNumberOfFilteredIncomingAccesses(sourceClasses, filter);
-
-        return result;
+        final Index index = this.getIndex();
+        final int[] ids = index.getIDs(sourceClasses);
+        long result = 0;
+        for (final int id : ids) {
+            result += index.incomingTotals[id];
+        }
+        return result - index.countAccesses(ids, index.toBitSet(ids));
     }
 
     /**
@@ -98,18 +107,17 @@ public class AccessCacheGraph {
      * @return Count of accesses
      */
     public long calculateNumberOfExternalAccesses(final Set<ConcreteClassifier> sourceClasses) {
-
-        final BaseFilter<ClassAccessGraphEdge> filter = new NotFilter<ClassAccessGraphEdge>(
-                new TargetClassEdgeFilter(sourceClasses));
-
-        final long result = this.getNumberOfFilteredOutgoingAccesses(sourceClasses, filter);
-
-        if (this.logger.isDebugEnabled()) {
-            final Set<ConcreteClassifier> otherClasses = this.substractSet(this.accessGraph.vertexSet(), sourceClasses);
-            assert result == this.calculateNumberOfAccessesToClassesInSet(sourceClasses, otherClasses);
+        if (sourceClasses == null) {
+            throw new IllegalArgumentException("Source classes must not be null.");
         }
 
-        return result;
+        final Index index = this.getIndex();
+        final int[] ids = index.getIDs(sourceClasses);
+        long result = 0;
+        for (final int id : ids) {
+            result += index.outgoingTotals[id];
+        }
+        return result - index.countAccesses(ids, index.toBitSet(ids));
     }
 
     /**
@@ -125,95 +133,137 @@ public class AccessCacheGraph {
      * @return Count of accesses
      */
     public long calculateNumberOfInternalAccesses(final Set<ConcreteClassifier> sourceClasses) {
+        if (sourceClasses == null) {
+            throw new IllegalArgumentException("Source classes must not be null.");
+        }
 
-        final BaseFilter<ClassAccessGraphEdge> filter = new TargetClassEdgeFilter(sourceClasses);
-
-        final long result = this.getNumberOfFilteredOutgoingAccesses(sourceClasses, filter);
+        final Index index = this.getIndex();
+        final int[] ids = index.getIDs(sourceClasses);
+        return index.countAccesses(ids, index.toBitSet(ids));
+    }
 
-        if (this.logger.isDebugEnabled()) {
-            assert result == this.calculateNumberOfAccessesToClassesInSet(sourceClasses, sourceClasses);
+    private Index getIndex() {
+        Index result = this.index;
+        if (result == null) {
+            synchronized (this) {
+                result = this.index;
+                if (result == null) {
+                    result = new Index(this.accessGraph);
+                    this.index = result;
+                }
+            }
         }
-
         return result;
     }
 
     /**
-     * Computes source - setToRemove
-     *
-     * @param source
-     *            Source Set
-     * @param setToRemove
-     *            Elements to be removed from source set
-     * @return source - setToRemove
+     * Immutable compressed sparse row copy of the access graph
      */
-    private Set<ConcreteClassifier> substractSet(final Set<ConcreteClassifier> source,
-            final Set<ConcreteClassifier> setToRemove) {
-        final Set<ConcreteClassifier> otherClasses = new HashSet<ConcreteClassifier>();
-        for (final ConcreteClassifier clazz : source) {
-            if (!setToRemove.contains(clazz)) {
-                otherClasses.add(clazz);
+    private static final class Index {
+
+        private final Map<ConcreteClassifier, Integer> classIDs;
+
+        /**
+         * The outgoing accesses of class <code>i</code> are stored from
+         * <code>rowOffsets[i]</code> (inclusive) to <code>rowOffsets[i + 1]</code> (exclusive)
+         */
+        private final int[] rowOffsets;
+
+        private final int[] targets;
+
+        private final int[] counts;
+
+        private final long[] outgoingTotals;
+
+        private final long[] incomingTotals;
+
+        private Index(final DirectedGraph<ConcreteClassifier, ClassAccessGraphEdge> accessGraph) {
+            final int classCount = accessGraph.vertexSet().size();
+            this.classIDs = new HashMap<ConcreteClassifier, Integer>(classCount * 2);
+            for (final ConcreteClassifier clazz : accessGraph.vertexSet()) {
+                this.classIDs.put(clazz, this.classIDs.size());
             }
-        }
-        return otherClasses;
-    }
 
-    private long getNumberOfFilteredOutgoingAccesses(final Set<ConcreteClassifier> sourceClasses,
-            final BaseFilter<ClassAccessGraphEdge> filter) {
-        // removelater
-        // Helper.writeToFile("interfacecount.txt", "start");
-        if (sourceClasses == null) {
-            throw new IllegalArgumentException("Source classes must not be null.");
+            this.rowOffsets = new int[classCount + 1];
+            for (final ClassAccessGraphEdge edge : accessGraph.edgeSet()) {
+                this.rowOffsets[this.classIDs.get(accessGraph.getEdgeSource(edge)) + 1]++;
+            }
+            for (int i = 0; i < classCount; i++) {
+                this.rowOffsets[i + 1] += this.rowOffsets[i];
+            }
+
+            final int[] nextPosition = new int[classCount];
+            System.arraycopy(this.rowOffsets, 0, nextPosition, 0, classCount);
+            this.targets = new int[this.rowOffsets[classCount]];
+            this.counts = new int[this.rowOffsets[classCount]];
+            this.outgoingTotals = new long[classCount];
+            this.incomingTotals = new long[classCount];
+            for (final ClassAccessGraphEdge edge : accessGraph.edgeSet()) {
+                final int source = this.classIDs.get(accessGraph.getEdgeSource(edge));
+                final int target = this.classIDs.get(accessGraph.getEdgeTarget(edge));
+                final int position = nextPosition[source]++;
+                this.targets[position] = target;
+                this.counts[position] = edge.getCount();
+                this.outgoingTotals[source] += edge.getCount();
+                this.incomingTotals[target] += edge.getCount();
+            }
         }
 
-        long numberOfReferences = 0;
-        for (final ConcreteClassifier clazz : sourceClasses) {
-            try {
-                if (clazz.toString().startsWith("I")) {
-                    final int i = 0; // debug
+        /**
+         * @return The IDs of the given classes, which all have to be nodes of the access graph
+         */
+        private int[] getIDs(final Set<ConcreteClassifier> classes) {
+            final int[] result = new int[classes.size()];
+            int i = 0;
+            for (final ConcreteClassifier clazz : classes) {
+                final Integer id = this.classIDs.get(clazz);
+                if (id == null) {
+                    throw new IllegalArgumentException("Class " + clazz + " is not contained in the access graph");
                 }
+                result[i++] = id;
+            }
+            return result;
+        }
 
-                if (!this.accessGraph.vertexSet().contains(clazz)) {
-                    final int i = 0; // debug
+        /**
+         * @return A bit set of the IDs of the given classes; classes which are no nodes of the
+         *         access graph have no accesses and are ignored
+         */
+        private BitSet toBitSet(final Set<ConcreteClassifier> classes) {
+            final BitSet result = new BitSet(this.outgoingTotals.length);
+            for (final ConcreteClassifier clazz : classes) {
+                final Integer id = this.classIDs.get(clazz);
+                if (id != null) {
+                    result.set(id);
                 }
-                assert this.accessGraph.vertexSet().contains(clazz);
-                if (this.accessGraph.outDegreeOf(clazz) > 0) {
-                    for (final ClassAccessGraphEdge edge : filter.filter(this.accessGraph.outgoingEdgesOf(clazz))) {
-                        numberOfReferences += edge.getCount();
-                        // removelater
-                        // Helper.writeToFile("interfacecount.txt",
-                        // GASTClassHelper.computeFullQualifiedName(edge.getTargetClazz()) + " " +
-                        // edge.getCount());
-                    }
-                }
-            } catch (final IllegalArgumentException e) {
-                // if edge of type clazz is not present, an illegal argument
-                // exception is thrown
-                throw new RuntimeException("This should never happen as outDegree was > 0", e);
             }
+            return result;
         }
-        // removelater
-        // Helper.writeToFile("interfacecount.txt", "end");
 
-        return numberOfReferences;
-    }
+        private BitSet toBitSet(final int[] ids) {
+            final BitSet result = new BitSet(this.outgoingTotals.length);
+            for (final int id : ids) {
+                result.set(id);
+            }
+            return result;
+        }
 
-    private long getNumberOfFilteredIncomingAccesses(final Set<ConcreteClassifier> sourceClasses,
-            final BaseFilter<ClassAccessGraphEdge> filter) {
-        long numberOfReferences = 0;
-        for (final ConcreteClassifier clazz : sourceClasses) {
-            try {
-                assert this.accessGraph.vertexSet().contains(clazz);
-                if (this.accessGraph.inDegreeOf(clazz) > 0) {
-                    for (final ClassAccessGraphEdge edge : filter.filter(this.accessGraph.incomingEdgesOf(clazz))) {
-                        numberOfReferences += edge.getCount();
+        /**
+         * @return The sum of the counts of all accesses from the given sources to the given targets
+         */
+        private long countAccesses(final int[] sources, final BitSet targets) {
+            if (targets.isEmpty()) {
+                return 0;
+            }
+            long result = 0;
+            for (final int source : sources) {
+                for (int position = this.rowOffsets[source]; position < this.rowOffsets[source + 1]; position++) {
+                    if (targets.get(this.targets[position])) {
+                        result += this.counts[position];
                     }
                 }
-            } catch (final IllegalArgumentException e) {
-                // if edge of type clazz is not present, an illegal argument
-                // exception is thrown: do nothing
-                throw new RuntimeException("This should never happen as outDegree was > 0", e);
             }
+            return result;
         }
-        return numberOfReferences;
     }
 }
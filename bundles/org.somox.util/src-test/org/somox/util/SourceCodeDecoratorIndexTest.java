@@ -0,0 +1,125 @@
+package org.somox.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.emftext.language.java.classifiers.Class;
+import org.emftext.language.java.classifiers.ClassifiersFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.palladiosimulator.pcm.repository.BasicComponent;
+import org.palladiosimulator.pcm.repository.OperationInterface;
+import org.palladiosimulator.pcm.repository.RepositoryFactory;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.InterfaceSourceCodeLink;
+import org.somox.sourcecodedecorator.SourceCodeDecoratorRepository;
+import org.somox.sourcecodedecorator.SourcecodedecoratorFactory;
+import org.somox.sourcecodedecorator.SourcecodedecoratorPackage;
+
+public class SourceCodeDecoratorIndexTest {
+
+    private SourceCodeDecoratorRepository repository;
+
+    @Before
+    public void setUp() {
+        this.repository = SourcecodedecoratorFactory.eINSTANCE.createSourceCodeDecoratorRepository();
+    }
+
+    @Test
+    public void testIndexIsShared() {
+        assertSame(SourceCodeDecoratorIndex.getIndex(this.repository),
+                SourceCodeDecoratorIndex.getIndex(this.repository));
+    }
+
+    @Test
+    public void testExistingLinksAreIndexed() {
+        final BasicComponent component = RepositoryFactory.eINSTANCE.createBasicComponent();
+        final ComponentImplementingClassesLink link = this.createComponentLink(component);
+        this.repository.getComponentImplementingClassesLink().add(link);
+
+        assertSame(link,
+                SourceCodeDecoratorIndex.getIndex(this.repository).getComponentImplementingClassesLink(component));
+    }
+
+    @Test
+    public void testLinksAreIndexedWhenChanged() {
+        final SourceCodeDecoratorIndex index = SourceCodeDecoratorIndex.getIndex(this.repository);
+        final OperationInterface pcmInterface = RepositoryFactory.eINSTANCE.createOperationInterface();
+        final Class jaMoPPClass = ClassifiersFactory.eINSTANCE.createClass();
+        final InterfaceSourceCodeLink link = SourcecodedecoratorFactory.eINSTANCE.createInterfaceSourceCodeLink();
+        this.repository.getInterfaceSourceCodeLink().add(link);
+        assertTrue(index.getInterfaceSourceCodeLinksOfInterface(pcmInterface).isEmpty());
+
+        link.setInterface(pcmInterface);
+        link.setGastClass(jaMoPPClass);
+        assertEquals(Arrays.asList(link), index.getInterfaceSourceCodeLinksOfInterface(pcmInterface));
+        assertEquals(Arrays.asList(link), index.getInterfaceSourceCodeLinksOfType(jaMoPPClass));
+
+        final OperationInterface otherInterface = RepositoryFactory.eINSTANCE.createOperationInterface();
+        link.setInterface(otherInterface);
+        assertTrue(index.getInterfaceSourceCodeLinksOfInterface(pcmInterface).isEmpty());
+        assertEquals(Arrays.asList(link), index.getInterfaceSourceCodeLinksOfInterface(otherInterface));
+
+        this.repository.getInterfaceSourceCodeLink().remove(link);
+        assertTrue(index.getInterfaceSourceCodeLinksOfInterface(otherInterface).isEmpty());
+        assertTrue(index.getInterfaceSourceCodeLinksOfType(jaMoPPClass).isEmpty());
+    }
+
+    @Test
+    public void testManyValuedReferences() {
+        final SourceCodeDecoratorIndex index = SourceCodeDecoratorIndex.getIndex(this.repository);
+        final Class jaMoPPClass = ClassifiersFactory.eINSTANCE.createClass();
+        final ComponentImplementingClassesLink link = this.createComponentLink(
+                RepositoryFactory.eINSTANCE.createBasicComponent());
+        this.repository.getComponentImplementingClassesLink().add(link);
+
+        link.getImplementingClasses().add(jaMoPPClass);
+        assertEquals(Arrays.asList(link), this.getImplementingLinks(index, jaMoPPClass));
+
+        link.getImplementingClasses().remove(jaMoPPClass);
+        assertTrue(this.getImplementingLinks(index, jaMoPPClass).isEmpty());
+    }
+
+    @Test
+    public void testLinksAreInListOrder() {
+        final SourceCodeDecoratorIndex index = SourceCodeDecoratorIndex.getIndex(this.repository);
+        final BasicComponent component = RepositoryFactory.eINSTANCE.createBasicComponent();
+        final ComponentImplementingClassesLink link1 = this.createComponentLink(null);
+        final ComponentImplementingClassesLink link2 = this.createComponentLink(component);
+        final ComponentImplementingClassesLink link3 = this.createComponentLink(component);
+        this.repository.getComponentImplementingClassesLink().add(link1);
+        this.repository.getComponentImplementingClassesLink().add(link2);
+        this.repository.getComponentImplementingClassesLink().add(0, link3);
+        assertSame(link3, index.getComponentImplementingClassesLink(component));
+
+        // set after adding, the earlier link in the list still comes first
+        link1.setComponent(component);
+        assertSame(link3, index.getComponentImplementingClassesLink(component));
+
+        this.repository.getComponentImplementingClassesLink().move(2, 0);
+        assertSame(link1, index.getComponentImplementingClassesLink(component));
+
+        this.repository.getComponentImplementingClassesLink().clear();
+        assertNull(index.getComponentImplementingClassesLink(component));
+    }
+
+    private ComponentImplementingClassesLink createComponentLink(final BasicComponent component) {
+        final ComponentImplementingClassesLink link = SourcecodedecoratorFactory.eINSTANCE
+                .createComponentImplementingClassesLink();
+        link.setComponent(component);
+        return link;
+    }
+
+    private List<ComponentImplementingClassesLink> getImplementingLinks(final SourceCodeDecoratorIndex index,
+            final Class jaMoPPClass) {
+        return index.getLinks(
+                SourcecodedecoratorPackage.Literals.SOURCE_CODE_DECORATOR_REPOSITORY__COMPONENT_IMPLEMENTING_CLASSES_LINK,
+                SourcecodedecoratorPackage.Literals.COMPONENT_IMPLEMENTING_CLASSES_LINK__IMPLEMENTING_CLASSES,
+                jaMoPPClass, ComponentImplementingClassesLink.class);
+    }
+}
@@ -39,13 +39,11 @@ public class SourceCodeDecoratorHelper {
     }
 
     public <T> T findPCMInterfaceForJaMoPPType(final Type type, java.lang.Class<T> interfaceClass) {
-        final InterfaceSourceCodeLink ifSourceCodeLink = this.sourceCodeDecorator.getInterfaceSourceCodeLink()
-                .stream()
-                .filter(interfaceSourceCodeLink -> null != interfaceSourceCodeLink.getGastClass()
-                        && null != interfaceSourceCodeLink.getInterface()
-                        && interfaceSourceCodeLink.getGastClass().equals(type)
+        final InterfaceSourceCodeLink ifSourceCodeLink = SourceCodeDecoratorIndex.getIndex(this.sourceCodeDecorator)
+                .getInterfaceSourceCodeLinksOfType(type).stream()
+                .filter(interfaceSourceCodeLink -> null != interfaceSourceCodeLink.getInterface()
                         && interfaceClass.isInstance(interfaceSourceCodeLink.getInterface()))
-                .findAny().orElse(null);
+                .findFirst().orElse(null);
 
         return null == ifSourceCodeLink ? null : interfaceClass.cast(ifSourceCodeLink.getInterface());
     }
@@ -0,0 +1,361 @@
+package org.somox.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.emftext.language.java.members.Member;
+import org.emftext.language.java.types.Type;
+import org.palladiosimulator.pcm.repository.Interface;
+import org.palladiosimulator.pcm.repository.RepositoryComponent;
+import org.palladiosimulator.pcm.repository.Signature;
+import org.somox.sourcecodedecorator.ComponentImplementingClassesLink;
+import org.somox.sourcecodedecorator.InterfaceSourceCodeLink;
+import org.somox.sourcecodedecorator.MethodLevelResourceDemandingInternalBehaviorLink;
+import org.somox.sourcecodedecorator.MethodLevelSourceCodeLink;
+import org.somox.sourcecodedecorator.SourceCodeDecoratorRepository;
+import org.somox.sourcecodedecorator.SourcecodedecoratorPackage;
+
+/**
+ * Hash indices over the links of a {@link SourceCodeDecoratorRepository}. For each list of links
+ * in the repository and each cross reference of these links, the index maps the referenced objects
+ * to the links referring to them. The links themselves give the other direction.
+ *
+ * The index is attached to the repository as an {@link EContentAdapter}, so it stays consistent
+ * when links are added, removed, or changed. The links found for an object are in the order of the
+ * list containing them, so the first link found is the one a linear scan of the list would find.
+ * Use {@link #getIndex(SourceCodeDecoratorRepository)} to obtain the index of a repository.
+ */
+public final class SourceCodeDecoratorIndex extends EContentAdapter {
+
+    private final SourceCodeDecoratorRepository repository;
+
+    /** links by containing list, cross reference, and referenced object */
+    private final Map<EReference, Map<EReference, Map<EObject, List<EObject>>>> index = new HashMap<>();
+
+    /** position of each link in its list, valid as long as {@link #outOfOrder} is false */
+    private final Map<EObject, Long> sequenceNumbers = new HashMap<>();
+
+    private long nextSequenceNumber = 0;
+
+    /** true if links were inserted into or moved within a list since the last renumbering */
+    private boolean outOfOrder = false;
+
+    private final Comparator<EObject> listOrder = new Comparator<EObject>() {
+        @Override
+        public int compare(final EObject link1, final EObject link2) {
+            return Long.compare(SourceCodeDecoratorIndex.this.sequenceNumbers.get(link1),
+                    SourceCodeDecoratorIndex.this.sequenceNumbers.get(link2));
+        }
+    };
+
+    private SourceCodeDecoratorIndex(final SourceCodeDecoratorRepository repository) {
+        this.repository = repository;
+        this.renumber();
+    }
+
+    /**
+     * Returns the index attached to the given repository. The index is created and attached when
+     * it is requested first.
+     *
+     * @param repository
+     *            The repository to index.
+     * @return The index of the repository.
+     */
+    public static SourceCodeDecoratorIndex getIndex(final SourceCodeDecoratorRepository repository) {
+        synchronized (repository) {
+            for (final Adapter adapter : repository.eAdapters()) {
+                if (adapter instanceof SourceCodeDecoratorIndex) {
+                    return (SourceCodeDecoratorIndex) adapter;
+                }
+            }
+            final SourceCodeDecoratorIndex index = new SourceCodeDecoratorIndex(repository);
+            repository.eAdapters().add(index);
+            return index;
+        }
+    }
+
+    /**
+     * @return The first link which implements the given component, or null if there is none.
+     */
+    public ComponentImplementingClassesLink getComponentImplementingClassesLink(final RepositoryComponent component) {
+        return first(this.getLinks(
+                SourcecodedecoratorPackage.Literals.SOURCE_CODE_DECORATOR_REPOSITORY__COMPONENT_IMPLEMENTING_CLASSES_LINK,
+                SourcecodedecoratorPackage.Literals.COMPONENT_IMPLEMENTING_CLASSES_LINK__COMPONENT, component,
+                ComponentImplementingClassesLink.class));
+    }
+
+    /**
+     * @return The links which map the given interface to source code.
+     */
+    public List<InterfaceSourceCodeLink> getInterfaceSourceCodeLinksOfInterface(final Interface pcmInterface) {
+        return this.getLinks(
+                SourcecodedecoratorPackage.Literals.SOURCE_CODE_DECORATOR_REPOSITORY__INTERFACE_SOURCE_CODE_LINK,
+                SourcecodedecoratorPackage.Literals.INTERFACE_SOURCE_CODE_LINK__INTERFACE, pcmInterface,
+                InterfaceSourceCodeLink.class);
+    }
+
+    /**
+     * @return The links which map the given type to an interface.
+     */
+    public List<InterfaceSourceCodeLink> getInterfaceSourceCodeLinksOfType(final Type gastClass) {
+        return this.getLinks(
+                SourcecodedecoratorPackage.Literals.SOURCE_CODE_DECORATOR_REPOSITORY__INTERFACE_SOURCE_CODE_LINK,
+                SourcecodedecoratorPackage.Literals.INTERFACE_SOURCE_CODE_LINK__GAST_CLASS, gastClass,
+                InterfaceSourceCodeLink.class);
+    }
+
+    /**
+     * @return The method level links of the given member.
+     */
+    public List<MethodLevelSourceCodeLink> getMethodLevelSourceCodeLinksOfFunction(final Member function) {
+        return this.getLinks(
+                SourcecodedecoratorPackage.Literals.SOURCE_CODE_DECORATOR_REPOSITORY__METHOD_LEVEL_SOURCE_CODE_LINK,
+                SourcecodedecoratorPackage.Literals.ABSTRACT_METHOD_LEVEL_SOURCE_CODE_LINK__FUNCTION, function,
+                MethodLevelSourceCodeLink.class);
+    }
+
+    /**
+     * @return The method level links of the given operation.
+     */
+    public List<MethodLevelSourceCodeLink> getMethodLevelSourceCodeLinksOfOperation(final Signature operation) {
+        return this.getLinks(
+                SourcecodedecoratorPackage.Literals.SOURCE_CODE_DECORATOR_REPOSITORY__METHOD_LEVEL_SOURCE_CODE_LINK,
+                SourcecodedecoratorPackage.Literals.METHOD_LEVEL_SOURCE_CODE_LINK__OPERATION, operation,
+                MethodLevelSourceCodeLink.class);
+    }
+
+    /**
+     * @return The links of the given member to internal behaviours.
+     */
+    public List<MethodLevelResourceDemandingInternalBehaviorLink> getMethodLevelResourceDemandingInternalBehaviorLinksOfFunction(
+            final Member function) {
+        return this.getLinks(
+                SourcecodedecoratorPackage.Literals.SOURCE_CODE_DECORATOR_REPOSITORY__METHOD_LEVEL_RESOURCE_DEMANDING_INTERNAL_BEHAVIOR_LINK,
+                SourcecodedecoratorPackage.Literals.ABSTRACT_METHOD_LEVEL_SOURCE_CODE_LINK__FUNCTION, function,
+                MethodLevelResourceDemandingInternalBehaviorLink.class);
+    }
+
+    /**
+     * Looks up the links of one list of the repository which refer to an object.
+     *
+     * @param list
+     *            The containment reference of the repository holding the links.
+     * @param reference
+     *            The cross reference of the links.
+     * @param target
+     *            The referenced object.
+     * @param linkType
+     *            The type of the links in the list.
+     * @return The links referring to the object in the order of the list. The result is a copy
+     *         which is not affected by later changes.
+     */
+    public synchronized <T extends EObject> List<T> getLinks(final EReference list, final EReference reference,
+            final EObject target, final Class<T> linkType) {
+        if (target == null) {
+            return Collections.emptyList();
+        }
+        if (this.outOfOrder) {
+            this.renumber();
+        }
+        final Map<EReference, Map<EObject, List<EObject>>> listIndex = this.index.get(list);
+        final Map<EObject, List<EObject>> referenceIndex = listIndex == null ? null : listIndex.get(reference);
+        final List<EObject> links = referenceIndex == null ? null : referenceIndex.get(target);
+        if (links == null) {
+            return Collections.emptyList();
+        }
+        final List<T> result = new ArrayList<>(links.size());
+        for (final EObject link : links) {
+            result.add(linkType.cast(link));
+        }
+        return result;
+    }
+
+    private static <T> T first(final List<T> links) {
+        return links.isEmpty() ? null : links.get(0);
+    }
+
+    @Override
+    public void notifyChanged(final Notification notification) {
+        super.notifyChanged(notification);
+        if (!(notification.getFeature() instanceof EReference) || notification.isTouch()) {
+            return;
+        }
+        final EReference feature = (EReference) notification.getFeature();
+        synchronized (this) {
+            if (notification.getNotifier() == this.repository && feature.isContainment()) {
+                this.linksChanged(feature, notification);
+            } else if (notification.getNotifier() instanceof EObject && isIndexed(feature)
+                    && this.sequenceNumbers.containsKey(notification.getNotifier())) {
+                this.linkChanged((EObject) notification.getNotifier(), feature, notification);
+            }
+        }
+    }
+
+    private void linksChanged(final EReference list, final Notification notification) {
+        final int size = ((List<?>) this.repository.eGet(list)).size();
+        switch (notification.getEventType()) {
+        case Notification.ADD:
+            this.outOfOrder |= notification.getPosition() != size - 1;
+            this.addLink(list, (EObject) notification.getNewValue());
+            break;
+        case Notification.ADD_MANY:
+            final Collection<?> added = (Collection<?>) notification.getNewValue();
+            this.outOfOrder |= notification.getPosition() != size - added.size();
+            for (final Object link : added) {
+                this.addLink(list, (EObject) link);
+            }
+            break;
+        case Notification.REMOVE:
+            this.removeLink(list, (EObject) notification.getOldValue());
+            break;
+        case Notification.REMOVE_MANY:
+            for (final Object link : (Collection<?>) notification.getOldValue()) {
+                this.removeLink(list, (EObject) link);
+            }
+            break;
+        case Notification.SET:
+            this.removeLink(list, (EObject) notification.getOldValue());
+            this.outOfOrder = true;
+            this.addLink(list, (EObject) notification.getNewValue());
+            break;
+        case Notification.MOVE:
+            this.outOfOrder = true;
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void linkChanged(final EObject link, final EReference reference, final Notification notification) {
+        final EReference list = link.eContainmentFeature();
+        switch (notification.getEventType()) {
+        case Notification.SET:
+        case Notification.UNSET:
+        case Notification.RESOLVE:
+            this.removeTarget(list, reference, link, (EObject) notification.getOldValue());
+            this.addTarget(list, reference, link, (EObject) notification.getNewValue());
+            break;
+        case Notification.ADD:
+            this.addTarget(list, reference, link, (EObject) notification.getNewValue());
+            break;
+        case Notification.ADD_MANY:
+            for (final Object target : (Collection<?>) notification.getNewValue()) {
+                this.addTarget(list, reference, link, (EObject) target);
+            }
+            break;
+        case Notification.REMOVE:
+            this.removeTarget(list, reference, link, (EObject) notification.getOldValue());
+            break;
+        case Notification.REMOVE_MANY:
+            for (final Object target : (Collection<?>) notification.getOldValue()) {
+                this.removeTarget(list, reference, link, (EObject) target);
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    private static boolean isIndexed(final EReference reference) {
+        return !reference.isContainment() && !reference.isContainer() && !reference.isDerived();
+    }
+
+    private void addLink(final EReference list, final EObject link) {
+        if (link == null) {
+            return;
+        }
+        this.sequenceNumbers.put(link, this.nextSequenceNumber++);
+        for (final EReference reference : link.eClass().getEAllReferences()) {
+            if (isIndexed(reference)) {
+                for (final EObject target : getTargets(link, reference)) {
+                    this.addTarget(list, reference, link, target);
+                }
+            }
+        }
+    }
+
+    private void removeLink(final EReference list, final EObject link) {
+        if (link == null) {
+            return;
+        }
+        for (final EReference reference : link.eClass().getEAllReferences()) {
+            if (isIndexed(reference)) {
+                for (final EObject target : getTargets(link, reference)) {
+                    this.removeTarget(list, reference, link, target, true);
+                }
+            }
+        }
+        this.sequenceNumbers.remove(link);
+    }
+
+    private void addTarget(final EReference list, final EReference reference, final EObject link,
+            final EObject target) {
+        if (target == null) {
+            return;
+        }
+        final List<EObject> links = this.index.computeIfAbsent(list, key -> new HashMap<>())
+                .computeIfAbsent(reference, key -> new HashMap<>())
+                .computeIfAbsent(target, key -> new ArrayList<>(1));
+        // keep the links sorted by their position in the list
+        final int position = Collections.binarySearch(links, link, this.listOrder);
+        if (position < 0) {
+            links.add(-position - 1, link);
+        }
+    }
+
+    private void removeTarget(final EReference list, final EReference reference, final EObject link,
+            final EObject target) {
+        this.removeTarget(list, reference, link, target, false);
+    }
+
+    private void removeTarget(final EReference list, final EReference reference, final EObject link,
+            final EObject target, final boolean linkRemoved) {
+        if (target == null || (!linkRemoved && getTargets(link, reference).contains(target))) {
+            // a many-valued reference may still contain another occurrence of the target
+            return;
+        }
+        final Map<EReference, Map<EObject, List<EObject>>> listIndex = this.index.get(list);
+        final Map<EObject, List<EObject>> referenceIndex = listIndex == null ? null : listIndex.get(reference);
+        final List<EObject> links = referenceIndex == null ? null : referenceIndex.get(target);
+        if (links != null) {
+            links.remove(link);
+            if (links.isEmpty()) {
+                referenceIndex.remove(target);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<EObject> getTargets(final EObject link, final EReference reference) {
+        final Object value = link.eGet(reference);
+        if (reference.isMany()) {
+            return (List<EObject>) value;
+        }
+        return value == null ? Collections.<EObject> emptyList() : Collections.singletonList((EObject) value);
+    }
+
+    /**
+     * Numbers all links by their position in their lists and rebuilds the indices.
+     */
+    private void renumber() {
+        this.index.clear();
+        this.sequenceNumbers.clear();
+        this.nextSequenceNumber = 0;
+        for (final EReference list : this.repository.eClass().getEAllContainments()) {
+            for (final EObject link : getTargets(this.repository, list)) {
+                this.addLink(list, link);
+            }
+        }
+        this.outOfOrder = false;
+    }
+}